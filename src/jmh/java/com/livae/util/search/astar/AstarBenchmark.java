@@ -0,0 +1,131 @@
+package com.livae.util.search.astar;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of {@link AstarTree} against {@link AstarTreeThreads}, {@link
+ * AstarTreeHashDistributed}, {@link AstarBidirectional} and {@link AstarAnytime} solving the same
+ * scrambled {@link SlidingPuzzle}. Each operation is a full search from the initial board, the
+ * anytime one until its solution is optimal.
+ * The pool of astarTreeThreadsPool is created once per trial.
+ */
+@org.openjdk.jmh.annotations.State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+public class AstarBenchmark {
+
+	private static final long SEED = 0;
+
+	@Param({"3", "4"})
+	public int width;
+
+	@Param({"40"})
+	public int moves;
+
+	@Param({"2", "4"})
+	public int threads;
+
+	@Param({"BTREE", "BINARY_HEAP", "BUCKET_LIFO"})
+	public OpenList.Type openListType;
+
+	private SlidingPuzzle puzzle;
+
+	private SlidingPuzzle.Board board;
+
+	private ExecutorService executor;
+
+	@Setup(Level.Trial)
+	public void createPuzzle() {
+		puzzle = new SlidingPuzzle(width);
+		board = puzzle.scramble(moves, SEED);
+		executor = Executors.newFixedThreadPool(threads);
+	}
+
+	@TearDown(Level.Trial)
+	public void shutdownExecutor() {
+		executor.shutdown();
+	}
+
+	@Benchmark
+	public State astarTree() {
+		AstarTree astar = new AstarTree(puzzle.getOperations(), puzzle.getHeuristic(),
+		                                puzzle.createFactory());
+		astar.setOpenListType(openListType);
+		return astar.start(-1, -1, board.copy());
+	}
+
+	@Benchmark
+	public State astarTreeThreads() {
+		AstarTreeThreads astar = new AstarTreeThreads(puzzle.getOperations(),
+		                                              puzzle.getHeuristic(),
+		                                              puzzle.createFactory(), threads);
+		astar.setOpenListType(openListType);
+		return astar.start(-1, -1, board.copy());
+	}
+
+	@Benchmark
+	public State astarTreeThreadsPool() {
+		AstarTreeThreads astar = new AstarTreeThreads(puzzle.getOperations(),
+		                                              puzzle.getHeuristics(),
+		                                              puzzle.createFactory(), threads, executor);
+		astar.setOpenListType(openListType);
+		return astar.start(-1, -1, board.copy());
+	}
+
+	@Benchmark
+	public State astarTreeThreadsConcurrentFactory() {
+		AstarTreeThreads astar = new AstarTreeThreads(puzzle.getOperations(),
+		                                              puzzle.getHeuristic(),
+		                                              puzzle.createConcurrentFactory(), threads);
+		astar.setOpenListType(openListType);
+		return astar.start(-1, -1, board.copy());
+	}
+
+	@Benchmark
+	public State astarTreeHashDistributed() {
+		AstarTreeHashDistributed astar = new AstarTreeHashDistributed(puzzle.getOperations(),
+		                                                              puzzle.getHeuristic(),
+		                                                              puzzle.createFactory(),
+		                                                              threads);
+		return astar.start(-1, -1, board.copy());
+	}
+
+	@Benchmark
+	public State astarBidirectional() {
+		AstarBidirectional astar = new AstarBidirectional(puzzle.getOperations(),
+		                                                  puzzle.getHeuristic(),
+		                                                  puzzle.getHeuristic(board),
+		                                                  puzzle.createFactory());
+		return astar.start(-1, -1, board.copy(), puzzle.goal());
+	}
+
+	@Benchmark
+	public State astarAnytime() {
+		AstarAnytime astar = new AstarAnytime(puzzle.getOperations(), puzzle.getHeuristic(),
+		                                      puzzle.createFactory(), 3, 0.5);
+		State solution = astar.start(-1, -1, board.copy());
+		while (!astar.isFinished()) {
+			solution = astar.continueAlgorithm(-1);
+		}
+		return solution;
+	}
+
+}
@@ -0,0 +1,83 @@
+package com.livae.util.search.astar;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of {@link AstarExternalMemory} with different number of partitions against {@link
+ * AstarTree} solving the same scrambled {@link SlidingPuzzle}. The files are created in the
+ * temporary directory.
+ */
+@org.openjdk.jmh.annotations.State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+public class ExternalMemoryBenchmark {
+
+	private static final long SEED = 0;
+
+	@Param({"3", "4"})
+	public int width;
+
+	@Param({"40"})
+	public int moves;
+
+	@Param({"1", "16"})
+	public int partitions;
+
+	private SlidingPuzzle puzzle;
+
+	private SlidingPuzzle.Board board;
+
+	private File directory;
+
+	@Setup(Level.Trial)
+	public void createPuzzle() throws IOException {
+		puzzle = new SlidingPuzzle(width);
+		board = puzzle.scramble(moves, SEED);
+		directory = File.createTempFile("astar", "");
+		if (!directory.delete() || !directory.mkdir()) {
+			throw new IOException("Cannot create the directory " + directory);
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void deleteDirectory() {
+		//noinspection ResultOfMethodCallIgnored
+		directory.delete();
+	}
+
+	@Benchmark
+	public State astarTree() {
+		AstarTree astar = new AstarTree(puzzle.getOperations(), puzzle.getHeuristic(),
+		                                puzzle.createFactory());
+		return astar.start(-1, -1, board.copy());
+	}
+
+	@Benchmark
+	public State astarExternalMemory() {
+		AstarExternalMemory astar = new AstarExternalMemory(puzzle.getOperations(),
+		                                                    puzzle.getHeuristic(),
+		                                                    puzzle.createFactory(),
+		                                                    puzzle.getSerializer(), directory,
+		                                                    partitions);
+		return astar.start(-1, -1, board.copy());
+	}
+
+}
@@ -0,0 +1,74 @@
+package com.livae.util.search.astar;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the memory bounded searches, {@link AstarIterativeDeepening} and {@link
+ * AstarMemoryBounded} with different memory limits, against {@link AstarTree} solving the same
+ * scrambled {@link SlidingPuzzle}.
+ */
+@org.openjdk.jmh.annotations.State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+public class MemoryBoundedBenchmark {
+
+	private static final long SEED = 0;
+
+	@Param({"3", "4"})
+	public int width;
+
+	@Param({"40"})
+	public int moves;
+
+	@Param({"1000", "100000"})
+	public int maximumStates;
+
+	private SlidingPuzzle puzzle;
+
+	private SlidingPuzzle.Board board;
+
+	@Setup(Level.Trial)
+	public void createPuzzle() {
+		puzzle = new SlidingPuzzle(width);
+		board = puzzle.scramble(moves, SEED);
+	}
+
+	@Benchmark
+	public State astarTree() {
+		AstarTree astar = new AstarTree(puzzle.getOperations(), puzzle.getHeuristic(),
+		                                puzzle.createFactory());
+		return astar.start(-1, -1, board.copy());
+	}
+
+	@Benchmark
+	public State astarIterativeDeepening() {
+		AstarIterativeDeepening astar = new AstarIterativeDeepening(puzzle.getOperations(),
+		                                                            puzzle.getHeuristic(),
+		                                                            puzzle.createFactory());
+		return astar.start(-1, -1, board.copy());
+	}
+
+	@Benchmark
+	public State astarMemoryBounded() {
+		AstarMemoryBounded astar = new AstarMemoryBounded(puzzle.getOperations(),
+		                                                  puzzle.getHeuristic(),
+		                                                  puzzle.createFactory(), maximumStates);
+		return astar.start(-1, -1, board.copy());
+	}
+
+}
@@ -0,0 +1,61 @@
+package com.livae.util.search.astar;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of {@link AstarTree} with several heuristics, comparing one open list per heuristic
+ * against the multi-heuristic list with one node per state.
+ */
+@org.openjdk.jmh.annotations.State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+public class MultiHeuristicBenchmark {
+
+	private static final long SEED = 0;
+
+	@Param({"3", "4"})
+	public int width;
+
+	@Param({"40"})
+	public int moves;
+
+	@Param({"2", "4"})
+	public int heuristics;
+
+	@Param({"BTREE", "BINARY_HEAP", "MULTI_HEURISTIC_HEAP"})
+	public OpenList.Type openListType;
+
+	private SlidingPuzzle puzzle;
+
+	private SlidingPuzzle.Board board;
+
+	@Setup(Level.Trial)
+	public void createPuzzle() {
+		puzzle = new SlidingPuzzle(width, heuristics);
+		board = puzzle.scramble(moves, SEED);
+	}
+
+	@Benchmark
+	public State astarTree() {
+		AstarTree astar = new AstarTree(puzzle.getOperations(), puzzle.getHeuristics(),
+		                                puzzle.createFactory());
+		astar.setOpenListType(openListType);
+		return astar.start(-1, -1, board.copy());
+	}
+
+}
@@ -0,0 +1,98 @@
+package com.livae.util.search.astar;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of building a {@link PatternDatabase} of a {@link SlidingPuzzle} with several threads
+ * and of {@link AstarTree} solving the puzzle with the manhattan distance alone or combined with
+ * the database.
+ */
+@org.openjdk.jmh.annotations.State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+public class PatternDatabaseBenchmark {
+
+	private static final long SEED = 0;
+
+	private static final int[] PATTERN_TILES = {1, 2, 3, 4};
+
+	@Param({"3"})
+	public int width;
+
+	@Param({"40"})
+	public int moves;
+
+	@Param({"1", "4"})
+	public int threads;
+
+	private SlidingPuzzle puzzle;
+
+	private SlidingPuzzle.Board board;
+
+	private Pattern pattern;
+
+	private File file;
+
+	private File buildFile;
+
+	private Heuristic patternHeuristic;
+
+	@Setup(Level.Trial)
+	public void createPuzzle() throws IOException {
+		puzzle = new SlidingPuzzle(width);
+		board = puzzle.scramble(moves, SEED);
+		pattern = puzzle.createPattern(PATTERN_TILES);
+		file = File.createTempFile("pattern", ".pdb");
+		buildFile = File.createTempFile("pattern", ".pdb");
+		PatternDatabase.build(pattern, file, threads);
+		// the manhattan distance avoids stopping in the boards with the pattern tiles in place
+		patternHeuristic = new PatternDatabaseHeuristic(pattern, PatternDatabase.open(file),
+		                                                puzzle.getHeuristic());
+	}
+
+	@TearDown(Level.Trial)
+	public void deleteFile() {
+		//noinspection ResultOfMethodCallIgnored
+		file.delete();
+		//noinspection ResultOfMethodCallIgnored
+		buildFile.delete();
+	}
+
+	@Benchmark
+	public PatternDatabase build() throws IOException {
+		return PatternDatabase.build(pattern, buildFile, threads);
+	}
+
+	@Benchmark
+	public State astarTreeManhattan() {
+		AstarTree astar = new AstarTree(puzzle.getOperations(), puzzle.getHeuristic(),
+		                                puzzle.createFactory());
+		return astar.start(-1, -1, board.copy());
+	}
+
+	@Benchmark
+	public State astarTreePatternDatabase() {
+		AstarTree astar = new AstarTree(puzzle.getOperations(), patternHeuristic,
+		                                puzzle.createFactory());
+		return astar.start(-1, -1, board.copy());
+	}
+
+}
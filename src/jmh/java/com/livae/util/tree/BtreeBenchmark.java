@@ -0,0 +1,167 @@
+package com.livae.util.tree;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the basic operations of the {@link Btree}. The getFirst and remove benchmarks keep
+ * the size of the tree constant adding one element back per operation, the same way the open
+ * list of the a-star is used.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+public class BtreeBenchmark {
+
+	private static final int KEYS = 100000;
+
+	@Param({"3", "6", "16", "64"})
+	public int nodesPerPage;
+
+	private Integer[] keys;
+
+	private Integer[] sortedKeys;
+
+	private long[] longKeys;
+
+	private Btree<Integer> tree;
+
+	private int position;
+
+	private final CountVisitor countVisitor = new CountVisitor();
+
+	@Setup(Level.Trial)
+	public void createKeys() {
+		Random random = new Random(0);
+		keys = new Integer[KEYS];
+		for (int i = 0; i < KEYS; i++) {
+			keys[i] = random.nextInt();
+		}
+		longKeys = new long[KEYS];
+		for (int i = 0; i < KEYS; i++) {
+			longKeys[i] = keys[i];
+		}
+		sortedKeys = keys.clone();
+		Arrays.sort(sortedKeys);
+	}
+
+	@Setup(Level.Iteration)
+	public void fillTree() {
+		tree = new Btree<>(nodesPerPage);
+		for (Integer key : keys) {
+			tree.add(key);
+		}
+		position = 0;
+	}
+
+	private Integer nextKey() {
+		Integer key = keys[position];
+		position++;
+		if (position == keys.length) {
+			position = 0;
+		}
+		return key;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(KEYS)
+	public Btree<Integer> add() {
+		Btree<Integer> btree = new Btree<>(nodesPerPage);
+		for (Integer key : keys) {
+			btree.add(key);
+		}
+		return btree;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(KEYS)
+	public LongBtree addLong() {
+		LongBtree btree = new LongBtree(nodesPerPage);
+		for (long key : longKeys) {
+			btree.add(key);
+		}
+		return btree;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(KEYS)
+	public Btree<Integer> addSorted() {
+		Btree<Integer> btree = new Btree<>(nodesPerPage);
+		for (Integer key : sortedKeys) {
+			btree.add(key);
+		}
+		return btree;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(KEYS)
+	public Btree<Integer> fromSorted() {
+		return Btree.fromSorted(sortedKeys, nodesPerPage, null);
+	}
+
+	@Benchmark
+	public Integer getFirst() {
+		Integer first = tree.getFirst();
+		tree.add(nextKey());
+		return first;
+	}
+
+	@Benchmark
+	public long remove() {
+		Integer key = nextKey();
+		tree.remove(key);
+		tree.add(key);
+		return tree.getSize();
+	}
+
+	@Benchmark
+	public int visitRange() {
+		countVisitor.count = 0;
+		tree.visitRange(nextKey(), Integer.MAX_VALUE, countVisitor);
+		return countVisitor.count;
+	}
+
+	@Benchmark
+	public long rank() {
+		return tree.rank(nextKey());
+	}
+
+	@Benchmark
+	public Integer select() {
+		nextKey();
+		// a different percentile every time
+		return tree.select(position * tree.getSize() / KEYS);
+	}
+
+	private static class CountVisitor implements BtreeStoppableVisitor<Integer> {
+
+		private static final int RANGE = 100;
+
+		private int count;
+
+		@Override
+		public boolean visit(Integer object, int deep) {
+			count++;
+			return count < RANGE;
+		}
+	}
+
+}
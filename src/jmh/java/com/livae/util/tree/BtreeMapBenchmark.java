@@ -0,0 +1,107 @@
+package com.livae.util.tree;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the lookups of the {@link BtreeMap} against a {@link TreeMap} with the same keys.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+public class BtreeMapBenchmark {
+
+	private static final int KEYS = 100000;
+
+	@Param({"6", "16", "64"})
+	public int nodesPerPage;
+
+	private Integer[] keys;
+
+	private BtreeMap<Integer, Integer> btreeMap;
+
+	private TreeMap<Integer, Integer> treeMap;
+
+	private int position;
+
+	@Setup(Level.Trial)
+	public void createKeys() {
+		Random random = new Random(0);
+		keys = new Integer[KEYS];
+		for (int i = 0; i < KEYS; i++) {
+			keys[i] = random.nextInt();
+		}
+	}
+
+	@Setup(Level.Iteration)
+	public void fillMaps() {
+		btreeMap = new BtreeMap<>(null, nodesPerPage);
+		treeMap = new TreeMap<>();
+		for (Integer key : keys) {
+			btreeMap.put(key, key);
+			treeMap.put(key, key);
+		}
+		position = 0;
+	}
+
+	private Integer nextKey() {
+		Integer key = keys[position];
+		position++;
+		if (position == keys.length) {
+			position = 0;
+		}
+		return key;
+	}
+
+	@Benchmark
+	public Integer btreeMapGet() {
+		return btreeMap.get(nextKey());
+	}
+
+	@Benchmark
+	public Integer treeMapGet() {
+		return treeMap.get(nextKey());
+	}
+
+	@Benchmark
+	public Integer btreeMapFloor() {
+		return btreeMap.floorKey(nextKey() - 1);
+	}
+
+	@Benchmark
+	public Integer treeMapFloor() {
+		return treeMap.floorKey(nextKey() - 1);
+	}
+
+	@Benchmark
+	public Integer btreeMapRemovePut() {
+		Integer key = nextKey();
+		btreeMap.remove(key);
+		return btreeMap.put(key, key);
+	}
+
+	@Benchmark
+	public Integer treeMapRemovePut() {
+		Integer key = nextKey();
+		treeMap.remove(key);
+		return treeMap.put(key, key);
+	}
+
+}
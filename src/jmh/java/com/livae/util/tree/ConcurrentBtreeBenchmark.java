@@ -0,0 +1,85 @@
+package com.livae.util.tree;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Benchmarks of the {@link ConcurrentBtree} against a {@link Btree} with one lock, shared by
+ * several threads. Every add is followed by the remove of the same element so the size of the
+ * trees is constant.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Threads(4)
+public class ConcurrentBtreeBenchmark {
+
+	private static final int KEYS = 100000;
+
+	@Param({"16", "32", "64"})
+	public int nodesPerPage;
+
+	private ConcurrentBtree<Integer> concurrentTree;
+
+	private Btree<Integer> tree;
+
+	private ReentrantLock lock;
+
+	@Setup(Level.Iteration)
+	public void fillTrees() {
+		concurrentTree = new ConcurrentBtree<>(nodesPerPage);
+		tree = new Btree<>(nodesPerPage);
+		lock = new ReentrantLock();
+		Random random = new Random(0);
+		for (int i = 0; i < KEYS; i++) {
+			Integer key = random.nextInt();
+			concurrentTree.add(key);
+			tree.add(key);
+		}
+	}
+
+	@Benchmark
+	public boolean concurrentAddRemove() {
+		Integer key = ThreadLocalRandom.current().nextInt();
+		concurrentTree.add(key);
+		return concurrentTree.remove(key);
+	}
+
+	@Benchmark
+	public long lockedAddRemove() {
+		Integer key = ThreadLocalRandom.current().nextInt();
+		lock.lock();
+		try {
+			tree.add(key);
+			tree.remove(key);
+			return tree.getSize();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Benchmark
+	public boolean concurrentContains() {
+		return concurrentTree.contains(ThreadLocalRandom.current().nextInt());
+	}
+
+}
@@ -0,0 +1,125 @@
+package com.livae.util.tree;
+
+import com.livae.util.shape.d3.AxisAlignedBoundingCuboid;
+import com.livae.util.shape.d3.Frustum;
+import com.livae.util.shape.d3.Intersectable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the {@link Octree} with unit boxes randomly placed in a cube. The frustum used for
+ * the culling is an orthographic one that covers the central part of the cube.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+public class OctreeBenchmark {
+
+	private static final float WORLD_SIZE = 1000f;
+
+	private static final float FRUSTUM_SIZE = 200f;
+
+	@Param({"1000", "100000"})
+	public int elements;
+
+	private Box[] boxes;
+
+	private Octree<Box> octree;
+
+	private Frustum frustum;
+
+	private List<Box> culled;
+
+	private int position;
+
+	private float movement;
+
+	@Setup(Level.Trial)
+	public void createBoxes() {
+		Random random = new Random(0);
+		boxes = new Box[elements];
+		for (int i = 0; i < elements; i++) {
+			boxes[i] = new Box(random.nextFloat() * WORLD_SIZE - WORLD_SIZE / 2,
+			                   random.nextFloat() * WORLD_SIZE - WORLD_SIZE / 2,
+			                   random.nextFloat() * WORLD_SIZE - WORLD_SIZE / 2);
+		}
+		float scale = 2 / FRUSTUM_SIZE;
+		frustum = new Frustum();
+		frustum.extractFrustum(new float[]{scale, 0, 0, 0, 0, scale, 0, 0, 0, 0, scale, 0, 0, 0,
+		                                   0, 1});
+		culled = new ArrayList<>();
+	}
+
+	@Setup(Level.Iteration)
+	public void fillOctree() {
+		octree = new Octree<>();
+		for (Box box : boxes) {
+			octree.add(box);
+		}
+		position = 0;
+		movement = 1f;
+	}
+
+	@Benchmark
+	public Octree<Box> add() {
+		Octree<Box> tree = new Octree<>();
+		for (Box box : boxes) {
+			tree.add(box);
+		}
+		return tree;
+	}
+
+	@Benchmark
+	public Box movedObject() {
+		Box box = boxes[position];
+		box.getAxisAlignedBoundingCuboid().move(movement, movement, movement);
+		octree.movedObject(box);
+		position++;
+		if (position == boxes.length) {
+			// move all of them back in the next round
+			position = 0;
+			movement = -movement;
+		}
+		return box;
+	}
+
+	@Benchmark
+	public int frustumCulling() {
+		culled.clear();
+		octree.frustumCulling(frustum, culled);
+		return culled.size();
+	}
+
+	public static class Box implements Intersectable {
+
+		private AxisAlignedBoundingCuboid cuboid;
+
+		public Box(float x, float y, float z) {
+			cuboid = new AxisAlignedBoundingCuboid(1, 1, 1, x, y, z);
+		}
+
+		@Override
+		public AxisAlignedBoundingCuboid getAxisAlignedBoundingCuboid() {
+			return cuboid;
+		}
+	}
+
+}
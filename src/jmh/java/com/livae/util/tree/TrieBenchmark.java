@@ -0,0 +1,110 @@
+package com.livae.util.tree;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the {@link Trie} with random sequences of events taken from an alphabet of
+ * strings.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+public class TrieBenchmark {
+
+	private static final int EVENTS = 100000;
+
+	private static final int SEQUENCES = 1000;
+
+	@Param({"4", "8"})
+	public int depth;
+
+	@Param({"16", "256"})
+	public int alphabet;
+
+	private String[] events;
+
+	private List<List<String>> sequences;
+
+	private Trie<String> trie;
+
+	private Trie<String> first;
+
+	private Trie<String> second;
+
+	private int position;
+
+	@Setup(Level.Trial)
+	public void createEvents() {
+		Random random = new Random(0);
+		String[] names = new String[alphabet];
+		for (int i = 0; i < alphabet; i++) {
+			names[i] = "event" + i;
+		}
+		events = new String[EVENTS];
+		for (int i = 0; i < EVENTS; i++) {
+			events[i] = names[random.nextInt(alphabet)];
+		}
+		sequences = new ArrayList<>(SEQUENCES);
+		for (int i = 0; i < SEQUENCES; i++) {
+			List<String> sequence = new ArrayList<>(depth);
+			for (int j = 0; j < depth; j++) {
+				sequence.add(names[random.nextInt(alphabet)]);
+			}
+			sequences.add(sequence);
+		}
+		first = new Trie<>(depth);
+		second = new Trie<>(depth);
+		for (int i = 0; i < EVENTS / 2; i++) {
+			first.addToSequence(events[i]);
+			second.addToSequence(events[EVENTS / 2 + i]);
+		}
+	}
+
+	@Setup(Level.Iteration)
+	public void createTrie() {
+		trie = new Trie<>(depth);
+		position = 0;
+	}
+
+	@Benchmark
+	public Trie<String> add() {
+		trie.add(sequences.get(position % SEQUENCES));
+		position++;
+		return trie;
+	}
+
+	@Benchmark
+	public Trie<String> addToSequence() {
+		trie.addToSequence(events[position % EVENTS]);
+		position++;
+		return trie;
+	}
+
+	@Benchmark
+	public Trie<String> merge() {
+		Trie<String> merged = new Trie<>(depth);
+		merged.merge(first);
+		merged.merge(second);
+		return merged;
+	}
+
+}
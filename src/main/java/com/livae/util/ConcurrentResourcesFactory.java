@@ -0,0 +1,391 @@
+package com.livae.util;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Resources factory which can be used from several threads without locks. Every thread keeps the
+ * released resources in its own magazine, an array of fixed size. When the magazine of a thread
+ * is full it is pushed to a shared lock-free stack, and when it is empty a full one is taken from
+ * the stack before creating new resources. The stack keeps a maximum number of magazines, the
+ * resources released when it is full are left to the garbage collector.
+ * <p/>
+ * The maximum size of the pool bounds the shared stack, and the trims empty it. The magazines of
+ * the threads are only used by their threads, so they are neither bounded nor trimmed, and the
+ * high water mark is the one of the shared stack.
+ * <p/>
+ * The hits, misses and discarded resources are counted by every thread and added when they are
+ * read, the counts of a running thread may be late.
+ *
+ * @param <k>
+ *   Type of resource to be create
+ */
+public abstract class ConcurrentResourcesFactory<k> extends ResourcesFactory<k> {
+
+	private static final int DEFAULT_MAGAZINE_SIZE = 64;
+
+	private static final int DEFAULT_MAXIMUM_MAGAZINES = 16;
+
+	private final int magazineSize;
+
+	private volatile int maximumMagazines;
+
+	private volatile int trimInterval;
+
+	private final ThreadLocal<Local> locals;
+
+	// pools of the threads which have used the factory, the ones of finished threads are removed
+	private final ArrayList<Local> threadLocals;
+
+	private final AtomicReference<Node> top;
+
+	private final AtomicInteger sharedMagazines;
+
+	private final AtomicInteger highWaterMark;
+
+	private final AtomicLong trimmed;
+
+	// counters of the finished threads minus the counters when they were reset, guarded by
+	// threadLocals
+	private long hits;
+
+	private long misses;
+
+	private long discarded;
+
+	public ConcurrentResourcesFactory() {
+		this(DEFAULT_MAGAZINE_SIZE, DEFAULT_MAXIMUM_MAGAZINES);
+	}
+
+	/**
+	 * @param magazineSize
+	 *   number of resources kept by every thread
+	 * @param maximumMagazines
+	 *   maximum number of full magazines shared by the threads
+	 */
+	public ConcurrentResourcesFactory(int magazineSize, int maximumMagazines) {
+		if (magazineSize <= 0) {
+			throw new IllegalArgumentException("Magazine size has to be greater than 0");
+		}
+		if (maximumMagazines < 0) {
+			throw new IllegalArgumentException("Maximum magazines cannot be negative");
+		}
+		this.magazineSize = magazineSize;
+		this.maximumMagazines = maximumMagazines;
+		this.threadLocals = new ArrayList<>();
+		this.locals = new ThreadLocal<Local>() {
+			@Override
+			protected Local initialValue() {
+				Local local = new Local(ConcurrentResourcesFactory.this.magazineSize);
+				synchronized (threadLocals) {
+					removeFinishedThreads();
+					threadLocals.add(local);
+				}
+				return local;
+			}
+		};
+		this.top = new AtomicReference<>();
+		this.sharedMagazines = new AtomicInteger();
+		this.highWaterMark = new AtomicInteger();
+		this.trimmed = new AtomicLong();
+	}
+
+	@Override
+	public void releaseResource(k resource) {
+		Local local = locals.get();
+		Magazine magazine = local.magazine;
+		if (magazine.size == magazine.resources.length) {
+			if (!push(magazine)) {
+				// too many resources kept
+				local.discarded++;
+				countOperation(local);
+				return;
+			}
+			magazine = new Magazine(magazineSize);
+			local.magazine = magazine;
+		}
+		magazine.resources[magazine.size] = resource;
+		magazine.size++;
+		countOperation(local);
+	}
+
+	@Override
+	public k getResource() {
+		Local local = locals.get();
+		Magazine magazine = local.magazine;
+		if (magazine.size == 0) {
+			Magazine full = pop();
+			if (full == null) {
+				local.misses++;
+				countOperation(local);
+				return createResource();
+			}
+			magazine = full;
+			local.magazine = magazine;
+		}
+		local.hits++;
+		magazine.size--;
+		//noinspection unchecked
+		k resource = (k) magazine.resources[magazine.size];
+		magazine.resources[magazine.size] = null;
+		countOperation(local);
+		return resource;
+	}
+
+	/**
+	 * Sets the maximum number of resources kept in the shared stack, it is rounded up to full
+	 * magazines. The magazines over it are discarded.
+	 */
+	@Override
+	public void setMaximumPoolSize(int maximumPoolSize) {
+		if (maximumPoolSize < 0) {
+			throw new IllegalArgumentException("Maximum pool size cannot be negative");
+		}
+		maximumMagazines = (int) (((long) maximumPoolSize + magazineSize - 1) / magazineSize);
+		long discardedResources = 0;
+		while (sharedMagazines.get() > maximumMagazines) {
+			Magazine magazine = pop();
+			if (magazine == null) {
+				break;
+			}
+			discardedResources += magazine.size;
+		}
+		synchronized (threadLocals) {
+			discarded += discardedResources;
+		}
+	}
+
+	/**
+	 * Sets the number of operations, gets and releases, of every thread between trims of the pool.
+	 * 0 to not trim it, which is the default.
+	 */
+	@Override
+	public void setTrimInterval(int trimInterval) {
+		if (trimInterval < 0) {
+			throw new IllegalArgumentException("Trim interval cannot be negative");
+		}
+		this.trimInterval = trimInterval;
+	}
+
+	/**
+	 * Discards the magazines of the shared stack. The magazines of the threads are kept.
+	 */
+	@Override
+	public void trimPool() {
+		Magazine magazine = pop();
+		while (magazine != null) {
+			trimmed.addAndGet(magazine.size);
+			magazine = pop();
+		}
+	}
+
+	/**
+	 * @return number of resources in the magazines of the threads and the shared stack
+	 */
+	@Override
+	public int getPoolSize() {
+		int size = sharedMagazines.get() * magazineSize;
+		synchronized (threadLocals) {
+			for (Local local : threadLocals) {
+				size += local.magazine.size;
+			}
+		}
+		return size;
+	}
+
+	@Override
+	public long getPoolHits() {
+		synchronized (threadLocals) {
+			removeFinishedThreads();
+			long total = hits;
+			for (Local local : threadLocals) {
+				total += local.hits;
+			}
+			return total;
+		}
+	}
+
+	@Override
+	public long getPoolMisses() {
+		synchronized (threadLocals) {
+			removeFinishedThreads();
+			long total = misses;
+			for (Local local : threadLocals) {
+				total += local.misses;
+			}
+			return total;
+		}
+	}
+
+	@Override
+	public long getPoolDiscarded() {
+		synchronized (threadLocals) {
+			removeFinishedThreads();
+			long total = discarded;
+			for (Local local : threadLocals) {
+				total += local.discarded;
+			}
+			return total;
+		}
+	}
+
+	@Override
+	public long getPoolTrimmed() {
+		return trimmed.get();
+	}
+
+	/**
+	 * @return maximum number of resources that have been in the shared stack
+	 */
+	@Override
+	public int getPoolHighWaterMark() {
+		return highWaterMark.get();
+	}
+
+	/**
+	 * Resets the counters. The counters of the threads are not written by other threads, so the
+	 * current ones are subtracted from the totals instead.
+	 */
+	@Override
+	public void resetPoolCounters() {
+		synchronized (threadLocals) {
+			removeFinishedThreads();
+			hits = 0;
+			misses = 0;
+			discarded = 0;
+			for (Local local : threadLocals) {
+				hits -= local.hits;
+				misses -= local.misses;
+				discarded -= local.discarded;
+			}
+		}
+		trimmed.set(0);
+		highWaterMark.set(sharedMagazines.get() * magazineSize);
+	}
+
+	/**
+	 * @return number of full magazines in the shared stack
+	 */
+	public int getSharedMagazines() {
+		return sharedMagazines.get();
+	}
+
+	/**
+	 * Adds the counters of the finished threads to the totals and forgets their pools, a finished
+	 * thread does not change its counters anymore. It has to be called holding threadLocals.
+	 */
+	private void removeFinishedThreads() {
+		Iterator<Local> iterator = threadLocals.iterator();
+		while (iterator.hasNext()) {
+			Local local = iterator.next();
+			if (!local.thread.isAlive()) {
+				hits += local.hits;
+				misses += local.misses;
+				discarded += local.discarded;
+				iterator.remove();
+			}
+		}
+	}
+
+	/**
+	 * Trims the pool every trimInterval operations of the thread.
+	 */
+	private void countOperation(Local local) {
+		int trimInterval = this.trimInterval;
+		if (trimInterval > 0) {
+			local.operations++;
+			if (local.operations >= trimInterval) {
+				local.operations = 0;
+				trimPool();
+			}
+		}
+	}
+
+	private boolean push(Magazine magazine) {
+		int shared;
+		do {
+			shared = sharedMagazines.get();
+			if (shared >= maximumMagazines) {
+				return false;
+			}
+		} while (!sharedMagazines.compareAndSet(shared, shared + 1));
+		int resources = (shared + 1) * magazineSize;
+		int mark;
+		do {
+			mark = highWaterMark.get();
+			if (resources <= mark) {
+				break;
+			}
+		} while (!highWaterMark.compareAndSet(mark, resources));
+		Node node = new Node(magazine);
+		do {
+			node.next = top.get();
+		} while (!top.compareAndSet(node.next, node));
+		return true;
+	}
+
+	private Magazine pop() {
+		Node node;
+		do {
+			node = top.get();
+			if (node == null) {
+				return null;
+			}
+		} while (!top.compareAndSet(node, node.next));
+		sharedMagazines.decrementAndGet();
+		return node.magazine;
+	}
+
+	private static class Magazine {
+
+		private final Object[] resources;
+
+		private int size;
+
+		Magazine(int size) {
+			resources = new Object[size];
+		}
+
+	}
+
+	/**
+	 * Magazine and counters of a thread, the counters are only written by the thread. They are
+	 * volatile so the other threads do not read torn values.
+	 */
+	private static class Local {
+
+		private final Thread thread;
+
+		private Magazine magazine;
+
+		private volatile long hits;
+
+		private volatile long misses;
+
+		private volatile long discarded;
+
+		private int operations;
+
+		Local(int magazineSize) {
+			thread = Thread.currentThread();
+			magazine = new Magazine(magazineSize);
+		}
+
+	}
+
+	private static class Node {
+
+		private final Magazine magazine;
+
+		private Node next;
+
+		Node(Magazine magazine) {
+			this.magazine = magazine;
+		}
+
+	}
+
+}
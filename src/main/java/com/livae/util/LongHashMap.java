@@ -0,0 +1,195 @@
+package com.livae.util;
+
+import java.util.Arrays;
+
+/**
+ * Map with primitive long keys, open addressing and linear probing. It does not create any object
+ * when adding, looking for or removing a key. It is not thread safe.
+ *
+ * @param <v>
+ *   Type of the values
+ */
+public class LongHashMap<v> {
+
+	private static final int DEFAULT_CAPACITY = 16;
+
+	private static final float LOAD_FACTOR = 0.5f;
+
+	private long[] keys;
+
+	private v[] values;
+
+	private boolean containsZero;
+
+	private v zeroValue;
+
+	private int size;
+
+	private int mask;
+
+	private int threshold;
+
+	public LongHashMap() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	public LongHashMap(int capacity) {
+		if (capacity <= 0) {
+			throw new IllegalArgumentException("Capacity has to be greater than 0");
+		}
+		int length = Integer.highestOneBit(Math.max(2, (int) (capacity / LOAD_FACTOR)) - 1) << 1;
+		allocate(length);
+	}
+
+	private void allocate(int length) {
+		keys = new long[length];
+		//noinspection unchecked
+		values = (v[]) new Object[length];
+		mask = length - 1;
+		threshold = (int) (length * LOAD_FACTOR);
+	}
+
+	private static int mix(long key) {
+		key ^= key >>> 33;
+		key *= 0xff51afd7ed558ccdL;
+		key ^= key >>> 33;
+		return (int) key;
+	}
+
+	private int find(long key) {
+		int position = mix(key) & mask;
+		long current = keys[position];
+		while (current != 0) {
+			if (current == key) {
+				return position;
+			}
+			position = (position + 1) & mask;
+			current = keys[position];
+		}
+		return -1;
+	}
+
+	/**
+	 * @return the previous value of the key or null if there was not any
+	 */
+	public v put(long key, v value) {
+		v previous;
+		if (key == 0) {
+			previous = zeroValue;
+			zeroValue = value;
+			if (!containsZero) {
+				containsZero = true;
+				size++;
+			}
+			return previous;
+		}
+		int position = mix(key) & mask;
+		long current = keys[position];
+		while (current != 0) {
+			if (current == key) {
+				previous = values[position];
+				values[position] = value;
+				return previous;
+			}
+			position = (position + 1) & mask;
+			current = keys[position];
+		}
+		keys[position] = key;
+		values[position] = value;
+		size++;
+		if (size > threshold) {
+			rehash();
+		}
+		return null;
+	}
+
+	public v get(long key) {
+		if (key == 0) {
+			return zeroValue;
+		}
+		int position = find(key);
+		return position < 0 ? null : values[position];
+	}
+
+	public boolean containsKey(long key) {
+		return key == 0 ? containsZero : find(key) >= 0;
+	}
+
+	/**
+	 * @return the value of the key or null if the key was not in the map
+	 */
+	public v remove(long key) {
+		v previous;
+		if (key == 0) {
+			previous = zeroValue;
+			if (containsZero) {
+				containsZero = false;
+				zeroValue = null;
+				size--;
+			}
+			return previous;
+		}
+		int position = find(key);
+		if (position < 0) {
+			return null;
+		}
+		previous = values[position];
+		size--;
+		// move back the next keys of the cluster which cannot be found once this one is removed
+		int last = position;
+		position = (position + 1) & mask;
+		while (keys[position] != 0) {
+			int slot = mix(keys[position]) & mask;
+			if (last <= position ? (slot <= last || slot > position) :
+			    (slot <= last && slot > position)) {
+				keys[last] = keys[position];
+				values[last] = values[position];
+				last = position;
+			}
+			position = (position + 1) & mask;
+		}
+		keys[last] = 0;
+		values[last] = null;
+		return previous;
+	}
+
+	private void rehash() {
+		if (keys.length == 1 << 30) {
+			throw new RuntimeException("Maximum capacity reached");
+		}
+		long[] oldKeys = keys;
+		v[] oldValues = values;
+		allocate(oldKeys.length << 1);
+		for (int i = 0; i < oldKeys.length; i++) {
+			long key = oldKeys[i];
+			if (key != 0) {
+				int position = mix(key) & mask;
+				while (keys[position] != 0) {
+					position = (position + 1) & mask;
+				}
+				keys[position] = key;
+				values[position] = oldValues[i];
+			}
+		}
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Removes all the keys, the capacity of the map is kept.
+	 */
+	public void clear() {
+		Arrays.fill(keys, 0);
+		Arrays.fill(values, null);
+		containsZero = false;
+		zeroValue = null;
+		size = 0;
+	}
+
+}
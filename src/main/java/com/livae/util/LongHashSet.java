@@ -0,0 +1,129 @@
+package com.livae.util;
+
+import java.util.Arrays;
+
+/**
+ * Set of primitive longs with open addressing and linear probing. It does not create any object
+ * when adding or looking for a value, and uses around 16 bytes per value. It is not thread safe.
+ */
+public class LongHashSet {
+
+	private static final int DEFAULT_CAPACITY = 16;
+
+	private static final float LOAD_FACTOR = 0.5f;
+
+	private long[] values;
+
+	private boolean containsZero;
+
+	private int size;
+
+	private int mask;
+
+	private int threshold;
+
+	public LongHashSet() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	public LongHashSet(int capacity) {
+		if (capacity <= 0) {
+			throw new IllegalArgumentException("Capacity has to be greater than 0");
+		}
+		int length = Integer.highestOneBit(Math.max(2, (int) (capacity / LOAD_FACTOR)) - 1) << 1;
+		allocate(length);
+	}
+
+	private void allocate(int length) {
+		values = new long[length];
+		mask = length - 1;
+		threshold = (int) (length * LOAD_FACTOR);
+	}
+
+	private static int mix(long value) {
+		value ^= value >>> 33;
+		value *= 0xff51afd7ed558ccdL;
+		value ^= value >>> 33;
+		return (int) value;
+	}
+
+	/**
+	 * @return true if the value was not in the set
+	 */
+	public boolean add(long value) {
+		if (value == 0) {
+			if (containsZero) {
+				return false;
+			}
+			containsZero = true;
+			size++;
+			return true;
+		}
+		int position = mix(value) & mask;
+		long current = values[position];
+		while (current != 0) {
+			if (current == value) {
+				return false;
+			}
+			position = (position + 1) & mask;
+			current = values[position];
+		}
+		values[position] = value;
+		size++;
+		if (size > threshold) {
+			rehash();
+		}
+		return true;
+	}
+
+	public boolean contains(long value) {
+		if (value == 0) {
+			return containsZero;
+		}
+		int position = mix(value) & mask;
+		long current = values[position];
+		while (current != 0) {
+			if (current == value) {
+				return true;
+			}
+			position = (position + 1) & mask;
+			current = values[position];
+		}
+		return false;
+	}
+
+	private void rehash() {
+		if (values.length == 1 << 30) {
+			throw new RuntimeException("Maximum capacity reached");
+		}
+		long[] oldValues = values;
+		allocate(oldValues.length << 1);
+		for (long value : oldValues) {
+			if (value != 0) {
+				int position = mix(value) & mask;
+				while (values[position] != 0) {
+					position = (position + 1) & mask;
+				}
+				values[position] = value;
+			}
+		}
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Removes all the values, the capacity of the set is kept.
+	 */
+	public void clear() {
+		Arrays.fill(values, 0);
+		containsZero = false;
+		size = 0;
+	}
+
+}
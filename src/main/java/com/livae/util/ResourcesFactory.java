@@ -4,6 +4,11 @@ package com.livae.util;
  * Abstract class to create resources that will be created and deleted very often. The main purpose
  * is to prevent the garbage collector to run as the objects are created and destroyed very often,
  * so they are kept in memory an reused when needed.
+ * <p/>
+ * The pool can be bounded with a maximum size, the resources released when it is full are left to
+ * the garbage collector. It can also be trimmed every some operations, releasing the resources
+ * which have not been used since the last trim. The hits, misses and high water mark of the pool
+ * are counted to tune it.
  *
  * @param <k>
  *   Type of resource to be create
@@ -18,10 +23,32 @@ public abstract class ResourcesFactory<k> {
 
 	private int increment;
 
+	private int maximumPoolSize;
+
+	private int trimInterval;
+
+	private int operations;
+
+	private int idleResources;
+
+	private long hits;
+
+	private long misses;
+
+	private long discarded;
+
+	private long trimmed;
+
+	private int highWaterMark;
+
 	public ResourcesFactory() {
 		this(LIST_INCREMENT);
 	}
 
+	/**
+	 * @param listIncrement
+	 *   minimum increment of the size of the pool when it grows, it grows at least to the double
+	 */
 	public ResourcesFactory(int listIncrement) {
 		if (listIncrement <= 0) {
 			throw new RuntimeException("Increment has to be greater than 0");
@@ -30,31 +57,163 @@ public abstract class ResourcesFactory<k> {
 		//noinspection unchecked
 		resources = (k[]) (new Object[0]);
 		lastFreeResource = -1;
+		maximumPoolSize = Integer.MAX_VALUE;
 	}
 
 	protected abstract k createResource();
 
 	public void releaseResource(k resource) {
-		if (resources.length == lastFreeResource + 1) {
-			//noinspection unchecked
-			k[] newList = (k[]) (new Object[resources.length + increment]);
-			System.arraycopy(resources, 0, newList, 0, resources.length);
-			resources = newList;
+		int size = lastFreeResource + 1;
+		if (size == maximumPoolSize) {
+			discarded++;
+			countOperation();
+			return;
+		}
+		if (resources.length == size) {
+			long length = Math.max((long) size + increment, size * 2L);
+			resize((int) Math.min(maximumPoolSize, length));
 		}
 		lastFreeResource++;
 		resources[lastFreeResource] = resource;
+		if (lastFreeResource >= highWaterMark) {
+			highWaterMark = lastFreeResource + 1;
+		}
+		countOperation();
 	}
 
 	public k getResource() {
 		k resource;
 		if (lastFreeResource < 0) {
+			misses++;
 			resource = createResource();
 		} else {
+			hits++;
 			resource = resources[lastFreeResource];
 			resources[lastFreeResource] = null;
 			lastFreeResource--;
+			if (lastFreeResource + 1 < idleResources) {
+				idleResources = lastFreeResource + 1;
+			}
 		}
+		countOperation();
 		return resource;
 	}
 
+	/**
+	 * Sets the maximum number of resources kept in the pool, the resources over it are discarded.
+	 */
+	public void setMaximumPoolSize(int maximumPoolSize) {
+		if (maximumPoolSize < 0) {
+			throw new IllegalArgumentException("Maximum pool size cannot be negative");
+		}
+		this.maximumPoolSize = maximumPoolSize;
+		while (lastFreeResource >= maximumPoolSize) {
+			resources[lastFreeResource] = null;
+			lastFreeResource--;
+			discarded++;
+		}
+		if (resources.length > maximumPoolSize) {
+			resize(maximumPoolSize);
+		}
+		idleResources = Math.min(idleResources, lastFreeResource + 1);
+	}
+
+	/**
+	 * Sets the number of operations, gets and releases, between trims of the pool. 0 to not trim
+	 * it, which is the default.
+	 */
+	public void setTrimInterval(int trimInterval) {
+		if (trimInterval < 0) {
+			throw new IllegalArgumentException("Trim interval cannot be negative");
+		}
+		this.trimInterval = trimInterval;
+		this.operations = 0;
+	}
+
+	/**
+	 * Discards the resources which have been in the pool since the last trim without being used,
+	 * and shrinks the pool when most of it is empty.
+	 */
+	public void trimPool() {
+		int size = lastFreeResource + 1;
+		int idle = Math.min(idleResources, size);
+		for (int i = 0; i < idle; i++) {
+			resources[lastFreeResource] = null;
+			lastFreeResource--;
+		}
+		trimmed += idle;
+		size -= idle;
+		if (size < resources.length / 4) {
+			resize(Math.max(size * 2, Math.min(increment, resources.length)));
+		}
+		idleResources = size;
+	}
+
+	/**
+	 * @return number of resources in the pool
+	 */
+	public int getPoolSize() {
+		return lastFreeResource + 1;
+	}
+
+	/**
+	 * @return number of resources got from the pool
+	 */
+	public long getPoolHits() {
+		return hits;
+	}
+
+	/**
+	 * @return number of resources created because the pool was empty
+	 */
+	public long getPoolMisses() {
+		return misses;
+	}
+
+	/**
+	 * @return number of released resources not kept because the pool was full
+	 */
+	public long getPoolDiscarded() {
+		return discarded;
+	}
+
+	/**
+	 * @return number of resources discarded by the trims
+	 */
+	public long getPoolTrimmed() {
+		return trimmed;
+	}
+
+	/**
+	 * @return maximum number of resources that have been in the pool
+	 */
+	public int getPoolHighWaterMark() {
+		return highWaterMark;
+	}
+
+	public void resetPoolCounters() {
+		hits = 0;
+		misses = 0;
+		discarded = 0;
+		trimmed = 0;
+		highWaterMark = lastFreeResource + 1;
+	}
+
+	private void countOperation() {
+		if (trimInterval > 0) {
+			operations++;
+			if (operations >= trimInterval) {
+				operations = 0;
+				trimPool();
+			}
+		}
+	}
+
+	private void resize(int length) {
+		//noinspection unchecked
+		k[] newList = (k[]) (new Object[length]);
+		System.arraycopy(resources, 0, newList, 0, lastFreeResource + 1);
+		resources = newList;
+	}
+
 }
@@ -0,0 +1,72 @@
+package com.livae.util.search.astar;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+
+/**
+ * Base of the a-star algorithms which search from an initial state. All the ways to start or
+ * continue the algorithm end in {@link #start(SearchHandle, int, State)}, the times in
+ * milliseconds are turned into the deadline of a handle.
+ */
+public abstract class AbstractAstar extends AbstractSearch {
+
+	public State start(int maximumVisitedStates, State initialState) {
+		return start(-1, maximumVisitedStates, initialState);
+	}
+
+	public State start(long time, State initialState) {
+		return start(time, -1, initialState);
+	}
+
+	public State continueAlgorithm(long time, int maximumVisitedStates) {
+		return start(time, maximumVisitedStates, null);
+	}
+
+	public State continueAlgorithm(int maximumVisitedStates) {
+		return start(-1, maximumVisitedStates, null);
+	}
+
+	public State continueAlgorithm(long time) {
+		return start(time, -1, null);
+	}
+
+	public State start(long time, int maximumVisitedStates, State initialState) {
+		return start(SearchHandle.fromMillis(time), maximumVisitedStates, initialState);
+	}
+
+	public State continueAlgorithm(SearchHandle handle, int maximumVisitedStates) {
+		return start(handle, maximumVisitedStates, null);
+	}
+
+	/**
+	 * Starts the algorithm in the executor. Cancelling the future cancels the handle. The algorithm
+	 * must not be started again until the future is done.
+	 */
+	public Future<State> startAsync(Executor executor, final SearchHandle handle,
+	                                final int maximumVisitedStates, final State initialState) {
+		return SearchTask.execute(executor, handle, new Callable<State>() {
+			@Override
+			public State call() {
+				return start(handle, maximumVisitedStates, initialState);
+			}
+		});
+	}
+
+	/**
+	 * Starts the algorithm, or continues it when the initial state is null, until a solution is
+	 * found, the handle is stopped or the maximum visited states are reached.
+	 *
+	 * @param maximumVisitedStates
+	 *   maximum number of states visited in this call, 0 or less for no maximum
+	 * @return the solution or null if it has not been found
+	 */
+	public abstract State start(SearchHandle handle, int maximumVisitedStates,
+	                            State initialState);
+
+	/**
+	 * @return the best state found by the algorithm
+	 */
+	public abstract State getBestState();
+
+}
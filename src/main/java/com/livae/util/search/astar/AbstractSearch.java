@@ -0,0 +1,95 @@
+package com.livae.util.search.astar;
+
+/**
+ * Base of the search algorithms, it keeps how their metrics are reported. The algorithms report
+ * them every second while they run and when they stop.
+ */
+public abstract class AbstractSearch {
+
+	protected static final int TIME_PRINT_STATS = 1000;
+
+	private volatile boolean printStats;
+
+	private volatile SearchMetricsListener metricsListener;
+
+	private boolean running;
+
+	private long startTime;
+
+	private long accumulatedTime;
+
+	public void setPrintStatsMode(boolean printStats) {
+		this.printStats = printStats;
+	}
+
+	/**
+	 * Sets a listener which receives the metrics every second while the algorithm runs and when it
+	 * stops. It is called from the threads of the algorithm.
+	 */
+	public void setMetricsListener(SearchMetricsListener metricsListener) {
+		this.metricsListener = metricsListener;
+	}
+
+	/**
+	 * @return the metrics of the algorithm since it started with the last initial state
+	 */
+	public abstract SearchMetrics getMetrics();
+
+	/**
+	 * @return true if the metrics are printed or there is a listener, so they are worth creating
+	 */
+	protected boolean isReportingMetrics() {
+		return printStats || metricsListener != null;
+	}
+
+	/**
+	 * Starts counting the time executing.
+	 *
+	 * @param reset
+	 *   true when the algorithm starts with a new initial state, so the previous time is forgotten
+	 */
+	protected synchronized void startTiming(boolean reset) {
+		if (reset) {
+			accumulatedTime = 0;
+		}
+		startTime = System.currentTimeMillis();
+		running = true;
+	}
+
+	/**
+	 * Stops counting the time executing and adds the time since it started to the previous ones.
+	 */
+	protected synchronized void stopTiming() {
+		if (running) {
+			accumulatedTime += System.currentTimeMillis() - startTime;
+			running = false;
+		}
+	}
+
+	/**
+	 * @return the time executing in milliseconds since the algorithm started with the last initial
+	 * state, the current run is only added while the algorithm is running
+	 */
+	protected synchronized long getTimeExecuting() {
+		if (running) {
+			return accumulatedTime + System.currentTimeMillis() - startTime;
+		}
+		return accumulatedTime;
+	}
+
+	protected void reportMetrics() {
+		boolean printStats = this.printStats;
+		SearchMetricsListener listener = metricsListener;
+		if (printStats || listener != null) {
+			SearchMetrics metrics = getMetrics();
+			if (printStats) {
+				System.out.println(metrics);
+				System.out.println("-----------------------------------------------------");
+			}
+			if (listener != null) {
+				listener.onMetrics(metrics);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,345 @@
+package com.livae.util.search.astar;
+
+import com.livae.util.LongHashMap;
+import com.livae.util.LongHashSet;
+import com.livae.util.ResourcesFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+/**
+ * Anytime repairing a-star (ARA*). Every iteration is a weighted a-star search, where the
+ * heuristic is multiplied by a weight greater or equal than 1, which finds a solution whose cost
+ * is at most the weight times the optimal one. The first iteration uses a high weight to find a
+ * solution quickly, and every new iteration decreases the weight and reuses the open list and
+ * the costs of the previous one until the weight is 1 and the solution is optimal.
+ * <p/>
+ * The algorithm stops every time an iteration finishes, so start returns the first solution and
+ * every call to continueAlgorithm improves it. When the time or the visited states run out the
+ * best solution found in the current iteration is returned. The weighted heuristic is stored in
+ * the first position of the heuristics of the states, so they are sorted by the weighted f value.
+ * The states expanded before a better path to them is found keep their offspring with the old
+ * costs until the next iteration, so the costs of the path of the solution are repaired before it
+ * is returned. The states of the path are updated when a better path to them is found, so the path
+ * has to be copied before continuing the algorithm to keep it.
+ */
+public class AstarAnytime extends AbstractAstar {
+
+	private Operation[] operations;
+
+	private Heuristic heuristic;
+
+	private ResourcesFactory<State> statesFactory;
+
+	private double initialWeight;
+
+	private double weightDecrease;
+
+	private double weight;
+
+	private double bound;
+
+	private BinaryHeapOpenList openStateList;
+
+	private LongHashMap<State> states;
+
+	private ArrayList<State> statesList;
+
+	private LongHashSet closedStates;
+
+	private LongHashSet inconsistentFingerprints;
+
+	private ArrayList<State> inconsistentStates;
+
+	private State solution;
+
+	private boolean finished;
+
+	private ArrayList<State> offsprings;
+
+	private int iterations;
+
+	private SearchCounters counters;
+
+	/**
+	 * @param initialWeight
+	 *   weight of the heuristic in the first iteration, greater or equal than 1
+	 * @param weightDecrease
+	 *   amount the weight is decreased in every iteration
+	 */
+	public AstarAnytime(Operation[] operations, Heuristic heuristic,
+	                    ResourcesFactory<State> statesFactory, double initialWeight,
+	                    double weightDecrease) {
+		if (initialWeight < 1) {
+			throw new IllegalArgumentException("Initial weight should be greater or equal than 1");
+		}
+		if (weightDecrease <= 0) {
+			throw new IllegalArgumentException("Weight decrease should be greater than 0");
+		}
+		this.operations = operations;
+		this.heuristic = heuristic;
+		this.statesFactory = statesFactory;
+		this.initialWeight = initialWeight;
+		this.weightDecrease = weightDecrease;
+		this.openStateList = new BinaryHeapOpenList(0);
+		this.states = new LongHashMap<>();
+		this.statesList = new ArrayList<>();
+		this.closedStates = new LongHashSet();
+		this.inconsistentFingerprints = new LongHashSet();
+		this.inconsistentStates = new ArrayList<>();
+		this.offsprings = new ArrayList<>();
+		this.bound = Double.POSITIVE_INFINITY;
+		this.counters = new SearchCounters(operations.length, 1);
+	}
+
+	public State start(SearchHandle handle, int maximumVisitedStates, State initialState) {
+		if (maximumVisitedStates <= 0) {
+			maximumVisitedStates = Integer.MAX_VALUE;
+		}
+		int currentVisitedStates = 0;
+		SearchHandle.Check check = handle.newCheck();
+		startTiming(initialState != null);
+		long timeNextPrint = System.currentTimeMillis() + TIME_PRINT_STATS;
+		// initializing, cleaning structures.
+		if (initialState != null) {
+			clear();
+			weight = initialWeight;
+			bound = Double.POSITIVE_INFINITY;
+			finished = false;
+			iterations = 1;
+			counters.clear();
+			addState(initialState, initialState.getFingerprint());
+		}
+
+		while (!finished && currentVisitedStates < maximumVisitedStates) {
+			if (check.isStopped()) {
+				break;
+			}
+			if (isReportingMetrics() && System.currentTimeMillis() > timeNextPrint) {
+				reportMetrics();
+				timeNextPrint = System.currentTimeMillis() + TIME_PRINT_STATS;
+			}
+			State current = openStateList.peekFirst();
+			if (current == null ||
+			    (solution != null && solution.cost <= current.cost + current.heuristic[0])) {
+				// no state in the open list can improve the solution with the current weight
+				if (solution != null) {
+					bound = weight;
+				}
+				if (solution == null || weight == 1) {
+					finished = true;
+				} else {
+					nextIteration();
+				}
+				break;
+			}
+			openStateList.getFirst();
+			currentVisitedStates++;
+			counters.visitedStates++;
+			closedStates.add(current.getFingerprint());
+			for (int i = 0; i < operations.length; i++) {
+				offsprings.clear();
+				operations[i].apply(current, offsprings, statesFactory);
+				for (State offspring : offsprings) {
+					counters.generatedStates++;
+					counters.generatedStatesOperator[i]++;
+					if (addState(offspring, offspring.getFingerprint())) {
+						counters.repeatedGeneratedStatesOperator[i]++;
+					}
+				}
+			}
+		}
+
+		if (solution != null) {
+			repairPath();
+		}
+		stopTiming();
+		reportMetrics();
+		return solution;
+	}
+
+	public State getBestState() {
+		return solution;
+	}
+
+	/**
+	 * @return the number of iterations since it started with the last initial state
+	 */
+	public int getIterations() {
+		return iterations;
+	}
+
+	/**
+	 * @return the weight of the current iteration
+	 */
+	public double getWeight() {
+		return weight;
+	}
+
+	/**
+	 * @return how many times the cost of the solution can be greater than the optimal one, infinite
+	 * until the first iteration finishes
+	 */
+	public double getBound() {
+		return bound;
+	}
+
+	/**
+	 * @return true when the solution is optimal or there is not any solution
+	 */
+	public boolean isFinished() {
+		return finished;
+	}
+
+	/**
+	 * @return the metrics of the algorithm since it started with the last initial state
+	 */
+	public SearchMetrics getMetrics() {
+		long timeExecuting = getTimeExecuting();
+		return new SearchMetrics(counters, operations, new Heuristic[]{heuristic}, timeExecuting,
+		                         states.size(), -1, openStateList.getSize());
+	}
+
+	/**
+	 * Adds a new state to the open list, or updates the cost of a known state if the new one is
+	 * better. The states already visited in this iteration are kept as inconsistent until the next
+	 * iteration.
+	 *
+	 * @return true if the state was already known
+	 */
+	private boolean addState(State state, long fingerprint) {
+		State known = states.get(fingerprint);
+		if (known == null) {
+			states.put(fingerprint, state);
+			statesList.add(state);
+			state.heuristic[0] = weightHeuristic(heuristic.calculateHeuristic(state));
+			openStateList.add(state);
+			updateSolution(state);
+			return false;
+		}
+		counters.repeatedGeneratedStates++;
+		if (state.cost < known.cost) {
+			improveState(known, state, fingerprint);
+		}
+		statesFactory.releaseResource(state);
+		return true;
+	}
+
+	/**
+	 * Updates a known state with the lower cost and the parent of a new one.
+	 */
+	private void improveState(State known, State state, long fingerprint) {
+		known.cost = state.cost;
+		known.parent = state.parent;
+		known.operation = state.operation;
+		if (closedStates.contains(fingerprint)) {
+			if (inconsistentFingerprints.add(fingerprint)) {
+				inconsistentStates.add(known);
+			}
+		} else if (known.openListPositions[0] >= 0) {
+			openStateList.decreaseKey(known);
+		} else {
+			// visited in a previous iteration, with other weight
+			known.heuristic[0] = weightHeuristic(heuristic.calculateHeuristic(known));
+			openStateList.add(known);
+		}
+		updateSolution(known);
+	}
+
+	/**
+	 * Updates the costs of the path of the solution from the initial state, the states after one
+	 * whose cost was decreased once it was expanded still have the cost of the previous path. The
+	 * states of the path are updated as if they were found again with the cost of the path.
+	 */
+	private void repairPath() {
+		ArrayList<State> path = new ArrayList<>();
+		for (State state = solution; state != null; state = state.parent) {
+			path.add(state);
+		}
+		for (int i = path.size() - 2; i >= 0; i--) {
+			State parent = path.get(i + 1);
+			State state = path.get(i);
+			long fingerprint = state.getFingerprint();
+			State best = null;
+			for (Operation operation : operations) {
+				offsprings.clear();
+				operation.apply(parent, offsprings, statesFactory);
+				for (State offspring : offsprings) {
+					if (offspring.getFingerprint() == fingerprint &&
+					    (best == null || offspring.cost < best.cost)) {
+						if (best != null) {
+							statesFactory.releaseResource(best);
+						}
+						best = offspring;
+					} else {
+						statesFactory.releaseResource(offspring);
+					}
+				}
+			}
+			if (best == null) {
+				throw new RuntimeException("No operation goes from " + parent + " to " + state);
+			}
+			if (best.cost < state.cost) {
+				improveState(state, best, fingerprint);
+			}
+			statesFactory.releaseResource(best);
+		}
+	}
+
+	private void updateSolution(State state) {
+		if (state.heuristic[0] == 0 && (solution == null || state.cost < solution.cost)) {
+			solution = state;
+		}
+	}
+
+	private int weightHeuristic(int value) {
+		return (int) (value * weight);
+	}
+
+	/**
+	 * Decreases the weight and adds the inconsistent states to the open list, which is sorted again
+	 * with the new weight.
+	 */
+	private void nextIteration() {
+		weight = Math.max(1, weight - weightDecrease);
+		iterations++;
+		ArrayList<State> open = new ArrayList<>(inconsistentStates);
+		while (!openStateList.isEmpty()) {
+			open.add(openStateList.getFirst());
+		}
+		for (State state : open) {
+			state.heuristic[0] = weightHeuristic(heuristic.calculateHeuristic(state));
+			openStateList.add(state);
+		}
+		inconsistentStates.clear();
+		inconsistentFingerprints.clear();
+		closedStates.clear();
+	}
+
+	/**
+	 * Releases all the states, except the ones in the path of the solution.
+	 */
+	private void clear() {
+		Set<State> path = Collections.newSetFromMap(new IdentityHashMap<State, Boolean>());
+		State pathState = solution;
+		while (pathState != null) {
+			path.add(pathState);
+			pathState = pathState.parent;
+		}
+		for (State state : statesList) {
+			if (!path.contains(state)) {
+				statesFactory.releaseResource(state);
+			}
+		}
+		statesList.clear();
+		states.clear();
+		openStateList.clear();
+		closedStates.clear();
+		inconsistentStates.clear();
+		inconsistentFingerprints.clear();
+		solution = null;
+	}
+
+}
@@ -0,0 +1,495 @@
+package com.livae.util.search.astar;
+
+import com.livae.util.LongHashMap;
+import com.livae.util.ResourcesFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bidirectional a-star. A forward search from the initial state and a backward search from the
+ * goal state run at the same time in two threads, and the searches meet when a state generated by
+ * one of them has the same fingerprint as a state generated by the other one. The search finishes
+ * when the lowest f value of any of the open lists is not lower than the cost of the best meeting,
+ * so the solution is optimal with admissible heuristics.
+ * <p/>
+ * The backward search uses {@link ReverseOperation#applyReverse} for the operations which
+ * implement it and the operation itself for the rest, and a heuristic which estimates the cost to
+ * the initial state. The heuristic of each search is stored in the first position of the
+ * heuristics of the states.
+ */
+public class AstarBidirectional extends AbstractSearch {
+
+	private static final int VISITED_STATES_STRIPES = 16;
+
+	private Operation[] operations;
+
+	private Heuristic[] heuristics;
+
+	private ResourcesFactory<State> statesFactory;
+
+	private Search forward;
+
+	private Search backward;
+
+	private Lock statsLock;
+
+	private Lock bestLock;
+
+	private volatile int bestCost;
+
+	private State forwardMeeting;
+
+	private State backwardMeeting;
+
+	private State solution;
+
+	private volatile boolean finished;
+
+	private SearchCounters counters;
+
+	private volatile SearchHandle handle;
+
+	private volatile int maximumVisitedStates;
+
+	private AtomicInteger currentVisitedStates;
+
+	/**
+	 * @param heuristic
+	 *   estimation of the cost from a state to the goal state
+	 * @param reverseHeuristic
+	 *   estimation of the cost from the initial state to a state
+	 */
+	public AstarBidirectional(Operation[] operations, Heuristic heuristic,
+	                          Heuristic reverseHeuristic, ResourcesFactory<State> statesFactory) {
+		this.operations = operations;
+		this.heuristics = new Heuristic[]{heuristic, reverseHeuristic};
+		this.statesFactory = statesFactory;
+		this.counters = new SearchCounters(operations.length, heuristics.length);
+		this.statsLock = new ReentrantLock();
+		this.bestLock = new ReentrantLock();
+		this.currentVisitedStates = new AtomicInteger();
+		this.forward = new Search(heuristic, false);
+		this.backward = new Search(reverseHeuristic, true);
+		this.forward.other = backward;
+		this.backward.other = forward;
+	}
+
+	public State start(int maximumVisitedStates, State initialState, State goalState) {
+		return start(-1, maximumVisitedStates, initialState, goalState);
+	}
+
+	public State start(long time, State initialState, State goalState) {
+		return start(time, -1, initialState, goalState);
+	}
+
+	public State continueAlgorithm(long time, int maximumVisitedStates) {
+		return start(time, maximumVisitedStates, null, null);
+	}
+
+	public State continueAlgorithm(int maximumVisitedStates) {
+		return start(-1, maximumVisitedStates, null, null);
+	}
+
+	public State continueAlgorithm(long time) {
+		return start(time, -1, null, null);
+	}
+
+	public State start(long time, int maximumVisitedStates, State initialState, State goalState) {
+		return start(SearchHandle.fromMillis(time), maximumVisitedStates, initialState, goalState);
+	}
+
+	public State continueAlgorithm(SearchHandle handle, int maximumVisitedStates) {
+		return start(handle, maximumVisitedStates, null, null);
+	}
+
+	/**
+	 * Starts the algorithm in the executor. Cancelling the future cancels the handle. The algorithm
+	 * must not be started again until the future is done.
+	 */
+	public Future<State> startAsync(Executor executor, final SearchHandle handle,
+	                                final int maximumVisitedStates, final State initialState,
+	                                final State goalState) {
+		return SearchTask.execute(executor, handle, new Callable<State>() {
+			@Override
+			public State call() {
+				return start(handle, maximumVisitedStates, initialState, goalState);
+			}
+		});
+	}
+
+	/**
+	 * Starts the algorithm, or continues it when the initial and goal states are null, until a
+	 * solution is found, the handle is stopped or the maximum visited states are reached. Both
+	 * searches check the handle independently. If the calling thread is interrupted while it waits
+	 * for the searches the handle is cancelled, the algorithm can be continued later with other
+	 * handle and the thread keeps its interrupted status.
+	 */
+	public State start(SearchHandle handle, int maximumVisitedStates, State initialState,
+	                   State goalState) {
+		if ((initialState == null) != (goalState == null)) {
+			throw new IllegalArgumentException("Initial and goal states have to be set together");
+		}
+		this.handle = handle;
+		if (maximumVisitedStates <= 0) {
+			maximumVisitedStates = Integer.MAX_VALUE;
+		}
+		this.maximumVisitedStates = maximumVisitedStates;
+		this.currentVisitedStates.set(0);
+
+		startTiming(initialState != null);
+		// initializing, cleaning structures.
+		if (initialState != null) {
+			clear();
+			bestCost = Integer.MAX_VALUE;
+			finished = false;
+			statsLock.lock();
+			try {
+				counters.clear();
+			} finally {
+				statsLock.unlock();
+			}
+			forward.addState(initialState, initialState.getFingerprint());
+			backward.addState(goalState, goalState.getFingerprint());
+		}
+
+		if (!finished) {
+			Thread forwardThread = new Thread(forward);
+			Thread backwardThread = new Thread(backward);
+			forwardThread.start();
+			backwardThread.start();
+			// both searches change shared states, so they are always waited for
+			boolean interrupted = false;
+			for (Thread thread : new Thread[]{forwardThread, backwardThread}) {
+				while (true) {
+					try {
+						thread.join();
+						break;
+					} catch (InterruptedException e) {
+						interrupted = true;
+						handle.cancel();
+					}
+				}
+			}
+			if (interrupted) {
+				Thread.currentThread().interrupt();
+			}
+			if (finished && forwardMeeting != null) {
+				solution = joinPaths();
+			}
+		}
+
+		stopTiming();
+		reportMetrics();
+		return solution;
+	}
+
+	public State getBestState() {
+		return solution;
+	}
+
+	/**
+	 * @return the cost of the best meeting of the searches or Integer.MAX_VALUE if they have not
+	 * met
+	 */
+	public int getBestMeetingCost() {
+		return bestCost;
+	}
+
+	/**
+	 * @return the metrics of the algorithm since it started with the last initial state, the
+	 * counters of the running searches are added every second. The counters are the sum of both
+	 * searches.
+	 */
+	public SearchMetrics getMetrics() {
+		statsLock.lock();
+		try {
+			long timeExecuting = getTimeExecuting();
+			return new SearchMetrics(counters, operations, heuristics, timeExecuting,
+			                         forward.states.size() + backward.states.size(), -1,
+			                         forward.openStateList.getSize() +
+			                         backward.openStateList.getSize());
+		} finally {
+			statsLock.unlock();
+		}
+	}
+
+	private boolean isFinished() {
+		return finished || currentVisitedStates.get() >= maximumVisitedStates;
+	}
+
+	/**
+	 * Sets the meeting states if the path through them is better than the best one.
+	 */
+	private void updateMeeting(State forwardState, State backwardState, int cost) {
+		bestLock.lock();
+		try {
+			if (cost < bestCost) {
+				bestCost = cost;
+				forwardMeeting = forwardState;
+				backwardMeeting = backwardState;
+			}
+		} finally {
+			bestLock.unlock();
+		}
+	}
+
+	/**
+	 * Links the states of the backward path after the forward meeting state, so the parents of the
+	 * goal state lead to the initial state as in the other searches.
+	 *
+	 * @return the goal state
+	 */
+	private State joinPaths() {
+		ArrayList<State> offsprings = new ArrayList<>();
+		State previous = forwardMeeting;
+		State current = backwardMeeting.parent;
+		while (current != null) {
+			State next = current.parent;
+			long fingerprint = current.getFingerprint();
+			Operation operation = null;
+			int cost = Integer.MAX_VALUE;
+			// look for the operation which goes forward from the previous state to the current one
+			for (Operation candidate : operations) {
+				offsprings.clear();
+				candidate.apply(previous, offsprings, statesFactory);
+				for (State offspring : offsprings) {
+					if (offspring.cost < cost && offspring.getFingerprint() == fingerprint) {
+						cost = offspring.cost;
+						operation = candidate;
+					}
+					statesFactory.releaseResource(offspring);
+				}
+			}
+			if (operation == null) {
+				throw new RuntimeException("No operation goes from " + previous + " to " + current);
+			}
+			current.parent = previous;
+			current.operation = operation;
+			current.cost = cost;
+			previous = current;
+			current = next;
+		}
+		return previous;
+	}
+
+	/**
+	 * Releases all the states, except the ones in the path of the solution.
+	 */
+	private void clear() {
+		Set<State> path = Collections.newSetFromMap(new IdentityHashMap<State, Boolean>());
+		State state = solution;
+		while (state != null) {
+			path.add(state);
+			state = state.parent;
+		}
+		forward.clear(path);
+		backward.clear(path);
+		forwardMeeting = null;
+		backwardMeeting = null;
+		solution = null;
+	}
+
+	/**
+	 * Search in one direction. Its visited states are split in stripes guarded by themselves, so
+	 * the search in the other direction can look for meetings while this one adds states.
+	 */
+	class Search implements Runnable {
+
+		private Heuristic heuristic;
+
+		private boolean reverse;
+
+		private Search other;
+
+		private BinaryHeapOpenList openStateList;
+
+		private LongHashMap<State>[] visitedStates;
+
+		private ArrayList<State> states;
+
+		private ResourcesFactory<State> localFactory;
+
+		private SearchCounters counters;
+
+		Search(Heuristic heuristic, boolean reverse) {
+			this.heuristic = heuristic;
+			this.reverse = reverse;
+			this.openStateList = new BinaryHeapOpenList(0);
+			//noinspection unchecked
+			this.visitedStates = new LongHashMap[VISITED_STATES_STRIPES];
+			for (int i = 0; i < VISITED_STATES_STRIPES; i++) {
+				this.visitedStates[i] = new LongHashMap<>();
+			}
+			this.states = new ArrayList<>();
+			this.counters = new SearchCounters(operations.length, heuristics.length);
+			this.localFactory = new ResourcesFactory<State>() {
+				@Override
+				protected State createResource() {
+					synchronized (statesFactory) {
+						return statesFactory.getResource();
+					}
+				}
+			};
+		}
+
+		@Override
+		public void run() {
+			int operatorsLength = operations.length;
+			int operatorIndex;
+			int i;
+			State current;
+			long timeNextPrint = System.currentTimeMillis() + TIME_PRINT_STATS;
+			SearchHandle handle = AstarBidirectional.this.handle;
+			SearchHandle.Check check = handle.newCheck();
+			ArrayList<State> offsprings = new ArrayList<>();
+
+			while (!isFinished()) {
+				if (check.isStopped()) {
+					break;
+				}
+				current = openStateList.peekFirst();
+				if (current == null || current.cost + current.heuristic[0] >= bestCost) {
+					// no path through the states of this search is better than the best meeting
+					finished = true;
+					break;
+				}
+				openStateList.getFirst();
+				currentVisitedStates.incrementAndGet();
+				counters.visitedStates++;
+				for (operatorIndex = 0; operatorIndex < operatorsLength; operatorIndex++) {
+					offsprings.clear();
+					Operation operation = operations[operatorIndex];
+					if (reverse && operation instanceof ReverseOperation) {
+						((ReverseOperation) operation).applyReverse(current, offsprings,
+						                                            localFactory);
+					} else {
+						operation.apply(current, offsprings, localFactory);
+					}
+					for (i = 0; i < offsprings.size(); i++) {
+						counters.generatedStates++;
+						counters.generatedStatesOperator[operatorIndex]++;
+						State offspring = offsprings.get(i);
+						if (addState(offspring, offspring.getFingerprint())) {
+							counters.repeatedGeneratedStatesOperator[operatorIndex]++;
+						}
+					}
+				}
+				if (System.currentTimeMillis() > timeNextPrint) {
+					flushStats();
+					if (!reverse) {
+						reportMetrics();
+					}
+					timeNextPrint = System.currentTimeMillis() + TIME_PRINT_STATS;
+				}
+			}
+			flushStats();
+		}
+
+		private LongHashMap<State> getStripe(long fingerprint) {
+			return visitedStates[((int) (fingerprint >>> 32) & Integer.MAX_VALUE) %
+			                     VISITED_STATES_STRIPES];
+		}
+
+		/**
+		 * Adds the state to the open list if it has not been visited. If it has been visited with a
+		 * higher cost the visited state takes the cost and the parent of the new one and it is
+		 * opened again.
+		 *
+		 * @return true if the state was already visited
+		 */
+		private boolean addState(State state, long fingerprint) {
+			LongHashMap<State> stripe = getStripe(fingerprint);
+			State visited;
+			boolean better = false;
+			synchronized (stripe) {
+				visited = stripe.get(fingerprint);
+				if (visited == null) {
+					stripe.put(fingerprint, state);
+				} else if (state.cost < visited.cost) {
+					visited.cost = state.cost;
+					visited.parent = state.parent;
+					visited.operation = state.operation;
+					better = true;
+				}
+			}
+			if (visited == null) {
+				states.add(state);
+				state.heuristic[0] = heuristic.calculateHeuristic(state);
+				openStateList.add(state);
+				meet(state, fingerprint);
+				return false;
+			} else {
+				counters.repeatedGeneratedStates++;
+				localFactory.releaseResource(state);
+				if (better) {
+					if (visited.openListPositions[0] >= 0) {
+						openStateList.decreaseKey(visited);
+					} else {
+						openStateList.add(visited);
+					}
+					meet(visited, fingerprint);
+				}
+				return true;
+			}
+		}
+
+		/**
+		 * Looks for the state in the visited states of the other search.
+		 */
+		private void meet(State state, long fingerprint) {
+			LongHashMap<State> stripe = other.getStripe(fingerprint);
+			State met;
+			int cost;
+			synchronized (stripe) {
+				met = stripe.get(fingerprint);
+				if (met == null) {
+					return;
+				}
+				cost = state.cost + met.cost;
+			}
+			if (cost < bestCost) {
+				if (reverse) {
+					updateMeeting(met, state, cost);
+				} else {
+					updateMeeting(state, met, cost);
+				}
+			}
+		}
+
+		private void flushStats() {
+			statsLock.lock();
+			try {
+				counters.flush(AstarBidirectional.this.counters);
+			} finally {
+				statsLock.unlock();
+			}
+		}
+
+		/**
+		 * Releases all the states of the search except the given ones. It is not thread safe.
+		 */
+		private void clear(Set<State> keep) {
+			for (State state : states) {
+				if (!keep.contains(state)) {
+					statesFactory.releaseResource(state);
+				}
+			}
+			states.clear();
+			openStateList.clear();
+			for (LongHashMap<State> stripe : visitedStates) {
+				stripe.clear();
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,608 @@
+package com.livae.util.search.astar;
+
+import com.livae.util.LongHashSet;
+import com.livae.util.ResourcesFactory;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * External memory a-star, the states are kept in files and only the fingerprints of a part of the
+ * visited states are in memory at the same time. The generated states are appended to files of
+ * buckets with the same cost and heuristic, which are expanded in order of f value and then cost.
+ * The duplicates are not detected when the states are generated but when their bucket is expanded:
+ * the bucket is split in partitions by fingerprint and every partition is checked against the file
+ * with the fingerprints of the visited states of the same partition. All the files are read and
+ * written sequentially.
+ * <p/>
+ * The states are stored with a {@link StateSerializer}. The operations must increase the cost and
+ * the heuristic must be consistent for the solution to be optimal. The path of the solution is
+ * rebuilt from the files of the visited states once the goal is found, and the files are deleted
+ * when the search finishes or the algorithm is closed.
+ * <p/>
+ * The files are created when their first states are flushed. Only a few files being written keep
+ * a buffer and an open file at the same time, the least recently written one is flushed and closed
+ * to write another one, and all the files are read through the same buffer.
+ */
+public class AstarExternalMemory extends AbstractAstar implements Closeable {
+
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	private static final int MAXIMUM_WRITING_RUNS = 16;
+
+	/**
+	 * Fingerprint, parent fingerprint, parent cost, operation, cost and size of the state.
+	 */
+	private static final int RECORD_HEADER_SIZE = 32;
+
+	private static final long MIX = 0x9e3779b97f4a7c15L;
+
+	private Operation[] operations;
+
+	private Heuristic heuristic;
+
+	private ResourcesFactory<State> statesFactory;
+
+	private StateSerializer serializer;
+
+	private File directory;
+
+	private int partitions;
+
+	private int recordSize;
+
+	private int bufferSize;
+
+	private TreeMap<Long, Bucket> openBuckets;
+
+	private RunFile[] splitRuns;
+
+	private RunFile[] closedRuns;
+
+	private Map<Integer, RunFile> visitedRuns;
+
+	private RunReader reader;
+
+	// files with a buffer and an open file, in order of last write
+	private LinkedHashMap<RunFile, RunFile> writingRuns;
+
+	private ArrayList<ByteBuffer> freeBuffers;
+
+	private LongHashSet closedFingerprints;
+
+	private Bucket bucket;
+
+	private int partition;
+
+	private boolean readingPartition;
+
+	private State solution;
+
+	private boolean finished;
+
+	private ArrayList<State> offsprings;
+
+	private SearchCounters counters;
+
+	private long expandedBuckets;
+
+	/**
+	 * @param directory
+	 *   directory where the files are created
+	 * @param partitions
+	 *   number of partitions of the fingerprints, only the visited states of one partition are in
+	 *   memory at the same time
+	 */
+	public AstarExternalMemory(Operation[] operations, Heuristic heuristic,
+	                           ResourcesFactory<State> statesFactory, StateSerializer serializer,
+	                           File directory, int partitions) {
+		if (partitions <= 0) {
+			throw new IllegalArgumentException("Partitions should be greater than 0");
+		}
+		if (!directory.isDirectory()) {
+			throw new IllegalArgumentException("Not a directory: " + directory);
+		}
+		this.operations = operations;
+		this.heuristic = heuristic;
+		this.statesFactory = statesFactory;
+		this.serializer = serializer;
+		this.directory = directory;
+		this.partitions = partitions;
+		this.recordSize = RECORD_HEADER_SIZE + serializer.getMaximumSize();
+		this.bufferSize = Math.max(BUFFER_SIZE, recordSize);
+		this.openBuckets = new TreeMap<>();
+		this.visitedRuns = new HashMap<>();
+		this.reader = new RunReader(bufferSize);
+		this.writingRuns = new LinkedHashMap<>(MAXIMUM_WRITING_RUNS, 0.75f, true);
+		this.freeBuffers = new ArrayList<>();
+		this.closedFingerprints = new LongHashSet();
+		this.offsprings = new ArrayList<>();
+		this.counters = new SearchCounters(operations.length, 1);
+	}
+
+	/**
+	 * The initial state is stored in the files, so it still belongs to the caller.
+	 */
+	public State start(SearchHandle handle, int maximumVisitedStates, State initialState) {
+		if (maximumVisitedStates <= 0) {
+			maximumVisitedStates = Integer.MAX_VALUE;
+		}
+		int currentVisitedStates = 0;
+		SearchHandle.Check check = handle.newCheck();
+		startTiming(initialState != null);
+		long timeNextPrint = System.currentTimeMillis() + TIME_PRINT_STATS;
+		try {
+			// initializing, cleaning structures.
+			if (initialState != null) {
+				close();
+				solution = null;
+				finished = false;
+				counters.clear();
+				expandedBuckets = 0;
+				splitRuns = new RunFile[partitions];
+				closedRuns = new RunFile[partitions];
+				for (int i = 0; i < partitions; i++) {
+					splitRuns[i] = new RunFile("split");
+					closedRuns[i] = new RunFile("closed");
+				}
+				addState(initialState, 0, -1, -1);
+			}
+
+			while (!finished && currentVisitedStates < maximumVisitedStates) {
+				if (check.isStopped()) {
+					break;
+				}
+				if (isReportingMetrics() && System.currentTimeMillis() > timeNextPrint) {
+					reportMetrics();
+					timeNextPrint = System.currentTimeMillis() + TIME_PRINT_STATS;
+				}
+				if (bucket == null) {
+					if (openBuckets.isEmpty()) {
+						// there is not any solution
+						finished = true;
+						close();
+					} else {
+						splitBucket();
+					}
+				} else if (!readingPartition) {
+					partition++;
+					if (partition == partitions) {
+						bucket = null;
+					} else if (!splitRuns[partition].isEmpty()) {
+						loadClosedFingerprints();
+						reader.open(splitRuns[partition]);
+						readingPartition = true;
+					}
+				} else if (!reader.fill(recordSize)) {
+					reader.close();
+					splitRuns[partition].clear();
+					readingPartition = false;
+				} else if (expandRecord()) {
+					currentVisitedStates++;
+				}
+			}
+		} catch (IOException e) {
+			stopTiming();
+			throw new RuntimeException(e);
+		}
+
+		stopTiming();
+		reportMetrics();
+		return solution;
+	}
+
+	public State getBestState() {
+		return solution;
+	}
+
+	/**
+	 * @return the number of buckets expanded since it started with the last initial state
+	 */
+	public long getExpandedBuckets() {
+		return expandedBuckets;
+	}
+
+	/**
+	 * @return the metrics of the algorithm since it started with the last initial state, the
+	 * visited states size is the number of fingerprints of the partition in memory and the open
+	 * list size is the number of open buckets. The repeated states are the duplicates found when
+	 * their buckets are expanded.
+	 */
+	public SearchMetrics getMetrics() {
+		long timeExecuting = getTimeExecuting();
+		return new SearchMetrics(counters, operations, new Heuristic[]{heuristic}, timeExecuting,
+		                         closedFingerprints.size(), -1, openBuckets.size());
+	}
+
+	/**
+	 * Deletes the files of the search. The algorithm can be started again afterwards.
+	 */
+	@Override
+	public void close() throws IOException {
+		reader.close();
+		for (Bucket openBucket : openBuckets.values()) {
+			openBucket.run.delete();
+		}
+		openBuckets.clear();
+		for (RunFile run : visitedRuns.values()) {
+			run.delete();
+		}
+		visitedRuns.clear();
+		if (splitRuns != null) {
+			for (int i = 0; i < partitions; i++) {
+				splitRuns[i].delete();
+				closedRuns[i].delete();
+			}
+			splitRuns = null;
+			closedRuns = null;
+		}
+		bucket = null;
+		readingPartition = false;
+	}
+
+	/**
+	 * Takes the bucket with the lowest f value and cost, and splits its states in the partitions.
+	 */
+	private void splitBucket() throws IOException {
+		bucket = openBuckets.pollFirstEntry().getValue();
+		expandedBuckets++;
+		reader.open(bucket.run);
+		ByteBuffer buffer = reader.buffer;
+		while (reader.fill(recordSize)) {
+			int start = buffer.position();
+			long fingerprint = buffer.getLong(start);
+			int size = RECORD_HEADER_SIZE + buffer.getInt(start + RECORD_HEADER_SIZE - 4);
+			int limit = buffer.limit();
+			buffer.limit(start + size);
+			splitRuns[partition(fingerprint)].reserve(size).put(buffer);
+			buffer.limit(limit);
+		}
+		reader.close();
+		bucket.run.delete();
+		partition = -1;
+	}
+
+	private void loadClosedFingerprints() throws IOException {
+		closedFingerprints.clear();
+		reader.open(closedRuns[partition]);
+		while (reader.fill(8)) {
+			closedFingerprints.add(reader.buffer.getLong());
+		}
+		reader.close();
+	}
+
+	/**
+	 * Reads the next state of the partition and expands it if it was not visited.
+	 *
+	 * @return true if the state is expanded
+	 */
+	private boolean expandRecord() throws IOException {
+		ByteBuffer buffer = reader.buffer;
+		long fingerprint = buffer.getLong();
+		long parentFingerprint = buffer.getLong();
+		int parentCost = buffer.getInt();
+		int operationIndex = buffer.getInt();
+		int cost = buffer.getInt();
+		int size = buffer.getInt();
+		int start = buffer.position();
+		if (!closedFingerprints.add(fingerprint)) {
+			counters.repeatedGeneratedStates++;
+			if (operationIndex >= 0) {
+				counters.repeatedGeneratedStatesOperator[operationIndex]++;
+			}
+			buffer.position(start + size);
+			return false;
+		}
+		closedRuns[partition].reserve(8).putLong(fingerprint);
+		RunFile visitedRun = visitedRuns.get(cost);
+		if (visitedRun == null) {
+			visitedRun = new RunFile("visited");
+			visitedRuns.put(cost, visitedRun);
+		}
+		int limit = buffer.limit();
+		buffer.position(start - RECORD_HEADER_SIZE);
+		buffer.limit(start + size);
+		visitedRun.reserve(RECORD_HEADER_SIZE + size).put(buffer);
+		buffer.limit(limit);
+		buffer.position(start);
+		State state = readState(buffer, cost, operationIndex, size);
+		counters.visitedStates++;
+
+		if (bucket.heuristic == 0) {
+			solution = buildPath(state, parentFingerprint, parentCost);
+			finished = true;
+			close();
+			return true;
+		}
+		for (int i = 0; i < operations.length; i++) {
+			offsprings.clear();
+			operations[i].apply(state, offsprings, statesFactory);
+			for (State offspring : offsprings) {
+				counters.generatedStates++;
+				counters.generatedStatesOperator[i]++;
+				if (offspring.cost <= cost) {
+					throw new RuntimeException("The operations should increase the cost: " +
+					                           operations[i].getName());
+				}
+				addState(offspring, fingerprint, cost, i);
+				statesFactory.releaseResource(offspring);
+			}
+		}
+		statesFactory.releaseResource(state);
+		return true;
+	}
+
+	/**
+	 * Appends the state to the file of its bucket.
+	 */
+	private void addState(State state, long parentFingerprint, int parentCost, int operationIndex)
+	  throws IOException {
+		int value = heuristic.calculateHeuristic(state);
+		long key = ((long) (state.cost + value) << 32) | state.cost;
+		Bucket openBucket = openBuckets.get(key);
+		if (openBucket == null) {
+			openBucket = new Bucket(value, new RunFile("open"));
+			openBuckets.put(key, openBucket);
+		}
+		ByteBuffer buffer = openBucket.run.reserve(recordSize);
+		buffer.putLong(state.getFingerprint());
+		buffer.putLong(parentFingerprint);
+		buffer.putInt(parentCost);
+		buffer.putInt(operationIndex);
+		buffer.putInt(state.cost);
+		int sizePosition = buffer.position();
+		buffer.putInt(0);
+		serializer.write(state, buffer);
+		buffer.putInt(sizePosition, buffer.position() - sizePosition - 4);
+	}
+
+	private State readState(ByteBuffer buffer, int cost, int operationIndex, int size) {
+		int end = buffer.position() + size;
+		State state = serializer.read(buffer, statesFactory);
+		buffer.position(end);
+		state.cost = cost;
+		state.parent = null;
+		state.operation = operationIndex < 0 ? null : operations[operationIndex];
+		return state;
+	}
+
+	/**
+	 * Links the states of the path from the files of the visited states, the parent of every state
+	 * is in the file of its cost. The search finishes with the goal, so the reader of the partition
+	 * is reused.
+	 */
+	private State buildPath(State goal, long parentFingerprint, int parentCost)
+	  throws IOException {
+		ByteBuffer buffer = reader.buffer;
+		State state = goal;
+		while (parentCost >= 0) {
+			reader.open(visitedRuns.get(parentCost));
+			State parent = null;
+			while (parent == null && reader.fill(recordSize)) {
+				long fingerprint = buffer.getLong();
+				long nextParentFingerprint = buffer.getLong();
+				int nextParentCost = buffer.getInt();
+				int operationIndex = buffer.getInt();
+				int cost = buffer.getInt();
+				int size = buffer.getInt();
+				if (fingerprint == parentFingerprint) {
+					parent = readState(buffer, cost, operationIndex, size);
+					parentFingerprint = nextParentFingerprint;
+					parentCost = nextParentCost;
+				} else {
+					buffer.position(buffer.position() + size);
+				}
+			}
+			if (parent == null) {
+				throw new RuntimeException("State of the path not found: " + parentFingerprint);
+			}
+			state.parent = parent;
+			state = parent;
+		}
+		reader.close();
+		return goal;
+	}
+
+	private int partition(long fingerprint) {
+		return (int) (((fingerprint * MIX) >>> 33) % partitions);
+	}
+
+	/**
+	 * File of states with the same cost and heuristic.
+	 */
+	private static class Bucket {
+
+		private final int heuristic;
+
+		private final RunFile run;
+
+		Bucket(int heuristic, RunFile run) {
+			this.heuristic = heuristic;
+			this.run = run;
+		}
+
+	}
+
+	/**
+	 * File written sequentially through a buffer. The file is created with the first flush, and
+	 * the buffer and the open file are only kept while it is one of the last files written.
+	 */
+	private class RunFile {
+
+		private final String prefix;
+
+		private File file;
+
+		private RandomAccessFile randomAccessFile;
+
+		private FileChannel channel;
+
+		private ByteBuffer buffer;
+
+		private long size;
+
+		RunFile(String prefix) {
+			this.prefix = prefix;
+		}
+
+		/**
+		 * @return the buffer with space for the given bytes
+		 */
+		ByteBuffer reserve(int bytes) throws IOException {
+			if (buffer == null) {
+				startWriting();
+			} else {
+				// the last written goes to the end of the access order
+				writingRuns.get(this);
+			}
+			if (buffer.remaining() < bytes) {
+				flush();
+			}
+			return buffer;
+		}
+
+		private void startWriting() throws IOException {
+			if (writingRuns.size() == MAXIMUM_WRITING_RUNS) {
+				writingRuns.keySet().iterator().next().stopWriting();
+			}
+			if (freeBuffers.isEmpty()) {
+				buffer = ByteBuffer.allocateDirect(bufferSize);
+			} else {
+				buffer = freeBuffers.remove(freeBuffers.size() - 1);
+			}
+			writingRuns.put(this, this);
+		}
+
+		/**
+		 * Flushes the buffer, closes the file and gives the buffer back.
+		 */
+		private void stopWriting() throws IOException {
+			flush();
+			closeFile();
+			releaseBuffer();
+		}
+
+		private void releaseBuffer() {
+			if (buffer != null) {
+				buffer.clear();
+				freeBuffers.add(buffer);
+				buffer = null;
+				writingRuns.remove(this);
+			}
+		}
+
+		void flush() throws IOException {
+			if (buffer == null || buffer.position() == 0) {
+				return;
+			}
+			if (channel == null) {
+				if (file == null) {
+					file = File.createTempFile(prefix, ".run", directory);
+				}
+				randomAccessFile = new RandomAccessFile(file, "rw");
+				channel = randomAccessFile.getChannel();
+			}
+			buffer.flip();
+			while (buffer.hasRemaining()) {
+				size += channel.write(buffer, size);
+			}
+			buffer.clear();
+		}
+
+		boolean isEmpty() {
+			return size == 0 && (buffer == null || buffer.position() == 0);
+		}
+
+		void clear() throws IOException {
+			delete();
+			size = 0;
+		}
+
+		void delete() throws IOException {
+			closeFile();
+			releaseBuffer();
+			if (file != null) {
+				//noinspection ResultOfMethodCallIgnored
+				file.delete();
+				file = null;
+			}
+		}
+
+		private void closeFile() throws IOException {
+			if (randomAccessFile != null) {
+				randomAccessFile.close();
+				randomAccessFile = null;
+				channel = null;
+			}
+		}
+
+	}
+
+	/**
+	 * Reads a file sequentially through a buffer, the file is only open while it is read.
+	 */
+	private static class RunReader {
+
+		private final ByteBuffer buffer;
+
+		private RandomAccessFile randomAccessFile;
+
+		private FileChannel channel;
+
+		private long size;
+
+		private long position;
+
+		RunReader(int bufferSize) {
+			buffer = ByteBuffer.allocateDirect(bufferSize);
+		}
+
+		void open(RunFile run) throws IOException {
+			close();
+			run.flush();
+			size = run.size;
+			if (size > 0) {
+				randomAccessFile = new RandomAccessFile(run.file, "r");
+				channel = randomAccessFile.getChannel();
+			}
+			position = 0;
+			buffer.clear();
+			buffer.limit(0);
+		}
+
+		/**
+		 * Reads from the file until the buffer has the given bytes or the file ends.
+		 *
+		 * @return true if there is something to read
+		 */
+		boolean fill(int bytes) throws IOException {
+			if (buffer.remaining() < bytes && position < size) {
+				buffer.compact();
+				while (buffer.hasRemaining() && position < size) {
+					position += channel.read(buffer, position);
+				}
+				buffer.flip();
+			}
+			return buffer.hasRemaining();
+		}
+
+		void close() throws IOException {
+			if (randomAccessFile != null) {
+				randomAccessFile.close();
+				randomAccessFile = null;
+				channel = null;
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,268 @@
+package com.livae.util.search.astar;
+
+import com.livae.util.LongHashMap;
+import com.livae.util.ResourcesFactory;
+
+import java.util.ArrayList;
+
+/**
+ * Iterative deepening a-star (IDA*). It makes depth first searches bounded by the f value, cost
+ * plus the maximum of the heuristics, and increases the bound to the lowest f value which
+ * exceeded it in the previous search. Only the states of the current path and their offspring are
+ * kept in memory, the repeated states are only checked against the current path.
+ */
+public class AstarIterativeDeepening extends AbstractAstar {
+
+	private Operation[] operations;
+
+	private Heuristic[] heuristics;
+
+	private ResourcesFactory<State> statesFactory;
+
+	private ArrayList<Frame> frames;
+
+	private int depth;
+
+	private LongHashMap<State> pathStates;
+
+	private int threshold;
+
+	private int nextThreshold;
+
+	private State solution;
+
+	private State root;
+
+	private SearchCounters counters;
+
+	private int iterations;
+
+	public AstarIterativeDeepening(Operation[] operations, Heuristic heuristic,
+	                               ResourcesFactory<State> statesFactory) {
+		this(operations, new Heuristic[]{heuristic}, statesFactory);
+	}
+
+	public AstarIterativeDeepening(Operation[] operations, Heuristic[] heuristics,
+	                               ResourcesFactory<State> statesFactory) {
+		this.operations = operations;
+		this.heuristics = heuristics;
+		this.statesFactory = statesFactory;
+		this.frames = new ArrayList<>();
+		this.pathStates = new LongHashMap<>();
+		this.depth = -1;
+		this.counters = new SearchCounters(operations.length, heuristics.length);
+	}
+
+	public State start(SearchHandle handle, int maximumVisitedStates, State initialState) {
+		if (maximumVisitedStates <= 0) {
+			maximumVisitedStates = Integer.MAX_VALUE;
+		}
+		int currentVisitedStates = 0;
+		SearchHandle.Check check = handle.newCheck();
+		startTiming(initialState != null);
+		long timeNextPrint = System.currentTimeMillis() + TIME_PRINT_STATS;
+		// initializing, cleaning structures.
+		if (initialState != null) {
+			clear();
+			calculateHeuristics(initialState);
+			root = initialState;
+			threshold = getF(initialState);
+			counters.clear();
+			iterations = 0;
+			if (getH(initialState) == 0) {
+				solution = initialState;
+			}
+		}
+
+		while (solution == null && root != null && currentVisitedStates < maximumVisitedStates) {
+			if (check.isStopped()) {
+				break;
+			}
+			if (isReportingMetrics() && System.currentTimeMillis() > timeNextPrint) {
+				reportMetrics();
+				timeNextPrint = System.currentTimeMillis() + TIME_PRINT_STATS;
+			}
+			if (depth < 0) {
+				// new iteration from the root with the new threshold
+				nextThreshold = Integer.MAX_VALUE;
+				iterations++;
+				push(root);
+				continue;
+			}
+			Frame frame = frames.get(depth);
+			if (frame.next == frame.offspring.size()) {
+				pop();
+				if (depth < 0) {
+					if (nextThreshold == Integer.MAX_VALUE) {
+						// the whole tree has been visited
+						break;
+					}
+					threshold = nextThreshold;
+				}
+				continue;
+			}
+			State offspring = frame.offspring.get(frame.next);
+			frame.offspring.set(frame.next, null);
+			frame.next++;
+			if (pathStates.containsKey(offspring.getFingerprint())) {
+				counters.repeatedGeneratedStates++;
+				statesFactory.releaseResource(offspring);
+				continue;
+			}
+			calculateHeuristics(offspring);
+			int f = getF(offspring);
+			if (f > threshold) {
+				if (f < nextThreshold) {
+					nextThreshold = f;
+				}
+				statesFactory.releaseResource(offspring);
+				continue;
+			}
+			currentVisitedStates++;
+			counters.visitedStates++;
+			if (getH(offspring) == 0) {
+				solution = offspring;
+			} else {
+				push(offspring);
+			}
+		}
+
+		stopTiming();
+		reportMetrics();
+		return solution;
+	}
+
+	public State getBestState() {
+		return solution;
+	}
+
+	/**
+	 * @return the number of depth first searches started from the initial state
+	 */
+	public int getIterations() {
+		return iterations;
+	}
+
+	/**
+	 * @return the bound of the f value of the current depth first search
+	 */
+	public int getThreshold() {
+		return threshold;
+	}
+
+	/**
+	 * @return the metrics of the algorithm since it started with the last initial state, the
+	 * visited states size is the length of the current path. The generated states are counted when
+	 * their parents are expanded and the repeated ones are the ones found in the current path.
+	 */
+	public SearchMetrics getMetrics() {
+		long timeExecuting = getTimeExecuting();
+		long pendingStates = 0;
+		for (int i = 0; i <= depth; i++) {
+			Frame frame = frames.get(i);
+			pendingStates += frame.offspring.size() - frame.next;
+		}
+		return new SearchMetrics(counters, operations, heuristics, timeExecuting, depth + 1, -1,
+		                         pendingStates);
+	}
+
+	/**
+	 * Expands a state and adds it to the current path.
+	 */
+	private void push(State state) {
+		depth++;
+		if (depth == frames.size()) {
+			frames.add(new Frame());
+		}
+		Frame frame = frames.get(depth);
+		frame.state = state;
+		frame.next = 0;
+		frame.offspring.clear();
+		for (int i = 0; i < operations.length; i++) {
+			int size = frame.offspring.size();
+			operations[i].apply(state, frame.offspring, statesFactory);
+			counters.generatedStates += frame.offspring.size() - size;
+			counters.generatedStatesOperator[i] += frame.offspring.size() - size;
+		}
+		pathStates.put(state.getFingerprint(), state);
+	}
+
+	/**
+	 * Removes the last state of the current path, it is released except if it is the root.
+	 */
+	private void pop() {
+		Frame frame = frames.get(depth);
+		for (int i = frame.next; i < frame.offspring.size(); i++) {
+			statesFactory.releaseResource(frame.offspring.get(i));
+		}
+		frame.offspring.clear();
+		pathStates.remove(frame.state.getFingerprint());
+		if (frame.state != root) {
+			statesFactory.releaseResource(frame.state);
+		}
+		frame.state = null;
+		depth--;
+	}
+
+	/**
+	 * Releases all the states, except the ones in the path of the solution.
+	 */
+	private void clear() {
+		if (solution == null) {
+			while (depth >= 0) {
+				pop();
+			}
+		} else {
+			for (int i = depth; i >= 0; i--) {
+				Frame frame = frames.get(i);
+				for (int j = frame.next; j < frame.offspring.size(); j++) {
+					statesFactory.releaseResource(frame.offspring.get(j));
+				}
+				frame.offspring.clear();
+				frame.state = null;
+			}
+			depth = -1;
+		}
+		pathStates.clear();
+		solution = null;
+		root = null;
+	}
+
+	private void calculateHeuristics(State state) {
+		for (int i = 0; i < heuristics.length; i++) {
+			state.heuristic[i] = heuristics[i].calculateHeuristic(state);
+		}
+	}
+
+	private int getH(State state) {
+		int h = 0;
+		for (int i = 0; i < heuristics.length; i++) {
+			if (state.heuristic[i] > h) {
+				h = state.heuristic[i];
+			}
+		}
+		return h;
+	}
+
+	private int getF(State state) {
+		return state.cost + getH(state);
+	}
+
+	/**
+	 * State of the current path with its offspring pending to be visited.
+	 */
+	static class Frame {
+
+		private State state;
+
+		private ArrayList<State> offspring;
+
+		private int next;
+
+		Frame() {
+			offspring = new ArrayList<>();
+		}
+
+	}
+
+}
@@ -0,0 +1,387 @@
+package com.livae.util.search.astar;
+
+import com.livae.util.ResourcesFactory;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.TreeSet;
+
+/**
+ * Simplified memory bounded a-star (SMA*). It works as the a-star but it never keeps more states
+ * in memory than the maximum given. When the limit is reached the leaf with the highest f value is
+ * forgotten and its f value is backed up in its parent, which is added again to the open list to
+ * generate the forgotten offspring when they are the best option. All the offspring of a state
+ * are generated at the same time, and the repeated states are only checked against the path of
+ * the state.
+ */
+public class AstarMemoryBounded extends AbstractAstar {
+
+	private static final int INFINITE = Integer.MAX_VALUE;
+
+	private Operation[] operations;
+
+	private Heuristic[] heuristics;
+
+	private ResourcesFactory<State> statesFactory;
+
+	private ResourcesFactory<Node> nodesFactory;
+
+	private int maximumStates;
+
+	private TreeSet<Node> openNodes;
+
+	private Node root;
+
+	private State solution;
+
+	private Node solutionNode;
+
+	private int statesInMemory;
+
+	private long nodesCreated;
+
+	private ArrayList<State> offsprings;
+
+	private SearchCounters counters;
+
+	private long forgottenStates;
+
+	public AstarMemoryBounded(Operation[] operations, Heuristic heuristic,
+	                          ResourcesFactory<State> statesFactory, int maximumStates) {
+		this(operations, new Heuristic[]{heuristic}, statesFactory, maximumStates);
+	}
+
+	public AstarMemoryBounded(Operation[] operations, Heuristic[] heuristics,
+	                          ResourcesFactory<State> statesFactory, int maximumStates) {
+		if (maximumStates < 2) {
+			throw new IllegalArgumentException("Maximum states should be greater than 1");
+		}
+		this.operations = operations;
+		this.heuristics = heuristics;
+		this.statesFactory = statesFactory;
+		this.nodesFactory = new ResourcesFactory<Node>() {
+			@Override
+			protected Node createResource() {
+				return new Node();
+			}
+		};
+		this.maximumStates = maximumStates;
+		this.openNodes = new TreeSet<>();
+		this.offsprings = new ArrayList<>();
+		this.counters = new SearchCounters(operations.length, heuristics.length);
+	}
+
+	public State start(SearchHandle handle, int maximumVisitedStates, State initialState) {
+		if (maximumVisitedStates <= 0) {
+			maximumVisitedStates = Integer.MAX_VALUE;
+		}
+		int currentVisitedStates = 0;
+		SearchHandle.Check check = handle.newCheck();
+		startTiming(initialState != null);
+		long timeNextPrint = System.currentTimeMillis() + TIME_PRINT_STATS;
+		// initializing, cleaning structures.
+		if (initialState != null) {
+			clear();
+			calculateHeuristics(initialState);
+			root = createNode(initialState, null);
+			root.f = getF(initialState);
+			addToOpenList(root, root.f);
+			statesInMemory = 1;
+			counters.clear();
+			forgottenStates = 0;
+		}
+
+		while (solution == null && !openNodes.isEmpty() &&
+		       currentVisitedStates < maximumVisitedStates) {
+			if (check.isStopped()) {
+				break;
+			}
+			if (isReportingMetrics() && System.currentTimeMillis() > timeNextPrint) {
+				reportMetrics();
+				timeNextPrint = System.currentTimeMillis() + TIME_PRINT_STATS;
+			}
+			Node node = openNodes.first();
+			if (node.key == INFINITE) {
+				// there is not any solution which fits in memory
+				break;
+			}
+			removeFromOpenList(node);
+			currentVisitedStates++;
+			counters.visitedStates++;
+			if (node.children.isEmpty() && getH(node.state) == 0) {
+				solution = node.state;
+				solutionNode = node;
+				break;
+			}
+			expand(node);
+			if (node.children.isEmpty()) {
+				// dead end, it is forgotten as a leaf with infinite cost
+				node.f = INFINITE;
+				if (node == root) {
+					addToOpenList(node, INFINITE);
+				} else {
+					forget(node);
+				}
+			}
+			while (statesInMemory > maximumStates) {
+				forget(findWorstLeaf());
+			}
+		}
+
+		stopTiming();
+		reportMetrics();
+		return solution;
+	}
+
+	public State getBestState() {
+		return solution;
+	}
+
+	/**
+	 * @return the number of states removed from memory since it started with the last initial
+	 * state
+	 */
+	public long getForgottenStates() {
+		return forgottenStates;
+	}
+
+	/**
+	 * @return the metrics of the algorithm since it started with the last initial state, the
+	 * visited states size is the number of states in memory. The repeated states are the ones found
+	 * in the path or among the siblings in memory.
+	 */
+	public SearchMetrics getMetrics() {
+		long timeExecuting = getTimeExecuting();
+		return new SearchMetrics(counters, operations, heuristics, timeExecuting, statesInMemory,
+		                         -1, openNodes.size());
+	}
+
+	/**
+	 * Generates the offspring of a state which are not in memory. When the state has some offspring
+	 * in memory only the forgotten ones are generated again.
+	 */
+	private void expand(Node node) {
+		State state = node.state;
+		offsprings.clear();
+		for (int i = 0; i < operations.length; i++) {
+			int size = offsprings.size();
+			operations[i].apply(state, offsprings, statesFactory);
+			counters.generatedStates += offsprings.size() - size;
+			counters.generatedStatesOperator[i] += offsprings.size() - size;
+		}
+		node.forgottenF = INFINITE;
+		int childrenInMemory = node.children.size();
+		for (State offspring : offsprings) {
+			long fingerprint = offspring.getFingerprint();
+			if (isInPath(node, fingerprint) || isChild(node, childrenInMemory, fingerprint)) {
+				counters.repeatedGeneratedStates++;
+				statesFactory.releaseResource(offspring);
+				continue;
+			}
+			calculateHeuristics(offspring);
+			Node child = createNode(offspring, node);
+			if (getH(offspring) > 0 && child.depth >= maximumStates - 1) {
+				// the path to the offspring of this state would not fit in memory
+				child.f = INFINITE;
+			} else {
+				// the f value of the offspring is never lower than the f value of the parent
+				child.f = Math.max(node.f, getF(offspring));
+			}
+			node.children.add(child);
+			statesInMemory++;
+			addToOpenList(child, child.f);
+		}
+	}
+
+	private boolean isInPath(Node node, long fingerprint) {
+		while (node != null) {
+			if (node.state.getFingerprint() == fingerprint) {
+				return true;
+			}
+			node = node.parent;
+		}
+		return false;
+	}
+
+	private boolean isInSolutionPath(Node node) {
+		Node pathNode = solutionNode;
+		while (pathNode != null) {
+			if (pathNode == node) {
+				return true;
+			}
+			pathNode = pathNode.parent;
+		}
+		return false;
+	}
+
+	private boolean isChild(Node node, int children, long fingerprint) {
+		for (int i = 0; i < children; i++) {
+			if (node.children.get(i).state.getFingerprint() == fingerprint) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @return the leaf with the highest f value, the shallowest one in case of tie
+	 */
+	private Node findWorstLeaf() {
+		Iterator<Node> iterator = openNodes.descendingIterator();
+		while (iterator.hasNext()) {
+			Node node = iterator.next();
+			if (node.children.isEmpty()) {
+				return node;
+			}
+		}
+		throw new RuntimeException("No leaves to forget");
+	}
+
+	/**
+	 * Removes a leaf from memory and backs up its f value in its parent. The parent is added to the
+	 * open list with the lowest f value of its forgotten offspring, so they are generated again
+	 * when needed. Once all its offspring are forgotten the parent is a leaf with that f value.
+	 */
+	private void forget(Node node) {
+		Node parent = node.parent;
+		if (parent == null) {
+			throw new RuntimeException("Not enough memory to keep the root and one state");
+		}
+		if (node.inOpenList) {
+			removeFromOpenList(node);
+		}
+		forgottenStates++;
+		statesInMemory--;
+		parent.children.remove(node);
+		if (node.f < parent.forgottenF) {
+			parent.forgottenF = node.f;
+		}
+		statesFactory.releaseResource(node.state);
+		releaseNode(node);
+		if (parent.inOpenList) {
+			removeFromOpenList(parent);
+		}
+		if (parent.children.isEmpty()) {
+			parent.f = parent.forgottenF;
+		}
+		addToOpenList(parent, parent.forgottenF);
+	}
+
+	private void addToOpenList(Node node, int key) {
+		node.key = key;
+		node.inOpenList = true;
+		openNodes.add(node);
+	}
+
+	private void removeFromOpenList(Node node) {
+		openNodes.remove(node);
+		node.inOpenList = false;
+	}
+
+	private Node createNode(State state, Node parent) {
+		Node node = nodesFactory.getResource();
+		node.state = state;
+		node.parent = parent;
+		node.depth = parent == null ? 0 : parent.depth + 1;
+		node.children.clear();
+		node.forgottenF = INFINITE;
+		node.inOpenList = false;
+		node.id = nodesCreated++;
+		return node;
+	}
+
+	private void releaseNode(Node node) {
+		node.state = null;
+		node.parent = null;
+		node.children.clear();
+		nodesFactory.releaseResource(node);
+	}
+
+	/**
+	 * Releases all the states, except the ones in the path of the solution.
+	 */
+	private void clear() {
+		if (root != null) {
+			ArrayList<Node> nodes = new ArrayList<>();
+			nodes.add(root);
+			while (!nodes.isEmpty()) {
+				Node node = nodes.remove(nodes.size() - 1);
+				nodes.addAll(node.children);
+				if (!isInSolutionPath(node)) {
+					statesFactory.releaseResource(node.state);
+				}
+				releaseNode(node);
+			}
+		}
+		openNodes.clear();
+		root = null;
+		solution = null;
+		solutionNode = null;
+		statesInMemory = 0;
+	}
+
+	private void calculateHeuristics(State state) {
+		for (int i = 0; i < heuristics.length; i++) {
+			state.heuristic[i] = heuristics[i].calculateHeuristic(state);
+		}
+	}
+
+	private int getH(State state) {
+		int h = 0;
+		for (int i = 0; i < heuristics.length; i++) {
+			if (state.heuristic[i] > h) {
+				h = state.heuristic[i];
+			}
+		}
+		return h;
+	}
+
+	private int getF(State state) {
+		return state.cost + getH(state);
+	}
+
+	/**
+	 * State in memory with the information needed to forget and regenerate its offspring.
+	 */
+	static class Node implements Comparable<Node> {
+
+		private State state;
+
+		private Node parent;
+
+		private ArrayList<Node> children;
+
+		private int f;
+
+		private int forgottenF;
+
+		private int key;
+
+		private boolean inOpenList;
+
+		private int depth;
+
+		private long id;
+
+		Node() {
+			children = new ArrayList<>();
+		}
+
+		/**
+		 * Sorted by the key in the open list, the deepest first and then by creation, so the first
+		 * node is the best one and the last ones are the first to be forgotten.
+		 */
+		@Override
+		public int compareTo(Node o) {
+			if (key != o.key) {
+				return key < o.key ? -1 : 1;
+			}
+			if (depth != o.depth) {
+				return depth > o.depth ? -1 : 1;
+			}
+			return id < o.id ? -1 : (id == o.id ? 0 : 1);
+		}
+
+	}
+
+}
@@ -1,60 +1,54 @@
 package com.livae.util.search.astar;
 
 import com.livae.util.ResourcesFactory;
-import com.livae.util.tree.Btree;
 import com.livae.util.tree.BtreeVisitor;
 
-import java.util.HashSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
 import java.util.Vector;
 
-public class AstarTree implements BtreeVisitor<State> {
+public class AstarTree extends AbstractAstar implements BtreeVisitor<State> {
 
-	private static final int TIME_PRINT_STATS = 1000;
+	private static final int DEFAULT_TIMING_SAMPLING = 64;
 
-	private static boolean PRINT_STATS = false;
+	private VisitedStates visitedStates;
 
-	private HashSet<String> visitedStates;
+	private boolean checkCollisions;
 
-	private Btree<State>[] openStateLists;
+	private OpenList[] openStateLists;
 
-	private Operation[] operations;
-
-	private Heuristic[] heuristics;
-
-	private State bestState;
-
-	private int bestHeuristic;
-
-	private long visitedStatesNumber;
+	private OpenList.Type openListType;
 
-	private long generatedStates;
+	private StateMap openStates;
 
-	private long repeatedGeneratedStates;
+	private StateMap closedStates;
 
-	private long timeHeuristic;
+	// expanded states, they are the parents of other states or kept to be opened again, so they
+	// are only released when the algorithm starts again
+	private ArrayList<State> expandedStates;
 
-	private long[] timeHeuristics;
+	// states released when the algorithm starts again, a state can be expanded from several open
+	// lists and still be in the first one, but it is only released once
+	private Set<State> releasedStates;
 
-	private long[] generatedStatesOperator;
-
-	private long[] repeatedGeneratedStatesOperator;
-
-	private long timeOperator;
-
-	private long[] timeOperators;
+	private Operation[] operations;
 
-	private long timeToHash;
+	private Heuristic[] heuristics;
 
-	private long timeHashTable;
+	private State bestState;
 
-	private long timeAddToTree;
+	private int bestHeuristic;
 
-	private long startAlgorithmTime;
+	private SearchCounters counters;
 
-	private long accumulatedTime;
+	private int timingSampling;
 
 	private Vector<State> offsprings;
 
+	private HeuristicBatch batch;
+
 	private ResourcesFactory<State> statesFactory;
 
 	public AstarTree(Operation[] operations, Heuristic heuristic,
@@ -66,53 +60,57 @@ public class AstarTree implements BtreeVisitor<State> {
 	                 ResourcesFactory<State> statesFactory) {
 		this.operations = operations;
 		this.heuristics = heuristics;
-		this.visitedStates = new HashSet<>();
-		//noinspection unchecked
-		this.openStateLists = new Btree[heuristics.length];
-		for (Btree<State> stateList : this.openStateLists) {
-			stateList = new Btree<>();
-		}
-		this.timeHeuristics = new long[this.heuristics.length];
-		this.generatedStatesOperator = new long[this.operations.length];
-		this.repeatedGeneratedStatesOperator = new long[this.operations.length];
-		this.timeOperators = new long[this.operations.length];
+		this.visitedStates = new VisitedStates();
+		this.openListType = OpenList.Type.BTREE;
+		this.openStateLists = openListType.createOpenLists(heuristics.length);
+		this.openStates = new StateMap();
+		this.closedStates = new StateMap();
+		this.expandedStates = new ArrayList<>();
+		this.releasedStates = Collections.newSetFromMap(new IdentityHashMap<State, Boolean>());
+		this.counters = new SearchCounters(operations.length, heuristics.length);
+		this.timingSampling = DEFAULT_TIMING_SAMPLING;
 		this.offsprings = new Vector<>();
+		this.batch = new HeuristicBatch();
 		this.statesFactory = statesFactory;
 	}
 
 	public void visit(State state, int deep) {
-		this.statesFactory.releaseResource(state);
-	}
-
-	public void setPrintStatsMode(boolean printStats) {
-		PRINT_STATS = printStats;
-	}
-
-	public State start(int maximumVisitedStates, State initialState) {
-		return start(-1, maximumVisitedStates, initialState);
-	}
-
-	public State start(long time, State initialState) {
-		return start(time, -1, initialState);
+		this.releasedStates.add(state);
 	}
 
-	public State continueAlgorithm(long time, int maximumVisitedStates) {
-		return start(time, maximumVisitedStates, null);
+	/**
+	 * Sets the type of the open lists. When the lists support decrease key, a state found again
+	 * with a lower cost is updated if it is in the open lists or opened again if it was expanded,
+	 * so the solution is optimal with admissible heuristics even if they are not consistent. The
+	 * expanded states are then kept until the algorithm starts again instead of going back to the
+	 * pool. With several heuristics MULTI_HEURISTIC_HEAP uses only one list for all of them, so a
+	 * state is not kept in the other lists once it is visited. It is applied the next time the
+	 * algorithm starts with an initial state.
+	 */
+	public void setOpenListType(OpenList.Type openListType) {
+		this.openListType = openListType;
 	}
 
-	public State continueAlgorithm(int maximumVisitedStates) {
-		return start(-1, maximumVisitedStates, null);
+	/**
+	 * Stores the hashes of the visited states besides their fingerprints, so the fingerprint
+	 * collisions are detected. It is applied the next time the algorithm starts.
+	 */
+	public void setCheckCollisionsMode(boolean checkCollisions) {
+		this.checkCollisions = checkCollisions;
 	}
 
-	public State continueAlgorithm(long time) {
-		return start(time, -1, null);
+	/**
+	 * Sets how many visited states there are for every one whose times are measured, 0 to not
+	 * measure times. By default the times are measured in 1 of 64 visited states.
+	 */
+	public void setTimingSampling(int timingSampling) {
+		if (timingSampling < 0) {
+			throw new IllegalArgumentException("Timing sampling cannot be negative");
+		}
+		this.timingSampling = timingSampling;
 	}
 
-	public State start(long time, int maximumVisitedStates, State initialState) {
-		long targetTime = System.currentTimeMillis() + time;
-		if (time <= 0) {
-			targetTime = Long.MAX_VALUE;
-		}
+	public State start(SearchHandle handle, int maximumVisitedStates, State initialState) {
 		if (maximumVisitedStates <= 0) {
 			maximumVisitedStates = Integer.MAX_VALUE;
 		}
@@ -123,58 +121,63 @@ public class AstarTree implements BtreeVisitor<State> {
 		int heuristicIndex;
 		int operatorIndex;
 		State current;
-		int i, j;
+		int i, j, k;
 		long t1;
 		long t2;
-		String hash;
+		long fingerprint;
 		boolean exists;
-		this.startAlgorithmTime = System.currentTimeMillis();
+		boolean decreaseKey;
+		boolean timed;
+		int timingCountdown = 1;
+		SearchHandle.Check check = handle.newCheck();
+		State openState;
+		State closedState;
+		SearchCounters counters = this.counters;
+		startTiming(initialState != null);
 		int[] heuristicsArray;
 		long timeNextPrint = System.currentTimeMillis() + TIME_PRINT_STATS;
 
-		State[] currentStates = null;
+		State[] currentStates = new State[heuristicsLength];
 		// initializing, cleaning structures.
 		if (initialState != null) {
 			visitedStates.clear();
-			// visit and clear the btree
-			openStateLists[0].visitInOrder(this);
-			for (Btree<State> openStateList : openStateLists) {
+			visitedStates.setCheckCollisions(checkCollisions);
+			// visit and clear the btree, the best state is one of the expanded states
+			openStateLists[0].visit(this);
+			releasedStates.addAll(expandedStates);
+			for (State state : releasedStates) {
+				this.statesFactory.releaseResource(state);
+			}
+			releasedStates.clear();
+			expandedStates.clear();
+			bestState = null;
+			for (OpenList openStateList : openStateLists) {
 				openStateList.clear();
 			}
+			openStateLists = openListType.createOpenLists(heuristics.length);
+			openStates.clear();
+			openStates.setCheckCollisions(checkCollisions);
+			closedStates.clear();
+			closedStates.setCheckCollisions(checkCollisions);
 
 			bestHeuristic = Integer.MAX_VALUE;
 			for (i = 0; i < heuristicsLength; i++) {
 				initialState.heuristic[i] = heuristics[i].calculateHeuristic(initialState);
 			}
-			for (Btree<State> openStateList : openStateLists) {
+			for (OpenList openStateList : openStateLists) {
 				openStateList.add(initialState);
 			}
 
-			visitedStatesNumber = 0;
-			generatedStates = 0;
-			repeatedGeneratedStates = 0;
-			for (i = 0; i < generatedStatesOperator.length; i++) {
-				generatedStatesOperator[i] = 0;
-			}
-			for (i = 0; i < repeatedGeneratedStatesOperator.length; i++) {
-				repeatedGeneratedStatesOperator[i] = 0;
-			}
-			timeHeuristic = 0;
-			for (i = 0; i < timeHeuristics.length; i++) {
-				timeHeuristics[i] = 0;
-			}
-			timeOperator = 0;
-			for (i = 0; i < timeOperators.length; i++) {
-				timeOperators[i] = 0;
-			}
-			timeToHash = 0;
-			timeHashTable = 0;
-			timeAddToTree = 0;
+			counters.clear();
 		}
 
-		while (bestHeuristic > 0 && targetTime >= System.currentTimeMillis() &&
-		       currentVisitedStates < maximumVisitedStates && !openStateLists[0].isEmpty()) {
-			for (i = 0; i < heuristicsLength; i++) {
+		decreaseKey = openStateLists[0].isDecreaseKeySupported();
+		while (bestHeuristic > 0 && currentVisitedStates < maximumVisitedStates &&
+		       !openStateLists[0].isEmpty()) {
+			if (check.isStopped()) {
+				break;
+			}
+			for (i = 0; i < openStateLists.length; i++) {
 				currentStates[i] = openStateLists[i].getFirst();
 			}
 			// clean up same states
@@ -191,79 +194,127 @@ public class AstarTree implements BtreeVisitor<State> {
 			for (heuristicIndex = 0; heuristicIndex < currentStates.length; heuristicIndex++) {
 				current = currentStates[heuristicIndex];
 				if (current != null) {
+					if (decreaseKey) {
+						fingerprint = current.getFingerprint();
+						openStates.remove(current, fingerprint);
+						if (closedStates.put(current, fingerprint) != current) {
+							expandedStates.add(current);
+						}
+					} else {
+						// its offspring keep it as their parent
+						expandedStates.add(current);
+					}
 					currentVisitedStates++;
-					visitedStatesNumber++;
+					counters.visitedStates++;
+					// the times are only measured in 1 of timingSampling states
+					timed = timingSampling > 0 && --timingCountdown == 0;
+					if (timed) {
+						timingCountdown = timingSampling;
+						counters.sampledStates++;
+					}
 					heuristicsArray = current.heuristic;
 					for (i = 0; i < heuristicsLength; i++) {
 						if (heuristicsArray[i] < bestHeuristic ||
 						    (heuristicsArray[i] == bestHeuristic &&
 						     current.cost < bestState.cost)) {
-							if (bestState != null) {
-								this.statesFactory.releaseResource(bestState);
-							}
 							bestState = current;
 							bestHeuristic = heuristicsArray[i];
 						}
 					}
 					for (operatorIndex = 0; operatorIndex < operatorsLength; operatorIndex++) {
-						t1 = System.nanoTime();
+						t1 = timed ? System.nanoTime() : 0;
 						offsprings.clear();
 						operations[operatorIndex].apply(current, offsprings, statesFactory);
-						t2 = System.nanoTime();
-						timeOperator += t2 - t1;
-						timeOperators[operatorIndex] += t2 - t1;
-						for (i = 0; i < offsprings.size(); i++) {
-							State offspring = offsprings.get(i);
-							generatedStates++;
-							generatedStatesOperator[operatorIndex]++;
-							t1 = System.nanoTime();
-							hash = offspring.getHash();
+						if (timed) {
 							t2 = System.nanoTime();
-							timeToHash += t2 - t1;
-							t1 = System.nanoTime();
-							exists = visitedStates.contains(hash);
-							t2 = System.nanoTime();
-							timeHashTable += t2 - t1;
-							if (exists) {
-								repeatedGeneratedStates++;
-								repeatedGeneratedStatesOperator[operatorIndex]++;
-								this.statesFactory.releaseResource(offspring);
-							} else {
-								t1 = System.nanoTime();
-								visitedStates.add(hash);
+							counters.timeOperator += t2 - t1;
+							counters.timeOperators[operatorIndex] += t2 - t1;
+						}
+						for (k = 0; k < offsprings.size(); k++) {
+							State offspring = offsprings.get(k);
+							counters.generatedStates++;
+							counters.generatedStatesOperator[operatorIndex]++;
+							t1 = timed ? System.nanoTime() : 0;
+							fingerprint = offspring.getFingerprint();
+							if (timed) {
+								t2 = System.nanoTime();
+								counters.timeToHash += t2 - t1;
+								t1 = t2;
+							}
+							exists = !visitedStates.add(offspring, fingerprint);
+							if (timed) {
 								t2 = System.nanoTime();
-								timeHashTable += t2 - t1;
-								for (i = 0; i < heuristicsLength; i++) {
-									t1 = System.nanoTime();
-									offspring.heuristic[i] = heuristics[i]
-									                           .calculateHeuristic(offspring);
-									t2 = System.nanoTime();
-									timeHeuristic += t2 - t1;
-									timeHeuristics[i] += t2 - t1;
+								counters.timeHashTable += t2 - t1;
+							}
+							if (exists) {
+								counters.repeatedGeneratedStates++;
+								counters.repeatedGeneratedStatesOperator[operatorIndex]++;
+								if (decreaseKey) {
+									openState = openStates.get(offspring, fingerprint);
+									if (openState != null) {
+										if (offspring.cost < openState.cost) {
+											// better path to a state still in the open lists
+											openState.cost = offspring.cost;
+											openState.parent = offspring.parent;
+											openState.operation = offspring.operation;
+											if (!batch.contains(openState)) {
+												for (OpenList openStateList : openStateLists) {
+													openStateList.decreaseKey(openState);
+												}
+											}
+										}
+									} else {
+										closedState = closedStates.get(offspring, fingerprint);
+										if (closedState != null &&
+										    offspring.cost < closedState.cost) {
+											// better path to an expanded state, it is opened again
+											closedStates.remove(closedState, fingerprint);
+											exists = false;
+										}
+									}
 								}
-								t1 = System.nanoTime();
-								for (Btree<State> openStateList : openStateLists) {
-									openStateList.add(offspring);
+								if (exists) {
+									this.statesFactory.releaseResource(offspring);
+								}
+							}
+							if (!exists) {
+								batch.add(offspring);
+								if (decreaseKey) {
+									openStates.put(offspring, fingerprint);
 								}
-								t2 = System.nanoTime();
-								timeAddToTree += t2 - t1;
 							}
 						}
 					}
-				}
-				if (bestState != current) {
-					this.statesFactory.releaseResource(current);
+					// the heuristics of all the new offspring are calculated together
+					for (i = 0; i < heuristicsLength; i++) {
+						t1 = timed ? System.nanoTime() : 0;
+						batch.calculate(heuristics[i], i);
+						if (timed) {
+							t2 = System.nanoTime();
+							counters.timeHeuristic += t2 - t1;
+							counters.timeHeuristics[i] += t2 - t1;
+						}
+					}
+					t1 = timed ? System.nanoTime() : 0;
+					for (k = 0; k < batch.size(); k++) {
+						for (OpenList openStateList : openStateLists) {
+							openStateList.add(batch.get(k));
+						}
+					}
+					if (timed) {
+						t2 = System.nanoTime();
+						counters.timeAddToTree += t2 - t1;
+					}
+					batch.clear();
 				}
 			}
-			if (PRINT_STATS && System.currentTimeMillis() > timeNextPrint) {
-				printStats();
+			if (isReportingMetrics() && System.currentTimeMillis() > timeNextPrint) {
+				reportMetrics();
 				timeNextPrint = System.currentTimeMillis() + TIME_PRINT_STATS;
 			}
 		}
-		if (PRINT_STATS) {
-			printStats();
-		}
-		this.accumulatedTime += System.currentTimeMillis() - this.startAlgorithmTime;
+		stopTiming();
+		reportMetrics();
 		if (bestHeuristic == 0) {
 			return bestState;
 		} else {
@@ -275,66 +326,14 @@ public class AstarTree implements BtreeVisitor<State> {
 		return this.bestState;
 	}
 
-	private void printStats() {
-		long timeExecuting =
-		  System.currentTimeMillis() - this.startAlgorithmTime + this.accumulatedTime;
-		System.out.println("Time executing: " + timeExecuting + " ms");
-		System.out.println("Visited states: " + visitedStatesNumber);
-		double seconds = timeExecuting / 1000;
-		double statesPerSecond = visitedStatesNumber / seconds;
-		System.out.println("Visited states per second: " + statesPerSecond);
-
-		System.out.println("Generated states: " + generatedStates);
-		System.out.println("Generated states per second: " + (generatedStates / seconds));
-		System.out.println("Generated states repeated: " + repeatedGeneratedStates);
-		double collisions = repeatedGeneratedStates * 100.0 / generatedStates;
-		System.out.println("Collisions: " + collisions + " %");
-
-		System.out.println("Time operators: " + timeOperator + " ns");
-		double operatorsPerVisitedState = timeOperator * 1.0 / visitedStatesNumber;
-		System.out.println("Time operators per visited state: " + operatorsPerVisitedState + " ns");
-		for (int i = 0; i < timeOperators.length; i++) {
-			System.out.println("\t" + this.operations[i].getName() + ":");
-			System.out.println("\t\t time " + timeOperators[i]);
-			System.out.println("\t\t time per visit " +
-			                   (timeOperators[i] * 1.0 / visitedStatesNumber));
-			System.out.println("\t\t generated states (per visit): " +
-			                   this.generatedStatesOperator[i] + " (" +
-			                   (this.generatedStatesOperator[i] * 1.0 / visitedStatesNumber) + ")");
-			System.out.println("\t\t repeated generated states (per visit): " +
-			                   this.repeatedGeneratedStatesOperator[i] + " (" +
-			                   (this.repeatedGeneratedStatesOperator[i] * 1.0 /
-			                    visitedStatesNumber) + ")");
-			System.out.println("\t\t collisions: " +
-			                   this.repeatedGeneratedStatesOperator[i] * 100.0 /
-			                   this.generatedStatesOperator[i]);
-		}
-		System.out.println("Time generating hash: " + timeToHash);
-		double timeHashPerState = timeToHash * 1.0 / generatedStates;
-		System.out.println("Time generating hash per state: " + timeHashPerState + " ns");
-		System.out.println("Time hashtable: " + timeHashTable + " ns");
-		System.out.println("Size hashtable: " + this.visitedStates.size());
-
-		System.out.println("Time heuristic: " + timeHeuristic + " ns");
-		double heuristicPerGenerateState = timeHeuristic * 1.0 / generatedStates;
-		System.out.println("Time heuristic per generatedState state: " +
-		                   heuristicPerGenerateState + " ns");
-		for (int i = 0; i < timeHeuristics.length; i++) {
-			System.out.println("\t" + this.heuristics[i].getName() + ": ");
-			System.out.println("\t\t time " + timeHeuristics[i]);
-			System.out.println("\t\t time por generatedState " +
-			                   (timeHeuristics[i] * 1.0 / generatedStates));
-		}
-
-		System.out.println("Time adding to tree: " + timeAddToTree + " ns");
-		long treeSize = generatedStates - (visitedStatesNumber + repeatedGeneratedStates);
-		long realTreeSize = this.openStateLists[0].getSize();
-		System.out.println("Approximate tree size: " + treeSize);
-		System.out.println("Tree size: " + realTreeSize);
-		double ratioList = timeAddToTree * 1.0 / treeSize;
-		System.out.println("Ratio Time / Tree Size: " + ratioList);
-
-		System.out.println("-----------------------------------------------------");
+	/**
+	 * @return the metrics of the algorithm since it started with the last initial state
+	 */
+	public SearchMetrics getMetrics() {
+		long timeExecuting = getTimeExecuting();
+		long collisions = checkCollisions ? visitedStates.getCollisions() : -1;
+		return new SearchMetrics(counters, operations, heuristics, timeExecuting,
+		                         visitedStates.size(), collisions, openStateLists[0].getSize());
 	}
 
 }
@@ -0,0 +1,522 @@
+package com.livae.util.search.astar;
+
+import com.livae.util.ResourcesFactory;
+import com.livae.util.tree.Btree;
+import com.livae.util.tree.BtreeVisitor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Hash distributed a-star (HDA*). Every state is owned by one worker, chosen by the fingerprint of
+ * the state, and each worker has its own open list and map of visited states. The generated states
+ * are sent to their owners in batches through a mailbox per worker, so the workers never share
+ * their open lists nor their visited states.
+ * <p>
+ * The workers do not expand the states in the global order of f, so a state can be found again with
+ * a lower cost after it has been expanded, then it is opened again. A solution is only returned
+ * when no state with a lower f than its cost is left in the open lists nor in the mailboxes, so it
+ * is optimal when the first heuristic is admissible. The expanded states are kept until the
+ * algorithm starts again, so the chain of parents of the solution is valid until then. The
+ * heuristics of the new states of a worker are calculated together before they are added to its
+ * open list.
+ */
+public class AstarTreeHashDistributed extends AbstractAstar implements BtreeVisitor<State> {
+
+	private static final int BATCH_SIZE = 64;
+
+	// the outboxes are sent at least every millisecond, so the other workers do not wait for them
+	private static final long OUTBOX_FLUSH_TIME = 1000000;
+
+	private Operation[] operations;
+
+	private Heuristic[] heuristics;
+
+	private ResourcesFactory<State> statesFactory;
+
+	private Worker[] workers;
+
+	private Executor executor;
+
+	private Lock statsLock;
+
+	private Lock bestLock;
+
+	private volatile State bestState;
+
+	private volatile int bestHeuristic;
+
+	// cost of the best solution found, the states with a greater or equal f are pruned
+	private volatile int solutionCost;
+
+	private boolean checkCollisions;
+
+	private SearchCounters counters;
+
+	private volatile SearchHandle handle;
+
+	private volatile int maximumVisitedStates;
+
+	private AtomicInteger currentVisitedStates;
+
+	private AtomicLong pendingStates;
+
+	public AstarTreeHashDistributed(Operation[] operations, Heuristic heuristic,
+	                                ResourcesFactory<State> statesFactory, int threads) {
+		this(operations, new Heuristic[]{heuristic}, statesFactory, threads);
+	}
+
+	public AstarTreeHashDistributed(Operation[] operations, Heuristic[] heuristics,
+	                                ResourcesFactory<State> statesFactory, int threads) {
+		this(operations, heuristics, statesFactory, threads, new Executor() {
+			@Override
+			public void execute(Runnable command) {
+				new Thread(command).start();
+			}
+		});
+	}
+
+	/**
+	 * Creates the algorithm with its workers run in the executor. The thread which starts the
+	 * algorithm runs one of the workers and the rest are run in the executor. Every worker owns
+	 * part of the states and the others wait for it, so the executor has to run all of them at the
+	 * same time, a pool needs at least threads - 1 free threads.
+	 *
+	 * @param threads
+	 *   number of workers, including the thread which starts the algorithm
+	 */
+	public AstarTreeHashDistributed(Operation[] operations, Heuristic[] heuristics,
+	                                ResourcesFactory<State> statesFactory, int threads,
+	                                Executor executor) {
+		if (threads <= 1) {
+			throw new IllegalArgumentException("Threads should be greater than 1");
+		}
+		this.operations = operations;
+		this.heuristics = heuristics;
+		this.statesFactory = statesFactory;
+		this.executor = executor;
+		this.statsLock = new ReentrantLock();
+		this.bestLock = new ReentrantLock();
+		this.currentVisitedStates = new AtomicInteger();
+		this.pendingStates = new AtomicLong();
+		this.counters = new SearchCounters(operations.length, heuristics.length);
+		this.workers = new Worker[threads];
+		for (int i = 0; i < threads; i++) {
+			this.workers[i] = new Worker(i);
+		}
+	}
+
+	public void visit(State state, int deep) {
+		this.statesFactory.releaseResource(state);
+	}
+
+	/**
+	 * Stores the hashes of the visited states besides their fingerprints, so the fingerprint
+	 * collisions are detected. It is applied the next time the algorithm starts.
+	 */
+	public void setCheckCollisionsMode(boolean checkCollisions) {
+		this.checkCollisions = checkCollisions;
+	}
+
+	/**
+	 * The workers check the handle independently. If the thread of a worker is interrupted the
+	 * handle is cancelled, so all the workers stop. The algorithm can be continued later with other
+	 * handle and the thread keeps its interrupted status.
+	 */
+	public State start(SearchHandle handle, int maximumVisitedStates, State initialState) {
+		this.handle = handle;
+		if (maximumVisitedStates <= 0) {
+			maximumVisitedStates = Integer.MAX_VALUE;
+		}
+		this.maximumVisitedStates = maximumVisitedStates;
+		this.currentVisitedStates.set(0);
+
+		startTiming(initialState != null);
+		// initializing, cleaning structures.
+		if (initialState != null) {
+			for (Worker worker : workers) {
+				worker.clear();
+			}
+			bestHeuristic = Integer.MAX_VALUE;
+			bestState = null;
+			solutionCost = Integer.MAX_VALUE;
+			statsLock.lock();
+			try {
+				counters.clear();
+			} finally {
+				statsLock.unlock();
+			}
+
+			long fingerprint = initialState.getFingerprint();
+			Batch batch = new Batch();
+			batch.add(initialState, fingerprint);
+			pendingStates.set(1);
+			workers[getOwner(fingerprint)].inbox.add(batch);
+		}
+
+		WorkerTask.runAll(executor, workers, handle);
+
+		stopTiming();
+		reportMetrics();
+		if (bestHeuristic == 0) {
+			return bestState;
+		} else {
+			return null;
+		}
+	}
+
+	public State getBestState() {
+		return this.bestState;
+	}
+
+	/**
+	 * @return the metrics of the algorithm since it started with the last initial state, the
+	 * counters of the running workers are added every second. The repeated states are counted by
+	 * the workers which own them, so they are not split by operator.
+	 */
+	public SearchMetrics getMetrics() {
+		long visitedStatesSize = 0;
+		long collisions = 0;
+		long openListSize = 0;
+		for (Worker worker : workers) {
+			visitedStatesSize += worker.visitedStates.size();
+			collisions += worker.visitedStates.getCollisions();
+			openListSize += worker.openStateList.getSize();
+		}
+		statsLock.lock();
+		try {
+			long timeExecuting = getTimeExecuting();
+			return new SearchMetrics(counters, operations, heuristics, timeExecuting,
+			                         visitedStatesSize, checkCollisions ? collisions : -1,
+			                         openListSize);
+		} finally {
+			statsLock.unlock();
+		}
+	}
+
+	private int getOwner(long fingerprint) {
+		return ((int) (fingerprint >>> 32) & Integer.MAX_VALUE) % workers.length;
+	}
+
+	/**
+	 * The algorithm finishes when there are not pending states, the states with a greater or equal
+	 * f than the solution are pruned so then the solution is optimal.
+	 */
+	private boolean isFinished() {
+		return currentVisitedStates.get() >= maximumVisitedStates || pendingStates.get() == 0;
+	}
+
+	/**
+	 * @return true if the state cannot lead to a better solution than the one found
+	 */
+	private boolean isPruned(State state) {
+		return state.cost + state.heuristic[0] >= solutionCost;
+	}
+
+	/**
+	 * Updates the best state if the current one is better.
+	 *
+	 * @return true if the current state is a solution
+	 */
+	private boolean updateBestState(State current) {
+		int[] heuristicsArray = current.heuristic;
+		boolean solution = false;
+		for (int i = 0; i < heuristicsArray.length; i++) {
+			if (heuristicsArray[i] <= bestHeuristic) {
+				bestLock.lock();
+				try {
+					if (heuristicsArray[i] < bestHeuristic ||
+					    (heuristicsArray[i] == bestHeuristic && current.cost < bestState.cost)) {
+						bestState = current;
+						bestHeuristic = heuristicsArray[i];
+						if (bestHeuristic == 0) {
+							solutionCost = current.cost;
+						}
+					}
+				} finally {
+					bestLock.unlock();
+				}
+			}
+			solution |= heuristicsArray[i] == 0;
+		}
+		return solution;
+	}
+
+	/**
+	 * Group of states, with their fingerprints, sent to a worker.
+	 */
+	static class Batch {
+
+		private State[] states;
+
+		private long[] fingerprints;
+
+		private int size;
+
+		Batch() {
+			states = new State[BATCH_SIZE];
+			fingerprints = new long[BATCH_SIZE];
+		}
+
+		private void add(State state, long fingerprint) {
+			states[size] = state;
+			fingerprints[size] = fingerprint;
+			size++;
+		}
+
+		private boolean isFull() {
+			return size == BATCH_SIZE;
+		}
+
+	}
+
+	class Worker implements Runnable {
+
+		private int index;
+
+		private Btree<State> openStateList;
+
+		private StateMap visitedStates;
+
+		// expanded states, they are the parents of other states so they are not released
+		private ArrayList<State> expandedStates;
+
+		private ConcurrentLinkedQueue<Batch> inbox;
+
+		private Batch[] outboxes;
+
+		private ResourcesFactory<State> localFactory;
+
+		private SearchCounters counters;
+
+		// new states whose heuristics are calculated together, with their fingerprints
+		private HeuristicBatch newStates;
+
+		private long[] newFingerprints;
+
+		Worker(int index) {
+			this.index = index;
+			this.openStateList = new Btree<>();
+			this.visitedStates = new StateMap();
+			this.expandedStates = new ArrayList<>();
+			this.inbox = new ConcurrentLinkedQueue<>();
+			this.outboxes = new Batch[workers.length];
+			this.counters = new SearchCounters(operations.length, heuristics.length);
+			this.newStates = new HeuristicBatch();
+			this.newFingerprints = new long[BATCH_SIZE];
+			this.localFactory = new ResourcesFactory<State>() {
+				@Override
+				protected State createResource() {
+					synchronized (statesFactory) {
+						return statesFactory.getResource();
+					}
+				}
+			};
+		}
+
+		@Override
+		public void run() {
+			int heuristicsLength = heuristics.length;
+			int operatorsLength = operations.length;
+			int operatorIndex;
+			int i;
+			int owner;
+			State current;
+			long fingerprint;
+			long timeNextPrint = System.currentTimeMillis() + TIME_PRINT_STATS;
+			long timeNextFlush = System.nanoTime() + OUTBOX_FLUSH_TIME;
+			SearchHandle handle = AstarTreeHashDistributed.this.handle;
+			SearchHandle.Check check = handle.newCheck();
+			ArrayList<State> offsprings = new ArrayList<>();
+
+			while (!isFinished()) {
+				if (Thread.currentThread().isInterrupted()) {
+					// the other workers wait for the states of this one, so all of them stop
+					handle.cancel();
+				}
+				if (check.isStopped()) {
+					break;
+				}
+				receiveStates();
+				current = openStateList.getFirst();
+				if (current == null) {
+					// nothing to expand, send the states kept in the outboxes and wait for more
+					sendStates();
+					Thread.yield();
+					continue;
+				}
+				fingerprint = current.getFingerprint();
+				if (visitedStates.get(current, fingerprint) != current || isPruned(current)) {
+					// found again with a lower cost or it cannot improve the solution, it has not
+					// offspring so it can be released
+					visitedStates.remove(current, fingerprint);
+					localFactory.releaseResource(current);
+					pendingStates.decrementAndGet();
+					continue;
+				}
+				currentVisitedStates.incrementAndGet();
+				counters.visitedStates++;
+				expandedStates.add(current);
+				if (updateBestState(current)) {
+					// the offspring of a solution cannot lead to a better one
+					pendingStates.decrementAndGet();
+					continue;
+				}
+				for (operatorIndex = 0; operatorIndex < operatorsLength; operatorIndex++) {
+					offsprings.clear();
+					operations[operatorIndex].apply(current, offsprings, localFactory);
+					for (i = 0; i < offsprings.size(); i++) {
+						State offspring = offsprings.get(i);
+						counters.generatedStates++;
+						counters.generatedStatesOperator[operatorIndex]++;
+						fingerprint = offspring.getFingerprint();
+						owner = getOwner(fingerprint);
+						pendingStates.incrementAndGet();
+						if (owner == index) {
+							addState(offspring, fingerprint);
+						} else {
+							Batch outbox = outboxes[owner];
+							if (outbox == null) {
+								outbox = new Batch();
+								outboxes[owner] = outbox;
+							}
+							outbox.add(offspring, fingerprint);
+							if (outbox.isFull()) {
+								workers[owner].inbox.add(outbox);
+								outboxes[owner] = null;
+							}
+						}
+					}
+				}
+				addNewStates(heuristicsLength);
+				pendingStates.decrementAndGet();
+				if (System.nanoTime() > timeNextFlush) {
+					sendStates();
+					timeNextFlush = System.nanoTime() + OUTBOX_FLUSH_TIME;
+				}
+				if (System.currentTimeMillis() > timeNextPrint) {
+					flushStats();
+					if (index == 0) {
+						reportMetrics();
+					}
+					timeNextPrint = System.currentTimeMillis() + TIME_PRINT_STATS;
+				}
+			}
+			sendStates();
+			flushStats();
+		}
+
+		private void receiveStates() {
+			int heuristicsLength = heuristics.length;
+			Batch batch = inbox.poll();
+			while (batch != null) {
+				for (int i = 0; i < batch.size; i++) {
+					addState(batch.states[i], batch.fingerprints[i]);
+				}
+				batch = inbox.poll();
+			}
+			addNewStates(heuristicsLength);
+		}
+
+		/**
+		 * Adds a state to the new states unless it was found before with a lower or equal cost.
+		 */
+		private void addState(State state, long fingerprint) {
+			State visited = visitedStates.get(state, fingerprint);
+			if (visited != null && visited.cost <= state.cost) {
+				counters.repeatedGeneratedStates++;
+				localFactory.releaseResource(state);
+				pendingStates.decrementAndGet();
+				return;
+			}
+			int size = newStates.size();
+			if (size == newFingerprints.length) {
+				newFingerprints = Arrays.copyOf(newFingerprints, size * 2);
+			}
+			newFingerprints[size] = fingerprint;
+			newStates.add(state);
+		}
+
+		/**
+		 * Calculates the heuristics of the new states together and adds them to the open list unless
+		 * they cannot improve the solution or the same state was added before with a lower or equal
+		 * cost. A state found again with a lower cost is added again, the previous one is skipped
+		 * when it is taken from the open list.
+		 */
+		private void addNewStates(int heuristicsLength) {
+			if (newStates.size() == 0) {
+				return;
+			}
+			for (int i = 0; i < heuristicsLength; i++) {
+				newStates.calculate(heuristics[i], i);
+			}
+			for (int i = 0; i < newStates.size(); i++) {
+				State state = newStates.get(i);
+				long fingerprint = newFingerprints[i];
+				State visited = visitedStates.get(state, fingerprint);
+				if (visited != null && visited.cost <= state.cost) {
+					counters.repeatedGeneratedStates++;
+					localFactory.releaseResource(state);
+					pendingStates.decrementAndGet();
+				} else if (isPruned(state)) {
+					localFactory.releaseResource(state);
+					pendingStates.decrementAndGet();
+				} else {
+					if (visited != null) {
+						counters.repeatedGeneratedStates++;
+					}
+					visitedStates.put(state, fingerprint);
+					openStateList.add(state);
+				}
+			}
+			newStates.clear();
+		}
+
+		private void sendStates() {
+			for (int i = 0; i < outboxes.length; i++) {
+				if (outboxes[i] != null) {
+					workers[i].inbox.add(outboxes[i]);
+					outboxes[i] = null;
+				}
+			}
+		}
+
+		private void flushStats() {
+			statsLock.lock();
+			try {
+				counters.flush(AstarTreeHashDistributed.this.counters);
+			} finally {
+				statsLock.unlock();
+			}
+		}
+
+		/**
+		 * Releases all the states of the worker. It is not thread safe.
+		 */
+		private void clear() {
+			Batch batch = inbox.poll();
+			while (batch != null) {
+				for (int i = 0; i < batch.size; i++) {
+					statesFactory.releaseResource(batch.states[i]);
+				}
+				batch = inbox.poll();
+			}
+			openStateList.visitInOrder(AstarTreeHashDistributed.this);
+			openStateList.clear();
+			for (State state : expandedStates) {
+				statesFactory.releaseResource(state);
+			}
+			expandedStates.clear();
+			visitedStates.clear();
+			visitedStates.setCheckCollisions(checkCollisions);
+		}
+
+	}
+
+}
@@ -1,71 +1,68 @@
 package com.livae.util.search.astar;
 
+import com.livae.util.ConcurrentResourcesFactory;
 import com.livae.util.ResourcesFactory;
-import com.livae.util.tree.Btree;
 import com.livae.util.tree.BtreeVisitor;
 
 import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
-public class AstarTreeThreads implements BtreeVisitor<State> {
+public class AstarTreeThreads extends AbstractAstar implements BtreeVisitor<State> {
 
-	private static final int TIME_PRINT_STATS = 1000;
+	private static final int DEFAULT_TIMING_SAMPLING = 64;
 
-	private static boolean PRINT_STATS = false;
+	private static final int QUEUES_PER_THREAD = 2;
 
-	private Lock lock;
+	private static final int VISITED_STATES_PER_THREAD = 4;
 
-	private HashSet<String> visitedStates;
+	private Lock statsLock;
 
-	private Btree<State>[] openStateLists;
+	private Lock bestLock;
 
-	private Operation[] operations;
-
-	private Heuristic[] heuristics;
-
-	private State bestState;
-
-	private int bestHeuristic;
-
-	private long visitedStatesNumber;
+	private VisitedStates[] visitedStates;
 
-	private long generatedStates;
+	private boolean checkCollisions;
 
-	private long repeatedGeneratedStates;
+	private ConcurrentOpenList[] openStateLists;
 
-	private long timeHeuristic;
+	private OpenList.Type openListType;
 
-	private long[] timeHeuristics;
-
-	private long[] generatedStatesOperator;
+	private Operation[] operations;
 
-	private long[] repeatedGeneratedStatesOperator;
+	private Heuristic[] heuristics;
 
-	private long timeOperator;
+	private volatile State bestState;
 
-	private long[] timeOperators;
+	private volatile int bestHeuristic;
 
-	private long timeToHash;
+	private SearchCounters counters;
 
-	private long timeHashTable;
+	private volatile int timingSampling;
 
-	private long timeAddToTree;
+	private ResourcesFactory<State> statesFactory;
 
-	private long startAlgorithmTime;
+	private ThreadIteration[] workers;
 
-	private long accumulatedTime;
+	// states released when the algorithm starts again, a state can be expanded from several open
+	// lists and still be in the first one, but it is only released once
+	private Set<State> releasedStates;
 
-	private ResourcesFactory<State> statesFactory;
+	private Executor executor;
 
-	private Thread[] threads;
+	private volatile SearchHandle handle;
 
-	private long targetTime;
+	private volatile int maximumVisitedStates;
 
-	private int maximumVisitedStates;
+	private AtomicInteger currentVisitedStates;
 
-	private int currentVisitedStates;
+	private AtomicLong pendingStates;
 
 	public AstarTreeThreads(Operation[] operations, Heuristic heuristic,
 	                        ResourcesFactory<State> statesFactory, int threads) {
@@ -74,139 +71,156 @@ public class AstarTreeThreads implements BtreeVisitor<State> {
 
 	public AstarTreeThreads(Operation[] operations, Heuristic[] heuristics,
 	                        ResourcesFactory<State> statesFactory, int threads) {
+		this(operations, heuristics, statesFactory, threads, new Executor() {
+			@Override
+			public void execute(Runnable command) {
+				new Thread(command).start();
+			}
+		});
+	}
+
+	/**
+	 * Creates the algorithm with its workers run in the executor. The thread which starts the
+	 * algorithm runs one of the workers and the rest are run in the executor, so several searches
+	 * can share a pool with less threads than workers. The workers which have not started when the
+	 * search finishes are cancelled, the algorithm waits for the rest before it returns.
+	 *
+	 * @param threads
+	 *   number of workers, including the thread which starts the algorithm
+	 */
+	public AstarTreeThreads(Operation[] operations, Heuristic[] heuristics,
+	                        ResourcesFactory<State> statesFactory, int threads,
+	                        Executor executor) {
 		if (threads <= 1) {
 			throw new IllegalArgumentException("Threads should be greater than 1");
 		}
-		this.lock = new ReentrantLock();
-		this.threads = new Thread[threads];
-		for (int i = 0; i < this.threads.length; i++) {
-			this.threads[i] = new Thread(new ThreadIteration());
-		}
+		this.statsLock = new ReentrantLock();
+		this.bestLock = new ReentrantLock();
 		this.operations = operations;
 		this.heuristics = heuristics;
-		this.visitedStates = new HashSet<>();
-		//noinspection unchecked
-		this.openStateLists = new Btree[heuristics.length];
-		for (int i = 0; i < this.openStateLists.length; i++) {
-			this.openStateLists[i] = new Btree<>();
+		// the visited states are split in several sets with their own locks
+		this.visitedStates = new VisitedStates[threads * VISITED_STATES_PER_THREAD];
+		for (int i = 0; i < this.visitedStates.length; i++) {
+			this.visitedStates[i] = new VisitedStates();
 		}
-		this.timeHeuristics = new long[this.heuristics.length];
-		this.generatedStatesOperator = new long[this.operations.length];
-		this.repeatedGeneratedStatesOperator = new long[this.operations.length];
-		this.timeOperators = new long[this.operations.length];
+		this.openListType = OpenList.Type.BTREE;
+		this.openStateLists = createOpenLists(threads);
+		this.currentVisitedStates = new AtomicInteger();
+		this.pendingStates = new AtomicLong();
+		this.counters = new SearchCounters(operations.length, heuristics.length);
+		this.timingSampling = DEFAULT_TIMING_SAMPLING;
 		this.statesFactory = statesFactory;
+		this.executor = executor;
+		this.releasedStates = Collections.newSetFromMap(new IdentityHashMap<State, Boolean>());
+		this.workers = new ThreadIteration[threads];
+		for (int i = 0; i < this.workers.length; i++) {
+			this.workers[i] = new ThreadIteration();
+		}
 	}
 
 	public void visit(State state, int deep) {
-		this.statesFactory.releaseResource(state);
+		this.releasedStates.add(state);
 	}
 
-	public void setPrintStatsMode(boolean printStats) {
-		PRINT_STATS = printStats;
-	}
-
-	public State start(int maximumVisitedStates, State initialState) {
-		return start(-1, maximumVisitedStates, initialState);
-	}
-
-	public State start(long time, State initialState) {
-		return start(time, -1, initialState);
+	/**
+	 * Sets the type of the lists used in the open lists. It is applied the next time the algorithm
+	 * starts with an initial state.
+	 */
+	public void setOpenListType(OpenList.Type openListType) {
+		if (openListType == OpenList.Type.MULTI_HEURISTIC_HEAP) {
+			throw new IllegalArgumentException("Multi-heuristic list is not supported with threads");
+		}
+		this.openListType = openListType;
 	}
 
-	public State continueAlgorithm(long time, int maximumVisitedStates) {
-		return start(time, maximumVisitedStates, null);
+	private ConcurrentOpenList[] createOpenLists(int threads) {
+		ConcurrentOpenList[] openLists = new ConcurrentOpenList[heuristics.length];
+		for (int i = 0; i < openLists.length; i++) {
+			openLists[i] = new ConcurrentOpenList(threads * QUEUES_PER_THREAD, openListType, i);
+		}
+		return openLists;
 	}
 
-	public State continueAlgorithm(int maximumVisitedStates) {
-		return start(-1, maximumVisitedStates, null);
+	/**
+	 * Stores the hashes of the visited states besides their fingerprints, so the fingerprint
+	 * collisions are detected. It is applied the next time the algorithm starts.
+	 */
+	public void setCheckCollisionsMode(boolean checkCollisions) {
+		this.checkCollisions = checkCollisions;
 	}
 
-	public State continueAlgorithm(long time) {
-		return start(time, -1, null);
+	/**
+	 * Sets how many visited states there are for every one whose times are measured, 0 to not
+	 * measure times. By default the times are measured in 1 of 64 visited states of each thread.
+	 */
+	public void setTimingSampling(int timingSampling) {
+		if (timingSampling < 0) {
+			throw new IllegalArgumentException("Timing sampling cannot be negative");
+		}
+		this.timingSampling = timingSampling;
 	}
 
-	public State start(long time, int maximumVisitedStates, State initialState) {
-		targetTime = System.currentTimeMillis() + time;
-		if (time <= 0) {
-			targetTime = Long.MAX_VALUE;
-		}
+	/**
+	 * The workers check the handle independently. If the calling thread is interrupted while it
+	 * waits for the other workers the handle is cancelled.
+	 */
+	public State start(SearchHandle handle, int maximumVisitedStates, State initialState) {
+		this.handle = handle;
 		if (maximumVisitedStates <= 0) {
 			maximumVisitedStates = Integer.MAX_VALUE;
 		}
 		this.maximumVisitedStates = maximumVisitedStates;
-		this.currentVisitedStates = 0;
+		this.currentVisitedStates.set(0);
 
 		int heuristicsLength = this.heuristics.length;
-		this.startAlgorithmTime = System.currentTimeMillis();
+		startTiming(initialState != null);
 		// initializing, cleaning structures.
 		if (initialState != null) {
-			visitedStates.clear();
-			// visit and clear the btree
-			openStateLists[0].visitInOrder(this);
-			for (Btree<State> openStateList : openStateLists) {
+			for (VisitedStates visitedStatesSet : visitedStates) {
+				visitedStatesSet.clear();
+				visitedStatesSet.setCheckCollisions(checkCollisions);
+			}
+			// visit and clear the open lists, the best state is one of the expanded states
+			openStateLists[0].visit(this);
+			for (ThreadIteration worker : workers) {
+				releasedStates.addAll(worker.expandedStates);
+				worker.expandedStates.clear();
+			}
+			for (State state : releasedStates) {
+				statesFactory.releaseResource(state);
+			}
+			releasedStates.clear();
+			for (ConcurrentOpenList openStateList : openStateLists) {
 				openStateList.clear();
 			}
+			openStateLists = createOpenLists(workers.length);
 
 			bestHeuristic = Integer.MAX_VALUE;
+			bestState = null;
 			for (int i = 0; i < heuristicsLength; i++) {
 				initialState.heuristic[i] = heuristics[i].calculateHeuristic(initialState);
 			}
-			for (Btree<State> openStateList : openStateLists) {
+			for (ConcurrentOpenList openStateList : openStateLists) {
 				openStateList.add(initialState);
 			}
 
-			visitedStatesNumber = 0;
-			generatedStates = 0;
-			repeatedGeneratedStates = 0;
-			for (int i = 0; i < generatedStatesOperator.length; i++) {
-				generatedStatesOperator[i] = 0;
-			}
-			for (int i = 0; i < repeatedGeneratedStatesOperator.length; i++) {
-				repeatedGeneratedStatesOperator[i] = 0;
-			}
-			timeHeuristic = 0;
-			for (int i = 0; i < timeHeuristics.length; i++) {
-				timeHeuristics[i] = 0;
-			}
-			timeOperator = 0;
-			for (int i = 0; i < timeOperators.length; i++) {
-				timeOperators[i] = 0;
-			}
-			timeToHash = 0;
-			timeHashTable = 0;
-			timeAddToTree = 0;
-		}
-
-		threads[0].start();
-		for (int i = 1; i < threads.length; i++) {
-			long size;
-			do {
-				lock.lock();
-				size = openStateLists[0].getSize();
-				lock.unlock();
-				if (size == 0) {
-					try {
-						Thread.sleep(100);
-					} catch (InterruptedException e) {
-						e.printStackTrace();
-					}
-				}
-			} while (size == 0);
-			threads[i].start();
-		}
-
-		for (Thread thread : threads) {
+			statsLock.lock();
 			try {
-				thread.join();
-			} catch (InterruptedException e) {
-				e.printStackTrace();
+				counters.clear();
+			} finally {
+				statsLock.unlock();
 			}
 		}
 
-		if (PRINT_STATS) {
-			printStats();
+		long pending = 0;
+		for (ConcurrentOpenList openStateList : openStateLists) {
+			pending += openStateList.getSize();
 		}
-		this.accumulatedTime += System.currentTimeMillis() - this.startAlgorithmTime;
+		pendingStates.set(pending);
+		WorkerTask.runAll(executor, workers, handle);
+
+		stopTiming();
+		reportMetrics();
 		if (bestHeuristic == 0) {
 			return bestState;
 		} else {
@@ -218,70 +232,80 @@ public class AstarTreeThreads implements BtreeVisitor<State> {
 		return this.bestState;
 	}
 
-	private void printStats() {
-		long timeExecuting =
-		  System.currentTimeMillis() - this.startAlgorithmTime + this.accumulatedTime;
-		System.out.println("Time executing: " + timeExecuting + " ms");
-		System.out.println("Visited states: " + visitedStatesNumber);
-		double seconds = timeExecuting / 1000;
-		double statesPerSecond = visitedStatesNumber / seconds;
-		System.out.println("Visited states per second: " + statesPerSecond);
-
-		System.out.println("Generated states: " + generatedStates);
-		System.out.println("Generated states per second: " + (generatedStates / seconds));
-		System.out.println("Generated states repeated: " + repeatedGeneratedStates);
-		double collisions = repeatedGeneratedStates * 100.0 / generatedStates;
-		System.out.println("Collisions: " + collisions + " %");
-
-		System.out.println("Time operators: " + timeOperator + " ns");
-		double operatorsPerVisitedState = timeOperator * 1.0 / visitedStatesNumber;
-		System.out.println("Time operators per visited state: " + operatorsPerVisitedState + " ns");
-		for (int i = 0; i < timeOperators.length; i++) {
-			System.out.println("\t" + this.operations[i].getName() + ":");
-			System.out.println("\t\t time " + timeOperators[i]);
-			System.out.println("\t\t time per visit " +
-			                   (timeOperators[i] * 1.0 / visitedStatesNumber));
-			System.out.println("\t\t generated states (per visit): " +
-			                   this.generatedStatesOperator[i] + " (" +
-			                   (this.generatedStatesOperator[i] * 1.0 / visitedStatesNumber) + ")");
-			System.out.println("\t\t repeated generated states (per visit): " +
-			                   this.repeatedGeneratedStatesOperator[i] + " (" +
-			                   (this.repeatedGeneratedStatesOperator[i] * 1.0 /
-			                    visitedStatesNumber) + ")");
-			System.out.println("\t\t collisions: " +
-			                   this.repeatedGeneratedStatesOperator[i] * 100.0 /
-			                   this.generatedStatesOperator[i]);
+	/**
+	 * @return the metrics of the algorithm since it started with the last initial state, the
+	 * counters of the running threads are added every second
+	 */
+	public SearchMetrics getMetrics() {
+		int visitedStatesSize = 0;
+		long collisions = 0;
+		for (VisitedStates visitedStatesSet : visitedStates) {
+			synchronized (visitedStatesSet) {
+				visitedStatesSize += visitedStatesSet.size();
+				collisions += visitedStatesSet.getCollisions();
+			}
 		}
-		System.out.println("Time generating hash: " + timeToHash);
-		double timeHashPerState = timeToHash * 1.0 / generatedStates;
-		System.out.println("Time generating hash per state: " + timeHashPerState + " ns");
-		System.out.println("Time hashtable: " + timeHashTable + " ns");
-		System.out.println("Size hashtable: " + this.visitedStates.size());
-
-		System.out.println("Time heuristic: " + timeHeuristic + " ns");
-		double heuristicPerGenerateState = timeHeuristic * 1.0 / generatedStates;
-		System.out.println("Time heuristic per generatedState state: " +
-		                   heuristicPerGenerateState + " ns");
-		for (int i = 0; i < timeHeuristics.length; i++) {
-			System.out.println("\t" + this.heuristics[i].getName() + ": ");
-			System.out.println("\t\t time " + timeHeuristics[i]);
-			System.out.println("\t\t time por generatedState " +
-			                   (timeHeuristics[i] * 1.0 / generatedStates));
+		statsLock.lock();
+		try {
+			long timeExecuting = getTimeExecuting();
+			return new SearchMetrics(counters, operations, heuristics, timeExecuting,
+			                         visitedStatesSize, checkCollisions ? collisions : -1,
+			                         openStateLists[0].getSize());
+		} finally {
+			statsLock.unlock();
 		}
+	}
 
-		System.out.println("Time adding to tree: " + timeAddToTree + " ns");
-		long treeSize = generatedStates - (visitedStatesNumber + repeatedGeneratedStates);
-		long realTreeSize = this.openStateLists[0].getSize();
-		System.out.println("Approximate tree size: " + treeSize);
-		System.out.println("Tree size: " + realTreeSize);
-		double ratioList = timeAddToTree * 1.0 / treeSize;
-		System.out.println("Ratio Time / Tree Size: " + ratioList);
-
-		System.out.println("-----------------------------------------------------");
+	/**
+	 * Updates the best state if the current one is better.
+	 *
+	 */
+	private void updateBestState(State current) {
+		int[] heuristicsArray = current.heuristic;
+		for (int i = 0; i < heuristicsArray.length; i++) {
+			if (heuristicsArray[i] <= bestHeuristic) {
+				bestLock.lock();
+				try {
+					if (heuristicsArray[i] < bestHeuristic ||
+					    (heuristicsArray[i] == bestHeuristic && current.cost < bestState.cost)) {
+						bestState = current;
+						bestHeuristic = heuristicsArray[i];
+					}
+				} finally {
+					bestLock.unlock();
+				}
+			}
+		}
 	}
 
 	class ThreadIteration implements Runnable {
 
+		private ResourcesFactory<State> localFactory;
+
+		private SearchCounters counters;
+
+		// expanded states, they are the parents of other states so they are only released when
+		// the algorithm starts again
+		private ArrayList<State> expandedStates;
+
+		ThreadIteration() {
+			if (statesFactory instanceof ConcurrentResourcesFactory) {
+				// it already keeps the resources of every thread without locks
+				localFactory = statesFactory;
+			} else {
+				localFactory = new ResourcesFactory<State>() {
+					@Override
+					protected State createResource() {
+						synchronized (statesFactory) {
+							return statesFactory.getResource();
+						}
+					}
+				};
+			}
+			counters = new SearchCounters(operations.length, heuristics.length);
+			expandedStates = new ArrayList<>();
+		}
+
 		@Override
 		public void run() {
 			int heuristicsLength = heuristics.length;
@@ -290,24 +314,39 @@ public class AstarTreeThreads implements BtreeVisitor<State> {
 			int operatorIndex;
 			State current;
 			int i, j;
+			int taken;
 			long t1;
 			long t2;
-			String hash;
+			long fingerprint;
+			VisitedStates visitedStatesSet;
 			boolean exists;
-			int[] heuristicsArray;
+			boolean timed;
+			int timingSampling = AstarTreeThreads.this.timingSampling;
+			int timingCountdown = 1;
+			SearchHandle handle = AstarTreeThreads.this.handle;
+			SearchHandle.Check check = handle.newCheck();
 			long timeNextPrint = System.currentTimeMillis() + TIME_PRINT_STATS;
 
 			State[] currentStates = new State[heuristicsLength];
 			ArrayList<State> offsprings = new ArrayList<>();
-			ArrayList<State> statesToAdd = new ArrayList<>();
-			long iterationTimeHeuristic;
-			long iterationTimeHeuristics[] = new long[heuristicsLength];
+			HeuristicBatch batch = new HeuristicBatch();
 
-			lock.lock();
-			while (bestHeuristic > 0 && targetTime >= System.currentTimeMillis() &&
-			       currentVisitedStates < maximumVisitedStates && !openStateLists[0].isEmpty()) {
+			while (bestHeuristic > 0 && currentVisitedStates.get() < maximumVisitedStates &&
+			       pendingStates.get() > 0) {
+				if (check.isStopped()) {
+					break;
+				}
+				taken = 0;
 				for (i = 0; i < heuristicsLength; i++) {
 					currentStates[i] = openStateLists[i].getFirst();
+					if (currentStates[i] != null) {
+						taken++;
+					}
+				}
+				if (taken == 0) {
+					// the lists are empty but other threads are still expanding states
+					Thread.yield();
+					continue;
 				}
 				// clean up same states
 				for (i = 0; i < heuristicsLength - 1; i++) {
@@ -323,91 +362,97 @@ public class AstarTreeThreads implements BtreeVisitor<State> {
 				for (heuristicIndex = 0; heuristicIndex < currentStates.length; heuristicIndex++) {
 					current = currentStates[heuristicIndex];
 					if (current != null) {
-						currentVisitedStates++;
-						visitedStatesNumber++;
-						heuristicsArray = current.heuristic;
-						for (i = 0; i < heuristicsLength; i++) {
-							if (heuristicsArray[i] < bestHeuristic ||
-							    (heuristicsArray[i] == bestHeuristic &&
-							     current.cost < bestState.cost)) {
-								if (bestState != null) {
-									statesFactory.releaseResource(bestState);
-								}
-								bestState = current;
-								bestHeuristic = heuristicsArray[i];
-							}
+						currentVisitedStates.incrementAndGet();
+						counters.visitedStates++;
+						// the times are only measured in 1 of timingSampling states
+						timed = timingSampling > 0 && --timingCountdown == 0;
+						if (timed) {
+							timingCountdown = timingSampling;
+							counters.sampledStates++;
 						}
+						updateBestState(current);
 						for (operatorIndex = 0; operatorIndex < operatorsLength; operatorIndex++) {
-							t1 = System.nanoTime();
+							t1 = timed ? System.nanoTime() : 0;
 							offsprings.clear();
-							operations[operatorIndex].apply(current, offsprings, statesFactory);
-							t2 = System.nanoTime();
-							timeOperator += t2 - t1;
-							timeOperators[operatorIndex] += t2 - t1;
+							operations[operatorIndex].apply(current, offsprings, localFactory);
+							if (timed) {
+								t2 = System.nanoTime();
+								counters.timeOperator += t2 - t1;
+								counters.timeOperators[operatorIndex] += t2 - t1;
+							}
 							for (i = 0; i < offsprings.size(); i++) {
 								State offspring = offsprings.get(i);
-								generatedStates++;
-								generatedStatesOperator[operatorIndex]++;
-								t1 = System.nanoTime();
-								hash = offspring.getHash();
-								t2 = System.nanoTime();
-								timeToHash += t2 - t1;
-								t1 = System.nanoTime();
-								exists = visitedStates.contains(hash);
-								t2 = System.nanoTime();
-								timeHashTable += t2 - t1;
+								counters.generatedStates++;
+								counters.generatedStatesOperator[operatorIndex]++;
+								t1 = timed ? System.nanoTime() : 0;
+								fingerprint = offspring.getFingerprint();
+								if (timed) {
+									t2 = System.nanoTime();
+									counters.timeToHash += t2 - t1;
+									t1 = t2;
+								}
+								visitedStatesSet = visitedStates[
+								  ((int) (fingerprint >>> 32) & Integer.MAX_VALUE) %
+								  visitedStates.length];
+								synchronized (visitedStatesSet) {
+									exists = !visitedStatesSet.add(offspring, fingerprint);
+								}
+								if (timed) {
+									t2 = System.nanoTime();
+									counters.timeHashTable += t2 - t1;
+								}
 								if (exists) {
-									repeatedGeneratedStates++;
-									repeatedGeneratedStatesOperator[operatorIndex]++;
-									statesFactory.releaseResource(offspring);
+									counters.repeatedGeneratedStates++;
+									counters.repeatedGeneratedStatesOperator[operatorIndex]++;
+									localFactory.releaseResource(offspring);
 								} else {
-									t1 = System.nanoTime();
-									visitedStates.add(hash);
-									t2 = System.nanoTime();
-									timeHashTable += t2 - t1;
-									statesToAdd.add(offspring);
+									batch.add(offspring);
 								}
 							}
 						}
-					}
-					if (bestState != current) {
-						statesFactory.releaseResource(current);
+						// the heuristics of all the new offspring are calculated together
+						for (j = 0; j < heuristicsLength; j++) {
+							t1 = timed ? System.nanoTime() : 0;
+							batch.calculate(heuristics[j], j);
+							if (timed) {
+								t2 = System.nanoTime();
+								counters.timeHeuristic += t2 - t1;
+								counters.timeHeuristics[j] += t2 - t1;
+							}
+						}
+						t1 = timed ? System.nanoTime() : 0;
+						pendingStates.addAndGet(heuristicsLength * batch.size());
+						for (i = 0; i < batch.size(); i++) {
+							for (ConcurrentOpenList openStateList : openStateLists) {
+								openStateList.add(batch.get(i));
+							}
+						}
+						if (timed) {
+							t2 = System.nanoTime();
+							counters.timeAddToTree += t2 - t1;
+						}
+						batch.clear();
+						// its offspring keep it as their parent
+						expandedStates.add(current);
 					}
 				}
-				if (PRINT_STATS && System.currentTimeMillis() > timeNextPrint) {
-					printStats();
+				pendingStates.addAndGet(-taken);
+				if (System.currentTimeMillis() > timeNextPrint) {
+					flushStats();
+					reportMetrics();
 					timeNextPrint = System.currentTimeMillis() + TIME_PRINT_STATS;
 				}
-				lock.unlock();
-				iterationTimeHeuristic = 0;
-				for (i = 0; i < heuristicsLength; i++) {
-					iterationTimeHeuristics[i] = 0;
-				}
-				for (State state : statesToAdd) {
-					for (i = 0; i < heuristicsLength; i++) {
-						t1 = System.nanoTime();
-						state.heuristic[i] = heuristics[i].calculateHeuristic(state);
-						t2 = System.nanoTime();
-						iterationTimeHeuristic += t2 - t1;
-						iterationTimeHeuristics[i] += t2 - t1;
-					}
-				}
-				lock.lock();
-				timeHeuristic += iterationTimeHeuristic;
-				for (i = 0; i < heuristicsLength; i++) {
-					timeHeuristics[i] += iterationTimeHeuristics[i];
-				}
-				t1 = System.nanoTime();
-				for (State state : statesToAdd) {
-					for (Btree<State> openStateList : openStateLists) {
-						openStateList.add(state);
-					}
-				}
-				t2 = System.nanoTime();
-				timeAddToTree += t2 - t1;
-				statesToAdd.clear();
 			}
-			lock.unlock();
+			flushStats();
+		}
+
+		private void flushStats() {
+			statsLock.lock();
+			try {
+				counters.flush(AstarTreeThreads.this.counters);
+			} finally {
+				statsLock.unlock();
+			}
 		}
 	}
 
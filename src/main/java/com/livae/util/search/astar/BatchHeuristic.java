@@ -0,0 +1,22 @@
+package com.livae.util.search.astar;
+
+/**
+ * Heuristic which can be calculated for several states at once. The searches calculate the
+ * heuristics of all the new offspring of an expanded state together, with this method for the
+ * heuristics which implement it and one by one for the rest.
+ */
+public interface BatchHeuristic extends Heuristic {
+
+	/**
+	 * Calculates the heuristic of the first states of the array.
+	 *
+	 * @param states
+	 *   states to calculate
+	 * @param size
+	 *   number of states to calculate from the first position of the array
+	 * @param heuristics
+	 *   array where the heuristic of each state is set, in the same position as the state
+	 */
+	public void calculateHeuristics(State[] states, int size, int[] heuristics);
+
+}
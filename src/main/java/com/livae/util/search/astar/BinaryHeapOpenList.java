@@ -0,0 +1,139 @@
+package com.livae.util.search.astar;
+
+import com.livae.util.tree.BtreeVisitor;
+
+import java.util.Arrays;
+
+/**
+ * Open list backed by an array binary heap. The position of every state in the heap is kept in
+ * the state, so its cost can be decreased in O(log n). As a state can be in the open lists of
+ * several heuristics, each heap has its own index for the positions.
+ */
+class BinaryHeapOpenList implements OpenList {
+
+	private static final int INITIAL_CAPACITY = 64;
+
+	private State[] heap;
+
+	private int size;
+
+	private int index;
+
+	protected BinaryHeapOpenList(int index) {
+		if (index < 0) {
+			throw new IllegalArgumentException("Index cannot be negative");
+		}
+		this.index = index;
+		this.heap = new State[INITIAL_CAPACITY];
+	}
+
+	@Override
+	public void add(State state) {
+		if (size == heap.length) {
+			heap = Arrays.copyOf(heap, size * 2);
+		}
+		int[] positions = state.openListPositions;
+		if (positions == null || positions.length <= index) {
+			positions = positions == null ? new int[index + 1] :
+			            Arrays.copyOf(positions, index + 1);
+			state.openListPositions = positions;
+		}
+		size++;
+		siftUp(state, size - 1);
+	}
+
+	@Override
+	public State getFirst() {
+		if (size == 0) {
+			return null;
+		}
+		State first = heap[0];
+		first.openListPositions[index] = -1;
+		size--;
+		State last = heap[size];
+		heap[size] = null;
+		if (size > 0) {
+			siftDown(last, 0);
+		}
+		return first;
+	}
+
+	@Override
+	public State peekFirst() {
+		return size == 0 ? null : heap[0];
+	}
+
+	@Override
+	public void decreaseKey(State state) {
+		int position = state.openListPositions[index];
+		if (position < 0 || position >= size || heap[position] != state) {
+			throw new IllegalArgumentException("The state is not in the list: " + state);
+		}
+		siftUp(state, position);
+	}
+
+	@Override
+	public boolean isDecreaseKeySupported() {
+		return true;
+	}
+
+	private void siftUp(State state, int position) {
+		while (position > 0) {
+			int parent = (position - 1) >>> 1;
+			State parentState = heap[parent];
+			if (parentState.compareTo(state) <= 0) {
+				break;
+			}
+			heap[position] = parentState;
+			parentState.openListPositions[index] = position;
+			position = parent;
+		}
+		heap[position] = state;
+		state.openListPositions[index] = position;
+	}
+
+	private void siftDown(State state, int position) {
+		int half = size >>> 1;
+		while (position < half) {
+			int child = 2 * position + 1;
+			State childState = heap[child];
+			int right = child + 1;
+			if (right < size && heap[right].compareTo(childState) < 0) {
+				child = right;
+				childState = heap[right];
+			}
+			if (state.compareTo(childState) <= 0) {
+				break;
+			}
+			heap[position] = childState;
+			childState.openListPositions[index] = position;
+			position = child;
+		}
+		heap[position] = state;
+		state.openListPositions[index] = position;
+	}
+
+	@Override
+	public long getSize() {
+		return size;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	@Override
+	public void visit(BtreeVisitor<State> visitor) {
+		for (int i = 0; i < size; i++) {
+			visitor.visit(heap[i], 0);
+		}
+	}
+
+	@Override
+	public void clear() {
+		Arrays.fill(heap, 0, size, null);
+		size = 0;
+	}
+
+}
@@ -0,0 +1,63 @@
+package com.livae.util.search.astar;
+
+import com.livae.util.tree.Btree;
+import com.livae.util.tree.BtreeVisitor;
+
+/**
+ * Open list backed by a btree. It does not support decrease key as the btree cannot find a state
+ * once its cost has changed.
+ */
+class BtreeOpenList implements OpenList {
+
+	private Btree<State> btree;
+
+	protected BtreeOpenList() {
+		btree = new Btree<>();
+	}
+
+	@Override
+	public void add(State state) {
+		btree.add(state);
+	}
+
+	@Override
+	public State getFirst() {
+		return btree.getFirst();
+	}
+
+	@Override
+	public State peekFirst() {
+		return btree.peekFirst();
+	}
+
+	@Override
+	public void decreaseKey(State state) {
+		throw new UnsupportedOperationException("Decrease key is not supported by the btree");
+	}
+
+	@Override
+	public boolean isDecreaseKeySupported() {
+		return false;
+	}
+
+	@Override
+	public long getSize() {
+		return btree.getSize();
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return btree.isEmpty();
+	}
+
+	@Override
+	public void visit(BtreeVisitor<State> visitor) {
+		btree.visitInOrder(visitor);
+	}
+
+	@Override
+	public void clear() {
+		btree.clear();
+	}
+
+}
@@ -0,0 +1,248 @@
+package com.livae.util.search.astar;
+
+import com.livae.util.tree.BtreeVisitor;
+
+import java.util.Arrays;
+
+/**
+ * Open list with a bucket for every f value (cost plus heuristic) and, inside it, a bucket for
+ * every heuristic value, so adding and getting states are O(1) and no states are compared. The
+ * states with the same f are taken from the lowest heuristic first, and the ones with the same f
+ * and heuristic in LIFO or FIFO order. The State ordering is not used, the costs and heuristics
+ * cannot be negative.
+ */
+class BucketOpenList implements OpenList {
+
+	private static final int INITIAL_BUCKETS = 64;
+
+	private Bucket[] buckets;
+
+	private int minimumF;
+
+	private long size;
+
+	private int index;
+
+	private boolean lifo;
+
+	protected BucketOpenList(int index, boolean lifo) {
+		if (index < 0) {
+			throw new IllegalArgumentException("Index cannot be negative");
+		}
+		this.index = index;
+		this.lifo = lifo;
+		this.buckets = new Bucket[INITIAL_BUCKETS];
+		this.minimumF = Integer.MAX_VALUE;
+	}
+
+	@Override
+	public void add(State state) {
+		int h = state.heuristic[index];
+		int f = state.cost + h;
+		if (h < 0 || f < 0) {
+			throw new IllegalArgumentException("Negative cost or heuristic: " + state);
+		}
+		if (f >= buckets.length) {
+			buckets = Arrays.copyOf(buckets, Math.max(f + 1, buckets.length * 2));
+		}
+		Bucket bucket = buckets[f];
+		if (bucket == null) {
+			bucket = new Bucket();
+			buckets[f] = bucket;
+		}
+		bucket.add(state, h);
+		if (f < minimumF) {
+			minimumF = f;
+		}
+		size++;
+	}
+
+	@Override
+	public State getFirst() {
+		if (size == 0) {
+			return null;
+		}
+		size--;
+		State state = findFirstBucket().remove(lifo);
+		if (size == 0) {
+			minimumF = Integer.MAX_VALUE;
+		}
+		return state;
+	}
+
+	@Override
+	public State peekFirst() {
+		if (size == 0) {
+			return null;
+		}
+		return findFirstBucket().peek(lifo);
+	}
+
+	private Bucket findFirstBucket() {
+		Bucket bucket = buckets[minimumF];
+		while (bucket == null || bucket.size == 0) {
+			minimumF++;
+			bucket = buckets[minimumF];
+		}
+		return bucket;
+	}
+
+	@Override
+	public void decreaseKey(State state) {
+		throw new UnsupportedOperationException("Decrease key is not supported by the buckets");
+	}
+
+	@Override
+	public boolean isDecreaseKeySupported() {
+		return false;
+	}
+
+	@Override
+	public long getSize() {
+		return size;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	@Override
+	public void visit(BtreeVisitor<State> visitor) {
+		for (Bucket bucket : buckets) {
+			if (bucket != null) {
+				bucket.visit(visitor);
+			}
+		}
+	}
+
+	@Override
+	public void clear() {
+		for (Bucket bucket : buckets) {
+			if (bucket != null) {
+				bucket.clear();
+			}
+		}
+		minimumF = Integer.MAX_VALUE;
+		size = 0;
+	}
+
+	/**
+	 * States with the same f, with a queue for every heuristic value.
+	 */
+	static class Bucket {
+
+		private static final int INITIAL_QUEUE_SIZE = 16;
+
+		private State[][] queues;
+
+		private int[] heads;
+
+		private int[] tails;
+
+		private int minimumH;
+
+		private int size;
+
+		Bucket() {
+			queues = new State[INITIAL_BUCKETS][];
+			heads = new int[INITIAL_BUCKETS];
+			tails = new int[INITIAL_BUCKETS];
+			minimumH = Integer.MAX_VALUE;
+		}
+
+		private void add(State state, int h) {
+			if (h >= queues.length) {
+				int length = Math.max(h + 1, queues.length * 2);
+				queues = Arrays.copyOf(queues, length);
+				heads = Arrays.copyOf(heads, length);
+				tails = Arrays.copyOf(tails, length);
+			}
+			State[] queue = queues[h];
+			if (queue == null) {
+				queue = new State[INITIAL_QUEUE_SIZE];
+				queues[h] = queue;
+			}
+			int tail = tails[h];
+			if (tail == queue.length) {
+				int head = heads[h];
+				int length = tail - head;
+				if (head > queue.length / 2) {
+					// move the states to the beginning instead of growing the queue
+					System.arraycopy(queue, head, queue, 0, length);
+					Arrays.fill(queue, length, tail, null);
+				} else {
+					State[] newQueue = new State[queue.length * 2];
+					System.arraycopy(queue, head, newQueue, 0, length);
+					queue = newQueue;
+					queues[h] = queue;
+				}
+				heads[h] = 0;
+				tail = length;
+			}
+			queue[tail] = state;
+			tails[h] = tail + 1;
+			if (h < minimumH) {
+				minimumH = h;
+			}
+			size++;
+		}
+
+		private int findFirstQueue() {
+			while (heads[minimumH] == tails[minimumH]) {
+				minimumH++;
+			}
+			return minimumH;
+		}
+
+		private State peek(boolean lifo) {
+			int h = findFirstQueue();
+			return lifo ? queues[h][tails[h] - 1] : queues[h][heads[h]];
+		}
+
+		private State remove(boolean lifo) {
+			int h = findFirstQueue();
+			State[] queue = queues[h];
+			State state;
+			if (lifo) {
+				tails[h]--;
+				state = queue[tails[h]];
+				queue[tails[h]] = null;
+			} else {
+				state = queue[heads[h]];
+				queue[heads[h]] = null;
+				heads[h]++;
+			}
+			if (heads[h] == tails[h]) {
+				heads[h] = 0;
+				tails[h] = 0;
+			}
+			size--;
+			if (size == 0) {
+				minimumH = Integer.MAX_VALUE;
+			}
+			return state;
+		}
+
+		private void visit(BtreeVisitor<State> visitor) {
+			for (int h = 0; h < queues.length; h++) {
+				for (int i = heads[h]; i < tails[h]; i++) {
+					visitor.visit(queues[h][i], 0);
+				}
+			}
+		}
+
+		private void clear() {
+			for (int h = 0; h < queues.length; h++) {
+				if (queues[h] != null) {
+					Arrays.fill(queues[h], heads[h], tails[h], null);
+				}
+				heads[h] = 0;
+				tails[h] = 0;
+			}
+			minimumH = Integer.MAX_VALUE;
+			size = 0;
+		}
+	}
+
+}
@@ -0,0 +1,119 @@
+package com.livae.util.search.astar;
+
+import com.livae.util.tree.BtreeVisitor;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Relaxed priority queue of states (multi-queue) for the parallel a-star. The states are spread
+ * among several open lists, each one with its own lock. A state is added to a random list and
+ * getFirst takes the best state of the tops of two random lists, so the returned state is not
+ * always the best one but one close to it. The threads never wait for a lock, if it is taken they
+ * try with other lists.
+ */
+class ConcurrentOpenList {
+
+	private OpenList[] queues;
+
+	private ReentrantLock[] locks;
+
+	private AtomicReferenceArray<State> tops;
+
+	private AtomicLong size;
+
+	protected ConcurrentOpenList(int queues, OpenList.Type type, int index) {
+		if (queues <= 0) {
+			throw new IllegalArgumentException("Queues should be greater than 0");
+		}
+		this.queues = new OpenList[queues];
+		this.locks = new ReentrantLock[queues];
+		for (int i = 0; i < queues; i++) {
+			this.queues[i] = type.createOpenList(index);
+			this.locks[i] = new ReentrantLock();
+		}
+		this.tops = new AtomicReferenceArray<>(queues);
+		this.size = new AtomicLong();
+	}
+
+	protected void add(State state) {
+		// counted before it is published, so a getFirst cannot take it and leave a negative size
+		size.incrementAndGet();
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		int length = queues.length;
+		int index = random.nextInt(length);
+		while (!locks[index].tryLock()) {
+			index = random.nextInt(length);
+		}
+		try {
+			OpenList queue = queues[index];
+			queue.add(state);
+			tops.set(index, queue.peekFirst());
+		} finally {
+			locks[index].unlock();
+		}
+	}
+
+	/**
+	 * @return one of the best states in the list or null if the list is empty
+	 */
+	protected State getFirst() {
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		int length = queues.length;
+		while (size.get() > 0) {
+			int index = random.nextInt(length);
+			int other = random.nextInt(length);
+			State top = tops.get(index);
+			State otherTop = tops.get(other);
+			if (top == null || (otherTop != null && otherTop.compareTo(top) < 0)) {
+				index = other;
+				top = otherTop;
+			}
+			if (top != null && locks[index].tryLock()) {
+				try {
+					OpenList queue = queues[index];
+					State state = queue.getFirst();
+					tops.set(index, queue.peekFirst());
+					if (state != null) {
+						size.decrementAndGet();
+						return state;
+					}
+				} finally {
+					locks[index].unlock();
+				}
+			}
+		}
+		return null;
+	}
+
+	protected long getSize() {
+		return size.get();
+	}
+
+	protected boolean isEmpty() {
+		return size.get() == 0;
+	}
+
+	/**
+	 * Visits all the states in the list. It is not thread safe.
+	 */
+	protected void visit(BtreeVisitor<State> visitor) {
+		for (OpenList queue : queues) {
+			queue.visit(visitor);
+		}
+	}
+
+	/**
+	 * Removes all the states from the list. It is not thread safe.
+	 */
+	protected void clear() {
+		for (int i = 0; i < queues.length; i++) {
+			queues[i].clear();
+			tops.set(i, null);
+		}
+		size.set(0);
+	}
+
+}
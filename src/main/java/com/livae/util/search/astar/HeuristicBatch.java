@@ -0,0 +1,71 @@
+package com.livae.util.search.astar;
+
+import java.util.Arrays;
+
+/**
+ * Group of states whose heuristics are calculated together.
+ */
+class HeuristicBatch {
+
+	private static final int INITIAL_CAPACITY = 16;
+
+	private State[] states;
+
+	private int[] values;
+
+	private int size;
+
+	HeuristicBatch() {
+		states = new State[INITIAL_CAPACITY];
+		values = new int[INITIAL_CAPACITY];
+	}
+
+	void add(State state) {
+		if (size == states.length) {
+			states = Arrays.copyOf(states, size * 2);
+			values = new int[size * 2];
+		}
+		states[size] = state;
+		size++;
+	}
+
+	State get(int position) {
+		return states[position];
+	}
+
+	int size() {
+		return size;
+	}
+
+	boolean contains(State state) {
+		for (int i = 0; i < size; i++) {
+			if (states[i] == state) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Calculates the heuristic for all the states and sets it in the given position of their
+	 * heuristics.
+	 */
+	void calculate(Heuristic heuristic, int index) {
+		if (heuristic instanceof BatchHeuristic) {
+			((BatchHeuristic) heuristic).calculateHeuristics(states, size, values);
+			for (int i = 0; i < size; i++) {
+				states[i].heuristic[index] = values[i];
+			}
+		} else {
+			for (int i = 0; i < size; i++) {
+				states[i].heuristic[index] = heuristic.calculateHeuristic(states[i]);
+			}
+		}
+	}
+
+	void clear() {
+		Arrays.fill(states, 0, size, null);
+		size = 0;
+	}
+
+}
@@ -1,213 +1,178 @@
 package com.livae.util.search.astar;
 
 import com.livae.util.ResourcesFactory;
+import com.livae.util.tree.BtreeVisitor;
 
-class List extends ResourcesFactory<ListNode> {
+import java.util.Arrays;
 
-	private ListNode[] first;
+/**
+ * Open list for several heuristics with a binary heap per heuristic, sorted by the cost plus that
+ * heuristic. Every state has only one node, which is in all the heaps, so when a state is taken
+ * from one heap it is removed from the others and it is not visited twice. getFirst takes the
+ * states from the heaps in turns.
+ */
+class List extends ResourcesFactory<ListNode> implements OpenList {
 
-	private long size;
+	private static final int INITIAL_CAPACITY = 64;
+
+	private ListNode[][] heaps;
+
+	private int size;
 
 	private int heuristicSize;
 
+	private int nextHeuristic;
+
 	protected List(int heuristicSize) {
+		if (heuristicSize <= 0) {
+			throw new IllegalArgumentException("Heuristic size has to be greater than 0");
+		}
 		this.heuristicSize = heuristicSize;
-		first = new ListNode[heuristicSize];
+		heaps = new ListNode[heuristicSize][INITIAL_CAPACITY];
 		size = 0;
 	}
 
-	protected void clear() {
-		ListNode node = first[0];
-		ListNode next;
-		int size;
-		while (node != null) {
-			next = node.next[0];
-			size = node.next.length;
-			for (int i = 0; i < size; i++) {
-				node.next[i] = null;
-				node.previous[i] = null;
-				node.values[i] = -1;
+	@Override
+	public void add(State state) {
+		if (size == heaps[0].length) {
+			for (int i = 0; i < heuristicSize; i++) {
+				heaps[i] = Arrays.copyOf(heaps[i], size * 2);
 			}
-			releaseResource(node);
-			node = next;
 		}
-		size = first.length;
-		for (int i = 0; i < size; i++) {
-			first[i] = null;
+		ListNode node = getResource();
+		node.setState(state);
+		state.listNode = node;
+		size++;
+		for (int i = 0; i < heuristicSize; i++) {
+			siftUp(i, node, size - 1);
 		}
-		size = 0;
 	}
 
-	protected long getSize() {
-		return size;
+	@Override
+	public State getFirst() {
+		if (size == 0) {
+			return null;
+		}
+		ListNode node = heaps[nextHeuristic][0];
+		nextHeuristic = (nextHeuristic + 1) % heuristicSize;
+		size--;
+		for (int i = 0; i < heuristicSize; i++) {
+			removeAt(i, node.positions[i]);
+		}
+		State state = node.state;
+		state.listNode = null;
+		node.setState(null);
+		releaseResource(node);
+		return state;
 	}
 
-	protected boolean isEmpty() {
-		return first[0] == null;
+	@Override
+	public State peekFirst() {
+		return size == 0 ? null : heaps[nextHeuristic][0].state;
 	}
 
-	protected void add(State state) {
-		ListNode node = getResource();
-		node.setState(state);
-		add(node);
-		size++;
+	@Override
+	public void decreaseKey(State state) {
+		ListNode node = state.listNode;
+		if (node == null || node.state != state) {
+			throw new IllegalArgumentException("The state is not in the list: " + state);
+		}
+		node.updateValues();
+		for (int i = 0; i < heuristicSize; i++) {
+			siftUp(i, node, node.positions[i]);
+		}
 	}
 
-	private void remove(ListNode node) {
-		ListNode aux;
-		boolean removed = false;
-		int s = first.length;
-		for (int i = 0; i < s; i++) {
-			aux = first[i];
-			if (aux == node) {
-				first[i] = node.next[i];
-				if (first[i] != null) {
-					first[i].previous[i] = null;
-				}
-				removed = true;
-			} else {
-				while (aux != null && aux.next[i] != node) {
-					aux = aux.next[i];
-				}
-				if (aux != null && aux.next[i] == node) {
-					aux.next[i] = node.next[i];
-					if (aux.next[i] != null) {
-						aux.next[i].previous[i] = aux;
-					}
-					removed = true;
-				}
-			}
-		}
-		if (removed) {
-			size--;
-			s = node.next.length;
-			for (int i = 0; i < s; i++) {
-				node.next[i] = null;
-				node.previous[i] = null;
-				node.values[i] = -1;
+	@Override
+	public boolean isDecreaseKeySupported() {
+		return true;
+	}
+
+	/**
+	 * Removes the node in a position of a heap, size has to be already decreased.
+	 */
+	private void removeAt(int heuristic, int position) {
+		ListNode[] heap = heaps[heuristic];
+		ListNode last = heap[size];
+		heap[size] = null;
+		if (position != size) {
+			siftDown(heuristic, last, position);
+			if (heap[position] == last) {
+				siftUp(heuristic, last, position);
 			}
-			releaseResource(node);
 		}
 	}
 
-	protected State[] getFirst() {
-		State[] states = new State[first.length];
-		int s = first.length;
-		for (int i = 0; i < s; i++) {
-			if (first[i] != null) {
-				states[i] = first[i].state;
-				remove(first[i]);
-			} else {
-				states[i] = null;
+	private void siftUp(int heuristic, ListNode node, int position) {
+		ListNode[] heap = heaps[heuristic];
+		while (position > 0) {
+			int parent = (position - 1) >>> 1;
+			ListNode parentNode = heap[parent];
+			if (parentNode.compareTo(node, heuristic) <= 0) {
+				break;
 			}
+			heap[position] = parentNode;
+			parentNode.positions[heuristic] = position;
+			position = parent;
 		}
-		return states;
+		heap[position] = node;
+		node.positions[heuristic] = position;
 	}
 
-	protected State[] getLast() {
-		State[] states = new State[first.length];
-		int s = first.length;
-		for (int i = 0; i < s; i++) {
-			if (first[i] != null) {
-				ListNode node = first[i];
-				while (node.next[i] != null) {
-					node = node.next[i];
-				}
-				states[i] = node.getState();
-				remove(node);
-			} else {
-				states[i] = null;
+	private void siftDown(int heuristic, ListNode node, int position) {
+		ListNode[] heap = heaps[heuristic];
+		int half = size >>> 1;
+		while (position < half) {
+			int child = 2 * position + 1;
+			ListNode childNode = heap[child];
+			int right = child + 1;
+			if (right < size && heap[right].compareTo(childNode, heuristic) < 0) {
+				child = right;
+				childNode = heap[right];
 			}
+			if (node.compareTo(childNode, heuristic) <= 0) {
+				break;
+			}
+			heap[position] = childNode;
+			childNode.positions[heuristic] = position;
+			position = child;
 		}
-		return states;
+		heap[position] = node;
+		node.positions[heuristic] = position;
 	}
 
-	protected ListNode[] getFirstNodes() {
-		return first;
+	@Override
+	public long getSize() {
+		return size;
 	}
 
-	private void add(ListNode node) {
-		ListNode aux;
-		ListNode auxNext;
-		int value;
-		int s = first.length;
-		for (int i = 0; i < s; i++) {
-			aux = first[i];
-			value = node.values[i];
-			if (aux == null) {
-				first[i] = node;
-				node.previous[i] = null;
-				node.next[i] = null;
-			} else if (aux.values[i] > value) {
-				node.previous[i] = null;
-				node.next[i] = aux;
-				aux.previous[i] = node;
-				first[i] = node;
-			} else {
-				auxNext = aux.next[i];
-				while (auxNext != null && auxNext.values[i] < value) {
-					aux = auxNext;
-					auxNext = aux.next[i];
-				}
-				aux.next[i] = node;
-				node.previous[i] = aux;
-				if (auxNext != null) {
-					auxNext.previous[i] = node;
-					node.next[i] = auxNext;
-				} else {
-					node.next[i] = null;
-				}
-			}
+	@Override
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	@Override
+	public void visit(BtreeVisitor<State> visitor) {
+		ListNode[] heap = heaps[0];
+		for (int i = 0; i < size; i++) {
+			visitor.visit(heap[i].state, 0);
 		}
 	}
 
-	protected void add(List list) {
-		ListNode current;
-		ListNode currentNext;
-		ListNode aux;
-		ListNode next;
-		int s = first.length;
-		for (int i = 0; i < s; i++) {
-			current = list.first[i];
-			if (current != null) {
-				currentNext = current.next[i];
-				aux = first[i];
-				if (aux == null) {
-					current.previous[i] = null;
-					current.next[i] = null;
-					first[i] = current;
-					aux = current;
-					current = currentNext;
-				} else if (aux.values[i] > current.values[i]) {
-					current.previous[i] = null;
-					current.next[i] = aux;
-					aux.previous[i] = current;
-					first[i] = current;
-					aux = current;
-					current = currentNext;
-				}
-				while (current != null) {
-					currentNext = current.next[i];
-					next = aux.next[i];
-					if (next == null) {
-						aux.next[i] = current;
-						current.previous[i] = aux;
-						current.next[i] = null;
-						current = currentNext;
-					} else if (next.values[i] > current.values[i]) {
-						aux.next[i] = current;
-						current.previous[i] = aux;
-						current.next[i] = next;
-						next.previous[i] = current;
-						aux = current;
-						current = currentNext;
-					} else {
-						aux = next;
-					}
-				}
-			}
+	@Override
+	public void clear() {
+		ListNode[] heap = heaps[0];
+		for (int i = 0; i < size; i++) {
+			ListNode node = heap[i];
+			node.state.listNode = null;
+			node.setState(null);
+			releaseResource(node);
 		}
-		size += list.size;
+		for (int i = 0; i < heuristicSize; i++) {
+			Arrays.fill(heaps[i], 0, size, null);
+		}
+		size = 0;
+		nextHeuristic = 0;
 	}
 
 	@Override
@@ -215,4 +180,4 @@ class List extends ResourcesFactory<ListNode> {
 		return new ListNode(heuristicSize);
 	}
 
-}
\ No newline at end of file
+}
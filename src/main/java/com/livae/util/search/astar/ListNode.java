@@ -1,19 +1,20 @@
 package com.livae.util.search.astar;
 
+/**
+ * Node of a state in the multi-heuristic list. The same node is in the heaps of all the
+ * heuristics, it keeps the f value and the position of the state in each one of them.
+ */
 class ListNode {
 
 	protected State state;
 
 	protected int[] values;
 
-	protected ListNode[] next;
-
-	protected ListNode[] previous;
+	protected int[] positions;
 
 	protected ListNode(int heuristicLength) {
 		values = new int[heuristicLength];
-		next = new ListNode[values.length];
-		previous = new ListNode[values.length];
+		positions = new int[heuristicLength];
 	}
 
 	protected State getState() {
@@ -21,7 +22,13 @@ class ListNode {
 	}
 
 	protected void setState(State state) {
-		state = state;
+		this.state = state;
+		if (state != null) {
+			updateValues();
+		}
+	}
+
+	protected void updateValues() {
 		int[] heuristic = state.heuristic;
 		int cost = state.cost;
 		int size = values.length;
@@ -30,12 +37,18 @@ class ListNode {
 		}
 	}
 
-	protected ListNode[] getNext() {
-		return next;
-	}
-
-	protected ListNode[] getPrevious() {
-		return previous;
+	/**
+	 * Compares the nodes by the f value of a heuristic and then by the heuristic.
+	 */
+	protected int compareTo(ListNode node, int heuristic) {
+		int value = values[heuristic];
+		int otherValue = node.values[heuristic];
+		if (value != otherValue) {
+			return value < otherValue ? -1 : 1;
+		}
+		int h = state.heuristic[heuristic];
+		int otherH = node.state.heuristic[heuristic];
+		return h < otherH ? -1 : (h == otherH ? 0 : 1);
 	}
 
 }
@@ -0,0 +1,80 @@
+package com.livae.util.search.astar;
+
+import com.livae.util.tree.BtreeVisitor;
+
+/**
+ * List of the states pending to be visited by the a-star, sorted by the State ordering.
+ */
+public interface OpenList {
+
+	public enum Type {
+		BTREE, BINARY_HEAP, BUCKET_LIFO, BUCKET_FIFO, MULTI_HEURISTIC_HEAP;
+
+		/**
+		 * Creates the open lists for the heuristics, one for each heuristic or only one for all
+		 * of them when the type is MULTI_HEURISTIC_HEAP.
+		 */
+		OpenList[] createOpenLists(int heuristics) {
+			if (this == MULTI_HEURISTIC_HEAP) {
+				return new OpenList[]{new List(heuristics)};
+			}
+			OpenList[] openLists = new OpenList[heuristics];
+			for (int i = 0; i < heuristics; i++) {
+				openLists[i] = createOpenList(i);
+			}
+			return openLists;
+		}
+
+		OpenList createOpenList(int index) {
+			switch (this) {
+				case BTREE:
+					return new BtreeOpenList();
+				case BINARY_HEAP:
+					return new BinaryHeapOpenList(index);
+				case BUCKET_LIFO:
+					return new BucketOpenList(index, true);
+				case BUCKET_FIFO:
+					return new BucketOpenList(index, false);
+				case MULTI_HEURISTIC_HEAP:
+					throw new IllegalArgumentException("Only one list for all the heuristics");
+				default:
+					throw new IllegalArgumentException("Unknown open list type: " + this);
+			}
+		}
+	}
+
+	public void add(State state);
+
+	/**
+	 * @return the best state, which is removed from the list, or null if the list is empty
+	 */
+	public State getFirst();
+
+	/**
+	 * @return the best state without removing it from the list or null if the list is empty
+	 */
+	public State peekFirst();
+
+	/**
+	 * Moves a state of the list after its cost has been reduced.
+	 *
+	 * @throws UnsupportedOperationException
+	 *   if the list does not support it
+	 */
+	public void decreaseKey(State state);
+
+	/**
+	 * @return true if the list supports decrease key, then the a-star also opens again the expanded
+	 * states found with a lower cost
+	 */
+	public boolean isDecreaseKeySupported();
+
+	public long getSize();
+
+	public boolean isEmpty();
+
+	public void visit(BtreeVisitor<State> visitor);
+
+	public void clear();
+
+}
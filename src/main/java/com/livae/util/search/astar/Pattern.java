@@ -0,0 +1,40 @@
+package com.livae.util.search.astar;
+
+/**
+ * Abstraction of the states of a problem used to build a {@link PatternDatabase}. Every abstract
+ * state has a rank from 0 to the size of the pattern, and several states of the problem can have
+ * the same abstract state. All the operations cost 1 in the abstract space. The methods are
+ * called from several threads while the database is built.
+ */
+public interface Pattern {
+
+	/**
+	 * @return number of ranks of the abstract states, some of them can be unused
+	 */
+	public long size();
+
+	/**
+	 * @return rank of the abstract state of a state of the problem
+	 */
+	public long rank(State state);
+
+	/**
+	 * @return ranks of the abstract goal states
+	 */
+	public long[] getGoals();
+
+	/**
+	 * @return maximum number of predecessors of an abstract state
+	 */
+	public int getMaximumPredecessors();
+
+	/**
+	 * Sets the ranks of the abstract states which reach the given one with one operation.
+	 *
+	 * @return the number of predecessors set in the array
+	 */
+	public int getPredecessors(long rank, long[] predecessors);
+
+	public String getName();
+
+}
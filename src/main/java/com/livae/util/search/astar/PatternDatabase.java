@@ -0,0 +1,286 @@
+package com.livae.util.search.astar;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Table with the distance from every abstract state of a {@link Pattern} to the closest abstract
+ * goal. The distances are stored in 4 bits, so the distances greater than {@link
+ * #MAXIMUM_DISTANCE} are stored as it, and the abstract states which cannot reach a goal have
+ * {@link #UNREACHABLE}, which is also a valid lower bound as their states cannot reach a goal
+ * either. The table is kept in a file which is mapped in memory, so it is built once and opened
+ * instantly by other processes.
+ */
+public class PatternDatabase {
+
+	public static final int MAXIMUM_DISTANCE = 14;
+
+	public static final int UNREACHABLE = 15;
+
+	private static final int MAGIC = 0x50444231;
+
+	private static final int VERSION = 1;
+
+	private static final int HEADER_SIZE = 16;
+
+	private static final int SEGMENT_BITS = 30;
+
+	private static final long SEGMENT_MASK = (1L << SEGMENT_BITS) - 1;
+
+	private static final int CHUNK_SIZE = 1 << 16;
+
+	private static final int WRITE_BUFFER_SIZE = 1 << 20;
+
+	private final long size;
+
+	private final MappedByteBuffer[] segments;
+
+	private PatternDatabase(long size, MappedByteBuffer[] segments) {
+		this.size = size;
+		this.segments = segments;
+	}
+
+	/**
+	 * Builds the database of the pattern with a breadth first search from the goals through the
+	 * predecessors, and stores it in the file.
+	 *
+	 * @param threads
+	 *   number of threads which expand every level of the search
+	 * @return the database mapped from the file
+	 */
+	public static PatternDatabase build(Pattern pattern, File file, int threads)
+	  throws IOException {
+		if (threads <= 0) {
+			throw new IllegalArgumentException("Threads should be greater than 0");
+		}
+		Builder builder = new Builder(pattern);
+		builder.search(threads);
+		builder.write(file);
+		return open(file);
+	}
+
+	/**
+	 * Opens a database stored in a file by {@link #build}.
+	 */
+	public static PatternDatabase open(File file) throws IOException {
+		try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r")) {
+			FileChannel channel = randomAccessFile.getChannel();
+			ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+			while (header.hasRemaining()) {
+				if (channel.read(header) < 0) {
+					throw new IOException("Not a pattern database: " + file);
+				}
+			}
+			header.flip();
+			if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+				throw new IOException("Not a pattern database: " + file);
+			}
+			long size = header.getLong();
+			long length = HEADER_SIZE + (size + 1) / 2;
+			if (channel.size() < length) {
+				throw new IOException("Truncated pattern database: " + file);
+			}
+			int segmentsNumber = (int) ((length + SEGMENT_MASK) >>> SEGMENT_BITS);
+			MappedByteBuffer[] segments = new MappedByteBuffer[segmentsNumber];
+			for (int i = 0; i < segmentsNumber; i++) {
+				long position = (long) i << SEGMENT_BITS;
+				long segmentLength = Math.min(length - position, 1L << SEGMENT_BITS);
+				segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, position, segmentLength);
+			}
+			return new PatternDatabase(size, segments);
+		}
+	}
+
+	public long size() {
+		return size;
+	}
+
+	/**
+	 * @return the distance of the abstract state to the goals
+	 */
+	public int get(long rank) {
+		if (rank < 0 || rank >= size) {
+			throw new IllegalArgumentException("Rank out of the database: " + rank);
+		}
+		long position = HEADER_SIZE + (rank >>> 1);
+		MappedByteBuffer segment = segments[(int) (position >>> SEGMENT_BITS)];
+		byte value = segment.get((int) (position & SEGMENT_MASK));
+		return (rank & 1) == 0 ? value & 0xf : (value >>> 4) & 0xf;
+	}
+
+	/**
+	 * Table of the distances while the database is built. The distances are packed 16 per long and
+	 * the states of the current and next levels of the search are kept in bit sets.
+	 */
+	private static class Builder {
+
+		private final Pattern pattern;
+
+		private final long size;
+
+		private final AtomicLongArray distances;
+
+		private AtomicLongArray current;
+
+		private AtomicLongArray next;
+
+		private final AtomicLong nextChunk;
+
+		private final AtomicLong nextLevelStates;
+
+		Builder(Pattern pattern) {
+			this.pattern = pattern;
+			this.size = pattern.size();
+			if (size <= 0 || (size + 15) / 16 > Integer.MAX_VALUE) {
+				throw new IllegalArgumentException("Invalid pattern size: " + size);
+			}
+			distances = new AtomicLongArray((int) ((size + 15) / 16));
+			for (int i = 0; i < distances.length(); i++) {
+				distances.set(i, -1L);
+			}
+			current = new AtomicLongArray((int) ((size + 63) / 64));
+			next = new AtomicLongArray((int) ((size + 63) / 64));
+			nextChunk = new AtomicLong();
+			nextLevelStates = new AtomicLong();
+		}
+
+		/**
+		 * Sets the distance of the abstract state if it has not been reached before.
+		 *
+		 * @return true if the distance has been set
+		 */
+		private boolean setDistance(long rank, int distance) {
+			int index = (int) (rank >>> 4);
+			int shift = (int) (rank & 15) << 2;
+			long value;
+			long updated;
+			do {
+				value = distances.get(index);
+				if (((value >>> shift) & 0xf) != UNREACHABLE) {
+					return false;
+				}
+				updated = value & ~(0xfL << shift) | ((long) distance << shift);
+			} while (!distances.compareAndSet(index, value, updated));
+			return true;
+		}
+
+		private static void setBit(AtomicLongArray bits, long rank) {
+			int index = (int) (rank >>> 6);
+			long mask = 1L << rank;
+			long value;
+			do {
+				value = bits.get(index);
+			} while (!bits.compareAndSet(index, value, value | mask));
+		}
+
+		void search(int threads) {
+			long states = 0;
+			for (long goal : pattern.getGoals()) {
+				if (setDistance(goal, 0)) {
+					setBit(current, goal);
+					states++;
+				}
+			}
+			int level = 0;
+			while (states > 0) {
+				final int distance = Math.min(level + 1, MAXIMUM_DISTANCE);
+				nextChunk.set(0);
+				nextLevelStates.set(0);
+				Thread[] workers = new Thread[threads];
+				for (int i = 0; i < threads; i++) {
+					workers[i] = new Thread(new Runnable() {
+						@Override
+						public void run() {
+							expandLevel(distance);
+						}
+					});
+					workers[i].start();
+				}
+				for (Thread worker : workers) {
+					try {
+						worker.join();
+					} catch (InterruptedException e) {
+						throw new RuntimeException(e);
+					}
+				}
+				states = nextLevelStates.get();
+				AtomicLongArray swap = current;
+				current = next;
+				next = swap;
+				for (int i = 0; i < next.length(); i++) {
+					next.set(i, 0);
+				}
+				level++;
+			}
+		}
+
+		/**
+		 * Expands the states of the current level in chunks taken by the threads.
+		 */
+		private void expandLevel(int distance) {
+			long[] predecessors = new long[pattern.getMaximumPredecessors()];
+			long states = 0;
+			int words = current.length();
+			int chunk = (int) nextChunk.getAndIncrement();
+			while ((long) chunk * CHUNK_SIZE < words) {
+				int end = (int) Math.min((long) (chunk + 1) * CHUNK_SIZE, words);
+				for (int word = chunk * CHUNK_SIZE; word < end; word++) {
+					long bits = current.get(word);
+					while (bits != 0) {
+						long rank = ((long) word << 6) + Long.numberOfTrailingZeros(bits);
+						bits &= bits - 1;
+						int count = pattern.getPredecessors(rank, predecessors);
+						for (int i = 0; i < count; i++) {
+							if (setDistance(predecessors[i], distance)) {
+								setBit(next, predecessors[i]);
+								states++;
+							}
+						}
+					}
+				}
+				chunk = (int) nextChunk.getAndIncrement();
+			}
+			nextLevelStates.addAndGet(states);
+		}
+
+		void write(File file) throws IOException {
+			try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+				FileChannel channel = randomAccessFile.getChannel();
+				channel.truncate(0);
+				ByteBuffer buffer = ByteBuffer.allocate(WRITE_BUFFER_SIZE);
+				buffer.putInt(MAGIC);
+				buffer.putInt(VERSION);
+				buffer.putLong(size);
+				long bytes = (size + 1) / 2;
+				for (int i = 0; i < distances.length(); i++) {
+					if (buffer.remaining() < 8) {
+						buffer.flip();
+						while (buffer.hasRemaining()) {
+							channel.write(buffer);
+						}
+						buffer.clear();
+					}
+					// every byte has two distances, the one of the even rank in the low bits
+					long value = distances.get(i);
+					int valueBytes = (int) Math.min(8, bytes - ((long) i << 3));
+					for (int j = 0; j < valueBytes; j++) {
+						buffer.put((byte) (value >>> (j << 3)));
+					}
+				}
+				buffer.flip();
+				while (buffer.hasRemaining()) {
+					channel.write(buffer);
+				}
+				channel.force(false);
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,68 @@
+package com.livae.util.search.astar;
+
+/**
+ * Heuristic which looks up the distance of the abstract state in a pattern database. The searches
+ * stop in the states with a heuristic of 0, which with a pattern are all the states with the
+ * abstract state of the goal. To avoid it the distance can be combined with another heuristic
+ * which is only 0 in the goals, taking the maximum of both.
+ */
+public class PatternDatabaseHeuristic implements BatchHeuristic {
+
+	private Pattern pattern;
+
+	private PatternDatabase database;
+
+	private Heuristic heuristic;
+
+	public PatternDatabaseHeuristic(Pattern pattern, PatternDatabase database) {
+		this(pattern, database, null);
+	}
+
+	/**
+	 * @param heuristic
+	 *   heuristic combined with the distance in the database, or null
+	 */
+	public PatternDatabaseHeuristic(Pattern pattern, PatternDatabase database,
+	                                Heuristic heuristic) {
+		if (pattern.size() != database.size()) {
+			throw new IllegalArgumentException("The database was not built for the pattern");
+		}
+		this.pattern = pattern;
+		this.database = database;
+		this.heuristic = heuristic;
+	}
+
+	@Override
+	public int calculateHeuristic(State state) {
+		int distance = database.get(pattern.rank(state));
+		if (heuristic != null) {
+			distance = Math.max(distance, heuristic.calculateHeuristic(state));
+		}
+		return distance;
+	}
+
+	@Override
+	public void calculateHeuristics(State[] states, int size, int[] heuristics) {
+		if (heuristic instanceof BatchHeuristic) {
+			((BatchHeuristic) heuristic).calculateHeuristics(states, size, heuristics);
+		} else if (heuristic != null) {
+			for (int i = 0; i < size; i++) {
+				heuristics[i] = heuristic.calculateHeuristic(states[i]);
+			}
+		} else {
+			for (int i = 0; i < size; i++) {
+				heuristics[i] = 0;
+			}
+		}
+		for (int i = 0; i < size; i++) {
+			heuristics[i] = Math.max(heuristics[i], database.get(pattern.rank(states[i])));
+		}
+	}
+
+	@Override
+	public String getName() {
+		String name = pattern.getName();
+		return heuristic == null ? name : name + " + " + heuristic.getName();
+	}
+
+}
@@ -0,0 +1,22 @@
+package com.livae.util.search.astar;
+
+import com.livae.util.ResourcesFactory;
+
+import java.util.Collection;
+
+/**
+ * Operation which can be applied backwards, used by the backward search of {@link
+ * AstarBidirectional}. The operations which do not implement it are applied as they are in the
+ * backward search, so their reverse has to be one of the operations, as the moves of a puzzle.
+ */
+public interface ReverseOperation extends Operation {
+
+	/**
+	 * Adds the states which become the given state when this operation is applied to them. The
+	 * cost of the predecessors is the cost of the state plus the cost of the operation, and their
+	 * parent is the given state.
+	 */
+	public void applyReverse(State state, Collection<State> predecessors,
+	                         ResourcesFactory<State> factory);
+
+}
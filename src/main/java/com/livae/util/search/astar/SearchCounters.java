@@ -0,0 +1,83 @@
+package com.livae.util.search.astar;
+
+import java.util.Arrays;
+
+/**
+ * Counters of a search. The times are only measured for the sampled states, in nanoseconds.
+ */
+class SearchCounters {
+
+	long visitedStates;
+
+	long sampledStates;
+
+	long generatedStates;
+
+	long repeatedGeneratedStates;
+
+	long[] generatedStatesOperator;
+
+	long[] repeatedGeneratedStatesOperator;
+
+	long timeOperator;
+
+	long[] timeOperators;
+
+	long timeHeuristic;
+
+	long[] timeHeuristics;
+
+	long timeToHash;
+
+	long timeHashTable;
+
+	long timeAddToTree;
+
+	SearchCounters(int operations, int heuristics) {
+		generatedStatesOperator = new long[operations];
+		repeatedGeneratedStatesOperator = new long[operations];
+		timeOperators = new long[operations];
+		timeHeuristics = new long[heuristics];
+	}
+
+	/**
+	 * Adds the counters to the total ones and clears them.
+	 */
+	void flush(SearchCounters total) {
+		total.visitedStates += visitedStates;
+		total.sampledStates += sampledStates;
+		total.generatedStates += generatedStates;
+		total.repeatedGeneratedStates += repeatedGeneratedStates;
+		total.timeOperator += timeOperator;
+		total.timeHeuristic += timeHeuristic;
+		total.timeToHash += timeToHash;
+		total.timeHashTable += timeHashTable;
+		total.timeAddToTree += timeAddToTree;
+		for (int i = 0; i < timeOperators.length; i++) {
+			total.generatedStatesOperator[i] += generatedStatesOperator[i];
+			total.repeatedGeneratedStatesOperator[i] += repeatedGeneratedStatesOperator[i];
+			total.timeOperators[i] += timeOperators[i];
+		}
+		for (int i = 0; i < timeHeuristics.length; i++) {
+			total.timeHeuristics[i] += timeHeuristics[i];
+		}
+		clear();
+	}
+
+	void clear() {
+		visitedStates = 0;
+		sampledStates = 0;
+		generatedStates = 0;
+		repeatedGeneratedStates = 0;
+		timeOperator = 0;
+		timeHeuristic = 0;
+		timeToHash = 0;
+		timeHashTable = 0;
+		timeAddToTree = 0;
+		Arrays.fill(generatedStatesOperator, 0);
+		Arrays.fill(repeatedGeneratedStatesOperator, 0);
+		Arrays.fill(timeOperators, 0);
+		Arrays.fill(timeHeuristics, 0);
+	}
+
+}
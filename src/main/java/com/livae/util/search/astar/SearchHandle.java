@@ -0,0 +1,127 @@
+package com.livae.util.search.astar;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stops a search when it is cancelled from other thread or when its deadline is reached. The
+ * algorithms check it every {@link #getCheckInterval()} visited states, so the clock is not read
+ * for every state.
+ */
+public class SearchHandle {
+
+	private static final int DEFAULT_CHECK_INTERVAL = 64;
+
+	private final boolean hasDeadline;
+
+	private final long deadline;
+
+	private final int checkInterval;
+
+	private volatile boolean cancelled;
+
+	/**
+	 * Creates a handle without deadline.
+	 */
+	public SearchHandle() {
+		this.hasDeadline = false;
+		this.deadline = 0;
+		this.checkInterval = DEFAULT_CHECK_INTERVAL;
+	}
+
+	/**
+	 * Creates a handle whose deadline is the timeout from now.
+	 */
+	public SearchHandle(long timeout, TimeUnit unit) {
+		this(timeout, unit, DEFAULT_CHECK_INTERVAL);
+	}
+
+	/**
+	 * @param checkInterval
+	 *   number of visited states between the checks of the handle
+	 */
+	public SearchHandle(long timeout, TimeUnit unit, int checkInterval) {
+		if (checkInterval <= 0) {
+			throw new IllegalArgumentException("Check interval should be greater than 0");
+		}
+		this.hasDeadline = true;
+		this.deadline = System.nanoTime() + unit.toNanos(timeout);
+		this.checkInterval = checkInterval;
+	}
+
+	/**
+	 * @param time
+	 *   milliseconds until the deadline, 0 or less for no deadline
+	 */
+	static SearchHandle fromMillis(long time) {
+		return time <= 0 ? new SearchHandle() : new SearchHandle(time, TimeUnit.MILLISECONDS);
+	}
+
+	public void cancel() {
+		cancelled = true;
+	}
+
+	public boolean isCancelled() {
+		return cancelled;
+	}
+
+	public boolean isExpired() {
+		return hasDeadline && System.nanoTime() - deadline >= 0;
+	}
+
+	/**
+	 * @return true if the search has to stop
+	 */
+	public boolean isStopped() {
+		return cancelled || isExpired();
+	}
+
+	/**
+	 * @return time until the deadline, 0 if it is expired or Long.MAX_VALUE without deadline
+	 */
+	public long getRemainingTime(TimeUnit unit) {
+		if (!hasDeadline) {
+			return Long.MAX_VALUE;
+		}
+		return unit.convert(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+	}
+
+	public int getCheckInterval() {
+		return checkInterval;
+	}
+
+	/**
+	 * @return a check of the handle for the loop of one thread
+	 */
+	Check newCheck() {
+		return new Check(this);
+	}
+
+	/**
+	 * Counts the iterations of the loop of one thread and checks the handle every check interval
+	 * iterations, starting with the first one. It is not thread safe.
+	 */
+	static final class Check {
+
+		private final SearchHandle handle;
+
+		private int countdown;
+
+		private Check(SearchHandle handle) {
+			this.handle = handle;
+			this.countdown = 1;
+		}
+
+		/**
+		 * @return true if the handle is stopped, it is only checked every check interval calls
+		 */
+		boolean isStopped() {
+			if (--countdown > 0) {
+				return false;
+			}
+			countdown = handle.checkInterval;
+			return handle.isStopped();
+		}
+
+	}
+
+}
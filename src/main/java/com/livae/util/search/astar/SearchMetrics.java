@@ -0,0 +1,255 @@
+package com.livae.util.search.astar;
+
+/**
+ * Snapshot of the metrics of a search. The counters are exact, the times of the operators, the
+ * heuristics, the hashes, the hash table and the open lists are measured only in a sample of the
+ * visited states and estimated for all of them. Times are in nanoseconds except the execution
+ * time, which is in milliseconds.
+ */
+public class SearchMetrics {
+
+	private final long timeExecuting;
+
+	private final long visitedStates;
+
+	private final long sampledStates;
+
+	private final long generatedStates;
+
+	private final long repeatedGeneratedStates;
+
+	private final String[] operatorNames;
+
+	private final long[] generatedStatesOperator;
+
+	private final long[] repeatedGeneratedStatesOperator;
+
+	private final long timeOperator;
+
+	private final long[] timeOperators;
+
+	private final String[] heuristicNames;
+
+	private final long timeHeuristic;
+
+	private final long[] timeHeuristics;
+
+	private final long timeToHash;
+
+	private final long timeHashTable;
+
+	private final long timeAddToTree;
+
+	private final long visitedStatesSize;
+
+	private final long fingerprintCollisions;
+
+	private final long openListSize;
+
+	/**
+	 * @param fingerprintCollisions
+	 *   fingerprint collisions or -1 if they are not checked
+	 */
+	SearchMetrics(SearchCounters counters, Operation[] operations, Heuristic[] heuristics,
+	              long timeExecuting, long visitedStatesSize, long fingerprintCollisions,
+	              long openListSize) {
+		this.timeExecuting = timeExecuting;
+		this.visitedStates = counters.visitedStates;
+		this.sampledStates = counters.sampledStates;
+		this.generatedStates = counters.generatedStates;
+		this.repeatedGeneratedStates = counters.repeatedGeneratedStates;
+		this.operatorNames = new String[operations.length];
+		for (int i = 0; i < operations.length; i++) {
+			operatorNames[i] = operations[i].getName();
+		}
+		this.generatedStatesOperator = counters.generatedStatesOperator.clone();
+		this.repeatedGeneratedStatesOperator = counters.repeatedGeneratedStatesOperator.clone();
+		this.heuristicNames = new String[heuristics.length];
+		for (int i = 0; i < heuristics.length; i++) {
+			heuristicNames[i] = heuristics[i].getName();
+		}
+		this.timeOperator = estimate(counters.timeOperator);
+		this.timeOperators = new long[operations.length];
+		for (int i = 0; i < operations.length; i++) {
+			timeOperators[i] = estimate(counters.timeOperators[i]);
+		}
+		this.timeHeuristic = estimate(counters.timeHeuristic);
+		this.timeHeuristics = new long[heuristics.length];
+		for (int i = 0; i < heuristics.length; i++) {
+			timeHeuristics[i] = estimate(counters.timeHeuristics[i]);
+		}
+		this.timeToHash = estimate(counters.timeToHash);
+		this.timeHashTable = estimate(counters.timeHashTable);
+		this.timeAddToTree = estimate(counters.timeAddToTree);
+		this.visitedStatesSize = visitedStatesSize;
+		this.fingerprintCollisions = fingerprintCollisions;
+		this.openListSize = openListSize;
+	}
+
+	/**
+	 * @return the time measured in the sampled states scaled to all the visited states
+	 */
+	private long estimate(long sampledTime) {
+		if (sampledStates == 0) {
+			return 0;
+		}
+		return (long) (sampledTime * ((double) visitedStates / sampledStates));
+	}
+
+	public long getTimeExecuting() {
+		return timeExecuting;
+	}
+
+	public long getVisitedStates() {
+		return visitedStates;
+	}
+
+	public double getVisitedStatesPerSecond() {
+		return perSecond(visitedStates);
+	}
+
+	/**
+	 * @return number of visited states whose times were measured
+	 */
+	public long getSampledStates() {
+		return sampledStates;
+	}
+
+	public long getGeneratedStates() {
+		return generatedStates;
+	}
+
+	public double getGeneratedStatesPerSecond() {
+		return perSecond(generatedStates);
+	}
+
+	public long getRepeatedGeneratedStates() {
+		return repeatedGeneratedStates;
+	}
+
+	public String[] getOperatorNames() {
+		return operatorNames.clone();
+	}
+
+	public long[] getGeneratedStatesOperator() {
+		return generatedStatesOperator.clone();
+	}
+
+	public long[] getRepeatedGeneratedStatesOperator() {
+		return repeatedGeneratedStatesOperator.clone();
+	}
+
+	public long getTimeOperator() {
+		return timeOperator;
+	}
+
+	public long[] getTimeOperators() {
+		return timeOperators.clone();
+	}
+
+	public String[] getHeuristicNames() {
+		return heuristicNames.clone();
+	}
+
+	public long getTimeHeuristic() {
+		return timeHeuristic;
+	}
+
+	public long[] getTimeHeuristics() {
+		return timeHeuristics.clone();
+	}
+
+	public long getTimeToHash() {
+		return timeToHash;
+	}
+
+	public long getTimeHashTable() {
+		return timeHashTable;
+	}
+
+	public long getTimeAddToTree() {
+		return timeAddToTree;
+	}
+
+	public long getVisitedStatesSize() {
+		return visitedStatesSize;
+	}
+
+	/**
+	 * @return fingerprint collisions or -1 if they are not checked
+	 */
+	public long getFingerprintCollisions() {
+		return fingerprintCollisions;
+	}
+
+	public long getOpenListSize() {
+		return openListSize;
+	}
+
+	private double perSecond(long value) {
+		return timeExecuting == 0 ? 0 : value * 1000.0 / timeExecuting;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		sb.append("Time executing: ").append(timeExecuting).append(" ms\n");
+		sb.append("Visited states: ").append(visitedStates).append('\n');
+		sb.append("Visited states per second: ").append(getVisitedStatesPerSecond()).append('\n');
+		sb.append("Sampled states: ").append(sampledStates).append('\n');
+
+		sb.append("Generated states: ").append(generatedStates).append('\n');
+		sb.append("Generated states per second: ").append(getGeneratedStatesPerSecond())
+		  .append('\n');
+		sb.append("Generated states repeated: ").append(repeatedGeneratedStates).append('\n');
+		double collisions = repeatedGeneratedStates * 100.0 / generatedStates;
+		sb.append("Collisions: ").append(collisions).append(" %\n");
+
+		sb.append("Time operators: ").append(timeOperator).append(" ns\n");
+		double operatorsPerVisitedState = timeOperator * 1.0 / visitedStates;
+		sb.append("Time operators per visited state: ").append(operatorsPerVisitedState)
+		  .append(" ns\n");
+		for (int i = 0; i < timeOperators.length; i++) {
+			sb.append('\t').append(operatorNames[i]).append(":\n");
+			sb.append("\t\t time ").append(timeOperators[i]).append('\n');
+			sb.append("\t\t time per visit ").append(timeOperators[i] * 1.0 / visitedStates)
+			  .append('\n');
+			sb.append("\t\t generated states (per visit): ").append(generatedStatesOperator[i])
+			  .append(" (").append(generatedStatesOperator[i] * 1.0 / visitedStates).append(")\n");
+			sb.append("\t\t repeated generated states (per visit): ")
+			  .append(repeatedGeneratedStatesOperator[i]).append(" (")
+			  .append(repeatedGeneratedStatesOperator[i] * 1.0 / visitedStates).append(")\n");
+			sb.append("\t\t collisions: ")
+			  .append(repeatedGeneratedStatesOperator[i] * 100.0 / generatedStatesOperator[i])
+			  .append('\n');
+		}
+		sb.append("Time generating hash: ").append(timeToHash).append('\n');
+		double timeHashPerState = timeToHash * 1.0 / generatedStates;
+		sb.append("Time generating hash per state: ").append(timeHashPerState).append(" ns\n");
+		sb.append("Time hashtable: ").append(timeHashTable).append(" ns\n");
+		sb.append("Size hashtable: ").append(visitedStatesSize).append('\n');
+		if (fingerprintCollisions >= 0) {
+			sb.append("Fingerprint collisions: ").append(fingerprintCollisions).append('\n');
+		}
+
+		sb.append("Time heuristic: ").append(timeHeuristic).append(" ns\n");
+		double heuristicPerGenerateState = timeHeuristic * 1.0 / generatedStates;
+		sb.append("Time heuristic per generatedState state: ").append(heuristicPerGenerateState)
+		  .append(" ns\n");
+		for (int i = 0; i < timeHeuristics.length; i++) {
+			sb.append('\t').append(heuristicNames[i]).append(": \n");
+			sb.append("\t\t time ").append(timeHeuristics[i]).append('\n');
+			sb.append("\t\t time por generatedState ")
+			  .append(timeHeuristics[i] * 1.0 / generatedStates).append('\n');
+		}
+
+		sb.append("Time adding to tree: ").append(timeAddToTree).append(" ns\n");
+		long treeSize = generatedStates - (visitedStates + repeatedGeneratedStates);
+		sb.append("Approximate tree size: ").append(treeSize).append('\n');
+		sb.append("Tree size: ").append(openListSize).append('\n');
+		double ratioList = timeAddToTree * 1.0 / treeSize;
+		sb.append("Ratio Time / Tree Size: ").append(ratioList);
+		return sb.toString();
+	}
+
+}
@@ -0,0 +1,11 @@
+package com.livae.util.search.astar;
+
+/**
+ * Receives the metrics of a search periodically while it runs and when it stops. It is called
+ * from the threads of the search, so it should return quickly.
+ */
+public interface SearchMetricsListener {
+
+	public void onMetrics(SearchMetrics metrics);
+
+}
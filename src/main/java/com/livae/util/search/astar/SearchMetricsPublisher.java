@@ -0,0 +1,171 @@
+package com.livae.util.search.astar;
+
+import java.lang.management.ManagementFactory;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Listener which keeps the last metrics of a search and publishes them through JMX with the name
+ * com.livae.util.search.astar:type=Search,name=[name]. The attributes are empty until the first
+ * metrics are received.
+ */
+public class SearchMetricsPublisher implements SearchMetricsListener, SearchMetricsPublisherMXBean {
+
+	private static final String[] EMPTY_NAMES = new String[0];
+
+	private static final long[] EMPTY_VALUES = new long[0];
+
+	private final ObjectName objectName;
+
+	private volatile SearchMetrics metrics;
+
+	public SearchMetricsPublisher(String name) {
+		try {
+			this.objectName = new ObjectName("com.livae.util.search.astar:type=Search,name=" +
+			                                 ObjectName.quote(name));
+		} catch (JMException e) {
+			throw new IllegalArgumentException("Invalid name: " + name, e);
+		}
+	}
+
+	/**
+	 * Registers the publisher in the platform MBean server.
+	 */
+	public void register() {
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		try {
+			server.registerMBean(this, objectName);
+		} catch (JMException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	public void unregister() {
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		try {
+			server.unregisterMBean(objectName);
+		} catch (JMException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	public ObjectName getObjectName() {
+		return objectName;
+	}
+
+	@Override
+	public void onMetrics(SearchMetrics metrics) {
+		this.metrics = metrics;
+	}
+
+	/**
+	 * @return the last metrics received or null
+	 */
+	public SearchMetrics getMetrics() {
+		return metrics;
+	}
+
+	@Override
+	public long getTimeExecuting() {
+		SearchMetrics metrics = this.metrics;
+		return metrics == null ? 0 : metrics.getTimeExecuting();
+	}
+
+	@Override
+	public long getVisitedStates() {
+		SearchMetrics metrics = this.metrics;
+		return metrics == null ? 0 : metrics.getVisitedStates();
+	}
+
+	@Override
+	public double getVisitedStatesPerSecond() {
+		SearchMetrics metrics = this.metrics;
+		return metrics == null ? 0 : metrics.getVisitedStatesPerSecond();
+	}
+
+	@Override
+	public long getSampledStates() {
+		SearchMetrics metrics = this.metrics;
+		return metrics == null ? 0 : metrics.getSampledStates();
+	}
+
+	@Override
+	public long getGeneratedStates() {
+		SearchMetrics metrics = this.metrics;
+		return metrics == null ? 0 : metrics.getGeneratedStates();
+	}
+
+	@Override
+	public double getGeneratedStatesPerSecond() {
+		SearchMetrics metrics = this.metrics;
+		return metrics == null ? 0 : metrics.getGeneratedStatesPerSecond();
+	}
+
+	@Override
+	public long getRepeatedGeneratedStates() {
+		SearchMetrics metrics = this.metrics;
+		return metrics == null ? 0 : metrics.getRepeatedGeneratedStates();
+	}
+
+	@Override
+	public String[] getOperatorNames() {
+		SearchMetrics metrics = this.metrics;
+		return metrics == null ? EMPTY_NAMES : metrics.getOperatorNames();
+	}
+
+	@Override
+	public long[] getGeneratedStatesOperator() {
+		SearchMetrics metrics = this.metrics;
+		return metrics == null ? EMPTY_VALUES : metrics.getGeneratedStatesOperator();
+	}
+
+	@Override
+	public long[] getTimeOperators() {
+		SearchMetrics metrics = this.metrics;
+		return metrics == null ? EMPTY_VALUES : metrics.getTimeOperators();
+	}
+
+	@Override
+	public String[] getHeuristicNames() {
+		SearchMetrics metrics = this.metrics;
+		return metrics == null ? EMPTY_NAMES : metrics.getHeuristicNames();
+	}
+
+	@Override
+	public long[] getTimeHeuristics() {
+		SearchMetrics metrics = this.metrics;
+		return metrics == null ? EMPTY_VALUES : metrics.getTimeHeuristics();
+	}
+
+	@Override
+	public long getTimeToHash() {
+		SearchMetrics metrics = this.metrics;
+		return metrics == null ? 0 : metrics.getTimeToHash();
+	}
+
+	@Override
+	public long getTimeHashTable() {
+		SearchMetrics metrics = this.metrics;
+		return metrics == null ? 0 : metrics.getTimeHashTable();
+	}
+
+	@Override
+	public long getTimeAddToTree() {
+		SearchMetrics metrics = this.metrics;
+		return metrics == null ? 0 : metrics.getTimeAddToTree();
+	}
+
+	@Override
+	public long getVisitedStatesSize() {
+		SearchMetrics metrics = this.metrics;
+		return metrics == null ? 0 : metrics.getVisitedStatesSize();
+	}
+
+	@Override
+	public long getOpenListSize() {
+		SearchMetrics metrics = this.metrics;
+		return metrics == null ? 0 : metrics.getOpenListSize();
+	}
+
+}
@@ -0,0 +1,42 @@
+package com.livae.util.search.astar;
+
+/**
+ * Management interface of the last metrics received by a {@link SearchMetricsPublisher}.
+ */
+public interface SearchMetricsPublisherMXBean {
+
+	public long getTimeExecuting();
+
+	public long getVisitedStates();
+
+	public double getVisitedStatesPerSecond();
+
+	public long getSampledStates();
+
+	public long getGeneratedStates();
+
+	public double getGeneratedStatesPerSecond();
+
+	public long getRepeatedGeneratedStates();
+
+	public String[] getOperatorNames();
+
+	public long[] getGeneratedStatesOperator();
+
+	public long[] getTimeOperators();
+
+	public String[] getHeuristicNames();
+
+	public long[] getTimeHeuristics();
+
+	public long getTimeToHash();
+
+	public long getTimeHashTable();
+
+	public long getTimeAddToTree();
+
+	public long getVisitedStatesSize();
+
+	public long getOpenListSize();
+
+}
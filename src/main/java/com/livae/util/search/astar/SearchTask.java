@@ -0,0 +1,38 @@
+package com.livae.util.search.astar;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Search run in an executor. Cancelling the task also cancels its handle, so the algorithm stops
+ * even if the thread is not interrupted.
+ */
+class SearchTask extends FutureTask<State> {
+
+	private final SearchHandle handle;
+
+	SearchTask(SearchHandle handle, Callable<State> search) {
+		super(search);
+		this.handle = handle;
+	}
+
+	/**
+	 * Runs the search in the executor.
+	 *
+	 * @return the future of the search, cancelling it cancels the handle
+	 */
+	static Future<State> execute(Executor executor, SearchHandle handle, Callable<State> search) {
+		SearchTask task = new SearchTask(handle, search);
+		executor.execute(task);
+		return task;
+	}
+
+	@Override
+	public boolean cancel(boolean mayInterruptIfRunning) {
+		handle.cancel();
+		return super.cancel(mayInterruptIfRunning);
+	}
+
+}
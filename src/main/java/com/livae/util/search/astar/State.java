@@ -2,6 +2,10 @@ package com.livae.util.search.astar;
 
 public abstract class State implements Comparable<State> {
 
+	private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+
+	private static final long FNV_PRIME = 0x100000001b3L;
+
 	protected int[] heuristic;
 
 	protected int cost;
@@ -10,8 +14,42 @@ public abstract class State implements Comparable<State> {
 
 	protected Operation operation;
 
+	/**
+	 * Positions of the state in the binary heaps of the open lists.
+	 */
+	int[] openListPositions;
+
+	/**
+	 * Node of the state in the multi-heuristic open list.
+	 */
+	ListNode listNode;
+
 	protected abstract String getHash();
 
+	/**
+	 * Fingerprint of the state used to check whether it has been visited. Two equal states must
+	 * have the same fingerprint. By default it is a 64 bits hash of getHash(), override it to avoid
+	 * creating the string for every generated state.
+	 */
+	protected long getFingerprint() {
+		return fingerprint(getHash());
+	}
+
+	/**
+	 * @return 64 bits hash (FNV-1a) of the characters
+	 */
+	protected static long fingerprint(CharSequence chars) {
+		long hash = FNV_OFFSET_BASIS;
+		for (int i = 0; i < chars.length(); i++) {
+			char c = chars.charAt(i);
+			hash ^= c & 0xff;
+			hash *= FNV_PRIME;
+			hash ^= c >>> 8;
+			hash *= FNV_PRIME;
+		}
+		return hash;
+	}
+
 	public abstract String toString();
 
 }
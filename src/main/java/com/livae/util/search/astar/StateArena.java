@@ -0,0 +1,227 @@
+package com.livae.util.search.astar;
+
+import com.livae.util.ResourcesFactory;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+
+/**
+ * Compact storage of states in byte buffers. Every state is a record of fixed size with the
+ * parent index, the cost, the index of the operation, the heuristics and the content written by a
+ * {@link StateSerializer}, so a state of the 8-puzzle with one heuristic uses 29 bytes instead of
+ * the 100 or more of the objects. The states are referenced by their index, which is reused when
+ * a state is removed. The removed records are marked, so reading or removing them again throws an
+ * exception until their index is reused. It is not thread safe.
+ */
+public class StateArena {
+
+	public static final long NO_PARENT = -1;
+
+	// parent of the removed records
+	private static final long FREE = -2;
+
+	private static final int CHUNK_SIZE = 1 << 20;
+
+	private static final int HEADER_SIZE = 16;
+
+	private final Operation[] operations;
+
+	private final StateSerializer serializer;
+
+	private final int heuristics;
+
+	private final int recordSize;
+
+	private final int chunkRecords;
+
+	private final ArrayList<ByteBuffer> chunks;
+
+	private long records;
+
+	private long[] freeRecords;
+
+	private int freeRecordsSize;
+
+	/**
+	 * @param operations
+	 *   operations of the states, stored by their index
+	 * @param heuristics
+	 *   number of heuristics of the states
+	 */
+	public StateArena(Operation[] operations, StateSerializer serializer, int heuristics) {
+		if (heuristics < 0) {
+			throw new IllegalArgumentException("Heuristics cannot be negative");
+		}
+		this.operations = operations;
+		this.serializer = serializer;
+		this.heuristics = heuristics;
+		this.recordSize = HEADER_SIZE + heuristics * 4 + serializer.getMaximumSize();
+		this.chunkRecords = Math.max(1, CHUNK_SIZE / recordSize);
+		this.chunks = new ArrayList<>();
+		this.freeRecords = new long[16];
+	}
+
+	/**
+	 * Stores the state. The parent of the state is not stored, but the index of its record.
+	 *
+	 * @param parent
+	 *   index of the parent or {@link #NO_PARENT}
+	 * @return the index of the state
+	 */
+	public long add(State state, long parent) {
+		if (parent != NO_PARENT) {
+			checkIndex(parent);
+		}
+		long index;
+		if (freeRecordsSize > 0) {
+			freeRecordsSize--;
+			index = freeRecords[freeRecordsSize];
+		} else {
+			index = records;
+			if (index == (long) chunks.size() * chunkRecords) {
+				chunks.add(ByteBuffer.allocate(chunkRecords * recordSize));
+			}
+			records++;
+		}
+		ByteBuffer chunk = getChunk(index);
+		int offset = getOffset(index);
+		chunk.putLong(offset, parent);
+		chunk.putInt(offset + 8, state.cost);
+		chunk.putInt(offset + 12, getOperationIndex(state.operation));
+		for (int i = 0; i < heuristics; i++) {
+			chunk.putInt(offset + HEADER_SIZE + i * 4, state.heuristic[i]);
+		}
+		chunk.limit(offset + recordSize);
+		chunk.position(offset + HEADER_SIZE + heuristics * 4);
+		serializer.write(state, chunk);
+		chunk.clear();
+		return index;
+	}
+
+	/**
+	 * @return a state with the content, the cost, the operation and the heuristics of the record,
+	 * without parent
+	 */
+	public State get(long index, ResourcesFactory<State> statesFactory) {
+		checkIndex(index);
+		ByteBuffer chunk = getChunk(index);
+		int offset = getOffset(index);
+		chunk.limit(offset + recordSize);
+		chunk.position(offset + HEADER_SIZE + heuristics * 4);
+		State state = serializer.read(chunk, statesFactory);
+		chunk.clear();
+		state.parent = null;
+		state.cost = chunk.getInt(offset + 8);
+		int operationIndex = chunk.getInt(offset + 12);
+		state.operation = operationIndex < 0 ? null : operations[operationIndex];
+		for (int i = 0; i < heuristics; i++) {
+			state.heuristic[i] = chunk.getInt(offset + HEADER_SIZE + i * 4);
+		}
+		return state;
+	}
+
+	/**
+	 * @return the state with all its ancestors linked as parents
+	 */
+	public State getPath(long index, ResourcesFactory<State> statesFactory) {
+		State state = get(index, statesFactory);
+		State child = state;
+		long parent = getParent(index);
+		while (parent != NO_PARENT) {
+			child.parent = get(parent, statesFactory);
+			child = child.parent;
+			parent = getParent(parent);
+		}
+		return state;
+	}
+
+	public long getParent(long index) {
+		checkIndex(index);
+		return getChunk(index).getLong(getOffset(index));
+	}
+
+	public int getCost(long index) {
+		checkIndex(index);
+		return getChunk(index).getInt(getOffset(index) + 8);
+	}
+
+	public int getHeuristic(long index, int heuristic) {
+		checkIndex(index);
+		if (heuristic < 0 || heuristic >= heuristics) {
+			throw new IllegalArgumentException("Invalid heuristic: " + heuristic);
+		}
+		return getChunk(index).getInt(getOffset(index) + HEADER_SIZE + heuristic * 4);
+	}
+
+	/**
+	 * Frees the record of the state to be reused by other state. The states whose parent is this
+	 * one keep the index, so their paths cannot be read until it is reused.
+	 */
+	public void remove(long index) {
+		checkIndex(index);
+		getChunk(index).putLong(getOffset(index), FREE);
+		if (freeRecordsSize == freeRecords.length) {
+			long[] newFreeRecords = new long[freeRecords.length * 2];
+			System.arraycopy(freeRecords, 0, newFreeRecords, 0, freeRecordsSize);
+			freeRecords = newFreeRecords;
+		}
+		freeRecords[freeRecordsSize] = index;
+		freeRecordsSize++;
+	}
+
+	/**
+	 * @return number of states stored
+	 */
+	public long size() {
+		return records - freeRecordsSize;
+	}
+
+	/**
+	 * @return bytes allocated for the records
+	 */
+	public long getMemory() {
+		return (long) chunks.size() * chunkRecords * recordSize;
+	}
+
+	public int getRecordSize() {
+		return recordSize;
+	}
+
+	/**
+	 * Removes all the states, the memory is kept to be reused.
+	 */
+	public void clear() {
+		records = 0;
+		freeRecordsSize = 0;
+	}
+
+	private int getOperationIndex(Operation operation) {
+		if (operation == null) {
+			return -1;
+		}
+		for (int i = 0; i < operations.length; i++) {
+			if (operations[i] == operation) {
+				return i;
+			}
+		}
+		throw new IllegalArgumentException("Unknown operation: " + operation.getName());
+	}
+
+	private ByteBuffer getChunk(long index) {
+		return chunks.get((int) (index / chunkRecords));
+	}
+
+	private int getOffset(long index) {
+		return (int) (index % chunkRecords) * recordSize;
+	}
+
+	private void checkIndex(long index) {
+		if (index < 0 || index >= records) {
+			throw new IllegalArgumentException("Invalid index: " + index);
+		}
+		if (getChunk(index).getLong(getOffset(index)) == FREE) {
+			throw new IllegalArgumentException("Removed index: " + index);
+		}
+	}
+
+}
@@ -0,0 +1,61 @@
+package com.livae.util.search.astar;
+
+import com.livae.util.ResourcesFactory;
+
+/**
+ * Factory of states which can be packed in a {@link StateArena}. Packing a state stores it in the
+ * arena and releases the object to the factory, so only the states being used are objects and
+ * the rest are kept as records in the arena.
+ */
+public class StateArenaFactory extends ResourcesFactory<State> {
+
+	private final ResourcesFactory<State> statesFactory;
+
+	private final StateArena arena;
+
+	/**
+	 * @param statesFactory
+	 *   factory which creates the objects of the states
+	 */
+	public StateArenaFactory(ResourcesFactory<State> statesFactory, StateArena arena) {
+		this.statesFactory = statesFactory;
+		this.arena = arena;
+	}
+
+	@Override
+	protected State createResource() {
+		return statesFactory.getResource();
+	}
+
+	/**
+	 * Stores the state in the arena and releases it.
+	 *
+	 * @param parent
+	 *   index of the parent or {@link StateArena#NO_PARENT}
+	 * @return the index of the state in the arena
+	 */
+	public long pack(State state, long parent) {
+		long index = arena.add(state, parent);
+		releaseResource(state);
+		return index;
+	}
+
+	/**
+	 * @return a state of the factory with the content of the record of the arena, without parent
+	 */
+	public State unpack(long index) {
+		return arena.get(index, this);
+	}
+
+	/**
+	 * @return a state of the factory with all its ancestors linked as parents
+	 */
+	public State unpackPath(long index) {
+		return arena.getPath(index, this);
+	}
+
+	public StateArena getArena() {
+		return arena;
+	}
+
+}
@@ -0,0 +1,109 @@
+package com.livae.util.search.astar;
+
+import com.livae.util.LongHashMap;
+
+import java.util.HashMap;
+
+/**
+ * Map from a state to the best instance of it found, usually the one with the lowest cost. The
+ * states are stored by their fingerprints. When the collisions are checked they are stored by their
+ * hashes instead, so two different states with the same fingerprint are kept apart, and the
+ * fingerprint collisions between the stored states are counted. It is not thread safe.
+ */
+class StateMap {
+
+	private LongHashMap<State> states;
+
+	private HashMap<String, State> hashes;
+
+	// hash of the stored state of every fingerprint, to count the collisions
+	private LongHashMap<String> fingerprints;
+
+	private long collisions;
+
+	protected StateMap() {
+		states = new LongHashMap<>();
+	}
+
+	protected void setCheckCollisions(boolean checkCollisions) {
+		if (checkCollisions && hashes == null) {
+			if (size() > 0) {
+				throw new RuntimeException("Collisions can only be checked from an empty map");
+			}
+			hashes = new HashMap<>();
+			fingerprints = new LongHashMap<>();
+		} else if (!checkCollisions) {
+			hashes = null;
+			fingerprints = null;
+		}
+	}
+
+	/**
+	 * @return the stored instance of the state or null if there is not any
+	 */
+	protected State get(State state, long fingerprint) {
+		if (hashes != null) {
+			return hashes.get(state.getHash());
+		}
+		return states.get(fingerprint);
+	}
+
+	/**
+	 * Stores the instance of the state, replacing the previous one.
+	 *
+	 * @return the previous instance of the state or null if there was not any
+	 */
+	protected State put(State state, long fingerprint) {
+		if (hashes != null) {
+			String hash = state.getHash();
+			State previous = hashes.put(hash, state);
+			String fingerprintHash = fingerprints.get(fingerprint);
+			if (fingerprintHash == null) {
+				fingerprints.put(fingerprint, hash);
+			} else if (previous == null && !fingerprintHash.equals(hash)) {
+				collisions++;
+			}
+			return previous;
+		}
+		return states.put(fingerprint, state);
+	}
+
+	/**
+	 * Removes the instance of the state if it is the stored one.
+	 *
+	 * @return true if it was removed
+	 */
+	protected boolean remove(State state, long fingerprint) {
+		if (get(state, fingerprint) != state) {
+			return false;
+		}
+		if (hashes != null) {
+			String hash = state.getHash();
+			hashes.remove(hash);
+			if (hash.equals(fingerprints.get(fingerprint))) {
+				fingerprints.remove(fingerprint);
+			}
+		} else {
+			states.remove(fingerprint);
+		}
+		return true;
+	}
+
+	protected int size() {
+		return hashes == null ? states.size() : hashes.size();
+	}
+
+	protected long getCollisions() {
+		return collisions;
+	}
+
+	protected void clear() {
+		states.clear();
+		if (hashes != null) {
+			hashes.clear();
+			fingerprints.clear();
+		}
+		collisions = 0;
+	}
+
+}
@@ -0,0 +1,25 @@
+package com.livae.util.search.astar;
+
+import com.livae.util.ResourcesFactory;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Writes and reads the content of the states, without the cost, the parent, the operation and the
+ * heuristics, to store them out of memory.
+ */
+public interface StateSerializer {
+
+	/**
+	 * @return the maximum number of bytes written for a state
+	 */
+	public int getMaximumSize();
+
+	public void write(State state, ByteBuffer buffer);
+
+	/**
+	 * Reads a state written by {@link #write}, reading exactly the bytes written.
+	 */
+	public State read(ByteBuffer buffer, ResourcesFactory<State> statesFactory);
+
+}
@@ -0,0 +1,70 @@
+package com.livae.util.search.astar;
+
+import com.livae.util.LongHashSet;
+
+import java.util.HashSet;
+
+/**
+ * Set of visited states stored by their fingerprints. When the collisions are checked the hashes
+ * of the states are also stored, then a state is only considered visited when its hash is in the
+ * set too, and the fingerprint collisions are counted. It is not thread safe.
+ */
+class VisitedStates {
+
+	private LongHashSet fingerprints;
+
+	private HashSet<String> hashes;
+
+	private long collisions;
+
+	protected VisitedStates() {
+		fingerprints = new LongHashSet();
+	}
+
+	protected void setCheckCollisions(boolean checkCollisions) {
+		if (checkCollisions && hashes == null) {
+			if (fingerprints.size() > 0) {
+				throw new RuntimeException("Collisions can only be checked from an empty set");
+			}
+			hashes = new HashSet<>();
+		} else if (!checkCollisions) {
+			hashes = null;
+		}
+	}
+
+	/**
+	 * @return true if the state was not visited
+	 */
+	protected boolean add(State state, long fingerprint) {
+		boolean added = fingerprints.add(fingerprint);
+		if (hashes != null) {
+			boolean addedHash = hashes.add(state.getHash());
+			if (added != addedHash) {
+				if (added) {
+					throw new RuntimeException("Different fingerprints for the same state: " +
+					                           state);
+				}
+				collisions++;
+				added = true;
+			}
+		}
+		return added;
+	}
+
+	protected int size() {
+		return hashes == null ? fingerprints.size() : hashes.size();
+	}
+
+	protected long getCollisions() {
+		return collisions;
+	}
+
+	protected void clear() {
+		fingerprints.clear();
+		if (hashes != null) {
+			hashes.clear();
+		}
+		collisions = 0;
+	}
+
+}
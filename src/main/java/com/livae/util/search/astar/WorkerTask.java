@@ -0,0 +1,79 @@
+package com.livae.util.search.astar;
+
+import java.util.ArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Task of a worker run in an executor. The worker and the thread which started the algorithm
+ * claim the task, the worker only runs if it claims the task first.
+ */
+class WorkerTask extends FutureTask<Void> {
+
+	private final AtomicBoolean claimed;
+
+	WorkerTask(final Runnable worker) {
+		this(worker, new AtomicBoolean());
+	}
+
+	private WorkerTask(final Runnable worker, final AtomicBoolean claimed) {
+		super(new Runnable() {
+			@Override
+			public void run() {
+				if (claimed.compareAndSet(false, true)) {
+					worker.run();
+				}
+			}
+		}, null);
+		this.claimed = claimed;
+	}
+
+	/**
+	 * @return true if the worker had not started and it will not run
+	 */
+	boolean claim() {
+		return claimed.compareAndSet(false, true);
+	}
+
+	/**
+	 * Runs the first worker in the calling thread and the rest in the executor. When the first
+	 * worker finishes the tasks still waiting in the executor are cancelled and the rest are waited
+	 * for. If the calling thread is interrupted while it waits the handle is cancelled and the
+	 * thread keeps its interrupted status.
+	 */
+	static void runAll(Executor executor, Runnable[] workers, SearchHandle handle) {
+		ArrayList<WorkerTask> tasks = new ArrayList<>();
+		for (int i = 1; i < workers.length; i++) {
+			WorkerTask task = new WorkerTask(workers[i]);
+			tasks.add(task);
+			executor.execute(task);
+		}
+		workers[0].run();
+
+		boolean interrupted = false;
+		for (WorkerTask task : tasks) {
+			// the tasks still waiting in the executor have nothing to do, the rest are waited for
+			if (task.claim()) {
+				task.cancel(false);
+			} else {
+				while (true) {
+					try {
+						task.get();
+						break;
+					} catch (InterruptedException e) {
+						interrupted = true;
+						handle.cancel();
+					} catch (ExecutionException e) {
+						throw new RuntimeException(e.getCause());
+					}
+				}
+			}
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+}
@@ -102,8 +102,8 @@ public class AxisAlignedBoundingCuboid {
 	}
 
 	public void setMinMaxPoint(Vector3f minPoint, Vector3f maxPoint) {
-		minPoint.set(minPoint);
-		maxPoint.set(maxPoint);
+		this.minPoint.set(minPoint);
+		this.maxPoint.set(maxPoint);
 		dimensions.set(maxPoint.x - minPoint.x, maxPoint.y - minPoint.y, maxPoint.z - minPoint.z);
 		position.set((maxPoint.x + minPoint.x) / 2, (maxPoint.y + minPoint.y) / 2,
 		             (maxPoint.z + minPoint.z) / 2);
@@ -101,20 +101,21 @@ public class Frustum {
 		int nvertice;
 		int pvertice;
 		for (int p = 0; p < 6; p++) {
-			nvertice = nvertices[p];
-			nvertexX = (nvertice & OctreeNode.X_BIT) > 0 ? maxPoint.x : minPoint.x;
-			nvertexY = (nvertice & OctreeNode.Y_BIT) > 0 ? maxPoint.y : minPoint.y;
-			nvertexZ = (nvertice & OctreeNode.Z_BIT) > 0 ? maxPoint.z : minPoint.z;
-			if (frustum[p][0] * nvertexX + frustum[p][1] * nvertexY +
-			    frustum[p][2] * nvertexZ + frustum[p][3] <= 0) {
-				return CONTAINS.OUTSIDE;
-			}
+			// the box is outside when even the p-vertex is behind the plane
 			pvertice = pvertices[p];
 			pvertexX = (pvertice & OctreeNode.X_BIT) > 0 ? maxPoint.x : minPoint.x;
 			pvertexY = (pvertice & OctreeNode.Y_BIT) > 0 ? maxPoint.y : minPoint.y;
 			pvertexZ = (pvertice & OctreeNode.Z_BIT) > 0 ? maxPoint.z : minPoint.z;
 			if (frustum[p][0] * pvertexX + frustum[p][1] * pvertexY +
 			    frustum[p][2] * pvertexZ + frustum[p][3] <= 0) {
+				return CONTAINS.OUTSIDE;
+			}
+			nvertice = nvertices[p];
+			nvertexX = (nvertice & OctreeNode.X_BIT) > 0 ? maxPoint.x : minPoint.x;
+			nvertexY = (nvertice & OctreeNode.Y_BIT) > 0 ? maxPoint.y : minPoint.y;
+			nvertexZ = (nvertice & OctreeNode.Z_BIT) > 0 ? maxPoint.z : minPoint.z;
+			if (frustum[p][0] * nvertexX + frustum[p][1] * nvertexY +
+			    frustum[p][2] * nvertexZ + frustum[p][3] <= 0) {
 				intersec = true;
 			}
 		}
@@ -293,59 +294,16 @@ public class Frustum {
 		frustum[NEAR_PLANE][2] /= module;
 		frustum[NEAR_PLANE][3] /= module;
 
-		// calculate n-vertices and p-vertices of axis aligned bounding boxes or ocnodes
+		// calculate n-vertices and p-vertices of axis aligned bounding boxes or ocnodes, the
+		// p-vertex is the corner farthest in the direction of the normal of the plane and the
+		// n-vertex the opposite one
 		float[] f;
-		float dot, aux;
 		int size = frustum.length;
 		for (int i = 0; i < size; i++) {
-			// 8 diagonals
-			// TODO bear in mind the nodes direction
-			dot = 0;
 			f = frustum[i];
-			// +++
-			aux = f[0] + f[1] + f[2];
-			if (dot < aux) {
-				dot = aux;
-				nvertices[i] = 0;
-				pvertices[i] = 7;
-			} else if (dot < -aux) {
-				dot = -aux;
-				nvertices[i] = 7;
-				pvertices[i] = 0;
-			}
-			// ++-
-			aux = f[0] + f[1] - f[2];
-			if (dot < aux) {
-				dot = aux;
-				nvertices[i] = 1;
-				pvertices[i] = 6;
-			} else if (dot < -aux) {
-				dot = -aux;
-				nvertices[i] = 6;
-				pvertices[i] = 1;
-			}
-			// +-+
-			aux = f[0] - f[1] + f[2];
-			if (dot < aux) {
-				dot = aux;
-				nvertices[i] = 2;
-				pvertices[i] = 5;
-			} else if (dot < -aux) {
-				dot = -aux;
-				nvertices[i] = 5;
-				pvertices[i] = 2;
-			}
-			// +--
-			aux = f[0] - f[1] - f[2];
-			if (dot < aux) {
-				dot = aux;
-				nvertices[i] = 3;
-				pvertices[i] = 4;
-			} else if (dot < -aux) {
-				dot = -aux;
-				nvertices[i] = 4;
-				pvertices[i] = 3;
-			}
+			pvertices[i] = (f[0] > 0 ? OctreeNode.X_BIT : 0) | (f[1] > 0 ? OctreeNode.Y_BIT : 0) |
+			               (f[2] > 0 ? OctreeNode.Z_BIT : 0);
+			nvertices[i] = 7 - pvertices[i];
 		}
 	}
 
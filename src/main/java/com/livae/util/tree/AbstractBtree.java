@@ -0,0 +1,324 @@
+package com.livae.util.tree;
+
+import com.livae.util.ResourcesFactory;
+
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Structure of the b-trees, the elements are kept by the pages and the subclasses only move them
+ * between the pages and arrays of their own type, so the same builds, merges and checks are used by
+ * all the trees. The arrays are accessed with {@link System#arraycopy} and the subclasses compare
+ * their elements.
+ *
+ * @param <p>
+ *   Type of the pages
+ * @param <a>
+ *   Type of the arrays of elements
+ */
+public abstract class AbstractBtree<p extends AbstractBtreePage<p>, a> extends ResourcesFactory<p> {
+
+	protected static final int NODES_PER_PAGE = 6;
+
+	private static final int ELEMENTS_PER_BUILD_TASK = 65536;
+
+	private long size;
+
+	private p root;
+
+	private int nodesPerPage;
+
+	protected AbstractBtree(int nodesPerPage) {
+		if (nodesPerPage < 3) {
+			throw new RuntimeException("Nodes per page must be greater than 2");
+		}
+		this.nodesPerPage = nodesPerPage;
+		this.root = getResource();
+		this.size = 0;
+	}
+
+	protected AbstractBtree(AbstractBtree<p, a> treeToClone) {
+		size = treeToClone.size;
+		nodesPerPage = treeToClone.nodesPerPage;
+		root = treeToClone.root.clone(null, this);
+	}
+
+	protected abstract a newArray(int length);
+
+	protected abstract p[] newPages(int length);
+
+	/**
+	 * Compares the element x[i] with the element y[j].
+	 */
+	protected abstract int compare(a x, int i, a y, int j);
+
+	/**
+	 * Copies a node of a page to a position of an array.
+	 */
+	protected abstract void copyNode(p page, int position, a elements, int index);
+
+	/**
+	 * Fills an empty page as a leave with consecutive elements of a sorted array.
+	 */
+	protected abstract void fill(p page, a sorted, int from, int count);
+
+	/**
+	 * Fills an empty page with consecutive pages of the level below and the nodes which separate
+	 * them, the separator i goes between the pages i and i + 1.
+	 */
+	protected abstract void fill(p page, p[] pages, a separators, int from, int count);
+
+	/**
+	 * Adds the element in a position of an array to the tree.
+	 */
+	protected abstract void add(a elements, int index);
+
+	/**
+	 * Adds the elements of a sorted array. When they are many compared with the elements of the
+	 * tree both are merged and the tree is built again, otherwise they are added one by one.
+	 *
+	 * @param sorted
+	 *   elements sorted in ascending order
+	 * @param executor
+	 *   executor to build the leaves in parallel, null to build them in the calling thread
+	 */
+	protected void addSorted(a sorted, Executor executor) {
+		checkSorted(sorted);
+		int length = Array.getLength(sorted);
+		long total = size + length;
+		long addCost = length * (64L - Long.numberOfLeadingZeros(size));
+		if (size == 0) {
+			build(sorted, executor);
+		} else if (addCost < total || total > Integer.MAX_VALUE - 8) {
+			for (int i = 0; i < length; i++) {
+				add(sorted, i);
+			}
+		} else {
+			a merged = newArray((int) total);
+			// the elements already in the tree go before the equal ones, as when they are added
+			int current = copyInOrder(root, merged, 0) - 1;
+			int added = length - 1;
+			for (int i = (int) total - 1; added >= 0; i--) {
+				if (current >= 0 && compare(merged, current, sorted, added) > 0) {
+					System.arraycopy(merged, current, merged, i, 1);
+					current--;
+				} else {
+					System.arraycopy(sorted, added, merged, i, 1);
+					added--;
+				}
+			}
+			clear();
+			build(merged, executor);
+		}
+	}
+
+	private void checkSorted(a sorted) {
+		int length = Array.getLength(sorted);
+		for (int i = 1; i < length; i++) {
+			if (compare(sorted, i - 1, sorted, i) > 0) {
+				throw new IllegalArgumentException("Elements not sorted at position " + i);
+			}
+		}
+	}
+
+	/**
+	 * Copies the elements of a page and its offspring pages in order to an array.
+	 *
+	 * @return the position after the last element copied
+	 */
+	private int copyInOrder(p page, a elements, int index) {
+		int pageSize = page.getSize();
+		boolean leave = page.isLeave();
+		for (int i = 0; i < pageSize; i++) {
+			if (!leave) {
+				index = copyInOrder(page.getOffspringPage(i), elements, index);
+			}
+			copyNode(page, i, elements, index);
+			index++;
+		}
+		if (!leave) {
+			index = copyInOrder(page.getOffspringPage(pageSize), elements, index);
+		}
+		return index;
+	}
+
+	/**
+	 * Replaces the empty root with a tree of the sorted elements. Every level has the minimum
+	 * number of pages and the nodes are distributed evenly among them, so the pages which are not
+	 * full differ in one node at most.
+	 */
+	private void build(a sorted, Executor executor) {
+		int length = Array.getLength(sorted);
+		if (length == 0) {
+			return;
+		}
+		releaseResource(root);
+		int leaves = (length + nodesPerPage + 1) / (nodesPerPage + 1);
+		p[] pages = newPages(leaves);
+		a separators = newArray(leaves - 1);
+		int tasks = length / ELEMENTS_PER_BUILD_TASK;
+		if (executor == null || tasks < 2) {
+			buildLeaves(sorted, pages, separators, 0, leaves, false);
+		} else {
+			buildLeaves(sorted, pages, separators, executor, tasks);
+		}
+		while (pages.length > 1) {
+			int parents = (pages.length + nodesPerPage) / (nodesPerPage + 1);
+			p[] parentPages = newPages(parents);
+			a parentSeparators = newArray(parents - 1);
+			int offspring = pages.length / parents;
+			int extra = pages.length % parents;
+			int from = 0;
+			for (int i = 0; i < parents; i++) {
+				int count = i < extra ? offspring + 1 : offspring;
+				p page = getResource();
+				fill(page, pages, separators, from, count);
+				parentPages[i] = page;
+				from += count;
+				if (i < parents - 1) {
+					System.arraycopy(separators, from - 1, parentSeparators, i, 1);
+				}
+			}
+			pages = parentPages;
+			separators = parentSeparators;
+		}
+		root = pages[0];
+		size = length;
+	}
+
+	private void buildLeaves(final a sorted, final p[] leaves, final a separators,
+	                         Executor executor, int tasks) {
+		int leavesPerTask = (leaves.length + tasks - 1) / tasks;
+		ArrayList<FutureTask<Void>> futures = new ArrayList<>();
+		for (int i = leavesPerTask; i < leaves.length; i += leavesPerTask) {
+			final int first = i;
+			final int last = Math.min(leaves.length, i + leavesPerTask);
+			FutureTask<Void> future = new FutureTask<>(new Runnable() {
+				@Override
+				public void run() {
+					buildLeaves(sorted, leaves, separators, first, last, true);
+				}
+			}, null);
+			futures.add(future);
+			executor.execute(future);
+		}
+		buildLeaves(sorted, leaves, separators, 0, leavesPerTask, false);
+
+		boolean interrupted = false;
+		for (FutureTask<Void> future : futures) {
+			while (true) {
+				try {
+					future.get();
+					break;
+				} catch (InterruptedException e) {
+					// the leaves are needed, keep waiting
+					interrupted = true;
+				} catch (ExecutionException e) {
+					throw new RuntimeException(e.getCause());
+				}
+			}
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Builds the leaves from first to last, the pool of pages is only used from one thread, the
+	 * other ones create the pages.
+	 */
+	private void buildLeaves(a sorted, p[] leaves, a separators, int first, int last,
+	                         boolean concurrent) {
+		int nodes = Array.getLength(sorted) - leaves.length + 1;
+		int nodesPerLeave = nodes / leaves.length;
+		int extra = nodes % leaves.length;
+		for (int i = first; i < last; i++) {
+			int count = i < extra ? nodesPerLeave + 1 : nodesPerLeave;
+			// the previous leaves and their separators
+			int from = i * (nodesPerLeave + 1) + Math.min(i, extra);
+			p leave = concurrent ? createResource() : getResource();
+			fill(leave, sorted, from, count);
+			leaves[i] = leave;
+			if (i < leaves.length - 1) {
+				System.arraycopy(sorted, from + count, separators, i, 1);
+			}
+		}
+	}
+
+	public long getSize() {
+		return this.size;
+	}
+
+	protected void setSize(long size) {
+		this.size = size;
+	}
+
+	public boolean isEmpty() {
+		return this.size == 0;
+	}
+
+	protected p getRoot() {
+		return root;
+	}
+
+	protected int getNodesPerPage() {
+		return nodesPerPage;
+	}
+
+	public void checkStructure() {
+		root.checkIntegrity();
+		if (root.getCount() != size) {
+			throw new RuntimeException("Different count of elements in the root: " +
+			                           root.getCount() + " != " + size);
+		}
+		long visited = checkOrder(root, newArray(2), 0);
+		if (visited != size) {
+			System.out.println(getDebugString());
+			throw new RuntimeException("Different nodes than expected visited: " + visited +
+			                           " != " + size);
+		}
+	}
+
+	/**
+	 * Checks the elements of a page and its offspring pages are in order after the ones already
+	 * visited, the last one visited is kept in the first position of the array.
+	 *
+	 * @return the number of elements visited
+	 */
+	private long checkOrder(p page, a last, long visited) {
+		int pageSize = page.getSize();
+		for (int i = 0; i <= pageSize; i++) {
+			if (page.getOffspringPage(i) != null) {
+				visited = checkOrder(page.getOffspringPage(i), last, visited);
+			}
+			if (i < pageSize) {
+				copyNode(page, i, last, 1);
+				if (visited > 0 && compare(last, 0, last, 1) > 0) {
+					throw new RuntimeException("Wrong order: " + page.getNodeString(i) +
+					                           " is lower than the previous element");
+				}
+				System.arraycopy(last, 1, last, 0, 1);
+				visited++;
+			}
+		}
+		return visited;
+	}
+
+	public void clear() {
+		root.clear();
+		size = 0;
+	}
+
+	public String getDebugString() {
+		return root.getDebugString();
+	}
+
+	void setRoot(p root, long size) {
+		this.root = root;
+		this.size = size;
+	}
+
+}
@@ -0,0 +1,1089 @@
+package com.livae.util.tree;
+
+import com.livae.util.ResourcesFactory;
+
+import java.util.Vector;
+
+/**
+ * Structure of the pages of the b-trees, the nodes are kept by the subclasses in arrays of their
+ * own type and the pages only move them with {@link #copyNodes}, so the same insertions, splits,
+ * rotations and merges are used by all the trees. The arrays of nodes have one position more than
+ * the nodes of the page: the node which is being inserted is kept there until it is copied to its
+ * position.
+ *
+ * @param <p>
+ *   Type of the pages
+ */
+public abstract class AbstractBtreePage<p extends AbstractBtreePage<p>> {
+
+	private AbstractBtreePage<p> parentPage;
+
+	private int parentPosition;
+
+	private AbstractBtreePage<p>[] offspringPages;
+
+	private final int capacity;
+
+	private int size;
+
+	/**
+	 * Number of elements in this page and its offspring pages.
+	 */
+	private long count;
+
+	private ResourcesFactory<p> resourcesFactory;
+
+	/**
+	 * @param numberOfNodes
+	 *   maximum number of nodes of the page, the arrays of nodes have a position more
+	 */
+	protected AbstractBtreePage(int numberOfNodes, ResourcesFactory<p> resourcesFactory) {
+		capacity = numberOfNodes;
+		size = 0;
+		//noinspection unchecked
+		offspringPages = new AbstractBtreePage[numberOfNodes + 1];
+		parentPosition = -1;
+		parentPage = null;
+		this.resourcesFactory = resourcesFactory;
+	}
+
+	/**
+	 * Clones the structure of a page and its offspring pages, the subclass copies the nodes.
+	 */
+	protected AbstractBtreePage(p pageToClone, p parentPage, ResourcesFactory<p> resourcesFactory) {
+		AbstractBtreePage<p> clonedPage = pageToClone;
+		this.resourcesFactory = resourcesFactory;
+		this.parentPage = parentPage;
+		capacity = clonedPage.capacity;
+		parentPosition = clonedPage.parentPosition;
+		size = clonedPage.size;
+		count = clonedPage.count;
+		//noinspection unchecked
+		offspringPages = new AbstractBtreePage[clonedPage.offspringPages.length];
+		for (int i = 0; i < offspringPages.length; i++) {
+			if (clonedPage.offspringPages[i] != null) {
+				offspringPages[i] = clonedPage.offspringPages[i].clone(asPage(this),
+				                                                      resourcesFactory);
+			}
+		}
+	}
+
+	protected abstract p clone(p parentPage, ResourcesFactory<p> resourcesFactory);
+
+	/**
+	 * Copies nodes of this page to the same or other page as {@link System#arraycopy}.
+	 */
+	protected abstract void copyNodes(int from, p page, int to, int length);
+
+	/**
+	 * Releases the references of the nodes from the position from, inclusive, to the position to,
+	 * exclusive.
+	 */
+	protected abstract void clearNodes(int from, int to);
+
+	protected abstract String getNodeString(int position);
+
+	private boolean isFull() {
+		return size == capacity;
+	}
+
+	protected boolean isLeave() {
+		return offspringPages[0] == null;
+	}
+
+	protected int getSize() {
+		return size;
+	}
+
+	protected long getCount() {
+		return count;
+	}
+
+	protected p getOffspringPage(int position) {
+		return asPage(offspringPages[position]);
+	}
+
+	protected p getParentPage() {
+		return asPage(parentPage);
+	}
+
+	protected int getParentPosition() {
+		return parentPosition;
+	}
+
+	private void setParentPage(AbstractBtreePage<p> parent, int parentPosition) {
+		this.parentPage = parent;
+		this.parentPosition = parentPosition;
+	}
+
+	private void setRootPage() {
+		parentPage = null;
+		parentPosition = -1;
+	}
+
+	private p asPage(AbstractBtreePage<p> page) {
+		//noinspection unchecked
+		return (p) page;
+	}
+
+	private void copyNode(int from, AbstractBtreePage<p> page, int to) {
+		copyNodes(from, asPage(page), to, 1);
+	}
+
+	/**
+	 * Copies the node which is being inserted, kept in the page which carries it, to a position.
+	 */
+	private void copyInserted(AbstractBtreePage<p> carrier, int to) {
+		carrier.copyNode(carrier.capacity, this, to);
+	}
+
+	/**
+	 * Counts the elements of the page from the counts of its offspring pages, which must be right.
+	 */
+	private void recount() {
+		count = countElements();
+	}
+
+	private long countElements() {
+		long total = size;
+		if (!isLeave()) {
+			for (int i = 0; i <= size; i++) {
+				total += offspringPages[i].count;
+			}
+		}
+		return total;
+	}
+
+	/**
+	 * Changes the count of this page and all its ancestors, before a node is inserted in or removed
+	 * from this page. The pages whose nodes are moved later are counted again.
+	 */
+	private void changeCount(int change) {
+		for (AbstractBtreePage<p> page = this; page != null; page = page.parentPage) {
+			page.count += change;
+		}
+	}
+
+	/**
+	 * Makes root a leave whose first nodes have been filled with consecutive elements of a sorted
+	 * array. The page is the root until it is added to a parent.
+	 */
+	protected void fillLeave(int count) {
+		setRootPage();
+		size = count;
+		this.count = count;
+	}
+
+	/**
+	 * Fills an empty page with consecutive pages of the level below, its nodes have been filled
+	 * with the ones which separate them. The node i goes between the pages i and i + 1.
+	 */
+	protected void fillParent(p[] pages, int from, int count) {
+		setRootPage();
+		for (int i = 0; i < count; i++) {
+			offspringPages[i] = pages[from + i];
+			offspringPages[i].setParentPage(this, i);
+		}
+		size = count - 1;
+		recount();
+	}
+
+	protected p getLastPage() {
+		if (isLeave()) {
+			return asPage(this);
+		} else {
+			return offspringPages[size].getLastPage();
+		}
+	}
+
+	protected p getFirstPage() {
+		if (isLeave()) {
+			return asPage(this);
+		} else {
+			return offspringPages[0].getFirstPage();
+		}
+	}
+
+	/**
+	 * Inserts in a position of this leave the node kept in the last position of its array of
+	 * nodes.
+	 */
+	protected void insertInLeave(int position) {
+		changeCount(1);
+		insert(position, this, null);
+		clearNodes(capacity, capacity + 1);
+	}
+
+	/**
+	 * @param carrier
+	 *   page with the node to insert in the last position of its array of nodes
+	 * @param page
+	 *   page which goes after the node, null in the leaves
+	 */
+	private void insert(int position, AbstractBtreePage<p> carrier, AbstractBtreePage<p> page) {
+		if (!isFull()) {
+			shiftRight(position, 1);
+			copyInserted(carrier, position);
+			if (!isLeave()) {
+				offspringPages[position + 1] = page;
+				page.setParentPage(this, position + 1);
+			}
+		} else {
+			if (parentPage == null) {
+				splitRoot(position, carrier, page);
+			} else {
+				AbstractBtreePage<p> left = null;
+				AbstractBtreePage<p> right = null;
+				if (parentPosition > 0 &&
+				    !(left = parentPage.offspringPages[parentPosition - 1]).isFull()) {
+					// rotate left and insert
+					parentPage.copyNode(parentPosition - 1, left, left.size);
+					left.size++;
+					if (position == 0) {
+						// current node to parent page
+						parentPage.copyInserted(carrier, parentPosition - 1);
+					} else {
+						copyNode(0, parentPage, parentPosition - 1);
+						// make a gap
+						copyNodes(1, asPage(this), 0, position - 1);
+						copyInserted(carrier, position - 1);
+					}
+					if (!left.isLeave()) {
+						left.offspringPages[left.size] = offspringPages[0];
+						left.offspringPages[left.size].setParentPage(left, left.size);
+						if (position != 0) {
+							// make a gap
+							System.arraycopy(offspringPages, 1, offspringPages, 0, position);
+							for (int i = 0; i < position; i++) {
+								offspringPages[i].parentPosition = i;
+							}
+						}
+						offspringPages[position] = page;
+						offspringPages[position].setParentPage(this, position);
+					}
+					left.recount();
+					recount();
+				} else if (parentPosition < parentPage.size &&
+				           !(right = parentPage.offspringPages[parentPosition + 1]).isFull()) {
+					// rotate right and insert
+					boolean isLeave = right.isLeave();
+					right.shiftRight(0, 1);
+					parentPage.copyNode(parentPosition, right, 0);
+					AbstractBtreePage<p> lastPage;
+					if (position == size) {
+						// current node to parent page
+						parentPage.copyInserted(carrier, parentPosition);
+						lastPage = page;
+					} else {
+						copyNode(size - 1, parentPage, parentPosition);
+						lastPage = offspringPages[size];
+						// make a gap
+						clearNodes(size - 1, size);
+						offspringPages[size] = null;
+						size--;
+						shiftRight(position, 1);
+						copyInserted(carrier, position);
+						if (!isLeave) {
+							offspringPages[position + 1] = page;
+							offspringPages[position + 1].setParentPage(this, position + 1);
+						}
+					}
+					if (!isLeave) {
+						right.offspringPages[1] = right.offspringPages[0];
+						right.offspringPages[1].setParentPage(right, 1);
+						right.offspringPages[0] = lastPage;
+						right.offspringPages[0].setParentPage(right, 0);
+					}
+					right.recount();
+					recount();
+				} else {
+					if (left != null) {
+						// split with left
+						parentPage.split(parentPosition - 1, left.size + 1 + position, carrier,
+						                 page);
+					} else {
+						// split with right page
+						parentPage.split(parentPosition, position, carrier, page);
+					}
+				}
+			}
+		}
+	}
+
+	private void shiftRight(int initialPosition, int displacement) {
+		copyNodes(initialPosition, asPage(this), initialPosition + displacement,
+		          size - initialPosition);
+		clearNodes(initialPosition, initialPosition + displacement);
+		if (!isLeave()) {
+			System.arraycopy(offspringPages, initialPosition + 1, offspringPages,
+			                 initialPosition + 1 + displacement, size - initialPosition);
+			for (int i = initialPosition + 1; i < initialPosition + 1 + displacement; i++) {
+				offspringPages[i] = null;
+			}
+			for (int i = initialPosition + 1 + displacement; i < size + 1 + displacement; i++) {
+				offspringPages[i].parentPosition = i;
+			}
+		}
+		size += displacement;
+	}
+
+	private void shiftLeft(int initialPosition, int displacement) {
+		copyNodes(initialPosition, asPage(this), initialPosition - displacement,
+		          size - initialPosition);
+		clearNodes(size - displacement, size);
+		if (!isLeave()) {
+			System.arraycopy(offspringPages, initialPosition, offspringPages,
+			                 initialPosition - displacement, size - initialPosition + 1);
+			for (int i = initialPosition - displacement; i < size - displacement + 1; i++) {
+				offspringPages[i].parentPosition = i;
+			}
+			for (int i = size - displacement + 1; i <= size; i++) {
+				offspringPages[i] = null;
+			}
+		}
+		size -= displacement;
+	}
+
+	/**
+	 * Removes the node in the position, when the page is not a leave it is replaced by the
+	 * previous node, which is removed from its leave.
+	 */
+	protected void removeFromThisPage(int pos) {
+		if (isLeave()) {
+			changeCount(-1);
+			size--;
+			// remove the element from the page
+			copyNodes(pos + 1, asPage(this), pos, size - pos);
+			clearNodes(size, size + 1); // just to avoid future problems
+			if (size < (capacity * 2 / 3) && parentPage != null) {
+				performPostRemovingOperations();
+			}
+		} else {
+			AbstractBtreePage<p> lastPage = offspringPages[pos].getLastPage();
+			lastPage.copyNode(lastPage.size - 1, this, pos);
+			lastPage.removeFromThisPage(lastPage.size - 1);
+		}
+	}
+
+	private void rotateRight(int nodePos) {
+		AbstractBtreePage<p> leftPage = offspringPages[nodePos];
+		AbstractBtreePage<p> rightPage = offspringPages[nodePos + 1];
+		rightPage.shiftRight(0, 1);
+		copyNode(nodePos, rightPage, 0);
+		leftPage.copyNode(leftPage.size - 1, this, nodePos);
+		leftPage.clearNodes(leftPage.size - 1, leftPage.size);
+		if (!rightPage.isLeave()) {
+			AbstractBtreePage<p>[] rightPages = rightPage.offspringPages;
+			AbstractBtreePage<p>[] leftPages = leftPage.offspringPages;
+
+			rightPages[1] = rightPages[0];
+			rightPages[1].parentPosition = 1;
+			rightPages[0] = leftPages[leftPage.size];
+			rightPages[0].setParentPage(rightPage, 0);
+
+			leftPages[leftPage.size] = null;
+		}
+		leftPage.size--;
+		leftPage.recount();
+		rightPage.recount();
+	}
+
+	private void rotateLeft(int nodePos) {
+		AbstractBtreePage<p> leftPage = offspringPages[nodePos];
+		AbstractBtreePage<p> rightPage = offspringPages[nodePos + 1];
+		copyNode(nodePos, leftPage, leftPage.size);
+		rightPage.copyNode(0, this, nodePos);
+		leftPage.size++;
+		if (!rightPage.isLeave()) {
+			AbstractBtreePage<p>[] rightPages = rightPage.offspringPages;
+			AbstractBtreePage<p>[] leftPages = leftPage.offspringPages;
+
+			leftPages[leftPage.size] = rightPages[0];
+			leftPages[leftPage.size].setParentPage(leftPage, leftPage.size);
+		}
+		rightPage.shiftLeft(1, 1);
+		leftPage.recount();
+		rightPage.recount();
+	}
+
+	private void splitRoot(int objectPosition, AbstractBtreePage<p> carrier,
+	                       AbstractBtreePage<p> page) {
+		assert parentPage == null || size == capacity;
+		int nodesFirstPage = (capacity + 1) / 2;
+		int nodesSecondPage = capacity / 2;
+		AbstractBtreePage<p> left = resourcesFactory.getResource();
+		AbstractBtreePage<p> right = resourcesFactory.getResource();
+		left.size = nodesFirstPage;
+		right.size = nodesSecondPage;
+		boolean isLeave = isLeave();
+		if (objectPosition < nodesFirstPage) {
+			// object to left page
+
+			// left page
+			copyNodes(0, asPage(left), 0, objectPosition);
+			left.copyInserted(carrier, objectPosition);
+			int nodesLeftSecondPart = nodesFirstPage - objectPosition - 1;
+			copyNodes(objectPosition, asPage(left), objectPosition + 1, nodesLeftSecondPart);
+			// root
+			copyNode(nodesFirstPage - 1, this, 0);
+			// right page
+			copyNodes(nodesFirstPage, asPage(right), 0, nodesSecondPage);
+			if (!isLeave) {
+				// left page
+				System.arraycopy(offspringPages, 0, left.offspringPages, 0, objectPosition + 1);
+				left.offspringPages[objectPosition + 1] = page;
+				System.arraycopy(offspringPages, objectPosition + 1, left.offspringPages,
+				                 objectPosition + 2, nodesLeftSecondPart);
+				// right page
+				System.arraycopy(offspringPages, nodesFirstPage, right.offspringPages, 0,
+				                 nodesSecondPage + 1);
+			}
+		} else if (objectPosition > nodesFirstPage) {
+			// object to right
+
+			// left page
+			copyNodes(0, asPage(left), 0, nodesFirstPage);
+			// root
+			copyNode(nodesFirstPage, this, 0);
+			// right page
+			int nodesRightFirstPart = objectPosition - nodesFirstPage - 1;
+			copyNodes(nodesFirstPage + 1, asPage(right), 0, nodesRightFirstPart);
+			right.copyInserted(carrier, nodesRightFirstPart);
+			int nodesRightSecondPart = nodesSecondPage - objectPosition + nodesFirstPage;
+			copyNodes(nodesFirstPage + nodesRightFirstPart + 1, asPage(right),
+			          nodesRightFirstPart + 1, nodesRightSecondPart);
+
+			if (!isLeave) {
+				// left page
+				System.arraycopy(offspringPages, 0, left.offspringPages, 0, nodesFirstPage + 1);
+				// right page
+				System.arraycopy(offspringPages, nodesFirstPage + 1, right.offspringPages, 0,
+				                 nodesRightFirstPart + 1);
+				right.offspringPages[nodesRightFirstPart + 1] = page;
+				System.arraycopy(offspringPages, nodesFirstPage + nodesRightFirstPart + 2,
+				                 right.offspringPages, nodesRightFirstPart + 2,
+				                 nodesRightSecondPart);
+			}
+		} else {
+			// object to root page
+
+			// left page
+			copyNodes(0, asPage(left), 0, nodesFirstPage);
+			// root
+			copyInserted(carrier, 0);
+			// right page
+			copyNodes(nodesFirstPage, asPage(right), 0, nodesSecondPage);
+			if (!isLeave) {
+				// left page
+				System.arraycopy(offspringPages, 0, left.offspringPages, 0, nodesFirstPage + 1);
+				// right page
+				right.offspringPages[0] = page;
+				System.arraycopy(offspringPages, nodesFirstPage + 1, right.offspringPages, 1,
+				                 nodesSecondPage);
+			}
+
+		}
+		offspringPages[0] = left;
+		offspringPages[1] = right;
+		offspringPages[0].setParentPage(this, 0);
+		offspringPages[1].setParentPage(this, 1);
+		size = 1;
+		clearNodes(1, capacity);
+		for (int i = 2; i <= capacity; i++) {
+			offspringPages[i] = null;
+		}
+		if (!isLeave) {
+			AbstractBtreePage<p>[] leftPages = left.offspringPages;
+			for (int i = 0; i < left.size + 1; i++) {
+				leftPages[i].setParentPage(left, i);
+			}
+			AbstractBtreePage<p>[] rightPages = right.offspringPages;
+			for (int i = 0; i < right.size + 1; i++) {
+				rightPages[i].setParentPage(right, i);
+			}
+		}
+		left.recount();
+		right.recount();
+	}
+
+	/**
+	 * Splits two full offspring pages in three with the node to insert. The node which goes up to
+	 * this page is kept in the last position of its array of nodes until it is inserted.
+	 */
+	private void split(int pagePosition, int objectPositionInMergedPage,
+	                   AbstractBtreePage<p> carrier, AbstractBtreePage<p> page) {
+		AbstractBtreePage<p> left = offspringPages[pagePosition];
+		AbstractBtreePage<p> right = offspringPages[pagePosition + 1];
+		AbstractBtreePage<p> middle = resourcesFactory.getResource();
+		int totalSize = left.size + right.size;
+		int nodesSecondPage = totalSize / 3;
+		int nodesFirstPage = (totalSize - nodesSecondPage + 1) / 2;
+		int nodesThirdPage = totalSize - nodesFirstPage - nodesSecondPage;
+		boolean isLeave = left.isLeave();
+
+		if (objectPositionInMergedPage < nodesFirstPage) {
+			splitNodeInLeftPage(pagePosition, objectPositionInMergedPage, carrier, page, left,
+			                    right, middle, nodesFirstPage, nodesThirdPage, isLeave);
+		} else if (objectPositionInMergedPage == nodesFirstPage) {
+			splitNodeInParentLeft(pagePosition, carrier, page, left, right, middle,
+			                      nodesFirstPage, nodesThirdPage, isLeave);
+		} else if (objectPositionInMergedPage < nodesFirstPage + 1 + nodesSecondPage) {
+			splitNodeInCenterPage(pagePosition, objectPositionInMergedPage, carrier, page, left,
+			                      right, middle, nodesFirstPage, nodesThirdPage, isLeave);
+		} else if (objectPositionInMergedPage == nodesFirstPage + 1 + nodesSecondPage) {
+			splitNodeInParentRight(pagePosition, carrier, page, left, right, middle,
+			                       nodesFirstPage, nodesThirdPage, isLeave);
+		} else {
+			splitNodeInRightPage(pagePosition, objectPositionInMergedPage, carrier, page, left,
+			                     right, middle, nodesFirstPage, nodesSecondPage, nodesThirdPage,
+			                     isLeave);
+		}
+
+		middle.size = nodesSecondPage;
+		if (!isLeave) {
+			for (int i = 0; i <= middle.size; i++) {
+				middle.offspringPages[i].setParentPage(middle, i);
+			}
+		}
+		left.recount();
+		middle.recount();
+		right.recount();
+		insert(pagePosition, this, middle);
+		clearNodes(capacity, capacity + 1);
+	}
+
+	private void splitNodeInLeftPage(int pagePosition, int objectPositionInMergedPage,
+	                                 AbstractBtreePage<p> carrier, AbstractBtreePage<p> page,
+	                                 AbstractBtreePage<p> left, AbstractBtreePage<p> right,
+	                                 AbstractBtreePage<p> middle, int nodesFirstPage,
+	                                 int nodesThirdPage, boolean isLeave) {
+		// inside left page
+		left.copyNode(nodesFirstPage - 1, this, capacity);
+		int nodesFromLeft = left.size - nodesFirstPage;
+		int nodesFromRight = right.size - nodesThirdPage - 1;
+
+		// centre page
+		left.copyNodes(nodesFirstPage, asPage(middle), 0, nodesFromLeft);
+		copyNode(pagePosition, middle, nodesFromLeft);
+		right.copyNode(nodesFromRight, this, pagePosition);
+		right.copyNodes(0, asPage(middle), nodesFromLeft + 1, nodesFromRight);
+		if (!isLeave) {
+			System.arraycopy(left.offspringPages, nodesFirstPage, middle.offspringPages, 0,
+			                 nodesFromLeft + 1);
+			System.arraycopy(right.offspringPages, 0, middle.offspringPages, nodesFromLeft + 1,
+			                 nodesFromRight + 1);
+		}
+
+		// left
+		left.clearNodes(nodesFirstPage - 1, left.size);
+		for (int i = nodesFirstPage - 1; i < left.size; i++) {
+			left.offspringPages[i + 1] = null;
+		}
+		left.size = nodesFirstPage - 1;
+		left.insert(objectPositionInMergedPage, carrier, page);
+
+		// right
+		right.shiftLeft(nodesFromRight + 1, nodesFromRight + 1);
+	}
+
+	private void splitNodeInParentLeft(int pagePosition, AbstractBtreePage<p> carrier,
+	                                   AbstractBtreePage<p> page, AbstractBtreePage<p> left,
+	                                   AbstractBtreePage<p> right, AbstractBtreePage<p> middle,
+	                                   int nodesFirstPage, int nodesThirdPage, boolean isLeave) {
+		// in parent page in left position
+		copyInserted(carrier, capacity);
+		int nodesFromLeft = left.size - nodesFirstPage;
+		int nodesFromRight = right.size - nodesThirdPage - 1;
+
+		// centre page
+		left.copyNodes(nodesFirstPage, asPage(middle), 0, nodesFromLeft);
+		copyNode(pagePosition, middle, nodesFromLeft);
+		right.copyNode(nodesFromRight, this, pagePosition);
+		right.copyNodes(0, asPage(middle), nodesFromLeft + 1, nodesFromRight);
+		if (!isLeave) {
+			middle.offspringPages[0] = page;
+			page.setParentPage(middle, 0);
+			System.arraycopy(left.offspringPages, nodesFirstPage + 1, middle.offspringPages, 1,
+			                 nodesFromLeft);
+			System.arraycopy(right.offspringPages, 0, middle.offspringPages, nodesFromLeft + 1,
+			                 nodesFromRight + 1);
+		}
+
+		// left
+		left.clearNodes(nodesFirstPage, left.size);
+		for (int i = nodesFirstPage; i < left.size; i++) {
+			left.offspringPages[i + 1] = null;
+		}
+		left.size = nodesFirstPage;
+
+		// right
+		right.shiftLeft(nodesFromRight + 1, nodesFromRight + 1);
+	}
+
+	private void splitNodeInCenterPage(int pagePosition, int objectPositionInMergedPage,
+	                                   AbstractBtreePage<p> carrier, AbstractBtreePage<p> page,
+	                                   AbstractBtreePage<p> left, AbstractBtreePage<p> right,
+	                                   AbstractBtreePage<p> middle, int nodesFirstPage,
+	                                   int nodesThirdPage, boolean isLeave) {
+		// inside center page
+		left.copyNode(nodesFirstPage, this, capacity);
+		int nodesFromLeft = left.size - nodesFirstPage - 1;
+		int nodesFromRight = right.size - nodesThirdPage - 1;
+
+		// centre page
+		int centerPagePos = objectPositionInMergedPage - nodesFirstPage - 1;
+		if (centerPagePos <= nodesFromLeft) {
+			// inside the left nodes
+			left.copyNodes(nodesFirstPage + 1, asPage(middle), 0, centerPagePos);
+			middle.copyInserted(carrier, centerPagePos);
+			left.copyNodes(nodesFirstPage + centerPagePos + 1, asPage(middle), centerPagePos + 1,
+			               nodesFromLeft - centerPagePos);
+			copyNode(pagePosition, middle, nodesFromLeft + 1);
+			right.copyNode(nodesFromRight, this, pagePosition);
+			right.copyNodes(0, asPage(middle), nodesFromLeft + 2, nodesFromRight);
+			if (!isLeave) {
+				System.arraycopy(left.offspringPages, nodesFirstPage + 1, middle.offspringPages, 0,
+				                 centerPagePos + 1);
+				middle.offspringPages[centerPagePos + 1] = page;
+				System.arraycopy(left.offspringPages, nodesFirstPage + centerPagePos + 2,
+				                 middle.offspringPages, centerPagePos + 2,
+				                 nodesFromLeft - centerPagePos);
+				System.arraycopy(right.offspringPages, 0, middle.offspringPages, nodesFromLeft + 2,
+				                 nodesFromRight + 1);
+			}
+		} else if (centerPagePos == nodesFromLeft + 1) {
+			// after the parent node
+			left.copyNodes(nodesFirstPage + 1, asPage(middle), 0, nodesFromLeft);
+			copyNode(pagePosition, middle, nodesFromLeft);
+			middle.copyInserted(carrier, centerPagePos);
+			right.copyNode(nodesFromRight, this, pagePosition);
+			right.copyNodes(0, asPage(middle), nodesFromLeft + 2, nodesFromRight);
+			if (!isLeave) {
+				System.arraycopy(left.offspringPages, nodesFirstPage + 1, middle.offspringPages, 0,
+				                 nodesFromLeft + 1);
+				middle.offspringPages[centerPagePos] = right.offspringPages[0];
+				middle.offspringPages[centerPagePos + 1] = page;
+				System.arraycopy(right.offspringPages, 1, middle.offspringPages, centerPagePos + 2,
+				                 nodesFromRight);
+			}
+		} else {
+			// inside the right nodes
+			left.copyNodes(nodesFirstPage + 1, asPage(middle), 0, nodesFromLeft);
+			copyNode(pagePosition, middle, nodesFromLeft);
+			right.copyNode(nodesFromRight, this, pagePosition);
+			int splitRightNodes = centerPagePos - nodesFromLeft - 1;
+			right.copyNodes(0, asPage(middle), nodesFromLeft + 1, splitRightNodes);
+			middle.copyInserted(carrier, centerPagePos);
+			right.copyNodes(splitRightNodes, asPage(middle), centerPagePos + 1,
+			                nodesFromRight - splitRightNodes);
+			if (!isLeave) {
+				System.arraycopy(left.offspringPages, nodesFirstPage + 1, middle.offspringPages, 0,
+				                 nodesFromLeft + 1);
+				System.arraycopy(right.offspringPages, 0, middle.offspringPages, nodesFromLeft + 1,
+				                 splitRightNodes + 1);
+				middle.offspringPages[centerPagePos + 1] = page;
+				System.arraycopy(right.offspringPages, splitRightNodes + 1, middle.offspringPages,
+				                 centerPagePos + 2, nodesFromRight - splitRightNodes);
+			}
+		}
+
+		// left
+		left.clearNodes(nodesFirstPage, left.size);
+		for (int i = nodesFirstPage; i < left.size; i++) {
+			left.offspringPages[i + 1] = null;
+		}
+		left.size = nodesFirstPage;
+
+		// right
+		if (!isLeave) {
+			right.offspringPages[0] = right.offspringPages[nodesFromRight];
+			right.offspringPages[0].setParentPage(right, 0);
+		}
+		right.shiftLeft(nodesFromRight + 1, nodesFromRight + 1);
+	}
+
+	private void splitNodeInParentRight(int pagePosition, AbstractBtreePage<p> carrier,
+	                                    AbstractBtreePage<p> page, AbstractBtreePage<p> left,
+	                                    AbstractBtreePage<p> right, AbstractBtreePage<p> middle,
+	                                    int nodesFirstPage, int nodesThirdPage, boolean isLeave) {
+		// in parent page in right position
+		left.copyNode(nodesFirstPage, this, capacity);
+		int nodesFromLeft = left.size - nodesFirstPage - 1;
+		int nodesFromRight = right.size - nodesThirdPage;
+
+		// centre page
+		left.copyNodes(nodesFirstPage + 1, asPage(middle), 0, nodesFromLeft);
+		copyNode(pagePosition, middle, nodesFromLeft);
+		copyInserted(carrier, pagePosition);
+		right.copyNodes(0, asPage(middle), nodesFromLeft + 1, nodesFromRight);
+		if (!isLeave) {
+			System.arraycopy(left.offspringPages, nodesFirstPage + 1, middle.offspringPages, 0,
+			                 nodesFromLeft + 1);
+			System.arraycopy(right.offspringPages, 0, middle.offspringPages, nodesFromLeft + 1,
+			                 nodesFromRight + 1);
+		}
+
+		// left
+		left.clearNodes(nodesFirstPage, left.size);
+		for (int i = nodesFirstPage; i < left.size; i++) {
+			left.offspringPages[i + 1] = null;
+		}
+		left.size = nodesFirstPage;
+
+		// right
+		right.shiftLeft(nodesFromRight, nodesFromRight);
+		if (!isLeave) {
+			right.offspringPages[0] = page;
+			page.setParentPage(right, 0);
+		}
+	}
+
+	private void splitNodeInRightPage(int pagePosition, int objectPositionInMergedPage,
+	                                  AbstractBtreePage<p> carrier, AbstractBtreePage<p> page,
+	                                  AbstractBtreePage<p> left, AbstractBtreePage<p> right,
+	                                  AbstractBtreePage<p> middle, int nodesFirstPage,
+	                                  int nodesSecondPage, int nodesThirdPage, boolean isLeave) {
+		// inside right page
+		left.copyNode(nodesFirstPage, this, capacity);
+		int nodesFromLeft = left.size - nodesFirstPage - 1;
+		int nodesFromRight = right.size - nodesThirdPage;
+
+		// centre page
+		left.copyNodes(nodesFirstPage + 1, asPage(middle), 0, nodesFromLeft);
+		copyNode(pagePosition, middle, nodesFromLeft);
+		right.copyNode(nodesFromRight, this, pagePosition);
+		right.copyNodes(0, asPage(middle), nodesFromLeft + 1, nodesFromRight);
+		if (!isLeave) {
+			System.arraycopy(left.offspringPages, nodesFirstPage + 1, middle.offspringPages, 0,
+			                 nodesFromLeft + 1);
+			System.arraycopy(right.offspringPages, 0, middle.offspringPages, nodesFromLeft + 1,
+			                 nodesFromRight + 1);
+		}
+
+		// left
+		left.clearNodes(nodesFirstPage, left.size);
+		for (int i = nodesFirstPage; i < left.size; i++) {
+			left.offspringPages[i + 1] = null;
+		}
+		left.size = nodesFirstPage;
+
+		// right
+		int rightPos = objectPositionInMergedPage - (nodesFirstPage + nodesSecondPage + 2);
+		int shiftSize = nodesFromRight + 1;
+
+		right.copyNodes(shiftSize, asPage(right), 0, rightPos);
+		right.copyInserted(carrier, rightPos);
+		right.copyNodes(shiftSize + rightPos, asPage(right), rightPos + 1,
+		                right.size - shiftSize - rightPos);
+		if (!isLeave) {
+			System.arraycopy(right.offspringPages, shiftSize, right.offspringPages, 0,
+			                 rightPos + 1);
+			right.offspringPages[rightPos + 1] = page;
+			page.setParentPage(right, rightPos + 1);
+			System.arraycopy(right.offspringPages, shiftSize + rightPos + 1, right.offspringPages,
+			                 rightPos + 2, right.size - shiftSize - rightPos);
+			for (int i = 0; i <= nodesThirdPage; i++) {
+				right.offspringPages[i].setParentPage(right, i);
+			}
+		}
+
+		right.clearNodes(nodesThirdPage, right.size);
+		for (int i = nodesThirdPage; i < right.size; i++) {
+			right.offspringPages[i + 1] = null;
+		}
+		right.size = nodesThirdPage;
+	}
+
+	private void balanceThreePages(int middlePagePosition) {
+		// check if merge makes sense
+		if (offspringPages[middlePagePosition - 1].size +
+		    offspringPages[middlePagePosition].size +
+		    offspringPages[middlePagePosition + 1].size + 1 <= capacity * 2) {
+			merge(middlePagePosition);
+			if (parentPage != null) {
+				performPostRemovingOperations();
+			}
+		} else {
+			redistribute(middlePagePosition - 1, middlePagePosition + 1);
+		}
+	}
+
+	private void balanceTwoPagesRoot() {
+		if (offspringPages[0].size + offspringPages[1].size + 1 <= capacity) {
+			mergeTwoPagesRoot();
+		} else {
+			redistribute(0, 1);
+		}
+	}
+
+	/**
+	 * Rotates nodes between the consecutive offspring pages until their sizes differ in one node
+	 * at most. If the pages cannot be merged there are enough nodes to fill all of them over the
+	 * minimum size.
+	 */
+	private void redistribute(int firstPagePosition, int lastPagePosition) {
+		int min;
+		int max;
+		do {
+			min = firstPagePosition;
+			max = firstPagePosition;
+			for (int i = firstPagePosition + 1; i <= lastPagePosition; i++) {
+				if (offspringPages[i].size < offspringPages[min].size) {
+					min = i;
+				} else if (offspringPages[i].size > offspringPages[max].size) {
+					max = i;
+				}
+			}
+			if (offspringPages[max].size - offspringPages[min].size > 1) {
+				// move one node from the biggest page to the smallest one
+				if (max > min) {
+					for (int i = min; i < max; i++) {
+						rotateLeft(i);
+					}
+				} else {
+					for (int i = min - 1; i >= max; i--) {
+						rotateRight(i);
+					}
+				}
+			}
+		} while (offspringPages[max].size - offspringPages[min].size > 1);
+	}
+
+	private void balanceThreePagesRoot() {
+		if (offspringPages[0].size + offspringPages[1].size + offspringPages[2].size + 2 <=
+		    capacity) {
+			merge(1);
+		} else {
+			balanceThreePages(1);
+		}
+	}
+
+	private void performPostRemovingOperations() {
+		if (parentPage.parentPage == null && parentPage.size == 1) {
+			// special case parent page is root and could merge it self
+			parentPage.balanceTwoPagesRoot();
+		} else if (parentPage.parentPage == null && parentPage.size == 2) {
+			parentPage.balanceThreePagesRoot();
+		} else {
+			if (parentPage.size == 1 && parentPage.parentPage.parentPage == null) {
+				if (parentPage.parentPosition == 0) {
+					parentPage.parentPage.rotateLeft(0);
+				} else {
+					parentPage.parentPage.rotateRight(parentPage.parentPosition - 1);
+				}
+			}
+			if (parentPosition == 0) {
+				// first page in parent
+				parentPage.balanceThreePages(1);
+			} else if (parentPosition == parentPage.size) {
+				// last page in parent
+				parentPage.balanceThreePages(parentPosition - 1);
+			} else {
+				// middle page in parent
+				parentPage.balanceThreePages(parentPosition);
+			}
+		}
+	}
+
+	private void mergeTwoPagesRoot() {
+		AbstractBtreePage<p> left = offspringPages[0];
+		AbstractBtreePage<p> right = offspringPages[1];
+		assert size == 1 && left.size + right.size + 1 <= capacity;
+		copyNode(0, this, left.size);
+		left.copyNodes(0, asPage(this), 0, left.size);
+		right.copyNodes(0, asPage(this), left.size + 1, right.size);
+		size = left.size + right.size + 1;
+
+		if (!left.isLeave()) {
+			System.arraycopy(left.offspringPages, 0, offspringPages, 0, left.size + 1);
+			System.arraycopy(right.offspringPages, 0, offspringPages, left.size + 1,
+			                 right.size + 1);
+			for (int i = 0; i <= size; i++) {
+				offspringPages[i].setParentPage(this, i);
+			}
+		} else {
+			offspringPages[0] = null;
+			offspringPages[1] = null;
+		}
+		clear(left);
+		clear(right);
+	}
+
+	private void merge(int middlePagePos) {
+		AbstractBtreePage<p> left = offspringPages[middlePagePos - 1];
+		AbstractBtreePage<p> middle = offspringPages[middlePagePos];
+		AbstractBtreePage<p> right = offspringPages[middlePagePos + 1];
+		int sumSizes = left.size + middle.size + right.size + 1;
+		assert sumSizes <= capacity * 2;
+		int leftNodes = sumSizes / 2 - left.size - 1;
+		int rightNodes = middle.size - leftNodes;
+		if (leftNodes < 0) {
+			leftNodes = 0;
+			rightNodes = middle.size;
+		}
+		if (left.size < left.capacity) {
+			copyNode(middlePagePos - 1, left, left.size);
+			middle.copyNodes(0, asPage(left), left.size + 1, leftNodes);
+			left.size += leftNodes + 1;
+			right.shiftRight(0, rightNodes);
+			if (rightNodes > 0) {
+				copyNode(middlePagePos, right, rightNodes - 1);
+				middle.copyNodes(leftNodes + 1, asPage(right), 0, rightNodes - 1);
+				middle.copyNode(leftNodes, this, middlePagePos);
+			}
+			if (!middle.isLeave()) {
+				System.arraycopy(middle.offspringPages, 0, left.offspringPages,
+				                 left.size - leftNodes, leftNodes + 1);
+				for (int i = left.size - leftNodes; i <= left.size; i++) {
+					left.offspringPages[i].setParentPage(left, i);
+				}
+				if (rightNodes > 0) {
+					// not done in shift right
+					right.offspringPages[rightNodes] = right.offspringPages[0];
+					System.arraycopy(middle.offspringPages, leftNodes + 1, right.offspringPages, 0,
+					                 rightNodes);
+					for (int i = 0; i <= rightNodes; i++) {
+						right.offspringPages[i].setParentPage(right, i);
+					}
+				}
+			}
+		} else {
+			right.shiftRight(0, rightNodes + 1);
+			copyNode(middlePagePos, right, rightNodes);
+			copyNode(middlePagePos - 1, this, middlePagePos);
+			middle.copyNodes(0, asPage(right), 0, rightNodes);
+			if (!middle.isLeave()) {
+				// not done in shift right
+				right.offspringPages[rightNodes + 1] = right.offspringPages[0];
+				System.arraycopy(middle.offspringPages, 0, right.offspringPages, 0, rightNodes + 1);
+				for (int i = 0; i <= rightNodes + 1; i++) {
+					right.offspringPages[i].setParentPage(right, i);
+				}
+			}
+		}
+
+		left.recount();
+		right.recount();
+		offspringPages[middlePagePos] = left;
+		shiftLeft(middlePagePos, 1);
+		clear(middle);
+	}
+
+	public String getDebugString() {
+		Vector<StringBuilder> stringBuilders = new Vector<StringBuilder>();
+		printInOrder(stringBuilders, 0, 0);
+		StringBuilder sb = new StringBuilder();
+		for (StringBuilder stringBuilder : stringBuilders) {
+			sb.append(stringBuilder).append('\n');
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Prints every node in the line of its depth after the nodes printed before it.
+	 *
+	 * @return number of characters printed
+	 */
+	private int printInOrder(Vector<StringBuilder> stringBuilders, int deep,
+	                         int charactersAdded) {
+		while (stringBuilders.size() <= deep) {
+			stringBuilders.add(new StringBuilder());
+		}
+		for (int i = 0; i <= size; i++) {
+			if (offspringPages[i] != null) {
+				charactersAdded = offspringPages[i].printInOrder(stringBuilders, deep + 1,
+				                                                 charactersAdded);
+			}
+			if (i < size) {
+				StringBuilder sb = stringBuilders.get(deep);
+				while (sb.length() < charactersAdded) {
+					sb.append(' ');
+				}
+				String objectString = getNodeString(i) + " ";
+				sb.append(objectString);
+				charactersAdded += objectString.length();
+			}
+		}
+		return charactersAdded;
+	}
+
+	protected void checkIntegrity() {
+		if (parentPage != null) {
+			if (parentPage.offspringPages[parentPosition] != this) {
+				System.err.println(getDebugString());
+				throw new RuntimeException("parent page of an offspring is not this");
+			}
+			if (parentPage.parentPage == null && parentPage.size == 1) {
+				if (size < capacity / 2 - 1) {
+					System.err.println(getDebugString());
+					throw new RuntimeException("wrong minimum size");
+				}
+			} else {
+				if (size < capacity * 2 / 3) {
+					System.err.println(getDebugString());
+					throw new RuntimeException("wrong minimum size");
+				}
+			}
+		}
+		if (offspringPages[0] != null || offspringPages[1] != null || offspringPages[2] != null) {
+			for (int i = 0; i <= size; i++) {
+				if (offspringPages[i] == null) {
+					System.err.println(getDebugString());
+					throw new RuntimeException("offspring page is null");
+				} else if (offspringPages[i].parentPage != this) {
+					System.err.println(getDebugString());
+					throw new RuntimeException("offspring parent page is not this");
+				} else if (offspringPages[i].size == 0) {
+					System.err.println(getDebugString());
+					throw new RuntimeException("offspring page is empty");
+				} else {
+					offspringPages[i].checkIntegrity();
+				}
+			}
+		}
+		if (count != countElements()) {
+			System.err.println(getDebugString());
+			throw new RuntimeException("wrong count of elements: " + count + " != " +
+			                           countElements());
+		}
+	}
+
+	private void clear(AbstractBtreePage<p> page) {
+		page.clearNodes(0, capacity + 1);
+		for (int i = 0; i <= capacity; i++) {
+			page.offspringPages[i] = null;
+		}
+		page.size = 0;
+		page.count = 0;
+		resourcesFactory.releaseResource(asPage(page));
+	}
+
+	protected void clear() {
+		clearNodes(0, size);
+		for (int i = 0; i <= size; i++) {
+			if (offspringPages[i] != null) {
+				offspringPages[i].clear();
+				resourcesFactory.releaseResource(asPage(offspringPages[i]));
+			}
+			offspringPages[i] = null;
+		}
+		size = 0;
+		count = 0;
+	}
+
+	/**
+	 * Only for the tests which build the pages by hand.
+	 */
+	protected void setOffspringPage(int position, p page) {
+		offspringPages[position] = page;
+		offspringPages[position].setParentPage(this, position);
+	}
+
+	/**
+	 * Only for the tests which build the pages by hand, the page is counted again.
+	 */
+	protected void setSize(int size) {
+		this.size = size;
+		recount();
+	}
+}
@@ -1,133 +1,243 @@
 package com.livae.util.tree;
 
-import com.livae.util.ResourcesFactory;
+import java.util.concurrent.Executor;
 
-public class Btree<k extends Comparable<k>> extends ResourcesFactory<BtreePage<k>> {
-
-	private static final int NODES_PER_PAGE = 6;
-
-	private long size;
-
-	private BtreePage<k> root;
-
-	private int nodesPerPage;
-
-	private VisitStructure orderVisitor;
+public class Btree<k extends Comparable<k>> extends AbstractBtree<BtreePage<k>, k[]> {
 
 	public Btree() {
 		this(NODES_PER_PAGE);
 	}
 
 	public Btree(int nodesPerPage) {
-		if (nodesPerPage < 3) {
-			throw new RuntimeException("Nodes per page must be greater than 2");
-		}
-		this.nodesPerPage = nodesPerPage;
-		this.root = getResource();
-		this.size = 0;
+		super(nodesPerPage);
 	}
 
 	private Btree(Btree<k> treeToClone) {
-		size = treeToClone.size;
-		nodesPerPage = treeToClone.nodesPerPage;
-		root = treeToClone.root.clone(null, this);
+		super(treeToClone);
 	}
 
 	public Btree<k> clone() {
 		return new Btree<k>(this);
 	}
 
+	public static <k extends Comparable<k>> Btree<k> fromSorted(k[] sorted) {
+		return fromSorted(sorted, NODES_PER_PAGE, null);
+	}
+
+	/**
+	 * Builds a tree from the levels of the leaves up, with pages as full as the minimum size of
+	 * their siblings allows. It takes linear time instead of adding the elements one by one.
+	 *
+	 * @param sorted
+	 *   elements sorted in ascending order
+	 * @param executor
+	 *   executor to build the leaves of big arrays in parallel, null to build them in the calling
+	 *   thread
+	 */
+	public static <k extends Comparable<k>> Btree<k> fromSorted(k[] sorted, int nodesPerPage,
+	                                                            Executor executor) {
+		Btree<k> btree = new Btree<>(nodesPerPage);
+		btree.addSorted(sorted, executor);
+		return btree;
+	}
+
 	public void add(k object) {
-		size++;
-		root.add(object);
+		setSize(getSize() + 1);
+		getRoot().add(object);
+	}
+
+	public void addAll(k[] sorted) {
+		addSorted(sorted, null);
+	}
+
+	/**
+	 * Adds the elements of a sorted array. When they are many compared with the elements of the
+	 * tree both are merged and the tree is built again, otherwise they are added one by one.
+	 *
+	 * @param sorted
+	 *   elements sorted in ascending order
+	 * @param executor
+	 *   executor to build the leaves in parallel, null to build them in the calling thread
+	 */
+	public void addAll(k[] sorted, Executor executor) {
+		addSorted(sorted, executor);
 	}
 
 	public k getFirst() {
 		k object = null;
-		if (root != null) {
-			BtreePage<k> firstPage = root.getFirstPage();
+		if (!isEmpty()) {
+			BtreePage<k> firstPage = getRoot().getFirstPage();
 			object = firstPage.getFirstFromPage();
 			if (firstPage.remove(object)) {
-				size--;
+				setSize(getSize() - 1);
 			}
 		}
 		return object;
 	}
 
+	public k peekFirst() {
+		k object = null;
+		if (!isEmpty()) {
+			object = getRoot().getFirstPage().getFirstFromPage();
+		}
+		return object;
+	}
+
 	public void remove(k object) {
-		if (root.remove(object)) {
-			size--;
+		if (getRoot().remove(object)) {
+			setSize(getSize() - 1);
 		}
 	}
 
-	public long getSize() {
-		return this.size;
+	/**
+	 * Finds the rank with the counts of elements of the pages in the path to the object.
+	 *
+	 * @return number of elements lower than the object
+	 */
+	public long rank(k object) {
+		long rank = 0;
+		BtreePage<k> page = getRoot();
+		while (true) {
+			int pos = page.findFirstPosition(object);
+			rank += pos;
+			if (page.isLeave()) {
+				return rank;
+			}
+			for (int i = 0; i < pos; i++) {
+				rank += page.getOffspringPage(i).getCount();
+			}
+			page = page.getOffspringPage(pos);
+		}
 	}
 
-	public boolean isEmpty() {
-		return this.size == 0;
+	/**
+	 * @param index
+	 *   position of the element in order, from 0 to the size of the tree - 1
+	 *
+	 * @return the element with that number of elements before it
+	 */
+	public k select(long index) {
+		if (index < 0 || index >= getSize()) {
+			throw new IllegalArgumentException("Index out of the tree: " + index);
+		}
+		BtreePage<k> page = getRoot();
+		long remaining = index;
+		while (!page.isLeave()) {
+			int pos = 0;
+			long offspringCount;
+			while (remaining >= (offspringCount = page.getOffspringPage(pos).getCount())) {
+				remaining -= offspringCount;
+				if (remaining == 0) {
+					return page.getNode(pos);
+				}
+				remaining--;
+				pos++;
+			}
+			page = page.getOffspringPage(pos);
+		}
+		return page.getNode((int) remaining);
 	}
 
-	public void visitInOrder(BtreeVisitor<k> visitor) {
-		this.root.visitInOrder(visitor, 0);
+	/**
+	 * @return number of elements greater than or equal to from and lower than to
+	 */
+	public long count(k from, k to) {
+		return Math.max(0, rank(to) - rank(from));
 	}
 
-	public void checkStructure() {
-		root.checkIntegrity();
-		if (orderVisitor == null) {
-			orderVisitor = new VisitStructure();
+	public void visitInOrder(BtreeVisitor<k> visitor) {
+		getRoot().visitInOrder(visitor, 0);
+	}
+
+	/**
+	 * Visits the elements in order until the visitor stops.
+	 */
+	public void visitInOrderUntil(BtreeStoppableVisitor<k> visitor) {
+		BtreeCursor<k> cursor = getCursor();
+		if (cursor.first()) {
+			do {
+				if (!visitor.visit(cursor.get(), cursor.getDeep())) {
+					return;
+				}
+			} while (cursor.next());
 		}
-		orderVisitor.orderVisitorPrevious = null;
-		orderVisitor.visited = 0;
-		//noinspection unchecked
-		visitInOrder((BtreeVisitor<k>) orderVisitor);
-		if (orderVisitor.visited != size) {
-			System.out.println(getDebugString());
-			throw new RuntimeException("Different nodes than expected visited: " +
-			                           orderVisitor.visited + " != " + size);
+	}
+
+	/**
+	 * Visits in order the elements greater than or equal to from and lower than to, until the
+	 * visitor stops. Only the pages in the path to from and the ones with visited elements are
+	 * read.
+	 */
+	public void visitRange(k from, k to, BtreeStoppableVisitor<k> visitor) {
+		BtreeCursor<k> cursor = getCursor();
+		if (cursor.seek(from)) {
+			do {
+				k object = cursor.get();
+				if (object.compareTo(to) >= 0 || !visitor.visit(object, cursor.getDeep())) {
+					return;
+				}
+			} while (cursor.next());
 		}
 	}
 
+	/**
+	 * @return a new cursor over the tree, it is not valid until it is positioned
+	 */
+	public BtreeCursor<k> getCursor() {
+		return new BtreeCursor<k>(this);
+	}
+
 	@Override
 	protected BtreePage<k> createResource() {
-		return new BtreePage<k>(this.nodesPerPage, this);
+		return new BtreePage<k>(getNodesPerPage(), this);
 	}
 
-	public void clear() {
-		root.clear();
+	@Override
+	protected k[] newArray(int length) {
+		//noinspection unchecked
+		return (k[]) new Comparable[length];
 	}
 
-	public String getDebugString() {
-		return root.getDebugString();
+	@Override
+	protected BtreePage<k>[] newPages(int length) {
+		//noinspection unchecked
+		return new BtreePage[length];
 	}
 
-	protected TestUtils getTestUtils() {
-		return new TestUtils();
+	@Override
+	protected int compare(k[] x, int i, k[] y, int j) {
+		return x[i].compareTo(y[j]);
 	}
 
-	class VisitStructure implements BtreeVisitor<Comparable> {
+	@Override
+	protected void copyNode(BtreePage<k> page, int position, k[] elements, int index) {
+		elements[index] = page.getNode(position);
+	}
 
-		Comparable orderVisitorPrevious;
+	@Override
+	protected void fill(BtreePage<k> page, k[] sorted, int from, int count) {
+		page.fill(sorted, from, count);
+	}
 
-		int visited;
+	@Override
+	protected void fill(BtreePage<k> page, BtreePage<k>[] pages, k[] separators, int from,
+	                    int count) {
+		page.fill(pages, separators, from, count);
+	}
 
-		@Override
-		public void visit(final Comparable object, final int deep) {
-			//noinspection unchecked
-			if (orderVisitorPrevious != null && orderVisitorPrevious.compareTo(object) > 0) {
-				throw new RuntimeException("Wrong order: " + orderVisitorPrevious + " < " +
-				                           object);
-			}
-			visited++;
-			orderVisitorPrevious = object;
-		}
+	@Override
+	protected void add(k[] elements, int index) {
+		add(elements[index]);
+	}
+
+	protected TestUtils getTestUtils() {
+		return new TestUtils();
 	}
 
 	class TestUtils {
 
 		public void setRoot(Btree<k> o, BtreePage<k> page, int size) {
-			o.root = page;
-			o.size = size;
+			o.setRoot(page, size);
 		}
 	}
 
@@ -0,0 +1,182 @@
+package com.livae.util.tree;
+
+/**
+ * Cursor over the elements of a {@link Btree} in order. It moves through the pages with the links
+ * of every page to its parent, so it does not use recursion nor creates objects. The cursor is not
+ * valid after the tree is modified, it has to be positioned again.
+ *
+ * @param <k>
+ *   Type of the elements of the tree
+ */
+public class BtreeCursor<k extends Comparable<k>> {
+
+	private final Btree<k> btree;
+
+	private BtreePage<k> page;
+
+	private int position;
+
+	private int deep;
+
+	protected BtreeCursor(Btree<k> btree) {
+		this.btree = btree;
+	}
+
+	/**
+	 * Moves the cursor to the first element of the tree.
+	 *
+	 * @return false if the tree is empty
+	 */
+	public boolean first() {
+		page = btree.getRoot();
+		deep = 0;
+		while (!page.isLeave()) {
+			page = page.getOffspringPage(0);
+			deep++;
+		}
+		position = 0;
+		return checkValid();
+	}
+
+	/**
+	 * Moves the cursor to the last element of the tree.
+	 *
+	 * @return false if the tree is empty
+	 */
+	public boolean last() {
+		page = btree.getRoot();
+		deep = 0;
+		while (!page.isLeave()) {
+			page = page.getOffspringPage(page.getSize());
+			deep++;
+		}
+		position = page.getSize() - 1;
+		return checkValid();
+	}
+
+	/**
+	 * Moves the cursor to the first element greater than or equal to the object.
+	 *
+	 * @return false if all the elements are lower than the object
+	 */
+	public boolean seek(k object) {
+		BtreePage<k> current = btree.getRoot();
+		int currentDeep = 0;
+		page = null;
+		while (true) {
+			int pos = current.findFirstPosition(object);
+			if (pos < current.getSize()) {
+				// the elements of deeper pages are closer to the object
+				page = current;
+				position = pos;
+				deep = currentDeep;
+			}
+			if (current.isLeave()) {
+				return page != null;
+			}
+			current = current.getOffspringPage(pos);
+			currentDeep++;
+		}
+	}
+
+	/**
+	 * Moves the cursor to the next element.
+	 *
+	 * @return false if there are no more elements, the cursor is not valid then
+	 */
+	public boolean next() {
+		if (page == null) {
+			return false;
+		}
+		if (!page.isLeave()) {
+			page = page.getOffspringPage(position + 1);
+			deep++;
+			while (!page.isLeave()) {
+				page = page.getOffspringPage(0);
+				deep++;
+			}
+			position = 0;
+			return true;
+		}
+		if (position + 1 < page.getSize()) {
+			position++;
+			return true;
+		}
+		while (page.getParentPage() != null) {
+			int parentPosition = page.getParentPosition();
+			page = page.getParentPage();
+			deep--;
+			if (parentPosition < page.getSize()) {
+				position = parentPosition;
+				return true;
+			}
+		}
+		page = null;
+		return false;
+	}
+
+	/**
+	 * Moves the cursor to the previous element.
+	 *
+	 * @return false if there are no more elements, the cursor is not valid then
+	 */
+	public boolean previous() {
+		if (page == null) {
+			return false;
+		}
+		if (!page.isLeave()) {
+			page = page.getOffspringPage(position);
+			deep++;
+			while (!page.isLeave()) {
+				page = page.getOffspringPage(page.getSize());
+				deep++;
+			}
+			position = page.getSize() - 1;
+			return true;
+		}
+		if (position > 0) {
+			position--;
+			return true;
+		}
+		while (page.getParentPage() != null) {
+			int parentPosition = page.getParentPosition();
+			page = page.getParentPage();
+			deep--;
+			if (parentPosition > 0) {
+				position = parentPosition - 1;
+				return true;
+			}
+		}
+		page = null;
+		return false;
+	}
+
+	public boolean isValid() {
+		return page != null;
+	}
+
+	/**
+	 * @return the element in the cursor
+	 */
+	public k get() {
+		if (page == null) {
+			throw new RuntimeException("The cursor is not valid");
+		}
+		return page.getNode(position);
+	}
+
+	/**
+	 * @return depth of the page of the element in the cursor, 0 for the root
+	 */
+	public int getDeep() {
+		return deep;
+	}
+
+	private boolean checkValid() {
+		if (position < 0 || position >= page.getSize()) {
+			page = null;
+		}
+		return page != null;
+	}
+
+}
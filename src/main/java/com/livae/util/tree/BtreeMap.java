@@ -0,0 +1,269 @@
+package com.livae.util.tree;
+
+import com.livae.util.ResourcesFactory;
+
+import java.util.Comparator;
+
+/**
+ * Ordered map in a b-tree with the keys and the values in parallel arrays in its pages. The keys
+ * are ordered by a comparator or by their natural order when there is no comparator. It is not
+ * thread safe.
+ *
+ * @param <k>
+ *   Type of the keys
+ * @param <v>
+ *   Type of the values
+ */
+public class BtreeMap<k, v> extends ResourcesFactory<BtreeMapPage<k, v>> {
+
+	private static final int NODES_PER_PAGE = 6;
+
+	private long size;
+
+	private BtreeMapPage<k, v> root;
+
+	private int nodesPerPage;
+
+	private final Comparator<? super k> comparator;
+
+	private VisitStructure orderVisitor;
+
+	private BtreeMapPage<k, v> foundPage;
+
+	private int foundPosition;
+
+	public BtreeMap() {
+		this(null, NODES_PER_PAGE);
+	}
+
+	public BtreeMap(Comparator<? super k> comparator) {
+		this(comparator, NODES_PER_PAGE);
+	}
+
+	/**
+	 * @param comparator
+	 *   comparator of the keys, null to use their natural order
+	 */
+	public BtreeMap(Comparator<? super k> comparator, int nodesPerPage) {
+		if (nodesPerPage < 3) {
+			throw new RuntimeException("Nodes per page must be greater than 2");
+		}
+		this.comparator = comparator;
+		this.nodesPerPage = nodesPerPage;
+		this.root = getResource();
+		this.size = 0;
+	}
+
+	private BtreeMap(BtreeMap<k, v> mapToClone) {
+		size = mapToClone.size;
+		nodesPerPage = mapToClone.nodesPerPage;
+		comparator = mapToClone.comparator;
+		root = mapToClone.root.clone(null, this);
+	}
+
+	public BtreeMap<k, v> clone() {
+		return new BtreeMap<k, v>(this);
+	}
+
+	public v get(k key) {
+		BtreeMapPage<k, v> page = root;
+		while (true) {
+			int position = page.find(key);
+			if (position >= 0) {
+				return page.getValue(position);
+			} else if (page.isLeave()) {
+				return null;
+			}
+			page = page.getOffspringPage(-position - 1);
+		}
+	}
+
+	public boolean containsKey(k key) {
+		BtreeMapPage<k, v> page = root;
+		while (true) {
+			int position = page.find(key);
+			if (position >= 0) {
+				return true;
+			} else if (page.isLeave()) {
+				return false;
+			}
+			page = page.getOffspringPage(-position - 1);
+		}
+	}
+
+	/**
+	 * @return the previous value of the key, null if it was not in the map
+	 */
+	public v put(k key, v value) {
+		BtreeMapPage<k, v> page = root;
+		while (true) {
+			int position = page.find(key);
+			if (position >= 0) {
+				return page.setValue(position, value);
+			} else if (page.isLeave()) {
+				page.insertInLeave(-position - 1, key, value);
+				size++;
+				return null;
+			}
+			page = page.getOffspringPage(-position - 1);
+		}
+	}
+
+	/**
+	 * @return the value of the removed key, null if it was not in the map
+	 */
+	public v remove(k key) {
+		BtreeMapPage<k, v> page = root;
+		while (true) {
+			int position = page.find(key);
+			if (position >= 0) {
+				v value = page.getValue(position);
+				page.removeFromThisPage(position);
+				size--;
+				return value;
+			} else if (page.isLeave()) {
+				return null;
+			}
+			page = page.getOffspringPage(-position - 1);
+		}
+	}
+
+	/**
+	 * @return the greatest key less than or equal to the key, null if there is none
+	 */
+	public k floorKey(k key) {
+		return findNearest(key, true) ? getFoundKey() : null;
+	}
+
+	/**
+	 * @return the value of the greatest key less than or equal to the key, null if there is none
+	 */
+	public v floorValue(k key) {
+		return findNearest(key, true) ? getFoundValue() : null;
+	}
+
+	/**
+	 * @return the least key greater than or equal to the key, null if there is none
+	 */
+	public k ceilingKey(k key) {
+		return findNearest(key, false) ? getFoundKey() : null;
+	}
+
+	/**
+	 * @return the value of the least key greater than or equal to the key, null if there is none
+	 */
+	public v ceilingValue(k key) {
+		return findNearest(key, false) ? getFoundValue() : null;
+	}
+
+	/**
+	 * Looks for the key or the nearest one in the pages from the root to a leave. The nearest key
+	 * of a deeper page is always closer than the one of its parent.
+	 */
+	private boolean findNearest(k key, boolean floor) {
+		foundPage = null;
+		BtreeMapPage<k, v> page = root;
+		while (true) {
+			int position = page.find(key);
+			if (position >= 0) {
+				foundPage = page;
+				foundPosition = position;
+				return true;
+			}
+			int insertion = -position - 1;
+			if (floor && insertion > 0) {
+				foundPage = page;
+				foundPosition = insertion - 1;
+			} else if (!floor && insertion < page.getSize()) {
+				foundPage = page;
+				foundPosition = insertion;
+			}
+			if (page.isLeave()) {
+				return foundPage != null;
+			}
+			page = page.getOffspringPage(insertion);
+		}
+	}
+
+	private k getFoundKey() {
+		k key = foundPage.getKey(foundPosition);
+		foundPage = null;
+		return key;
+	}
+
+	private v getFoundValue() {
+		v value = foundPage.getValue(foundPosition);
+		foundPage = null;
+		return value;
+	}
+
+	public long getSize() {
+		return this.size;
+	}
+
+	public boolean isEmpty() {
+		return this.size == 0;
+	}
+
+	public void visitInOrder(BtreeMapVisitor<k, v> visitor) {
+		this.root.visitInOrder(visitor, 0);
+	}
+
+	public void checkStructure() {
+		root.checkIntegrity();
+		if (root.getCount() != size) {
+			throw new RuntimeException("Different count of elements in the root: " +
+			                           root.getCount() + " != " + size);
+		}
+		if (orderVisitor == null) {
+			orderVisitor = new VisitStructure();
+		}
+		orderVisitor.orderVisitorPrevious = null;
+		orderVisitor.visited = 0;
+		visitInOrder(orderVisitor);
+		if (orderVisitor.visited != size) {
+			System.out.println(getDebugString());
+			throw new RuntimeException("Different nodes than expected visited: " +
+			                           orderVisitor.visited + " != " + size);
+		}
+	}
+
+	@Override
+	protected BtreeMapPage<k, v> createResource() {
+		return new BtreeMapPage<k, v>(this.nodesPerPage, comparator, this);
+	}
+
+	public void clear() {
+		root.clear();
+		size = 0;
+	}
+
+	public String getDebugString() {
+		return root.getDebugString();
+	}
+
+	private int compare(k first, k second) {
+		if (comparator == null) {
+			//noinspection unchecked
+			return ((Comparable<? super k>) first).compareTo(second);
+		}
+		return comparator.compare(first, second);
+	}
+
+	class VisitStructure implements BtreeMapVisitor<k, v> {
+
+		k orderVisitorPrevious;
+
+		int visited;
+
+		@Override
+		public void visit(final k key, final v value, final int deep) {
+			if (visited > 0 && compare(orderVisitorPrevious, key) >= 0) {
+				throw new RuntimeException("Wrong order: " + orderVisitorPrevious + " < " + key);
+			}
+			visited++;
+			orderVisitorPrevious = key;
+		}
+	}
+
+}
@@ -0,0 +1,152 @@
+package com.livae.util.tree;
+
+import com.livae.util.ResourcesFactory;
+
+import java.util.Comparator;
+
+/**
+ * Page of a {@link BtreeMap}. It has the same structure as {@link BtreePage} with the values in
+ * an array parallel to the keys, every node moved in the keys is moved in the values too.
+ */
+public class BtreeMapPage<k, v> extends AbstractBtreePage<BtreeMapPage<k, v>> {
+
+	private k[] nodes;
+
+	private v[] values;
+
+	private final Comparator<? super k> comparator;
+
+	/**
+	 * @param comparator
+	 *   comparator of the keys, null to use their natural order
+	 */
+	protected BtreeMapPage(int numberOfNodes, Comparator<? super k> comparator,
+	                       ResourcesFactory<BtreeMapPage<k, v>> resourcesFactory) {
+		super(numberOfNodes, resourcesFactory);
+		//noinspection unchecked
+		nodes = (k[]) (new Object[numberOfNodes + 1]);
+		//noinspection unchecked
+		values = (v[]) (new Object[numberOfNodes + 1]);
+		this.comparator = comparator;
+	}
+
+	private BtreeMapPage(BtreeMapPage<k, v> pageToClone, BtreeMapPage<k, v> parentPage,
+	                     ResourcesFactory<BtreeMapPage<k, v>> resourcesFactory) {
+		super(pageToClone, parentPage, resourcesFactory);
+		comparator = pageToClone.comparator;
+		nodes = pageToClone.nodes.clone();
+		values = pageToClone.values.clone();
+	}
+
+	@Override
+	protected BtreeMapPage<k, v> clone(BtreeMapPage<k, v> parentPage,
+	                                   ResourcesFactory<BtreeMapPage<k, v>> resourcesFactory) {
+		return new BtreeMapPage<k, v>(this, parentPage, resourcesFactory);
+	}
+
+	@Override
+	protected void copyNodes(int from, BtreeMapPage<k, v> page, int to, int length) {
+		System.arraycopy(nodes, from, page.nodes, to, length);
+		System.arraycopy(values, from, page.values, to, length);
+	}
+
+	@Override
+	protected void clearNodes(int from, int to) {
+		for (int i = from; i < to; i++) {
+			nodes[i] = null;
+			values[i] = null;
+		}
+	}
+
+	@Override
+	protected String getNodeString(int position) {
+		return String.valueOf(nodes[position]);
+	}
+
+	public void visitInOrder(BtreeMapVisitor<k, v> visitor, int deep) {
+		int size = getSize();
+		for (int i = 0; i < size; i++) {
+			if (getOffspringPage(i) != null) {
+				getOffspringPage(i).visitInOrder(visitor, deep + 1);
+			}
+			visitor.visit(nodes[i], values[i], deep);
+		}
+		if (getOffspringPage(size) != null) {
+			getOffspringPage(size).visitInOrder(visitor, deep + 1);
+		}
+	}
+
+	protected k getKey(int position) {
+		return nodes[position];
+	}
+
+	protected v getValue(int position) {
+		return values[position];
+	}
+
+	protected v setValue(int position, v value) {
+		v previous = values[position];
+		values[position] = value;
+		return previous;
+	}
+
+	/**
+	 * Binary search of a key in the page. When the keys are compared by their natural order they
+	 * are compared directly, without a comparator between them.
+	 *
+	 * @return the position of the key, or -(insertion position) - 1 when it is not in the page
+	 */
+	protected int find(k key) {
+		int left = 0;
+		int right = getSize() - 1;
+		if (comparator == null) {
+			//noinspection unchecked
+			Comparable<? super k> comparable = (Comparable<? super k>) key;
+			while (left <= right) {
+				int mid = (left + right) >>> 1;
+				int comparison = comparable.compareTo(nodes[mid]);
+				if (comparison > 0) {
+					left = mid + 1;
+				} else if (comparison < 0) {
+					right = mid - 1;
+				} else {
+					return mid;
+				}
+			}
+		} else {
+			Comparator<? super k> comparator = this.comparator;
+			while (left <= right) {
+				int mid = (left + right) >>> 1;
+				int comparison = comparator.compare(key, nodes[mid]);
+				if (comparison > 0) {
+					left = mid + 1;
+				} else if (comparison < 0) {
+					right = mid - 1;
+				} else {
+					return mid;
+				}
+			}
+		}
+		return -left - 1;
+	}
+
+	/**
+	 * Adds a key which is not in the tree to this leave.
+	 */
+	protected void insertInLeave(int position, k key, v value) {
+		nodes[nodes.length - 1] = key;
+		values[values.length - 1] = value;
+		insertInLeave(position);
+	}
+
+	@Override
+	protected void checkIntegrity() {
+		for (int i = 0; i < getSize(); i++) {
+			if (nodes[i] == null) {
+				System.err.println(getDebugString());
+				throw new RuntimeException();
+			}
+		}
+		super.checkIntegrity();
+	}
+}
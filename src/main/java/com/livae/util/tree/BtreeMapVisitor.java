@@ -0,0 +1,7 @@
+package com.livae.util.tree;
+
+public interface BtreeMapVisitor<k, v> {
+
+	public void visit(k key, v value, int deep);
+
+}
@@ -0,0 +1,10 @@
+package com.livae.util.tree;
+
+public interface BtreeStoppableVisitor<k> {
+
+	/**
+	 * @return false to stop the visit
+	 */
+	public boolean visit(k object, int deep);
+
+}
@@ -0,0 +1,493 @@
+package com.livae.util.tree;
+
+import com.livae.util.tree.ConcurrentBtreePage.Version;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * B-tree which can be used from several threads (B-link tree). The readers never lock, they read
+ * the immutable versions of the pages and follow the links to the next pages of a level when a
+ * page has been split. The writers only lock the page they modify, a split publishes both halves
+ * in the level before the new page is added to the parent page, in a different lock. The
+ * elements removed do not merge the pages and the pages are not reused. Only the empty leaves at
+ * the beginning of the tree are unlinked, so taking the first elements does not go through the
+ * leaves emptied before; a reader which arrives to an unlinked page follows its link to the
+ * right, as it does after a split.
+ *
+ * @param <k>
+ *   Type of the elements of the tree
+ */
+public class ConcurrentBtree<k extends Comparable<k>> {
+
+	private static final int NODES_PER_PAGE = 32;
+
+	private final int nodesPerPage;
+
+	private final AtomicLong size;
+
+	private volatile ConcurrentBtreePage<k> root;
+
+	public ConcurrentBtree() {
+		this(NODES_PER_PAGE);
+	}
+
+	public ConcurrentBtree(int nodesPerPage) {
+		if (nodesPerPage < 3) {
+			throw new RuntimeException("Nodes per page must be greater than 2");
+		}
+		this.nodesPerPage = nodesPerPage;
+		this.size = new AtomicLong();
+		//noinspection unchecked
+		Version<k> empty = new Version<>((k[]) new Comparable[0], null, null, null);
+		this.root = new ConcurrentBtreePage<>(0, empty);
+	}
+
+	public void add(k object) {
+		ConcurrentBtreePage<k> top = root;
+		//noinspection unchecked
+		ConcurrentBtreePage<k>[] path = new ConcurrentBtreePage[top.getLevel() + 1];
+		ConcurrentBtreePage<k> page = findPage(top, object, 0, true, path);
+		page = lockPage(page, object, true);
+		Version<k> version = page.getVersion();
+		version = version.insert(version.findNextPosition(object), object, null);
+		if (version.getSize() <= nodesPerPage) {
+			page.setVersion(version);
+			page.unlock();
+		} else {
+			split(page, version, path);
+		}
+		size.incrementAndGet();
+	}
+
+	/**
+	 * Removes one element equal to the object.
+	 *
+	 * @return true if an element was removed
+	 */
+	public boolean remove(k object) {
+		ConcurrentBtreePage<k> page = lockPage(findPage(object, 0, false), object, false);
+		while (true) {
+			Version<k> version = page.getVersion();
+			int pos = version.findFirstPosition(object);
+			if (pos < version.getSize() && version.getNode(pos).compareTo(object) == 0) {
+				page.setVersion(version.remove(pos));
+				page.unlock();
+				size.decrementAndGet();
+				if (version.getSize() == 1) {
+					removeEmptyFirstLeaves();
+				}
+				return true;
+			}
+			if (!isEqualToHighKey(version, object)) {
+				page.unlock();
+				return false;
+			}
+			// the equal elements continue in the next page
+			ConcurrentBtreePage<k> right = version.getRightPage();
+			right.lock();
+			page.unlock();
+			page = right;
+		}
+	}
+
+	public boolean contains(k object) {
+		ConcurrentBtreePage<k> page = findPage(object, 0, false);
+		while (true) {
+			Version<k> version = page.getVersion();
+			if (version.isAfterPage(object, false)) {
+				page = version.getRightPage();
+			} else {
+				int pos = version.findFirstPosition(object);
+				if (pos < version.getSize() && version.getNode(pos).compareTo(object) == 0) {
+					return true;
+				}
+				if (!isEqualToHighKey(version, object)) {
+					return false;
+				}
+				page = version.getRightPage();
+			}
+		}
+	}
+
+	/**
+	 * Removes the lowest element of the tree.
+	 *
+	 * @return the element or null if the tree is empty
+	 */
+	public k getFirst() {
+		ConcurrentBtreePage<k> page = getFirstPage();
+		page.lock();
+		Version<k> version;
+		boolean emptyLeaves = false;
+		while ((version = page.getVersion()).getSize() == 0) {
+			ConcurrentBtreePage<k> right = version.getRightPage();
+			if (right == null) {
+				page.unlock();
+				if (emptyLeaves) {
+					removeEmptyFirstLeaves();
+				}
+				return null;
+			}
+			emptyLeaves = true;
+			right.lock();
+			page.unlock();
+			page = right;
+		}
+		page.setVersion(version.remove(0));
+		page.unlock();
+		size.decrementAndGet();
+		if (emptyLeaves || version.getSize() == 1) {
+			removeEmptyFirstLeaves();
+		}
+		return version.getNode(0);
+	}
+
+	/**
+	 * @return the lowest element of the tree or null if the tree is empty
+	 */
+	public k peekFirst() {
+		ConcurrentBtreePage<k> page = getFirstPage();
+		while (page != null) {
+			Version<k> version = page.getVersion();
+			if (version.getSize() > 0) {
+				return version.getNode(0);
+			}
+			page = version.getRightPage();
+		}
+		return null;
+	}
+
+	public long getSize() {
+		return size.get();
+	}
+
+	public boolean isEmpty() {
+		return size.get() == 0;
+	}
+
+	/**
+	 * Visits the elements in order until the visitor stops. The leaves are read one by one, the
+	 * elements added or removed in a leave after it is visited are not seen.
+	 */
+	public void visitInOrderUntil(BtreeStoppableVisitor<k> visitor) {
+		int deep = root.getLevel();
+		ConcurrentBtreePage<k> page = getFirstPage();
+		while (page != null) {
+			Version<k> version = page.getVersion();
+			for (int i = 0; i < version.getSize(); i++) {
+				if (!visitor.visit(version.getNode(i), deep)) {
+					return;
+				}
+			}
+			page = version.getRightPage();
+		}
+	}
+
+	private ConcurrentBtreePage<k> getFirstPage() {
+		return getFirstPage(0);
+	}
+
+	private ConcurrentBtreePage<k> getFirstPage(int level) {
+		ConcurrentBtreePage<k> page = root;
+		while (true) {
+			Version<k> version = page.getVersion();
+			if (version.isRemoved()) {
+				// unlinked after the link to it was read
+				page = version.getRightPage();
+			} else if (page.getLevel() > level) {
+				page = version.getOffspringPage(0);
+			} else {
+				return page;
+			}
+		}
+	}
+
+	/**
+	 * Unlinks the first leave while it is empty and it is not the last one.
+	 */
+	private void removeEmptyFirstLeaves() {
+		//noinspection StatementWithEmptyBody
+		while (removeEmptyFirstLeave()) {
+		}
+	}
+
+	/**
+	 * Unlinks the first leave when it is empty, with the first pages of the levels over it which
+	 * have no other offspring page. The link to them is removed from the first page of the level
+	 * over them, which keeps more offspring pages. The pages are locked from the top, as no writer
+	 * locks a page over another one it keeps locked.
+	 *
+	 * @return true if the leave was unlinked
+	 */
+	private boolean removeEmptyFirstLeave() {
+		int top = 1;
+		while (top <= root.getLevel() && getFirstPage(top).getVersion().getSize() == 0) {
+			top++;
+		}
+		if (top > root.getLevel()) {
+			return false;
+		}
+		//noinspection unchecked
+		ConcurrentBtreePage<k>[] pages = new ConcurrentBtreePage[top + 1];
+		pages[top] = getFirstPage(top);
+		pages[top].lock();
+		int locked = top;
+		try {
+			// a locked page which is not removed cannot be removed, it stays the first one
+			Version<k> version = pages[top].getVersion();
+			if (version.isRemoved() || version.getSize() == 0) {
+				return false;
+			}
+			ConcurrentBtreePage<k> next = version.getOffspringPage(1);
+			for (int level = top - 1; level >= 0; level--) {
+				pages[level] = pages[level + 1].getVersion().getOffspringPage(0);
+				pages[level].lock();
+				locked = level;
+				Version<k> first = pages[level].getVersion();
+				// the right page must be linked in the parent level, a writer which has split the
+				// page would not find it in the parent page to add the link
+				if (first.getSize() > 0 || first.getRightPage() != next) {
+					return false;
+				}
+				if (level > 0) {
+					// the next page is not the first one, its first offspring page is not removed
+					next = next.getVersion().getOffspringPage(0);
+				}
+			}
+			for (int level = 0; level < top; level++) {
+				pages[level].setVersion(pages[level].getVersion().removePage());
+			}
+			pages[top].setVersion(version.removeFirstPage());
+			return true;
+		} finally {
+			for (int level = locked; level <= top; level++) {
+				pages[level].unlock();
+			}
+		}
+	}
+
+	private boolean isEqualToHighKey(Version<k> version, k object) {
+		return version.getHighKey() != null && version.getHighKey().compareTo(object) == 0;
+	}
+
+	/**
+	 * Goes down from the root to the page of the level where the object is, without locks. The
+	 * page could be split before it is locked, then the object is in one of the next pages.
+	 *
+	 * @param next
+	 *   true to find the page where the object goes after the equal elements, false for the first
+	 *   page which could have an element equal to the object
+	 */
+	private ConcurrentBtreePage<k> findPage(k object, int level, boolean next) {
+		return findPage(root, object, level, next, null);
+	}
+
+	/**
+	 * @param path
+	 *   array to keep the page where it goes down from every level, or null
+	 */
+	private ConcurrentBtreePage<k> findPage(ConcurrentBtreePage<k> page, k object, int level,
+	                                        boolean next, ConcurrentBtreePage<k>[] path) {
+		while (true) {
+			Version<k> version = page.getVersion();
+			if (version.isAfterPage(object, next)) {
+				page = version.getRightPage();
+			} else if (page.getLevel() == level) {
+				return page;
+			} else {
+				int pos;
+				if (next) {
+					pos = version.findNextPosition(object);
+				} else {
+					pos = version.findFirstPosition(object);
+				}
+				if (path != null) {
+					path[page.getLevel()] = page;
+				}
+				page = version.getOffspringPage(pos);
+			}
+		}
+	}
+
+	/**
+	 * Locks the page of the object, moving to the next pages when it has been split. The next page
+	 * is locked before the current one is unlocked, the pages are always locked from left to right.
+	 */
+	private ConcurrentBtreePage<k> lockPage(ConcurrentBtreePage<k> page, k object, boolean next) {
+		page.lock();
+		Version<k> version;
+		while ((version = page.getVersion()).isAfterPage(object, next)) {
+			ConcurrentBtreePage<k> right = version.getRightPage();
+			right.lock();
+			page.unlock();
+			page = right;
+		}
+		return page;
+	}
+
+	/**
+	 * Splits a locked page and adds the new page to the parent pages, splitting them when they are
+	 * full too. Only one page is locked at a time. The new page is linked after the page at its
+	 * left in the level, which could be a page split from the same page meanwhile.
+	 *
+	 * @param path
+	 *   pages where the writer went down from every level
+	 */
+	private void split(ConcurrentBtreePage<k> page, Version<k> overfull,
+	                   ConcurrentBtreePage<k>[] path) {
+		while (true) {
+			ConcurrentBtreePage<k> right = page.split(overfull);
+			k separator = page.getVersion().getHighKey();
+			if (root == page) {
+				// nobody else can split the root while it is locked
+				//noinspection unchecked
+				k[] nodes = (k[]) new Comparable[]{separator};
+				//noinspection unchecked
+				ConcurrentBtreePage<k>[] pages = new ConcurrentBtreePage[]{page, right};
+				root = new ConcurrentBtreePage<>(page.getLevel() + 1,
+				                                 new Version<>(nodes, pages, null, null));
+				page.unlock();
+				return;
+			}
+			page.unlock();
+			ConcurrentBtreePage<k> left;
+			ConcurrentBtreePage<k> parent;
+			while (true) {
+				// the page could be split again, the new page goes after the last of its halves
+				left = page;
+				while (left.getVersion().getRightPage() != right) {
+					left = left.getVersion().getRightPage();
+				}
+				parent = lockParentPage(left, path);
+				if (left.getVersion().getRightPage() == right) {
+					// the next halves of the left page cannot be linked while the parent is locked
+					break;
+				}
+				parent.unlock();
+			}
+			Version<k> version = parent.getVersion();
+			overfull = version.insert(version.findOffspringPage(left), separator, right);
+			if (overfull.getSize() <= nodesPerPage) {
+				parent.setVersion(overfull);
+				parent.unlock();
+				return;
+			}
+			page = parent;
+		}
+	}
+
+	/**
+	 * Locks the page with the link to a page which is not the last one of its level. The link is
+	 * added by the writer which created the page after it was published, or by the writer which
+	 * made a new root, this one waits until then.
+	 *
+	 * @param path
+	 *   pages where the writer went down from every level, the links only move to the right, so
+	 *   the link is in the page of the path in the level over the page or in the next ones
+	 */
+	private ConcurrentBtreePage<k> lockParentPage(ConcurrentBtreePage<k> page,
+	                                              ConcurrentBtreePage<k>[] path) {
+		int level = page.getLevel() + 1;
+		while (true) {
+			if (root.getLevel() >= level) {
+				// the high key is lower when the page is split meanwhile
+				k highKey = page.getVersion().getHighKey();
+				ConcurrentBtreePage<k> parent;
+				if (level < path.length) {
+					parent = path[level];
+				} else {
+					// a level made after the writer went down
+					parent = getFirstPage(level);
+				}
+				parent.lock();
+				while (true) {
+					Version<k> version = parent.getVersion();
+					if (!version.isRemoved()) {
+						if (version.findOffspringPage(page) >= 0) {
+							return parent;
+						}
+						if (version.getHighKey() == null ||
+						    highKey.compareTo(version.getHighKey()) < 0) {
+							break;
+						}
+					}
+					ConcurrentBtreePage<k> right = version.getRightPage();
+					right.lock();
+					parent.unlock();
+					parent = right;
+				}
+				parent.unlock();
+			}
+			Thread.yield();
+		}
+	}
+
+	/**
+	 * Checks the links between the pages, the order of the elements and the size. The tree must
+	 * not be modified meanwhile.
+	 */
+	public void checkStructure() {
+		long elements = 0;
+		ConcurrentBtreePage<k> first = root;
+		while (first != null) {
+			ConcurrentBtreePage<k> expectedOffspring = null;
+			if (first.getLevel() > 0) {
+				expectedOffspring = first.getVersion().getOffspringPage(0);
+			}
+			k previous = null;
+			for (ConcurrentBtreePage<k> page = first; page != null;
+			     page = page.getVersion().getRightPage()) {
+				Version<k> version = page.getVersion();
+				if (version.isRemoved()) {
+					throw new RuntimeException("Removed page linked in the tree");
+				}
+				for (int i = 0; i < version.getSize(); i++) {
+					k node = version.getNode(i);
+					if (previous != null && previous.compareTo(node) > 0) {
+						throw new RuntimeException("Wrong order: " + previous + " > " + node);
+					}
+					previous = node;
+				}
+				if (version.getHighKey() != null) {
+					if (previous != null && previous.compareTo(version.getHighKey()) > 0) {
+						throw new RuntimeException("Element greater than the high key: " +
+						                           previous + " > " + version.getHighKey());
+					}
+					previous = version.getHighKey();
+				} else if (version.getRightPage() != null) {
+					throw new RuntimeException("No high key before the last page");
+				}
+				if (page.getLevel() == 0) {
+					elements += version.getSize();
+				} else {
+					for (int i = 0; i <= version.getSize(); i++) {
+						ConcurrentBtreePage<k> offspring = version.getOffspringPage(i);
+						if (offspring != expectedOffspring) {
+							throw new RuntimeException("Offspring page not linked in its level");
+						}
+						k highKey = i < version.getSize() ? version.getNode(i) :
+						            version.getHighKey();
+						k offspringHighKey = offspring.getVersion().getHighKey();
+						boolean sameHighKey = highKey == null ? offspringHighKey == null :
+						                      offspringHighKey != null &&
+						                      highKey.compareTo(offspringHighKey) == 0;
+						if (!sameHighKey) {
+							throw new RuntimeException("Wrong high key of an offspring page: " +
+							                           offspringHighKey + " != " + highKey);
+						}
+						expectedOffspring = offspring.getVersion().getRightPage();
+					}
+				}
+			}
+			if (first.getLevel() > 0 && expectedOffspring != null) {
+				throw new RuntimeException("Pages without parent page");
+			}
+			first = first.getLevel() > 0 ? first.getVersion().getOffspringPage(0) : null;
+		}
+		if (elements != size.get()) {
+			throw new RuntimeException("Different elements than expected: " + elements + " != " +
+			                           size.get());
+		}
+	}
+
+}
@@ -0,0 +1,272 @@
+package com.livae.util.tree;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Page of a {@link ConcurrentBtree}. The content of the page is an immutable {@link Version}, the
+ * writers lock the page and replace the version with a new one, so the readers never wait and
+ * always see a consistent page. Every version has the highest element of the page and a link to
+ * the next page of its level, whose elements are greater than or equal to it. A reader which
+ * arrives to a page after it has been split follows the link to find the rest of the elements.
+ * A page unlinked from the tree keeps a removed version with the link to the page which was at
+ * its right, so the readers which still arrive to it go on from there.
+ *
+ * @param <k>
+ *   Type of the elements of the tree
+ */
+public class ConcurrentBtreePage<k extends Comparable<k>> {
+
+	private final int level;
+
+	private final ReentrantLock lock;
+
+	private volatile Version<k> version;
+
+	protected ConcurrentBtreePage(int level, Version<k> version) {
+		this.level = level;
+		this.lock = new ReentrantLock();
+		this.version = version;
+	}
+
+	/**
+	 * @return height of the page over the leaves, 0 for the leaves
+	 */
+	protected int getLevel() {
+		return level;
+	}
+
+	protected Version<k> getVersion() {
+		return version;
+	}
+
+	/**
+	 * Publishes a new content of the page, the page has to be locked.
+	 */
+	protected void setVersion(Version<k> version) {
+		this.version = version;
+	}
+
+	protected void lock() {
+		lock.lock();
+	}
+
+	protected void unlock() {
+		lock.unlock();
+	}
+
+	/**
+	 * Splits a locked page with more nodes than it can keep. The second half goes to a new page,
+	 * which is linked from this one when the first half is published.
+	 *
+	 * @param overfull
+	 *   content of the page with all the nodes
+	 *
+	 * @return the new page, the high key of this page separates both
+	 */
+	protected ConcurrentBtreePage<k> split(Version<k> overfull) {
+		k[] nodes = overfull.nodes;
+		int first = nodes.length / 2;
+		Version<k> right;
+		if (overfull.isLeave()) {
+			right = new Version<>(Arrays.copyOfRange(nodes, first, nodes.length), null,
+			                      overfull.highKey, overfull.rightPage);
+		} else {
+			// the node between both halves goes up to the parent page
+			ConcurrentBtreePage<k>[] pages = overfull.offspringPages;
+			right = new Version<>(Arrays.copyOfRange(nodes, first + 1, nodes.length),
+			                      Arrays.copyOfRange(pages, first + 1, pages.length),
+			                      overfull.highKey, overfull.rightPage);
+		}
+		ConcurrentBtreePage<k> rightPage = new ConcurrentBtreePage<>(level, right);
+		ConcurrentBtreePage<k>[] leftPages = null;
+		if (!overfull.isLeave()) {
+			leftPages = Arrays.copyOf(overfull.offspringPages, first + 1);
+		}
+		version = new Version<>(Arrays.copyOf(nodes, first), leftPages, nodes[first], rightPage);
+		return rightPage;
+	}
+
+	/**
+	 * Immutable content of a page. The nodes and the offspring pages are arrays of the exact size.
+	 *
+	 * @param <k>
+	 *   Type of the elements of the tree
+	 */
+	protected static class Version<k extends Comparable<k>> {
+
+		private final k[] nodes;
+
+		// null in the leaves
+		private final ConcurrentBtreePage<k>[] offspringPages;
+
+		// null in the last page of a level
+		private final k highKey;
+
+		private final ConcurrentBtreePage<k> rightPage;
+
+		private final boolean removed;
+
+		protected Version(k[] nodes, ConcurrentBtreePage<k>[] offspringPages, k highKey,
+		                  ConcurrentBtreePage<k> rightPage) {
+			this(nodes, offspringPages, highKey, rightPage, false);
+		}
+
+		private Version(k[] nodes, ConcurrentBtreePage<k>[] offspringPages, k highKey,
+		                ConcurrentBtreePage<k> rightPage, boolean removed) {
+			this.nodes = nodes;
+			this.offspringPages = offspringPages;
+			this.highKey = highKey;
+			this.rightPage = rightPage;
+			this.removed = removed;
+		}
+
+		protected boolean isLeave() {
+			return offspringPages == null;
+		}
+
+		/**
+		 * @return true if the page has been unlinked from the tree, it has no nodes and all the
+		 * elements are in the pages at its right
+		 */
+		protected boolean isRemoved() {
+			return removed;
+		}
+
+		protected int getSize() {
+			return nodes.length;
+		}
+
+		protected k getNode(int position) {
+			return nodes[position];
+		}
+
+		protected ConcurrentBtreePage<k> getOffspringPage(int position) {
+			return offspringPages[position];
+		}
+
+		protected k getHighKey() {
+			return highKey;
+		}
+
+		protected ConcurrentBtreePage<k> getRightPage() {
+			return rightPage;
+		}
+
+		/**
+		 * @param next
+		 *   true when the object goes after the elements equal to it
+		 *
+		 * @return true if the object goes to the pages at the right of this one
+		 */
+		protected boolean isAfterPage(k object, boolean next) {
+			if (removed) {
+				return true;
+			}
+			if (highKey == null) {
+				return false;
+			}
+			int comparison = object.compareTo(highKey);
+			return comparison > 0 || (next && comparison == 0);
+		}
+
+		/**
+		 * @return position of the first node greater than or equal to the object
+		 */
+		protected int findFirstPosition(k object) {
+			int left = 0;
+			int right = nodes.length;
+			while (left < right) {
+				int mid = (left + right) >>> 1;
+				if (nodes[mid].compareTo(object) < 0) {
+					left = mid + 1;
+				} else {
+					right = mid;
+				}
+			}
+			return left;
+		}
+
+		/**
+		 * @return position of the first node greater than the object
+		 */
+		protected int findNextPosition(k object) {
+			int left = 0;
+			int right = nodes.length;
+			while (left < right) {
+				int mid = (left + right) >>> 1;
+				if (nodes[mid].compareTo(object) <= 0) {
+					left = mid + 1;
+				} else {
+					right = mid;
+				}
+			}
+			return left;
+		}
+
+		/**
+		 * @return position of the offspring page or -1 if it is not in this page
+		 */
+		protected int findOffspringPage(ConcurrentBtreePage<k> page) {
+			for (int i = 0; i < offspringPages.length; i++) {
+				if (offspringPages[i] == page) {
+					return i;
+				}
+			}
+			return -1;
+		}
+
+		/**
+		 * @param page
+		 *   page which goes after the object, null in the leaves
+		 *
+		 * @return a copy of the version with the object in the position
+		 */
+		protected Version<k> insert(int position, k object, ConcurrentBtreePage<k> page) {
+			//noinspection unchecked
+			k[] newNodes = (k[]) new Comparable[nodes.length + 1];
+			System.arraycopy(nodes, 0, newNodes, 0, position);
+			newNodes[position] = object;
+			System.arraycopy(nodes, position, newNodes, position + 1, nodes.length - position);
+			ConcurrentBtreePage<k>[] newPages = null;
+			if (!isLeave()) {
+				//noinspection unchecked
+				newPages = new ConcurrentBtreePage[offspringPages.length + 1];
+				System.arraycopy(offspringPages, 0, newPages, 0, position + 1);
+				newPages[position + 1] = page;
+				System.arraycopy(offspringPages, position + 1, newPages, position + 2,
+				                 offspringPages.length - position - 1);
+			}
+			return new Version<>(newNodes, newPages, highKey, rightPage);
+		}
+
+		/**
+		 * @return a copy of the version of a leave without the node in the position
+		 */
+		protected Version<k> remove(int position) {
+			//noinspection unchecked
+			k[] newNodes = (k[]) new Comparable[nodes.length - 1];
+			System.arraycopy(nodes, 0, newNodes, 0, position);
+			System.arraycopy(nodes, position + 1, newNodes, position, newNodes.length - position);
+			return new Version<>(newNodes, null, highKey, rightPage);
+		}
+
+		/**
+		 * @return a copy of the version without the first offspring page and the node after it
+		 */
+		protected Version<k> removeFirstPage() {
+			return new Version<>(Arrays.copyOfRange(nodes, 1, nodes.length),
+			                     Arrays.copyOfRange(offspringPages, 1, offspringPages.length),
+			                     highKey, rightPage);
+		}
+
+		/**
+		 * @return the version of the page when it is unlinked from the tree
+		 */
+		protected Version<k> removePage() {
+			//noinspection unchecked
+			return new Version<>((k[]) new Comparable[0], null, null, rightPage, true);
+		}
+	}
+
+}
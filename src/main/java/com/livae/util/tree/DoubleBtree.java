@@ -0,0 +1,147 @@
+package com.livae.util.tree;
+
+import java.util.NoSuchElementException;
+import java.util.concurrent.Executor;
+
+/**
+ * {@link Btree} of double elements, they are kept in arrays of primitives in the pages.
+ */
+public class DoubleBtree extends AbstractBtree<DoubleBtreePage, double[]> {
+
+	public DoubleBtree() {
+		this(NODES_PER_PAGE);
+	}
+
+	public DoubleBtree(int nodesPerPage) {
+		super(nodesPerPage);
+	}
+
+	private DoubleBtree(DoubleBtree treeToClone) {
+		super(treeToClone);
+	}
+
+	public DoubleBtree clone() {
+		return new DoubleBtree(this);
+	}
+
+	public static DoubleBtree fromSorted(double[] sorted) {
+		return fromSorted(sorted, NODES_PER_PAGE, null);
+	}
+
+	/**
+	 * Builds a tree from the levels of the leaves up, with pages as full as the minimum size of
+	 * their siblings allows. It takes linear time instead of adding the elements one by one.
+	 *
+	 * @param sorted
+	 *   elements sorted in ascending order
+	 * @param executor
+	 *   executor to build the leaves of big arrays in parallel, null to build them in the calling
+	 *   thread
+	 */
+	public static DoubleBtree fromSorted(double[] sorted, int nodesPerPage, Executor executor) {
+		DoubleBtree btree = new DoubleBtree(nodesPerPage);
+		btree.addSorted(sorted, executor);
+		return btree;
+	}
+
+	public void add(double object) {
+		setSize(getSize() + 1);
+		getRoot().add(object);
+	}
+
+	public void addAll(double[] sorted) {
+		addSorted(sorted, null);
+	}
+
+	/**
+	 * Adds the elements of a sorted array. When they are many compared with the elements of the
+	 * tree both are merged and the tree is built again, otherwise they are added one by one.
+	 *
+	 * @param sorted
+	 *   elements sorted in ascending order
+	 * @param executor
+	 *   executor to build the leaves in parallel, null to build them in the calling thread
+	 */
+	public void addAll(double[] sorted, Executor executor) {
+		addSorted(sorted, executor);
+	}
+
+	/**
+	 * @throws NoSuchElementException
+	 *   if the tree is empty
+	 */
+	public double getFirst() {
+		if (isEmpty()) {
+			throw new NoSuchElementException("The tree is empty");
+		}
+		DoubleBtreePage firstPage = getRoot().getFirstPage();
+		double object = firstPage.getFirstFromPage();
+		if (firstPage.remove(object)) {
+			setSize(getSize() - 1);
+		}
+		return object;
+	}
+
+	/**
+	 * @throws NoSuchElementException
+	 *   if the tree is empty
+	 */
+	public double peekFirst() {
+		if (isEmpty()) {
+			throw new NoSuchElementException("The tree is empty");
+		}
+		return getRoot().getFirstPage().getFirstFromPage();
+	}
+
+	public void remove(double object) {
+		if (getRoot().remove(object)) {
+			setSize(getSize() - 1);
+		}
+	}
+
+	public void visitInOrder(DoubleBtreeVisitor visitor) {
+		getRoot().visitInOrder(visitor, 0);
+	}
+
+	@Override
+	protected double[] newArray(int length) {
+		return new double[length];
+	}
+
+	@Override
+	protected DoubleBtreePage[] newPages(int length) {
+		return new DoubleBtreePage[length];
+	}
+
+	@Override
+	protected int compare(double[] x, int i, double[] y, int j) {
+		return Double.compare(x[i], y[j]);
+	}
+
+	@Override
+	protected void copyNode(DoubleBtreePage page, int position, double[] elements, int index) {
+		elements[index] = page.getNode(position);
+	}
+
+	@Override
+	protected void fill(DoubleBtreePage page, double[] sorted, int from, int count) {
+		page.fill(sorted, from, count);
+	}
+
+	@Override
+	protected void fill(DoubleBtreePage page, DoubleBtreePage[] pages, double[] separators,
+	                    int from, int count) {
+		page.fill(pages, separators, from, count);
+	}
+
+	@Override
+	protected void add(double[] elements, int index) {
+		add(elements[index]);
+	}
+
+	@Override
+	protected DoubleBtreePage createResource() {
+		return new DoubleBtreePage(getNodesPerPage(), this);
+	}
+
+}
@@ -0,0 +1,172 @@
+package com.livae.util.tree;
+
+import com.livae.util.ResourcesFactory;
+
+/**
+ * Page of a {@link DoubleBtree}, the elements are kept in an array of primitives.
+ */
+public class DoubleBtreePage extends AbstractBtreePage<DoubleBtreePage> {
+
+	private double[] nodes;
+
+	protected DoubleBtreePage(int numberOfNodes,
+	                          ResourcesFactory<DoubleBtreePage> resourcesFactory) {
+		super(numberOfNodes, resourcesFactory);
+		nodes = new double[numberOfNodes + 1];
+	}
+
+	private DoubleBtreePage(DoubleBtreePage pageToClone, DoubleBtreePage parentPage,
+	                      ResourcesFactory<DoubleBtreePage> resourcesFactory) {
+		super(pageToClone, parentPage, resourcesFactory);
+		nodes = pageToClone.nodes.clone();
+	}
+
+	@Override
+	protected DoubleBtreePage clone(DoubleBtreePage parentPage,
+	                              ResourcesFactory<DoubleBtreePage> resourcesFactory) {
+		return new DoubleBtreePage(this, parentPage, resourcesFactory);
+	}
+
+	@Override
+	protected void copyNodes(int from, DoubleBtreePage page, int to, int length) {
+		System.arraycopy(nodes, from, page.nodes, to, length);
+	}
+
+	@Override
+	protected void clearNodes(int from, int to) {
+		// primitives do not keep references
+	}
+
+	@Override
+	protected String getNodeString(int position) {
+		return String.valueOf(nodes[position]);
+	}
+
+	public void visitInOrder(DoubleBtreeVisitor visitor, int deep) {
+		int size = getSize();
+		for (int i = 0; i < size; i++) {
+			if (getOffspringPage(i) != null) {
+				getOffspringPage(i).visitInOrder(visitor, deep + 1);
+			}
+			visitor.visit(nodes[i], deep);
+		}
+		if (getOffspringPage(size) != null) {
+			getOffspringPage(size).visitInOrder(visitor, deep + 1);
+		}
+	}
+
+	protected double getNode(int position) {
+		return nodes[position];
+	}
+
+	/**
+	 * Fills an empty page as a leave with consecutive elements of a sorted array. The page is the
+	 * root until it is added to a parent.
+	 */
+	protected void fill(double[] sorted, int from, int count) {
+		System.arraycopy(sorted, from, nodes, 0, count);
+		fillLeave(count);
+	}
+
+	/**
+	 * Fills an empty page with consecutive pages of the level below and the nodes which separate
+	 * them, the separator i goes between the pages i and i + 1.
+	 */
+	protected void fill(DoubleBtreePage[] pages, double[] separators, int from, int count) {
+		System.arraycopy(separators, from, nodes, 0, count - 1);
+		fillParent(pages, from, count);
+	}
+
+	protected double getFirstFromPage() {
+		return nodes[0];
+	}
+
+	private int findOne(double object) {
+		int left = 0;
+		int right = getSize() - 1;
+		int mid = (left + right + 1) / 2;
+		int comparison;
+		while (left <= right && (comparison = Double.compare(nodes[mid], object)) != 0) {
+			if (comparison < 0) {
+				left = mid + 1;
+			} else { // comparison > 0
+				right = mid - 1;
+			}
+			mid = (left + right + 1) / 2;
+		}
+		return mid;
+	}
+
+	protected int findFirstPosition(double object) {
+		int pos = findOne(object);
+		while (pos > 0 && Double.compare(nodes[pos - 1], object) == 0) {
+			pos--;
+		}
+		return pos;
+	}
+
+	protected int findNextPosition(double object) {
+		int pos = findOne(object);
+		int size = getSize();
+		while (pos < size && Double.compare(nodes[pos], object) == 0) {
+			pos++;
+		}
+		return pos;
+	}
+
+	protected boolean contains(double object) {
+		return contains(findFirstPosition(object), object);
+	}
+
+	private boolean contains(int initialSearchPosition, double object) {
+		int pos = initialSearchPosition;
+		int size = getSize();
+		if (pos < size && Double.compare(nodes[pos], object) == 0) {
+			return true;
+		}
+		while (pos < size && Double.compare(nodes[pos], object) == 0) {
+			if (getOffspringPage(pos).contains(object)) {
+				return true;
+			}
+			pos++;
+			if (pos < size && Double.compare(nodes[pos], object) == 0) {
+				return true;
+			}
+		}
+		return !isLeave() && getOffspringPage(pos).contains(object);
+	}
+
+	public void add(double object) {
+		int pos = getSize() == 0 ? 0 : findNextPosition(object);
+		if (isLeave()) {
+			nodes[nodes.length - 1] = object;
+			insertInLeave(pos);
+		} else {
+			getOffspringPage(pos).add(object);
+		}
+	}
+
+	protected boolean remove(double object) {
+		return remove(findFirstPosition(object), object);
+	}
+
+	private boolean remove(int initialSearchPosition, double object) {
+		int pos = initialSearchPosition;
+		int size = getSize();
+		if (pos < size && Double.compare(nodes[pos], object) == 0) {
+			removeFromThisPage(pos);
+			return true;
+		}
+		while (pos < size && Double.compare(nodes[pos], object) == 0) {
+			if (getOffspringPage(pos).remove(object)) {
+				return true;
+			}
+			pos++;
+			if (pos < size && Double.compare(nodes[pos], object) == 0) {
+				removeFromThisPage(pos);
+				return true;
+			}
+		}
+		return !isLeave() && getOffspringPage(pos).remove(object);
+	}
+}
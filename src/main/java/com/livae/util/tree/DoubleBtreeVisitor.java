@@ -0,0 +1,7 @@
+package com.livae.util.tree;
+
+public interface DoubleBtreeVisitor {
+
+	public void visit(double object, int deep);
+
+}
@@ -0,0 +1,147 @@
+package com.livae.util.tree;
+
+import java.util.NoSuchElementException;
+import java.util.concurrent.Executor;
+
+/**
+ * {@link Btree} of int elements, they are kept in arrays of primitives in the pages.
+ */
+public class IntBtree extends AbstractBtree<IntBtreePage, int[]> {
+
+	public IntBtree() {
+		this(NODES_PER_PAGE);
+	}
+
+	public IntBtree(int nodesPerPage) {
+		super(nodesPerPage);
+	}
+
+	private IntBtree(IntBtree treeToClone) {
+		super(treeToClone);
+	}
+
+	public IntBtree clone() {
+		return new IntBtree(this);
+	}
+
+	public static IntBtree fromSorted(int[] sorted) {
+		return fromSorted(sorted, NODES_PER_PAGE, null);
+	}
+
+	/**
+	 * Builds a tree from the levels of the leaves up, with pages as full as the minimum size of
+	 * their siblings allows. It takes linear time instead of adding the elements one by one.
+	 *
+	 * @param sorted
+	 *   elements sorted in ascending order
+	 * @param executor
+	 *   executor to build the leaves of big arrays in parallel, null to build them in the calling
+	 *   thread
+	 */
+	public static IntBtree fromSorted(int[] sorted, int nodesPerPage, Executor executor) {
+		IntBtree btree = new IntBtree(nodesPerPage);
+		btree.addSorted(sorted, executor);
+		return btree;
+	}
+
+	public void add(int object) {
+		setSize(getSize() + 1);
+		getRoot().add(object);
+	}
+
+	public void addAll(int[] sorted) {
+		addSorted(sorted, null);
+	}
+
+	/**
+	 * Adds the elements of a sorted array. When they are many compared with the elements of the
+	 * tree both are merged and the tree is built again, otherwise they are added one by one.
+	 *
+	 * @param sorted
+	 *   elements sorted in ascending order
+	 * @param executor
+	 *   executor to build the leaves in parallel, null to build them in the calling thread
+	 */
+	public void addAll(int[] sorted, Executor executor) {
+		addSorted(sorted, executor);
+	}
+
+	/**
+	 * @throws NoSuchElementException
+	 *   if the tree is empty
+	 */
+	public int getFirst() {
+		if (isEmpty()) {
+			throw new NoSuchElementException("The tree is empty");
+		}
+		IntBtreePage firstPage = getRoot().getFirstPage();
+		int object = firstPage.getFirstFromPage();
+		if (firstPage.remove(object)) {
+			setSize(getSize() - 1);
+		}
+		return object;
+	}
+
+	/**
+	 * @throws NoSuchElementException
+	 *   if the tree is empty
+	 */
+	public int peekFirst() {
+		if (isEmpty()) {
+			throw new NoSuchElementException("The tree is empty");
+		}
+		return getRoot().getFirstPage().getFirstFromPage();
+	}
+
+	public void remove(int object) {
+		if (getRoot().remove(object)) {
+			setSize(getSize() - 1);
+		}
+	}
+
+	public void visitInOrder(IntBtreeVisitor visitor) {
+		getRoot().visitInOrder(visitor, 0);
+	}
+
+	@Override
+	protected int[] newArray(int length) {
+		return new int[length];
+	}
+
+	@Override
+	protected IntBtreePage[] newPages(int length) {
+		return new IntBtreePage[length];
+	}
+
+	@Override
+	protected int compare(int[] x, int i, int[] y, int j) {
+		return Integer.compare(x[i], y[j]);
+	}
+
+	@Override
+	protected void copyNode(IntBtreePage page, int position, int[] elements, int index) {
+		elements[index] = page.getNode(position);
+	}
+
+	@Override
+	protected void fill(IntBtreePage page, int[] sorted, int from, int count) {
+		page.fill(sorted, from, count);
+	}
+
+	@Override
+	protected void fill(IntBtreePage page, IntBtreePage[] pages, int[] separators,
+	                    int from, int count) {
+		page.fill(pages, separators, from, count);
+	}
+
+	@Override
+	protected void add(int[] elements, int index) {
+		add(elements[index]);
+	}
+
+	@Override
+	protected IntBtreePage createResource() {
+		return new IntBtreePage(getNodesPerPage(), this);
+	}
+
+}
@@ -0,0 +1,7 @@
+package com.livae.util.tree;
+
+public interface IntBtreeVisitor {
+
+	public void visit(int object, int deep);
+
+}
@@ -0,0 +1,147 @@
+package com.livae.util.tree;
+
+import java.util.NoSuchElementException;
+import java.util.concurrent.Executor;
+
+/**
+ * {@link Btree} of long elements, they are kept in arrays of primitives in the pages.
+ */
+public class LongBtree extends AbstractBtree<LongBtreePage, long[]> {
+
+	public LongBtree() {
+		this(NODES_PER_PAGE);
+	}
+
+	public LongBtree(int nodesPerPage) {
+		super(nodesPerPage);
+	}
+
+	private LongBtree(LongBtree treeToClone) {
+		super(treeToClone);
+	}
+
+	public LongBtree clone() {
+		return new LongBtree(this);
+	}
+
+	public static LongBtree fromSorted(long[] sorted) {
+		return fromSorted(sorted, NODES_PER_PAGE, null);
+	}
+
+	/**
+	 * Builds a tree from the levels of the leaves up, with pages as full as the minimum size of
+	 * their siblings allows. It takes linear time instead of adding the elements one by one.
+	 *
+	 * @param sorted
+	 *   elements sorted in ascending order
+	 * @param executor
+	 *   executor to build the leaves of big arrays in parallel, null to build them in the calling
+	 *   thread
+	 */
+	public static LongBtree fromSorted(long[] sorted, int nodesPerPage, Executor executor) {
+		LongBtree btree = new LongBtree(nodesPerPage);
+		btree.addSorted(sorted, executor);
+		return btree;
+	}
+
+	public void add(long object) {
+		setSize(getSize() + 1);
+		getRoot().add(object);
+	}
+
+	public void addAll(long[] sorted) {
+		addSorted(sorted, null);
+	}
+
+	/**
+	 * Adds the elements of a sorted array. When they are many compared with the elements of the
+	 * tree both are merged and the tree is built again, otherwise they are added one by one.
+	 *
+	 * @param sorted
+	 *   elements sorted in ascending order
+	 * @param executor
+	 *   executor to build the leaves in parallel, null to build them in the calling thread
+	 */
+	public void addAll(long[] sorted, Executor executor) {
+		addSorted(sorted, executor);
+	}
+
+	/**
+	 * @throws NoSuchElementException
+	 *   if the tree is empty
+	 */
+	public long getFirst() {
+		if (isEmpty()) {
+			throw new NoSuchElementException("The tree is empty");
+		}
+		LongBtreePage firstPage = getRoot().getFirstPage();
+		long object = firstPage.getFirstFromPage();
+		if (firstPage.remove(object)) {
+			setSize(getSize() - 1);
+		}
+		return object;
+	}
+
+	/**
+	 * @throws NoSuchElementException
+	 *   if the tree is empty
+	 */
+	public long peekFirst() {
+		if (isEmpty()) {
+			throw new NoSuchElementException("The tree is empty");
+		}
+		return getRoot().getFirstPage().getFirstFromPage();
+	}
+
+	public void remove(long object) {
+		if (getRoot().remove(object)) {
+			setSize(getSize() - 1);
+		}
+	}
+
+	public void visitInOrder(LongBtreeVisitor visitor) {
+		getRoot().visitInOrder(visitor, 0);
+	}
+
+	@Override
+	protected long[] newArray(int length) {
+		return new long[length];
+	}
+
+	@Override
+	protected LongBtreePage[] newPages(int length) {
+		return new LongBtreePage[length];
+	}
+
+	@Override
+	protected int compare(long[] x, int i, long[] y, int j) {
+		return Long.compare(x[i], y[j]);
+	}
+
+	@Override
+	protected void copyNode(LongBtreePage page, int position, long[] elements, int index) {
+		elements[index] = page.getNode(position);
+	}
+
+	@Override
+	protected void fill(LongBtreePage page, long[] sorted, int from, int count) {
+		page.fill(sorted, from, count);
+	}
+
+	@Override
+	protected void fill(LongBtreePage page, LongBtreePage[] pages, long[] separators,
+	                    int from, int count) {
+		page.fill(pages, separators, from, count);
+	}
+
+	@Override
+	protected void add(long[] elements, int index) {
+		add(elements[index]);
+	}
+
+	@Override
+	protected LongBtreePage createResource() {
+		return new LongBtreePage(getNodesPerPage(), this);
+	}
+
+}
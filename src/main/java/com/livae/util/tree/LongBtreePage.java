@@ -0,0 +1,171 @@
+package com.livae.util.tree;
+
+import com.livae.util.ResourcesFactory;
+
+/**
+ * Page of a {@link LongBtree}, the elements are kept in an array of primitives.
+ */
+public class LongBtreePage extends AbstractBtreePage<LongBtreePage> {
+
+	private long[] nodes;
+
+	protected LongBtreePage(int numberOfNodes, ResourcesFactory<LongBtreePage> resourcesFactory) {
+		super(numberOfNodes, resourcesFactory);
+		nodes = new long[numberOfNodes + 1];
+	}
+
+	private LongBtreePage(LongBtreePage pageToClone, LongBtreePage parentPage,
+	                      ResourcesFactory<LongBtreePage> resourcesFactory) {
+		super(pageToClone, parentPage, resourcesFactory);
+		nodes = pageToClone.nodes.clone();
+	}
+
+	@Override
+	protected LongBtreePage clone(LongBtreePage parentPage,
+	                              ResourcesFactory<LongBtreePage> resourcesFactory) {
+		return new LongBtreePage(this, parentPage, resourcesFactory);
+	}
+
+	@Override
+	protected void copyNodes(int from, LongBtreePage page, int to, int length) {
+		System.arraycopy(nodes, from, page.nodes, to, length);
+	}
+
+	@Override
+	protected void clearNodes(int from, int to) {
+		// primitives do not keep references
+	}
+
+	@Override
+	protected String getNodeString(int position) {
+		return String.valueOf(nodes[position]);
+	}
+
+	public void visitInOrder(LongBtreeVisitor visitor, int deep) {
+		int size = getSize();
+		for (int i = 0; i < size; i++) {
+			if (getOffspringPage(i) != null) {
+				getOffspringPage(i).visitInOrder(visitor, deep + 1);
+			}
+			visitor.visit(nodes[i], deep);
+		}
+		if (getOffspringPage(size) != null) {
+			getOffspringPage(size).visitInOrder(visitor, deep + 1);
+		}
+	}
+
+	protected long getNode(int position) {
+		return nodes[position];
+	}
+
+	/**
+	 * Fills an empty page as a leave with consecutive elements of a sorted array. The page is the
+	 * root until it is added to a parent.
+	 */
+	protected void fill(long[] sorted, int from, int count) {
+		System.arraycopy(sorted, from, nodes, 0, count);
+		fillLeave(count);
+	}
+
+	/**
+	 * Fills an empty page with consecutive pages of the level below and the nodes which separate
+	 * them, the separator i goes between the pages i and i + 1.
+	 */
+	protected void fill(LongBtreePage[] pages, long[] separators, int from, int count) {
+		System.arraycopy(separators, from, nodes, 0, count - 1);
+		fillParent(pages, from, count);
+	}
+
+	protected long getFirstFromPage() {
+		return nodes[0];
+	}
+
+	private int findOne(long object) {
+		int left = 0;
+		int right = getSize() - 1;
+		int mid = (left + right + 1) / 2;
+		long node;
+		while (left <= right && (node = nodes[mid]) != object) {
+			if (node < object) {
+				left = mid + 1;
+			} else { // node > object
+				right = mid - 1;
+			}
+			mid = (left + right + 1) / 2;
+		}
+		return mid;
+	}
+
+	protected int findFirstPosition(long object) {
+		int pos = findOne(object);
+		while (pos > 0 && nodes[pos - 1] == object) {
+			pos--;
+		}
+		return pos;
+	}
+
+	protected int findNextPosition(long object) {
+		int pos = findOne(object);
+		int size = getSize();
+		while (pos < size && nodes[pos] == object) {
+			pos++;
+		}
+		return pos;
+	}
+
+	protected boolean contains(long object) {
+		return contains(findFirstPosition(object), object);
+	}
+
+	private boolean contains(int initialSearchPosition, long object) {
+		int pos = initialSearchPosition;
+		int size = getSize();
+		if (pos < size && nodes[pos] == object) {
+			return true;
+		}
+		while (pos < size && nodes[pos] == object) {
+			if (getOffspringPage(pos).contains(object)) {
+				return true;
+			}
+			pos++;
+			if (pos < size && nodes[pos] == object) {
+				return true;
+			}
+		}
+		return !isLeave() && getOffspringPage(pos).contains(object);
+	}
+
+	public void add(long object) {
+		int pos = getSize() == 0 ? 0 : findNextPosition(object);
+		if (isLeave()) {
+			nodes[nodes.length - 1] = object;
+			insertInLeave(pos);
+		} else {
+			getOffspringPage(pos).add(object);
+		}
+	}
+
+	protected boolean remove(long object) {
+		return remove(findFirstPosition(object), object);
+	}
+
+	private boolean remove(int initialSearchPosition, long object) {
+		int pos = initialSearchPosition;
+		int size = getSize();
+		if (pos < size && nodes[pos] == object) {
+			removeFromThisPage(pos);
+			return true;
+		}
+		while (pos < size && nodes[pos] == object) {
+			if (getOffspringPage(pos).remove(object)) {
+				return true;
+			}
+			pos++;
+			if (pos < size && nodes[pos] == object) {
+				removeFromThisPage(pos);
+				return true;
+			}
+		}
+		return !isLeave() && getOffspringPage(pos).remove(object);
+	}
+}
@@ -0,0 +1,7 @@
+package com.livae.util.tree;
+
+public interface LongBtreeVisitor {
+
+	public void visit(long object, int deep);
+
+}
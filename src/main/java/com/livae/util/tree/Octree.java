@@ -42,7 +42,7 @@ public class Octree<k extends Intersectable> extends ResourcesFactory<OctreeNode
 		if (root == null || !root.contains(boundingCuboid)) {
 			growRoot(boundingCuboid);
 		}
-		root.add(element, this);
+		elements.put(element, root.add(element, this));
 		elementsList.add(element);
 	}
 
@@ -78,12 +78,12 @@ public class Octree<k extends Intersectable> extends ResourcesFactory<OctreeNode
 				                 (cubPos.z < oldRootPos.z ? OctreeNode.Z_BIT : 0);
 				Vector3f oldMaxPoint = oldRoot.getMaxPoint();
 				Vector3f oldMinPoint = oldRoot.getMinPoint();
-				Vector3f midPoint = new Vector3f((numberNode & OctreeNode.X_BIT) > 0 ? oldMaxPoint.x
-				                                                                     : oldMinPoint.x,
-				                                 (numberNode & OctreeNode.Y_BIT) > 0 ? oldMaxPoint.y
-				                                                                     : oldMinPoint.y,
-				                                 (numberNode & OctreeNode.Z_BIT) > 0 ? oldMaxPoint.z
-				                                                                     : oldMinPoint.z);
+				Vector3f midPoint = new Vector3f((numberNode & OctreeNode.X_BIT) > 0 ? oldMinPoint.x
+				                                                                     : oldMaxPoint.x,
+				                                 (numberNode & OctreeNode.Y_BIT) > 0 ? oldMinPoint.y
+				                                                                     : oldMaxPoint.y,
+				                                 (numberNode & OctreeNode.Z_BIT) > 0 ? oldMinPoint.z
+				                                                                     : oldMaxPoint.z);
 				root.init(null, new Vector3f(midPoint.x - growingRate, midPoint.y - growingRate,
 				                             midPoint.z - growingRate), new Vector3f(midPoint.x +
 				                                                                     growingRate,
@@ -150,11 +150,13 @@ public class Octree<k extends Intersectable> extends ResourcesFactory<OctreeNode
 		OctreeNode<k> node = elements.get(intersectable);
 		AxisAlignedBoundingCuboid alignedBox = intersectable.getAxisAlignedBoundingCuboid();
 		if (node != null) {
-			remove(intersectable);
 			if (!node.contains(alignedBox)) {
+				remove(intersectable);
 				add(intersectable);
 			} else {
-				node.add(intersectable, this);
+				// still inside the same node, it can only go down in the tree
+				node.getObjects().remove(intersectable);
+				elements.put(intersectable, node.add(intersectable, this));
 			}
 		}
 	}
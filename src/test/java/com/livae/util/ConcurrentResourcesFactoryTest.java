@@ -0,0 +1,234 @@
+package com.livae.util;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ConcurrentResourcesFactoryTest {
+
+	private static class Resource {
+
+		private final AtomicBoolean used = new AtomicBoolean();
+	}
+
+	private static class Factory extends ConcurrentResourcesFactory<Resource> {
+
+		private final AtomicInteger created = new AtomicInteger();
+
+		Factory(int magazineSize, int maximumMagazines) {
+			super(magazineSize, maximumMagazines);
+		}
+
+		@Override
+		protected Resource createResource() {
+			created.incrementAndGet();
+			return new Resource();
+		}
+	}
+
+	@Test
+	public void testReuse() throws Exception {
+		Factory factory = new Factory(2, 1);
+		Resource first = factory.getResource();
+		Resource second = factory.getResource();
+		Resource third = factory.getResource();
+		assertNotSame(first, second);
+		factory.releaseResource(first);
+		factory.releaseResource(second);
+		// the full magazine goes to the shared stack
+		factory.releaseResource(third);
+		assertEquals(1, factory.getSharedMagazines());
+		assertSame(third, factory.getResource());
+		assertSame(second, factory.getResource());
+		assertEquals(0, factory.getSharedMagazines());
+		assertSame(first, factory.getResource());
+		assertEquals(3, factory.created.get());
+		factory.getResource();
+		assertEquals(4, factory.created.get());
+	}
+
+	@Test
+	public void testBoundedRetention() throws Exception {
+		Factory factory = new Factory(4, 2);
+		List<Resource> resources = new ArrayList<>();
+		for (int i = 0; i < 100; i++) {
+			resources.add(factory.getResource());
+		}
+		for (Resource resource : resources) {
+			factory.releaseResource(resource);
+		}
+		assertEquals(2, factory.getSharedMagazines());
+		for (int i = 0; i < 100; i++) {
+			factory.getResource();
+		}
+		// 4 of the thread and 8 of the shared magazines were kept
+		assertEquals(100 + 100 - 12, factory.created.get());
+	}
+
+	@Test
+	public void testThreads() throws Exception {
+		final Factory factory = new Factory(8, 4);
+		final AtomicBoolean failed = new AtomicBoolean();
+		Thread[] threads = new Thread[4];
+		for (int i = 0; i < threads.length; i++) {
+			final boolean producer = i % 2 == 0;
+			threads[i] = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					List<Resource> resources = new ArrayList<>();
+					for (int j = 0; j < 100000; j++) {
+						Resource resource = factory.getResource();
+						// a resource cannot be given to two threads
+						if (!resource.used.compareAndSet(false, true)) {
+							failed.set(true);
+						}
+						resources.add(resource);
+						// some threads release more resources than they take
+						if (resources.size() > (producer ? 1 : 20)) {
+							for (Resource used : resources) {
+								used.used.set(false);
+								factory.releaseResource(used);
+							}
+							resources.clear();
+						}
+					}
+				}
+			});
+			threads[i].start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		assertFalse(failed.get());
+		assertTrue(factory.getSharedMagazines() <= 4);
+	}
+
+	@Test
+	public void testCounters() throws Exception {
+		Factory factory = new Factory(4, 1);
+		List<Resource> resources = new ArrayList<>();
+		for (int i = 0; i < 10; i++) {
+			resources.add(factory.getResource());
+		}
+		for (Resource resource : resources) {
+			factory.releaseResource(resource);
+		}
+		// 4 in the magazine of the thread, 4 in the shared one and 2 discarded
+		assertEquals(8, factory.getPoolSize());
+		assertEquals(0, factory.getPoolHits());
+		assertEquals(10, factory.getPoolMisses());
+		assertEquals(2, factory.getPoolDiscarded());
+		for (int i = 0; i < 10; i++) {
+			factory.getResource();
+		}
+		assertEquals(8, factory.getPoolHits());
+		assertEquals(12, factory.getPoolMisses());
+		factory.resetPoolCounters();
+		assertEquals(0, factory.getPoolHits());
+		assertEquals(0, factory.getPoolMisses());
+		assertEquals(0, factory.getPoolDiscarded());
+		factory.getResource();
+		assertEquals(1, factory.getPoolMisses());
+	}
+
+	@Test
+	public void testCountersThreads() throws Exception {
+		final Factory factory = new Factory(8, 4);
+		factory.getResource();
+		// the counters of this thread are discounted when they are reset
+		factory.resetPoolCounters();
+		Thread[] threads = new Thread[4];
+		for (int i = 0; i < threads.length; i++) {
+			threads[i] = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					List<Resource> resources = new ArrayList<>();
+					for (int j = 0; j < 10000; j++) {
+						resources.add(factory.getResource());
+						if (resources.size() == 10) {
+							for (Resource resource : resources) {
+								factory.releaseResource(resource);
+							}
+							resources.clear();
+						}
+					}
+				}
+			});
+			threads[i].start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		// the counters of the finished threads are kept
+		assertEquals(threads.length * 10000, factory.getPoolHits() + factory.getPoolMisses());
+		assertEquals(factory.created.get() - 1, factory.getPoolMisses());
+	}
+
+	@Test
+	public void testMaximumPoolSize() throws Exception {
+		Factory factory = new Factory(4, 4);
+		releaseNew(factory, 20);
+		assertEquals(4, factory.getSharedMagazines());
+		// rounded up to 2 magazines
+		factory.setMaximumPoolSize(5);
+		assertEquals(2, factory.getSharedMagazines());
+		assertEquals(8, factory.getPoolDiscarded());
+		releaseNew(factory, 8);
+		assertEquals(2, factory.getSharedMagazines());
+		assertEquals(16, factory.getPoolDiscarded());
+		factory.setMaximumPoolSize(0);
+		assertEquals(0, factory.getSharedMagazines());
+		// the magazine of the thread is kept
+		assertEquals(4, factory.getPoolSize());
+	}
+
+	@Test
+	public void testTrim() throws Exception {
+		Factory factory = new Factory(4, 4);
+		releaseNew(factory, 12);
+		assertEquals(2, factory.getSharedMagazines());
+		factory.trimPool();
+		assertEquals(0, factory.getSharedMagazines());
+		assertEquals(8, factory.getPoolTrimmed());
+		assertEquals(4, factory.getPoolSize());
+		factory.resetPoolCounters();
+		assertEquals(0, factory.getPoolTrimmed());
+		// trimmed every 10 operations of the thread
+		factory.setTrimInterval(10);
+		releaseNew(factory, 9);
+		assertEquals(3, factory.getSharedMagazines());
+		factory.releaseResource(new Resource());
+		assertEquals(0, factory.getSharedMagazines());
+		assertEquals(12, factory.getPoolTrimmed());
+	}
+
+	@Test
+	public void testHighWaterMark() throws Exception {
+		Factory factory = new Factory(4, 4);
+		releaseNew(factory, 16);
+		assertEquals(12, factory.getPoolHighWaterMark());
+		for (int i = 0; i < 16; i++) {
+			factory.getResource();
+		}
+		assertEquals(0, factory.getSharedMagazines());
+		assertEquals(12, factory.getPoolHighWaterMark());
+		factory.resetPoolCounters();
+		assertEquals(0, factory.getPoolHighWaterMark());
+	}
+
+	private static void releaseNew(Factory factory, int resources) {
+		for (int i = 0; i < resources; i++) {
+			factory.releaseResource(new Resource());
+		}
+	}
+
+}
@@ -0,0 +1,57 @@
+package com.livae.util;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class LongHashMapTest {
+
+	@Test
+	public void testPutGetRemove() throws Exception {
+		LongHashMap<String> map = new LongHashMap<>(1);
+		assertTrue(map.isEmpty());
+		assertNull(map.put(0, "zero"));
+		assertNull(map.put(-1, "minus one"));
+		assertEquals("zero", map.put(0, "0"));
+		assertEquals(2, map.size());
+		assertEquals("0", map.get(0));
+		assertEquals("minus one", map.get(-1));
+		assertNull(map.get(1));
+		assertFalse(map.containsKey(1));
+		assertEquals("0", map.remove(0));
+		assertFalse(map.containsKey(0));
+		assertNull(map.remove(0));
+		assertEquals(1, map.size());
+		map.clear();
+		assertTrue(map.isEmpty());
+		assertNull(map.get(-1));
+	}
+
+	@Test
+	public void testRandomOperations() throws Exception {
+		Random random = new Random(0);
+		LongHashMap<Long> map = new LongHashMap<>();
+		HashMap<Long, Long> reference = new HashMap<>();
+		for (int i = 0; i < 200000; i++) {
+			// small range to get collisions in the clusters
+			long key = random.nextInt(1000) * 0x100000000L;
+			if (random.nextBoolean()) {
+				assertEquals(reference.put(key, (long) i), map.put(key, (long) i));
+			} else {
+				assertEquals(reference.remove(key), map.remove(key));
+			}
+			assertEquals(reference.size(), map.size());
+		}
+		for (Map.Entry<Long, Long> entry : reference.entrySet()) {
+			assertEquals(entry.getValue(), map.get(entry.getKey()));
+		}
+	}
+
+}
@@ -0,0 +1,50 @@
+package com.livae.util;
+
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class LongHashSetTest {
+
+	@Test
+	public void testAdd() throws Exception {
+		LongHashSet set = new LongHashSet(1);
+		assertTrue(set.isEmpty());
+		assertTrue(set.add(0));
+		assertFalse(set.add(0));
+		assertTrue(set.add(-1));
+		assertTrue(set.add(Long.MIN_VALUE));
+		assertFalse(set.add(Long.MIN_VALUE));
+		assertEquals(3, set.size());
+		assertTrue(set.contains(0));
+		assertTrue(set.contains(-1));
+		assertFalse(set.contains(1));
+		set.clear();
+		assertTrue(set.isEmpty());
+		assertFalse(set.contains(0));
+		assertFalse(set.contains(-1));
+	}
+
+	@Test
+	public void testRandomValues() throws Exception {
+		Random random = new Random(0);
+		LongHashSet set = new LongHashSet();
+		HashSet<Long> values = new HashSet<>();
+		for (int i = 0; i < 100000; i++) {
+			// small range to get repeated values
+			long value = random.nextInt(50000) * 0x100000000L;
+			assertEquals(values.add(value), set.add(value));
+		}
+		assertEquals(values.size(), set.size());
+		for (Long value : values) {
+			assertTrue(set.contains(value));
+		}
+		assertFalse(set.contains(1));
+	}
+
+}
@@ -0,0 +1,96 @@
+package com.livae.util;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class ResourcesFactoryTest {
+
+	private static class Factory extends ResourcesFactory<Object> {
+
+		@Override
+		protected Object createResource() {
+			return new Object();
+		}
+	}
+
+	private static List<Object> get(ResourcesFactory<Object> factory, int number) {
+		List<Object> resources = new ArrayList<>();
+		for (int i = 0; i < number; i++) {
+			resources.add(factory.getResource());
+		}
+		return resources;
+	}
+
+	private static void release(ResourcesFactory<Object> factory, List<Object> resources) {
+		for (Object resource : resources) {
+			factory.releaseResource(resource);
+		}
+	}
+
+	@Test
+	public void testCounters() throws Exception {
+		Factory factory = new Factory();
+		List<Object> resources = get(factory, 1000);
+		release(factory, resources);
+		assertEquals(1000, factory.getPoolSize());
+		assertEquals(1000, factory.getPoolHighWaterMark());
+		assertSame(resources.get(999), factory.getResource());
+		get(factory, 999);
+		assertEquals(1000, factory.getPoolMisses());
+		assertEquals(1000, factory.getPoolHits());
+		assertEquals(0, factory.getPoolSize());
+		factory.resetPoolCounters();
+		assertEquals(0, factory.getPoolHits());
+		assertEquals(0, factory.getPoolHighWaterMark());
+	}
+
+	@Test
+	public void testMaximumPoolSize() throws Exception {
+		Factory factory = new Factory();
+		factory.setMaximumPoolSize(100);
+		release(factory, get(factory, 150));
+		assertEquals(100, factory.getPoolSize());
+		assertEquals(50, factory.getPoolDiscarded());
+		factory.setMaximumPoolSize(10);
+		assertEquals(10, factory.getPoolSize());
+		assertEquals(140, factory.getPoolDiscarded());
+		factory.setMaximumPoolSize(0);
+		factory.releaseResource(new Object());
+		assertEquals(0, factory.getPoolSize());
+	}
+
+	@Test
+	public void testTrim() throws Exception {
+		Factory factory = new Factory();
+		release(factory, get(factory, 1000));
+		// the first trim only starts counting the idle resources
+		factory.trimPool();
+		assertEquals(1000, factory.getPoolSize());
+		// only 100 of the resources are used until the next trim
+		release(factory, get(factory, 100));
+		factory.trimPool();
+		assertEquals(100, factory.getPoolSize());
+		assertEquals(900, factory.getPoolTrimmed());
+		factory.trimPool();
+		assertEquals(0, factory.getPoolSize());
+		assertEquals(1000, factory.getPoolTrimmed());
+	}
+
+	@Test
+	public void testTrimInterval() throws Exception {
+		Factory factory = new Factory();
+		factory.setTrimInterval(50);
+		release(factory, get(factory, 1000));
+		// getting and releasing 10 resources keeps only those in the pool
+		for (int i = 0; i < 10; i++) {
+			release(factory, get(factory, 10));
+		}
+		assertEquals(10, factory.getPoolSize());
+	}
+
+}
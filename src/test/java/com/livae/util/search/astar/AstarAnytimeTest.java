@@ -0,0 +1,66 @@
+package com.livae.util.search.astar;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+public class AstarAnytimeTest {
+
+	private static final double INITIAL_WEIGHT = 3;
+
+	private static final double WEIGHT_DECREASE = 0.5;
+
+	@Test
+	public void testImprovingSolutions() throws Exception {
+		SlidingPuzzle puzzle = new SlidingPuzzle(3);
+		for (int seed = 0; seed < 10; seed++) {
+			SlidingPuzzle.Board board = puzzle.scramble(60, seed);
+			int optimal = puzzle.solveBreadthFirst(board);
+			AstarAnytime astar = new AstarAnytime(puzzle.getOperations(), puzzle.getHeuristic(),
+			                                      puzzle.createFactory(), INITIAL_WEIGHT,
+			                                      WEIGHT_DECREASE);
+			State solution = astar.start(-1, -1, board.copy());
+			assertNotNull(solution);
+			// the first solution is within the bound of the first iteration
+			assertEquals(INITIAL_WEIGHT, astar.getBound(), 0);
+			assertTrue(solution.cost <= INITIAL_WEIGHT * optimal);
+			assertTrue(puzzle.isValidPath(solution, board));
+			int cost = solution.cost;
+			while (!astar.isFinished()) {
+				solution = astar.continueAlgorithm(-1, -1);
+				assertTrue(solution.cost <= cost);
+				assertTrue(solution.cost <= astar.getBound() * optimal);
+				assertTrue(puzzle.isValidPath(solution, board));
+				cost = solution.cost;
+			}
+			assertEquals(1, astar.getWeight(), 0);
+			assertEquals(optimal, solution.cost);
+			assertTrue(puzzle.isValidPath(solution, board));
+		}
+	}
+
+	@Test
+	public void testLimitedIterations() throws Exception {
+		SlidingPuzzle puzzle = new SlidingPuzzle(3);
+		SlidingPuzzle.Board board = puzzle.scramble(60, 0);
+		int optimal = puzzle.solveBreadthFirst(board);
+		AstarAnytime astar = new AstarAnytime(puzzle.getOperations(), puzzle.getHeuristic(),
+		                                      puzzle.createFactory(), INITIAL_WEIGHT,
+		                                      WEIGHT_DECREASE);
+		// the iterations are continued a few visited states at a time
+		State solution = astar.start(-1, 10, board.copy());
+		int cost = solution == null ? Integer.MAX_VALUE : solution.cost;
+		while (!astar.isFinished()) {
+			solution = astar.continueAlgorithm(-1, 10);
+			if (solution != null) {
+				assertTrue(solution.cost <= cost);
+				cost = solution.cost;
+			}
+		}
+		assertEquals(optimal, solution.cost);
+		assertTrue(puzzle.isValidPath(solution, board));
+	}
+
+}
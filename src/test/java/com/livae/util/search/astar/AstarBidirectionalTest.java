@@ -0,0 +1,62 @@
+package com.livae.util.search.astar;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class AstarBidirectionalTest {
+
+	@Test
+	public void testOptimalSolution() throws Exception {
+		SlidingPuzzle puzzle = new SlidingPuzzle(3);
+		for (int seed = 0; seed < 10; seed++) {
+			SlidingPuzzle.Board board = puzzle.scramble(40, seed);
+			AstarBidirectional astar = createAstar(puzzle, board);
+			State solution = astar.start(-1, -1, board.copy(), puzzle.goal());
+			assertNotNull(solution);
+			assertEquals(puzzle.solveBreadthFirst(board), solution.cost);
+			assertTrue(puzzle.isValidPath(solution, board));
+		}
+	}
+
+	@Test(timeout = 10000)
+	public void testInterrupt() throws Exception {
+		// a board of the 15-puzzle too hard to be solved before the interruption
+		SlidingPuzzle puzzle = new SlidingPuzzle(4);
+		final SlidingPuzzle.Board board = puzzle.scramble(400, 0);
+		final AstarBidirectional astar = createAstar(puzzle, board);
+		final SlidingPuzzle.Board goal = puzzle.goal();
+		final CountDownLatch started = new CountDownLatch(1);
+		final AtomicBoolean interrupted = new AtomicBoolean();
+		Thread thread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				started.countDown();
+				astar.start(-1, -1, board.copy(), goal);
+				interrupted.set(Thread.currentThread().isInterrupted());
+			}
+		});
+		int activeThreads = Thread.activeCount();
+		thread.start();
+		started.await();
+		Thread.sleep(100);
+		thread.interrupt();
+		thread.join();
+		assertTrue(interrupted.get());
+		// the threads of both searches have finished
+		assertEquals(activeThreads, Thread.activeCount());
+		assertNull(astar.getBestState());
+	}
+
+	private static AstarBidirectional createAstar(SlidingPuzzle puzzle, SlidingPuzzle.Board board) {
+		return new AstarBidirectional(puzzle.getOperations(), puzzle.getHeuristic(),
+		                              puzzle.getHeuristic(board), puzzle.createFactory());
+	}
+
+}
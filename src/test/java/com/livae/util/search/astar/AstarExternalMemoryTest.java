@@ -0,0 +1,108 @@
+package com.livae.util.search.astar;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+public class AstarExternalMemoryTest {
+
+	private File directory;
+
+	@Before
+	public void setUp() throws Exception {
+		directory = File.createTempFile("astar", "");
+		//noinspection ResultOfMethodCallIgnored
+		directory.delete();
+		//noinspection ResultOfMethodCallIgnored
+		directory.mkdir();
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		File[] files = directory.listFiles();
+		if (files != null) {
+			for (File file : files) {
+				//noinspection ResultOfMethodCallIgnored
+				file.delete();
+			}
+		}
+		//noinspection ResultOfMethodCallIgnored
+		directory.delete();
+	}
+
+	@Test
+	public void testOptimalSolution() throws Exception {
+		SlidingPuzzle puzzle = new SlidingPuzzle(3);
+		for (int partitions = 1; partitions <= 4; partitions *= 2) {
+			AstarExternalMemory astar = createAstar(puzzle, partitions);
+			for (int seed = 0; seed < 5; seed++) {
+				SlidingPuzzle.Board board = puzzle.scramble(40, seed);
+				State solution = astar.start(-1, -1, board.copy());
+				assertNotNull(solution);
+				assertEquals(puzzle.solveBreadthFirst(board), solution.cost);
+				assertTrue(puzzle.isValidPath(solution, board));
+				// the files are deleted when the search finishes
+				assertEquals(0, directory.list().length);
+			}
+		}
+	}
+
+	@Test
+	public void testInitialStateNotReleased() throws Exception {
+		SlidingPuzzle puzzle = new SlidingPuzzle(3);
+		AstarExternalMemory astar = createAstar(puzzle, 2);
+		SlidingPuzzle.Board board = puzzle.scramble(30, 0);
+		String hash = board.getHash();
+		State solution = astar.start(-1, -1, board);
+		// the states taken from the pool while searching are not the initial state
+		assertEquals(hash, board.getHash());
+		assertTrue(puzzle.isValidPath(solution, board));
+	}
+
+	@Test
+	public void testContinueAlgorithm() throws Exception {
+		// the 15-puzzle has more open buckets than the files written at the same time
+		SlidingPuzzle puzzle = new SlidingPuzzle(4);
+		SlidingPuzzle.Board board = puzzle.scramble(40, 0);
+		AstarTree reference = new AstarTree(puzzle.getOperations(), puzzle.getHeuristic(),
+		                                    puzzle.createFactory());
+		int optimal = reference.start(-1, -1, board.copy()).cost;
+		AstarExternalMemory astar = createAstar(puzzle, 4);
+		long openBuckets = 0;
+		State solution = astar.start(-1, 100, board.copy());
+		while (solution == null) {
+			openBuckets = Math.max(openBuckets, astar.getMetrics().getOpenListSize());
+			solution = astar.continueAlgorithm(100);
+		}
+		assertTrue(openBuckets > 16);
+		assertEquals(optimal, solution.cost);
+		assertTrue(puzzle.isValidPath(solution, board));
+		assertEquals(0, directory.list().length);
+	}
+
+	@Test
+	public void testClose() throws Exception {
+		SlidingPuzzle puzzle = new SlidingPuzzle(3);
+		AstarExternalMemory astar = createAstar(puzzle, 2);
+		SlidingPuzzle.Board board = puzzle.scramble(40, 1);
+		astar.start(-1, 1000, board.copy());
+		astar.close();
+		assertEquals(0, directory.list().length);
+		// it can start again after it is closed
+		State solution = astar.start(-1, -1, board.copy());
+		assertEquals(puzzle.solveBreadthFirst(board), solution.cost);
+	}
+
+	private AstarExternalMemory createAstar(SlidingPuzzle puzzle, int partitions) {
+		return new AstarExternalMemory(puzzle.getOperations(), puzzle.getHeuristic(),
+		                               puzzle.createFactory(), puzzle.getSerializer(), directory,
+		                               partitions);
+	}
+
+}
@@ -0,0 +1,46 @@
+package com.livae.util.search.astar;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class AstarMemoryBoundedTest {
+
+	// far fewer than the states visited by the a-star, so states are forgotten
+	private static final int MAXIMUM_STATES = 200;
+
+	@Test
+	public void testOptimalSolution() throws Exception {
+		SlidingPuzzle puzzle = new SlidingPuzzle(3);
+		AstarMemoryBounded astar = new AstarMemoryBounded(puzzle.getOperations(),
+		                                                  puzzle.getHeuristic(),
+		                                                  puzzle.createFactory(), MAXIMUM_STATES);
+		for (int seed = 0; seed < 10; seed++) {
+			SlidingPuzzle.Board board = puzzle.scramble(40, seed);
+			State solution = astar.start(-1, -1, board.copy());
+			assertNotNull(solution);
+			assertEquals(puzzle.solveBreadthFirst(board), solution.cost);
+			assertTrue(puzzle.isValidPath(solution, board));
+		}
+	}
+
+	@Test
+	public void testContinueAlgorithm() throws Exception {
+		SlidingPuzzle puzzle = new SlidingPuzzle(3);
+		AstarMemoryBounded astar = new AstarMemoryBounded(puzzle.getOperations(),
+		                                                  puzzle.getHeuristic(),
+		                                                  puzzle.createFactory(), MAXIMUM_STATES);
+		SlidingPuzzle.Board board = puzzle.scramble(40, 3);
+		State solution = astar.start(10, board.copy());
+		assertNull(solution);
+		while (solution == null) {
+			solution = astar.continueAlgorithm(1000);
+		}
+		assertEquals(puzzle.solveBreadthFirst(board), solution.cost);
+		assertTrue(puzzle.isValidPath(solution, board));
+	}
+
+}
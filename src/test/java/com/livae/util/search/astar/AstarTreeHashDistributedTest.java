@@ -0,0 +1,126 @@
+package com.livae.util.search.astar;
+
+import com.livae.util.ResourcesFactory;
+import org.junit.Test;
+
+import java.util.Collection;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class AstarTreeHashDistributedTest {
+
+	@Test
+	public void testOptimalSolution() throws Exception {
+		SlidingPuzzle puzzle = new SlidingPuzzle(3);
+		for (int seed = 0; seed < 10; seed++) {
+			SlidingPuzzle.Board board = puzzle.scramble(40, seed);
+			int optimal = puzzle.solveBreadthFirst(board);
+			for (int threads = 2; threads <= 4; threads++) {
+				AstarTreeHashDistributed astar =
+				  new AstarTreeHashDistributed(puzzle.getOperations(), puzzle.getHeuristic(),
+				                               puzzle.createFactory(), threads);
+				State solution = astar.start(-1, -1, board.copy());
+				assertNotNull(solution);
+				assertEquals("seed " + seed + ", threads " + threads, optimal, solution.cost);
+				assertTrue(puzzle.isValidPath(solution, board));
+			}
+		}
+	}
+
+	@Test
+	public void testStartAgain() throws Exception {
+		SlidingPuzzle puzzle = new SlidingPuzzle(3);
+		AstarTreeHashDistributed astar =
+		  new AstarTreeHashDistributed(puzzle.getOperations(), puzzle.getHeuristic(),
+		                               puzzle.createFactory(), 3);
+		astar.setCheckCollisionsMode(true);
+		for (int seed = 0; seed < 5; seed++) {
+			// the states of the previous search are reused from the pool
+			SlidingPuzzle.Board board = puzzle.scramble(30, seed);
+			State solution = astar.start(-1, -1, board.copy());
+			assertEquals(puzzle.solveBreadthFirst(board), solution.cost);
+			assertTrue(puzzle.isValidPath(solution, board));
+		}
+	}
+
+	@Test
+	public void testExecutor() throws Exception {
+		SlidingPuzzle puzzle = new SlidingPuzzle(3);
+		// the pool runs all the workers except the one of the calling thread
+		ExecutorService executor = Executors.newFixedThreadPool(3);
+		try {
+			AstarTreeHashDistributed astar =
+			  new AstarTreeHashDistributed(puzzle.getOperations(),
+			                               new Heuristic[]{puzzle.getHeuristic()},
+			                               puzzle.createFactory(), 4, executor);
+			for (int seed = 0; seed < 5; seed++) {
+				SlidingPuzzle.Board board = puzzle.scramble(40, seed);
+				State solution = astar.start(-1, -1, board.copy());
+				assertEquals(puzzle.solveBreadthFirst(board), solution.cost);
+				assertTrue(puzzle.isValidPath(solution, board));
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test(timeout = 10000)
+	public void testInterrupt() throws Exception {
+		// a board of the 15-puzzle too hard to be solved before the interruption
+		SlidingPuzzle puzzle = new SlidingPuzzle(4);
+		final SlidingPuzzle.Board board = puzzle.scramble(400, 0);
+		final AtomicInteger expansions = new AtomicInteger();
+		final Operation[] puzzleOperations = puzzle.getOperations();
+		Operation[] operations = new Operation[puzzleOperations.length];
+		for (int i = 0; i < operations.length; i++) {
+			final Operation operation = puzzleOperations[i];
+			operations[i] = new Operation() {
+				@Override
+				public void apply(State state, Collection<State> offspring,
+				                  ResourcesFactory<State> factory) {
+					expansions.incrementAndGet();
+					operation.apply(state, offspring, factory);
+				}
+
+				@Override
+				public String getName() {
+					return operation.getName();
+				}
+			};
+		}
+		final AstarTreeHashDistributed astar =
+		  new AstarTreeHashDistributed(operations, puzzle.getHeuristic(), puzzle.createFactory(),
+		                               2);
+		final CountDownLatch started = new CountDownLatch(1);
+		final AtomicBoolean interrupted = new AtomicBoolean();
+		final State[] solution = new State[1];
+		Thread thread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				started.countDown();
+				solution[0] = astar.start(-1, -1, board.copy());
+				interrupted.set(Thread.currentThread().isInterrupted());
+			}
+		});
+		thread.start();
+		started.await();
+		Thread.sleep(100);
+		thread.interrupt();
+		thread.join();
+		assertTrue(interrupted.get());
+		assertNull(solution[0]);
+		// the worker of the calling thread also stops and the other one does not expand more states
+		int returnedExpansions = expansions.get();
+		Thread.sleep(100);
+		assertEquals(returnedExpansions, expansions.get());
+	}
+
+}
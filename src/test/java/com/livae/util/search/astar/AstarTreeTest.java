@@ -0,0 +1,161 @@
+package com.livae.util.search.astar;
+
+import com.livae.util.ResourcesFactory;
+import org.junit.Test;
+
+import java.util.Collection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class AstarTreeTest {
+
+	/**
+	 * Graph where the heuristic is admissible but not consistent in B. C is expanded first from A
+	 * with cost 6 and found later from B with cost 5, so it has to be opened again to find the
+	 * optimal path S B C G with cost 15.
+	 */
+	private static final String NODES = "SABCG";
+
+	private static final int[][] EDGES = {
+	  // S  A  B  C  G
+	  {0, 1, 4, 0, 0}, // S
+	  {0, 0, 0, 5, 0}, // A
+	  {0, 0, 0, 1, 0}, // B
+	  {0, 0, 0, 0, 10}, // C
+	  {0, 0, 0, 0, 0}, // G
+	};
+
+	// the goal is the only state with 0
+	private static final int[] HEURISTIC = {1, 1, 8, 1, 0};
+
+	private static final Heuristic NODE_HEURISTIC = new Heuristic() {
+		@Override
+		public int calculateHeuristic(State state) {
+			return HEURISTIC[((NodeState) state).node];
+		}
+
+		@Override
+		public String getName() {
+			return "node";
+		}
+	};
+
+	private static final Operation[] EDGE = {new Operation() {
+		@Override
+		public void apply(State state, Collection<State> offspring,
+		                  ResourcesFactory<State> factory) {
+			int node = ((NodeState) state).node;
+			for (int next = 0; next < EDGES[node].length; next++) {
+				if (EDGES[node][next] > 0) {
+					NodeState child = (NodeState) factory.getResource();
+					child.node = next;
+					child.cost = state.cost + EDGES[node][next];
+					child.parent = state;
+					child.operation = this;
+					offspring.add(child);
+				}
+			}
+		}
+
+		@Override
+		public String getName() {
+			return "edge";
+		}
+	}};
+
+	@Test
+	public void testReopenWithInconsistentHeuristic() throws Exception {
+		// with collisions all the states have the same fingerprint, so they are only told apart
+		// by their hashes
+		for (boolean collisions : new boolean[]{false, true}) {
+			AstarTree astar = createAstar(collisions);
+			astar.setOpenListType(OpenList.Type.BINARY_HEAP);
+			astar.setCheckCollisionsMode(collisions);
+			State solution = astar.start(-1, -1, createNode(0, collisions));
+			assertEquals(15, solution.cost);
+			assertEquals("SBCG", getPath(solution));
+		}
+	}
+
+	@Test
+	public void testOptimalSolutionWithDecreaseKey() throws Exception {
+		SlidingPuzzle puzzle = new SlidingPuzzle(3);
+		AstarTree astar = new AstarTree(puzzle.getOperations(), puzzle.getHeuristic(),
+		                                puzzle.createFactory());
+		astar.setOpenListType(OpenList.Type.BINARY_HEAP);
+		for (int seed = 0; seed < 5; seed++) {
+			// the expanded states of the previous search are released when it starts again
+			SlidingPuzzle.Board board = puzzle.scramble(40, seed);
+			State solution = astar.start(-1, -1, board.copy());
+			assertEquals(puzzle.solveBreadthFirst(board), solution.cost);
+			assertTrue(puzzle.isValidPath(solution, board));
+		}
+	}
+
+	@Test
+	public void testValidPathWithoutDecreaseKey() throws Exception {
+		// two heuristics, so the states are expanded from two open lists
+		SlidingPuzzle puzzle = new SlidingPuzzle(3, 2);
+		for (OpenList.Type type : new OpenList.Type[]{OpenList.Type.BTREE,
+		                                              OpenList.Type.BUCKET_FIFO}) {
+			AstarTree astar = new AstarTree(puzzle.getOperations(), puzzle.getHeuristics(),
+			                                puzzle.createFactory());
+			astar.setOpenListType(type);
+			for (int seed = 0; seed < 5; seed++) {
+				// the expanded states are the parents of the path, so they are not reused
+				SlidingPuzzle.Board board = puzzle.scramble(40, seed);
+				State solution = astar.start(-1, -1, board.copy());
+				assertTrue(type.name(), puzzle.isValidPath(solution, board));
+			}
+		}
+	}
+
+	private static AstarTree createAstar(final boolean collisions) {
+		ResourcesFactory<State> factory = new ResourcesFactory<State>() {
+			@Override
+			protected State createResource() {
+				return createNode(0, collisions);
+			}
+		};
+		return new AstarTree(EDGE, NODE_HEURISTIC, factory);
+	}
+
+	private static NodeState createNode(int node, boolean collisions) {
+		NodeState state = new NodeState(collisions);
+		state.node = node;
+		return state;
+	}
+
+	private static String getPath(State state) {
+		StringBuilder path = new StringBuilder();
+		while (state != null) {
+			path.insert(0, NODES.charAt(((NodeState) state).node));
+			state = state.parent;
+		}
+		return path.toString();
+	}
+
+	private static class NodeState extends CostState {
+
+		private final boolean collisions;
+
+		private int node;
+
+		private NodeState(boolean collisions) {
+			super(0, 0);
+			this.collisions = collisions;
+		}
+
+		@Override
+		protected String getHash() {
+			return String.valueOf(NODES.charAt(node));
+		}
+
+		@Override
+		protected long getFingerprint() {
+			return collisions ? 1 : super.getFingerprint();
+		}
+	}
+
+}
@@ -0,0 +1,181 @@
+package com.livae.util.search.astar;
+
+import com.livae.util.ResourcesFactory;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+public class AstarTreeThreadsTest {
+
+	private static final int LENGTH = 1000;
+
+	/**
+	 * Line of states where the goal is the state with cost LENGTH.
+	 */
+	private static final Operation[] NEXT = {new Operation() {
+		@Override
+		public void apply(State state, Collection<State> offspring,
+		                  ResourcesFactory<State> factory) {
+			if (state.cost < LENGTH) {
+				State next = new CostState(state.cost + 1, 0);
+				next.parent = state;
+				offspring.add(next);
+			}
+		}
+
+		@Override
+		public String getName() {
+			return "next";
+		}
+	}};
+
+	private static final Heuristic DISTANCE = new Heuristic() {
+		@Override
+		public int calculateHeuristic(State state) {
+			return LENGTH - state.cost;
+		}
+
+		@Override
+		public String getName() {
+			return "distance";
+		}
+	};
+
+	private static AstarTreeThreads createAstar(int threads, ExecutorService executor) {
+		ResourcesFactory<State> factory = new ResourcesFactory<State>() {
+			@Override
+			protected State createResource() {
+				return new CostState(0, 0);
+			}
+		};
+		return new AstarTreeThreads(NEXT, new Heuristic[]{DISTANCE}, factory, threads, executor);
+	}
+
+	@Test
+	public void testRestart() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(3);
+		try {
+			AstarTreeThreads astar = createAstar(4, executor);
+			for (int i = 0; i < 3; i++) {
+				assertEquals(LENGTH, astar.start(-1, -1, new CostState(0, 0)).cost);
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void testNoWorkerAliveAfterStart() throws Exception {
+		SlidingPuzzle puzzle = new SlidingPuzzle(4);
+		final AtomicInteger expanding = new AtomicInteger();
+		final AtomicInteger expansions = new AtomicInteger();
+		final Operation[] puzzleOperations = puzzle.getOperations();
+		Operation[] operations = new Operation[puzzleOperations.length];
+		for (int i = 0; i < operations.length; i++) {
+			final Operation operation = puzzleOperations[i];
+			operations[i] = new Operation() {
+				@Override
+				public void apply(State state, Collection<State> offspring,
+				                  ResourcesFactory<State> factory) {
+					expanding.incrementAndGet();
+					expansions.incrementAndGet();
+					try {
+						operation.apply(state, offspring, factory);
+					} finally {
+						expanding.decrementAndGet();
+					}
+				}
+
+				@Override
+				public String getName() {
+					return operation.getName();
+				}
+			};
+		}
+		final ExecutorService pool = Executors.newFixedThreadPool(3);
+		final AtomicInteger alive = new AtomicInteger();
+		Executor counting = new Executor() {
+			@Override
+			public void execute(final Runnable command) {
+				pool.execute(new Runnable() {
+					@Override
+					public void run() {
+						alive.incrementAndGet();
+						try {
+							command.run();
+						} finally {
+							alive.decrementAndGet();
+						}
+					}
+				});
+			}
+		};
+		try {
+			AstarTreeThreads astar =
+			  new AstarTreeThreads(operations, new Heuristic[]{puzzle.getHeuristic()},
+			                       puzzle.createFactory(), 4, counting);
+			for (int seed = 0; seed < 20; seed++) {
+				assertNotNull(astar.start(-1, -1, puzzle.scramble(40, seed)));
+				assertEquals(0, expanding.get());
+				int returnedExpansions = expansions.get();
+				// the tasks end after their future is done, but they must not expand more states
+				while (alive.get() > 0) {
+					Thread.yield();
+				}
+				assertEquals(returnedExpansions, expansions.get());
+			}
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	@Test
+	public void testValidPath() throws Exception {
+		SlidingPuzzle puzzle = new SlidingPuzzle(3, 2);
+		//noinspection unchecked
+		ResourcesFactory<State>[] factories =
+		  new ResourcesFactory[]{puzzle.createFactory(), puzzle.createConcurrentFactory()};
+		for (ResourcesFactory<State> factory : factories) {
+			AstarTreeThreads astar = new AstarTreeThreads(puzzle.getOperations(),
+			                                              puzzle.getHeuristics(), factory, 4);
+			for (int seed = 0; seed < 5; seed++) {
+				// the expanded states are the parents of the path, so they are not reused
+				SlidingPuzzle.Board board = puzzle.scramble(40, seed);
+				State solution = astar.start(-1, -1, board.copy());
+				assertTrue(puzzle.isValidPath(solution, board));
+			}
+		}
+	}
+
+	@Test
+	public void testSharedPool() throws Exception {
+		// less threads in the pool than workers of the searches
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			List<Future<State>> futures = new ArrayList<>();
+			for (int i = 0; i < 8; i++) {
+				AstarTreeThreads astar = createAstar(3, executor);
+				SearchHandle handle = new SearchHandle();
+				futures.add(astar.startAsync(executor, handle, -1, new CostState(0, 0)));
+			}
+			for (Future<State> future : futures) {
+				assertEquals(LENGTH, future.get(30, TimeUnit.SECONDS).cost);
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+}
@@ -0,0 +1,78 @@
+package com.livae.util.search.astar;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class BinaryHeapOpenListTest {
+
+	@Test
+	public void testGetFirst() throws Exception {
+		Random random = new Random(0);
+		BinaryHeapOpenList openList = new BinaryHeapOpenList(0);
+		List<Integer> costs = new ArrayList<>();
+		for (int i = 0; i < 1000; i++) {
+			int cost = random.nextInt(100);
+			costs.add(cost);
+			openList.add(new CostState(cost));
+		}
+		assertEquals(1000, openList.getSize());
+		Collections.sort(costs);
+		for (Integer cost : costs) {
+			assertEquals((int) cost, openList.getFirst().cost);
+		}
+		assertTrue(openList.isEmpty());
+		assertNull(openList.getFirst());
+	}
+
+	@Test
+	public void testDecreaseKey() throws Exception {
+		Random random = new Random(0);
+		BinaryHeapOpenList first = new BinaryHeapOpenList(0);
+		BinaryHeapOpenList second = new BinaryHeapOpenList(1);
+		List<CostState> states = new ArrayList<>();
+		for (int i = 0; i < 1000; i++) {
+			CostState state = new CostState(100 + random.nextInt(100));
+			states.add(state);
+			first.add(state);
+			second.add(state);
+		}
+		for (int i = 0; i < 500; i++) {
+			CostState state = states.get(random.nextInt(states.size()));
+			state.cost -= random.nextInt(100);
+			first.decreaseKey(state);
+			second.decreaseKey(state);
+		}
+		int previous = Integer.MIN_VALUE;
+		for (int i = 0; i < states.size(); i++) {
+			State state = first.getFirst();
+			assertTrue(previous <= state.cost);
+			previous = state.cost;
+		}
+		assertNull(first.getFirst());
+		previous = Integer.MIN_VALUE;
+		for (int i = 0; i < states.size(); i++) {
+			State state = second.getFirst();
+			assertTrue(previous <= state.cost);
+			previous = state.cost;
+		}
+		assertTrue(second.isEmpty());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testDecreaseKeyNotInList() throws Exception {
+		BinaryHeapOpenList openList = new BinaryHeapOpenList(0);
+		CostState state = new CostState(1);
+		openList.add(state);
+		openList.getFirst();
+		openList.decreaseKey(state);
+	}
+
+}
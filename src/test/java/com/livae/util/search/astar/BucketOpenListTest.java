@@ -0,0 +1,74 @@
+package com.livae.util.search.astar;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class BucketOpenListTest {
+
+	@Test
+	public void testGetFirst() throws Exception {
+		Random random = new Random(0);
+		BucketOpenList openList = new BucketOpenList(0, true);
+		List<CostState> states = new ArrayList<>();
+		for (int round = 0; round < 2; round++) {
+			for (int i = 0; i < 1000; i++) {
+				CostState state = new CostState(random.nextInt(100), random.nextInt(300));
+				states.add(state);
+				openList.add(state);
+			}
+			assertEquals(states.size(), openList.getSize());
+			Collections.sort(states);
+			for (CostState state : states) {
+				State first = openList.peekFirst();
+				assertSame(first, openList.getFirst());
+				assertEquals(0, state.compareTo(first));
+			}
+			states.clear();
+			assertTrue(openList.isEmpty());
+			assertNull(openList.getFirst());
+		}
+	}
+
+	@Test
+	public void testTies() throws Exception {
+		BucketOpenList lifo = new BucketOpenList(0, true);
+		BucketOpenList fifo = new BucketOpenList(0, false);
+		CostState[] states = new CostState[100];
+		for (int i = 0; i < states.length; i++) {
+			states[i] = new CostState(5, 5);
+			lifo.add(states[i]);
+			fifo.add(states[i]);
+		}
+		// a lower heuristic with the same f goes first
+		CostState lower = new CostState(8, 2);
+		lifo.add(lower);
+		fifo.add(lower);
+		assertSame(lower, lifo.getFirst());
+		assertSame(lower, fifo.getFirst());
+		for (int i = 0; i < states.length; i++) {
+			assertSame(states[states.length - 1 - i], lifo.getFirst());
+			assertSame(states[i], fifo.getFirst());
+			// keep adding states to the fifo queue while it is consumed
+			fifo.add(states[i]);
+		}
+		for (CostState state : states) {
+			assertSame(state, fifo.getFirst());
+		}
+		assertTrue(fifo.isEmpty());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNegativeHeuristic() throws Exception {
+		new BucketOpenList(0, true).add(new CostState(1, -2));
+	}
+
+}
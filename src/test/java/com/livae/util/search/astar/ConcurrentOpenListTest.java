@@ -0,0 +1,56 @@
+package com.livae.util.search.astar;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ConcurrentOpenListTest {
+
+	private static final int THREADS = 4;
+
+	@Test
+	public void testConcurrentAddGetFirst() throws Exception {
+		final ConcurrentOpenList openList = new ConcurrentOpenList(THREADS * 2,
+		                                                           OpenList.Type.BINARY_HEAP, 0);
+		final AtomicInteger taken = new AtomicInteger();
+		final AtomicInteger negativeSizes = new AtomicInteger();
+		Thread[] threads = new Thread[THREADS];
+		for (int i = 0; i < threads.length; i++) {
+			threads[i] = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					for (int j = 0; j < 20000; j++) {
+						openList.add(new CostState(j % 100));
+						if (openList.getSize() < 0) {
+							negativeSizes.incrementAndGet();
+						}
+						if (j % 2 == 0 && openList.getFirst() != null) {
+							taken.incrementAndGet();
+						}
+						if (openList.getSize() < 0) {
+							negativeSizes.incrementAndGet();
+						}
+					}
+				}
+			});
+			threads[i].start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		assertEquals(0, negativeSizes.get());
+		assertEquals(THREADS * 20000 - taken.get(), openList.getSize());
+		int left = 0;
+		while (openList.getFirst() != null) {
+			left++;
+		}
+		assertEquals(THREADS * 20000, taken.get() + left);
+		assertTrue(openList.isEmpty());
+		assertNull(openList.getFirst());
+	}
+
+}
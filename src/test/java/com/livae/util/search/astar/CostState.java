@@ -0,0 +1,38 @@
+package com.livae.util.search.astar;
+
+/**
+ * State with only a cost and heuristics, sorted by f and then by the heuristic of the first
+ * heuristic.
+ */
+class CostState extends State {
+
+	CostState(int cost) {
+		this(cost, 0);
+	}
+
+	CostState(int cost, int... heuristic) {
+		this.cost = cost;
+		this.heuristic = heuristic;
+	}
+
+	@Override
+	protected String getHash() {
+		return cost + " " + heuristic[0];
+	}
+
+	@Override
+	public String toString() {
+		return getHash();
+	}
+
+	@Override
+	public int compareTo(State o) {
+		int value = cost + heuristic[0];
+		int otherValue = o.cost + o.heuristic[0];
+		if (value != otherValue) {
+			return value < otherValue ? -1 : 1;
+		}
+		return Integer.compare(heuristic[0], o.heuristic[0]);
+	}
+
+}
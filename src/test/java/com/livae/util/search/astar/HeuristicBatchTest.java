@@ -0,0 +1,69 @@
+package com.livae.util.search.astar;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class HeuristicBatchTest {
+
+	private static final Heuristic COST = new Heuristic() {
+		@Override
+		public int calculateHeuristic(State state) {
+			return state.cost;
+		}
+
+		@Override
+		public String getName() {
+			return "cost";
+		}
+	};
+
+	private static final BatchHeuristic DOUBLE_COST = new BatchHeuristic() {
+		@Override
+		public void calculateHeuristics(State[] states, int size, int[] heuristics) {
+			for (int i = 0; i < size; i++) {
+				heuristics[i] = states[i].cost * 2;
+			}
+		}
+
+		@Override
+		public int calculateHeuristic(State state) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public String getName() {
+			return "double cost";
+		}
+	};
+
+	@Test
+	public void testCalculate() throws Exception {
+		HeuristicBatch batch = new HeuristicBatch();
+		for (int i = 0; i < 100; i++) {
+			batch.add(new CostState(i, 0, 0));
+		}
+		batch.calculate(COST, 0);
+		batch.calculate(DOUBLE_COST, 1);
+		assertEquals(100, batch.size());
+		for (int i = 0; i < 100; i++) {
+			State state = batch.get(i);
+			assertEquals(i, state.heuristic[0]);
+			assertEquals(i * 2, state.heuristic[1]);
+		}
+	}
+
+	@Test
+	public void testClear() throws Exception {
+		HeuristicBatch batch = new HeuristicBatch();
+		CostState state = new CostState(1);
+		batch.add(state);
+		assertTrue(batch.contains(state));
+		batch.clear();
+		assertEquals(0, batch.size());
+		assertFalse(batch.contains(state));
+	}
+
+}
@@ -0,0 +1,76 @@
+package com.livae.util.search.astar;
+
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ListTest {
+
+	@Test
+	public void testGetFirst() throws Exception {
+		List list = new List(2);
+		CostState first = new CostState(0, 1, 9);
+		CostState second = new CostState(0, 9, 1);
+		CostState third = new CostState(0, 5, 5);
+		list.add(third);
+		list.add(first);
+		list.add(second);
+		assertEquals(3, list.getSize());
+		// the heuristics are used in turns
+		assertSame(first, list.peekFirst());
+		assertSame(first, list.getFirst());
+		assertSame(second, list.getFirst());
+		assertSame(third, list.getFirst());
+		assertTrue(list.isEmpty());
+		assertNull(list.getFirst());
+	}
+
+	@Test
+	public void testRandomStates() throws Exception {
+		Random random = new Random(0);
+		List list = new List(3);
+		Set<State> states = new HashSet<>();
+		for (int i = 0; i < 1000; i++) {
+			CostState state = new CostState(random.nextInt(50), random.nextInt(50),
+			                                random.nextInt(50), random.nextInt(50));
+			states.add(state);
+			list.add(state);
+		}
+		int heuristic = 0;
+		int[] previous = new int[3];
+		while (!list.isEmpty()) {
+			State state = list.getFirst();
+			// every state is returned only once
+			assertTrue(states.remove(state));
+			int value = state.cost + state.heuristic[heuristic];
+			assertTrue(previous[heuristic] <= value);
+			for (State other : states) {
+				assertTrue(value <= other.cost + other.heuristic[heuristic]);
+			}
+			previous[heuristic] = value;
+			heuristic = (heuristic + 1) % 3;
+		}
+		assertTrue(states.isEmpty());
+	}
+
+	@Test
+	public void testDecreaseKey() throws Exception {
+		List list = new List(2);
+		CostState first = new CostState(10, 1, 1);
+		CostState second = new CostState(5, 1, 1);
+		list.add(first);
+		list.add(second);
+		first.cost = 1;
+		list.decreaseKey(first);
+		assertSame(first, list.getFirst());
+		assertSame(second, list.getFirst());
+	}
+
+}
@@ -0,0 +1,121 @@
+package com.livae.util.search.astar;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import static org.junit.Assert.assertEquals;
+
+public class PatternDatabaseTest {
+
+	/**
+	 * Ring of states where the goal is the rank 0, the last ranks are not in the ring.
+	 */
+	private static class RingPattern implements Pattern {
+
+		private final int ring;
+
+		private final int size;
+
+		RingPattern(int ring, int size) {
+			this.ring = ring;
+			this.size = size;
+		}
+
+		@Override
+		public long size() {
+			return size;
+		}
+
+		@Override
+		public long rank(State state) {
+			return state.cost;
+		}
+
+		@Override
+		public long[] getGoals() {
+			return new long[]{0};
+		}
+
+		@Override
+		public int getMaximumPredecessors() {
+			return 2;
+		}
+
+		@Override
+		public int getPredecessors(long rank, long[] predecessors) {
+			predecessors[0] = (rank + 1) % ring;
+			predecessors[1] = (rank + ring - 1) % ring;
+			return 2;
+		}
+
+		@Override
+		public String getName() {
+			return "ring";
+		}
+	}
+
+	@Test
+	public void testBuild() throws Exception {
+		File file = File.createTempFile("pattern", ".pdb");
+		try {
+			RingPattern pattern = new RingPattern(10001, 10010);
+			PatternDatabase database = PatternDatabase.build(pattern, file, 4);
+			checkDatabase(database, 10001, 10010);
+			checkDatabase(PatternDatabase.open(file), 10001, 10010);
+		} finally {
+			//noinspection ResultOfMethodCallIgnored
+			file.delete();
+		}
+	}
+
+	@Test
+	public void testHeuristic() throws Exception {
+		File file = File.createTempFile("pattern", ".pdb");
+		try {
+			RingPattern pattern = new RingPattern(21, 21);
+			PatternDatabase database = PatternDatabase.build(pattern, file, 1);
+			PatternDatabaseHeuristic heuristic = new PatternDatabaseHeuristic(pattern, database);
+			assertEquals(0, heuristic.calculateHeuristic(new CostState(0)));
+			assertEquals(3, heuristic.calculateHeuristic(new CostState(18)));
+			State[] states = new State[]{new CostState(5), new CostState(10), new CostState(11)};
+			int[] values = new int[3];
+			heuristic.calculateHeuristics(states, 3, values);
+			assertEquals(5, values[0]);
+			assertEquals(10, values[1]);
+			assertEquals(10, values[2]);
+		} finally {
+			//noinspection ResultOfMethodCallIgnored
+			file.delete();
+		}
+	}
+
+	@Test(expected = IOException.class)
+	public void testOpenInvalidFile() throws Exception {
+		File file = File.createTempFile("pattern", ".pdb");
+		try {
+			try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+				randomAccessFile.writeLong(0);
+				randomAccessFile.writeLong(0);
+			}
+			PatternDatabase.open(file);
+		} finally {
+			//noinspection ResultOfMethodCallIgnored
+			file.delete();
+		}
+	}
+
+	private static void checkDatabase(PatternDatabase database, int ring, int size) {
+		assertEquals(size, database.size());
+		for (int i = 0; i < ring; i++) {
+			int distance = Math.min(i, ring - i);
+			assertEquals(Math.min(distance, PatternDatabase.MAXIMUM_DISTANCE), database.get(i));
+		}
+		for (int i = ring; i < size; i++) {
+			assertEquals(PatternDatabase.UNREACHABLE, database.get(i));
+		}
+	}
+
+}
@@ -0,0 +1,227 @@
+package com.livae.util.search.astar;
+
+import com.livae.util.ResourcesFactory;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.util.Collection;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class SearchHandleTest {
+
+	/**
+	 * Endless line of states, the search never finds a goal. The states are created with their
+	 * heuristic, as it is part of their fingerprint.
+	 */
+	private static final Operation[] NEXT = {new Operation() {
+		@Override
+		public void apply(State state, Collection<State> offspring,
+		                  ResourcesFactory<State> factory) {
+			State next = new CostState(state.cost + 1, 1);
+			next.parent = state;
+			offspring.add(next);
+		}
+
+		@Override
+		public String getName() {
+			return "next";
+		}
+	}};
+
+	private static final Heuristic NOT_GOAL = new Heuristic() {
+		@Override
+		public int calculateHeuristic(State state) {
+			return 1;
+		}
+
+		@Override
+		public String getName() {
+			return "not goal";
+		}
+	};
+
+	/**
+	 * Endless line of states whose reverse states are not the same as the states of the line, so
+	 * a bidirectional search never meets.
+	 */
+	private static final Operation[] NEXT_REVERSIBLE = {new ReverseOperation() {
+		@Override
+		public void applyReverse(State state, Collection<State> predecessors,
+		                         ResourcesFactory<State> factory) {
+			State previous = new CostState(state.cost + 1, 2);
+			previous.parent = state;
+			predecessors.add(previous);
+		}
+
+		@Override
+		public void apply(State state, Collection<State> offspring,
+		                  ResourcesFactory<State> factory) {
+			NEXT[0].apply(state, offspring, factory);
+		}
+
+		@Override
+		public String getName() {
+			return "next";
+		}
+	}};
+
+	private static final Heuristic REVERSE_NOT_GOAL = new Heuristic() {
+		@Override
+		public int calculateHeuristic(State state) {
+			return 2;
+		}
+
+		@Override
+		public String getName() {
+			return "reverse not goal";
+		}
+	};
+
+	private static final StateSerializer COST_SERIALIZER = new StateSerializer() {
+		@Override
+		public int getMaximumSize() {
+			return 8;
+		}
+
+		@Override
+		public void write(State state, ByteBuffer buffer) {
+			buffer.putInt(state.cost);
+			buffer.putInt(state.heuristic[0]);
+		}
+
+		@Override
+		public State read(ByteBuffer buffer, ResourcesFactory<State> statesFactory) {
+			return new CostState(buffer.getInt(), buffer.getInt());
+		}
+	};
+
+	private static ResourcesFactory<State> createFactory() {
+		return new ResourcesFactory<State>() {
+			@Override
+			protected State createResource() {
+				return new CostState(0, 0);
+			}
+		};
+	}
+
+	@Test
+	public void testDeadline() throws Exception {
+		SearchHandle handle = new SearchHandle(50, TimeUnit.MILLISECONDS, 16);
+		assertFalse(handle.isStopped());
+		assertEquals(16, handle.getCheckInterval());
+		AstarTree astar = new AstarTree(NEXT, NOT_GOAL, createFactory());
+		assertNull(astar.start(handle, -1, new CostState(0, 1)));
+		assertTrue(handle.isExpired());
+		assertFalse(handle.isCancelled());
+		assertEquals(0, handle.getRemainingTime(TimeUnit.NANOSECONDS));
+		assertEquals(Long.MAX_VALUE, new SearchHandle().getRemainingTime(TimeUnit.SECONDS));
+	}
+
+	@Test
+	public void testCancel() throws Exception {
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			SearchHandle handle = new SearchHandle();
+			AstarTreeThreads astar = new AstarTreeThreads(NEXT, NOT_GOAL, createFactory(), 2);
+			Future<State> future = astar.startAsync(executor, handle, -1, new CostState(0, 1));
+			Thread.sleep(50);
+			assertFalse(future.isDone());
+			assertTrue(future.cancel(false));
+			assertTrue(handle.isCancelled());
+			try {
+				future.get();
+				fail("The search was not cancelled");
+			} catch (CancellationException e) {
+				// expected
+			}
+			// the search stops although the thread is not interrupted
+			executor.shutdown();
+			assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void testCancelEngines() throws Exception {
+		ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+		File directory = File.createTempFile("astar", "");
+		try {
+			SearchHandle handle = cancelLater(scheduler);
+			AstarTreeHashDistributed hashDistributed =
+			  new AstarTreeHashDistributed(NEXT, NOT_GOAL, createFactory(), 2);
+			assertNull(hashDistributed.start(handle, -1, new CostState(0, 1)));
+			assertTrue(handle.isCancelled());
+
+			handle = cancelLater(scheduler);
+			AstarIterativeDeepening iterativeDeepening =
+			  new AstarIterativeDeepening(NEXT, NOT_GOAL, createFactory());
+			assertNull(iterativeDeepening.start(handle, -1, new CostState(0, 1)));
+			assertTrue(handle.isCancelled());
+
+			// it would stop when the line does not fit in memory
+			handle = cancelLater(scheduler);
+			AstarMemoryBounded memoryBounded =
+			  new AstarMemoryBounded(NEXT, NOT_GOAL, createFactory(), Integer.MAX_VALUE);
+			assertNull(memoryBounded.start(handle, -1, new CostState(0, 1)));
+			assertTrue(handle.isCancelled());
+
+			handle = cancelLater(scheduler);
+			AstarBidirectional bidirectional =
+			  new AstarBidirectional(NEXT_REVERSIBLE, NOT_GOAL, REVERSE_NOT_GOAL, createFactory());
+			assertNull(bidirectional.start(handle, -1, new CostState(0, 1), new CostState(0, 2)));
+			assertTrue(handle.isCancelled());
+
+			handle = cancelLater(scheduler);
+			AstarAnytime anytime = new AstarAnytime(NEXT, NOT_GOAL, createFactory(), 2, 0.5);
+			assertNull(anytime.start(handle, -1, new CostState(0, 1)));
+			assertTrue(handle.isCancelled());
+
+			//noinspection ResultOfMethodCallIgnored
+			directory.delete();
+			//noinspection ResultOfMethodCallIgnored
+			directory.mkdir();
+			handle = cancelLater(scheduler);
+			AstarExternalMemory externalMemory =
+			  new AstarExternalMemory(NEXT, NOT_GOAL, createFactory(), COST_SERIALIZER, directory,
+			                          2);
+			try {
+				assertNull(externalMemory.start(handle, -1, new CostState(0, 1)));
+				assertTrue(handle.isCancelled());
+			} finally {
+				externalMemory.close();
+			}
+		} finally {
+			scheduler.shutdownNow();
+			//noinspection ResultOfMethodCallIgnored
+			directory.delete();
+		}
+	}
+
+	/**
+	 * @return a handle cancelled from other thread while the search runs
+	 */
+	private static SearchHandle cancelLater(ScheduledExecutorService scheduler) {
+		final SearchHandle handle = new SearchHandle();
+		scheduler.schedule(new Runnable() {
+			@Override
+			public void run() {
+				handle.cancel();
+			}
+		}, 50, TimeUnit.MILLISECONDS);
+		return handle;
+	}
+
+}
@@ -0,0 +1,239 @@
+package com.livae.util.search.astar;
+
+import com.livae.util.ResourcesFactory;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.Collection;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+public class SearchMetricsTest {
+
+	private static final Operation OPERATION = new Operation() {
+		@Override
+		public void apply(State state, Collection<State> offspring,
+		                  ResourcesFactory<State> factory) {
+		}
+
+		@Override
+		public String getName() {
+			return "operation";
+		}
+	};
+
+	private static final Heuristic HEURISTIC = new Heuristic() {
+		@Override
+		public int calculateHeuristic(State state) {
+			return 0;
+		}
+
+		@Override
+		public String getName() {
+			return "heuristic";
+		}
+	};
+
+	private SlidingPuzzle puzzle = new SlidingPuzzle(3);
+
+	private SlidingPuzzle.Board board = puzzle.scramble(30, 0);
+
+	private LastMetrics listener = new LastMetrics();
+
+	@Test
+	public void testFlush() throws Exception {
+		SearchCounters total = new SearchCounters(1, 1);
+		SearchCounters counters = new SearchCounters(1, 1);
+		for (int i = 0; i < 2; i++) {
+			counters.visitedStates = 10;
+			counters.generatedStatesOperator[0] = 20;
+			counters.timeHeuristics[0] = 30;
+			counters.flush(total);
+		}
+		assertEquals(0, counters.visitedStates);
+		assertEquals(0, counters.generatedStatesOperator[0]);
+		assertEquals(0, counters.timeHeuristics[0]);
+		assertEquals(20, total.visitedStates);
+		assertEquals(40, total.generatedStatesOperator[0]);
+		assertEquals(60, total.timeHeuristics[0]);
+	}
+
+	@Test
+	public void testEstimatedTimes() throws Exception {
+		SearchCounters counters = new SearchCounters(1, 1);
+		counters.visitedStates = 100;
+		counters.sampledStates = 10;
+		counters.generatedStates = 300;
+		counters.timeOperator = 50;
+		counters.timeOperators[0] = 50;
+		counters.timeHeuristics[0] = 7;
+		SearchMetrics metrics = new SearchMetrics(counters, new Operation[]{OPERATION},
+		                                          new Heuristic[]{HEURISTIC}, 2000, 5, -1, 3);
+		assertEquals(100, metrics.getVisitedStates());
+		assertEquals(300, metrics.getGeneratedStates());
+		assertEquals(500, metrics.getTimeOperator());
+		assertArrayEquals(new long[]{500}, metrics.getTimeOperators());
+		assertArrayEquals(new long[]{70}, metrics.getTimeHeuristics());
+		assertArrayEquals(new String[]{"operation"}, metrics.getOperatorNames());
+		assertEquals(50.0, metrics.getVisitedStatesPerSecond(), 0);
+		assertEquals(-1, metrics.getFingerprintCollisions());
+	}
+
+	@Test
+	public void testNoSampledStates() throws Exception {
+		SearchCounters counters = new SearchCounters(1, 1);
+		counters.visitedStates = 100;
+		counters.timeOperator = 50;
+		SearchMetrics metrics = new SearchMetrics(counters, new Operation[]{OPERATION},
+		                                          new Heuristic[]{HEURISTIC}, 0, 0, 0, 0);
+		assertEquals(0, metrics.getTimeOperator());
+		assertEquals(0.0, metrics.getVisitedStatesPerSecond(), 0);
+	}
+
+	@Test
+	public void testTimeExecuting() throws Exception {
+		// the first heuristic calculated takes some time, so the first search is not instantaneous
+		final Heuristic heuristic = puzzle.getHeuristic();
+		Heuristic slowHeuristic = new Heuristic() {
+			private boolean slept;
+
+			@Override
+			public int calculateHeuristic(State state) {
+				if (!slept) {
+					slept = true;
+					try {
+						Thread.sleep(50);
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+				}
+				return heuristic.calculateHeuristic(state);
+			}
+
+			@Override
+			public String getName() {
+				return heuristic.getName();
+			}
+		};
+		AstarTree astar = new AstarTree(puzzle.getOperations(), slowHeuristic,
+		                                puzzle.createFactory());
+		astar.setMetricsListener(listener);
+		assertNotNull(astar.start(-1, -1, board.copy()));
+		long timeExecuting = astar.getMetrics().getTimeExecuting();
+		assertTrue(timeExecuting >= 50);
+		assertEquals(timeExecuting, listener.metrics.getTimeExecuting());
+		// the time does not grow once the algorithm has stopped
+		Thread.sleep(50);
+		assertEquals(timeExecuting, astar.getMetrics().getTimeExecuting());
+		// a new initial state forgets the time of the previous search
+		assertNotNull(astar.start(-1, -1, puzzle.goal()));
+		assertTrue(astar.getMetrics().getTimeExecuting() < timeExecuting);
+	}
+
+	@Test
+	public void testIterativeDeepening() throws Exception {
+		AstarIterativeDeepening astar =
+		  new AstarIterativeDeepening(puzzle.getOperations(), puzzle.getHeuristic(),
+		                              puzzle.createFactory());
+		astar.setMetricsListener(listener);
+		assertNotNull(astar.start(-1, -1, board.copy()));
+		assertMetrics(astar.getMetrics());
+	}
+
+	@Test
+	public void testMemoryBounded() throws Exception {
+		AstarMemoryBounded astar =
+		  new AstarMemoryBounded(puzzle.getOperations(), puzzle.getHeuristic(),
+		                         puzzle.createFactory(), 1000);
+		astar.setMetricsListener(listener);
+		assertNotNull(astar.start(-1, -1, board.copy()));
+		assertMetrics(astar.getMetrics());
+	}
+
+	@Test
+	public void testAnytime() throws Exception {
+		AstarAnytime astar = new AstarAnytime(puzzle.getOperations(), puzzle.getHeuristic(),
+		                                      puzzle.createFactory(), 3, 1);
+		astar.setMetricsListener(listener);
+		assertNotNull(astar.start(-1, -1, board.copy()));
+		while (!astar.isFinished()) {
+			astar.continueAlgorithm(-1, -1);
+		}
+		assertMetrics(astar.getMetrics());
+	}
+
+	@Test
+	public void testBidirectional() throws Exception {
+		AstarBidirectional astar =
+		  new AstarBidirectional(puzzle.getOperations(), puzzle.getHeuristic(),
+		                         puzzle.getHeuristic(board), puzzle.createFactory());
+		astar.setMetricsListener(listener);
+		assertNotNull(astar.start(-1, -1, board.copy(), puzzle.goal()));
+		assertMetrics(astar.getMetrics());
+	}
+
+	@Test
+	public void testHashDistributed() throws Exception {
+		AstarTreeHashDistributed astar =
+		  new AstarTreeHashDistributed(puzzle.getOperations(), puzzle.getHeuristic(),
+		                               puzzle.createFactory(), 2);
+		astar.setMetricsListener(listener);
+		assertNotNull(astar.start(-1, -1, board.copy()));
+		assertMetrics(astar.getMetrics());
+	}
+
+	@Test
+	public void testExternalMemory() throws Exception {
+		File directory = File.createTempFile("astar", "");
+		//noinspection ResultOfMethodCallIgnored
+		directory.delete();
+		//noinspection ResultOfMethodCallIgnored
+		directory.mkdir();
+		AstarExternalMemory astar =
+		  new AstarExternalMemory(puzzle.getOperations(), puzzle.getHeuristic(),
+		                          puzzle.createFactory(), puzzle.getSerializer(), directory, 4);
+		try {
+			astar.setMetricsListener(listener);
+			assertNotNull(astar.start(-1, -1, board.copy()));
+			assertMetrics(astar.getMetrics());
+		} finally {
+			astar.close();
+			//noinspection ResultOfMethodCallIgnored
+			directory.delete();
+		}
+	}
+
+	/**
+	 * Checks the metrics received when the algorithm stops against the ones of the algorithm.
+	 */
+	private void assertMetrics(SearchMetrics metrics) {
+		SearchMetrics last = listener.metrics;
+		assertNotNull(last);
+		assertTrue(last.getVisitedStates() > 0);
+		assertEquals(metrics.getVisitedStates(), last.getVisitedStates());
+		assertEquals(metrics.getTimeExecuting(), last.getTimeExecuting());
+		assertEquals(metrics.getGeneratedStates(), last.getGeneratedStates());
+		assertEquals(metrics.getRepeatedGeneratedStates(), last.getRepeatedGeneratedStates());
+		assertTrue(last.getRepeatedGeneratedStates() <= last.getGeneratedStates());
+		long generated = 0;
+		for (long generatedOperator : last.getGeneratedStatesOperator()) {
+			generated += generatedOperator;
+		}
+		assertEquals(last.getGeneratedStates(), generated);
+		assertEquals(puzzle.getOperations().length, last.getOperatorNames().length);
+	}
+
+	private static class LastMetrics implements SearchMetricsListener {
+
+		private volatile SearchMetrics metrics;
+
+		@Override
+		public void onMetrics(SearchMetrics metrics) {
+			this.metrics = metrics;
+		}
+	}
+
+}
@@ -0,0 +1,470 @@
+package com.livae.util.search.astar;
+
+import com.livae.util.ConcurrentResourcesFactory;
+import com.livae.util.ResourcesFactory;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Random;
+
+/**
+ * Synthetic sliding puzzle (8-puzzle, 15-puzzle, ...) used by the tests and the benchmarks of the
+ * search algorithms. The tiles are stored in a byte array where 0 is the blank, the goal is the
+ * tiles in order with the blank in the last position.
+ */
+public class SlidingPuzzle {
+
+	private final int width;
+
+	private final int heuristics;
+
+	private final Operation[] operations;
+
+	private final Heuristic heuristic;
+
+	public SlidingPuzzle(int width) {
+		this(width, 1);
+	}
+
+	public SlidingPuzzle(int width, int heuristics) {
+		if (width < 2) {
+			throw new IllegalArgumentException("Width should be greater than 1");
+		}
+		this.width = width;
+		this.heuristics = heuristics;
+		this.operations = new Operation[]{new Move(0, -1, "up"), new Move(0, 1, "down"),
+		                                  new Move(-1, 0, "left"), new Move(1, 0, "right")};
+		this.heuristic = new ManhattanDistance(goal());
+	}
+
+	public Operation[] getOperations() {
+		return operations;
+	}
+
+	public Heuristic getHeuristic() {
+		return heuristic;
+	}
+
+	/**
+	 * @return manhattan distance to the target board, used as heuristic of the backward searches
+	 */
+	public Heuristic getHeuristic(Board target) {
+		return new ManhattanDistance(target);
+	}
+
+	/**
+	 * @return pattern with the positions of the given tiles and the blank, the rest of tiles are
+	 * not distinguished
+	 */
+	public Pattern createPattern(int... tiles) {
+		return new TilesPattern(tiles);
+	}
+
+	public Heuristic[] getHeuristics() {
+		Heuristic[] array = new Heuristic[heuristics];
+		for (int i = 0; i < heuristics; i++) {
+			array[i] = heuristic;
+		}
+		return array;
+	}
+
+	/**
+	 * @return serializer which stores the tiles of the boards in one byte each
+	 */
+	public StateSerializer getSerializer() {
+		return new BoardSerializer();
+	}
+
+	public ResourcesFactory<State> createFactory() {
+		return new ResourcesFactory<State>() {
+			@Override
+			protected State createResource() {
+				return new Board(width, heuristics);
+			}
+		};
+	}
+
+	/**
+	 * @return factory which can be used by several threads without locks
+	 */
+	public ResourcesFactory<State> createConcurrentFactory() {
+		return new ConcurrentResourcesFactory<State>() {
+			@Override
+			protected State createResource() {
+				return new Board(width, heuristics);
+			}
+		};
+	}
+
+	/**
+	 * Creates a solvable board doing random moves from the goal.
+	 *
+	 * @param moves
+	 *   number of random moves
+	 * @param seed
+	 *   seed of the random generator, same seed returns same board
+	 * @return the scrambled board
+	 */
+	public Board scramble(int moves, long seed) {
+		Board board = goal();
+		Random random = new Random(seed);
+		int previous = -1;
+		int done = 0;
+		while (done < moves) {
+			int x = board.blank % width;
+			int y = board.blank / width;
+			int direction = random.nextInt(4);
+			int nx = x + (direction == 2 ? -1 : direction == 3 ? 1 : 0);
+			int ny = y + (direction == 0 ? -1 : direction == 1 ? 1 : 0);
+			int position = ny * width + nx;
+			if (nx >= 0 && nx < width && ny >= 0 && ny < width && position != previous) {
+				previous = board.blank;
+				board.tiles[board.blank] = board.tiles[position];
+				board.tiles[position] = 0;
+				board.blank = position;
+				done++;
+			}
+		}
+		return board;
+	}
+
+	/**
+	 * Solves the board with a breadth first search, only for small boards. It is used to check the
+	 * costs of the solutions of the search algorithms.
+	 *
+	 * @return the cost of the optimal solution
+	 */
+	public int solveBreadthFirst(Board board) {
+		Board goal = goal();
+		HashSet<String> visited = new HashSet<>();
+		ArrayDeque<Board> queue = new ArrayDeque<>();
+		Board first = board.copy();
+		first.cost = 0;
+		queue.add(first);
+		visited.add(first.getHash());
+		ArrayList<State> offspring = new ArrayList<>();
+		ResourcesFactory<State> factory = createFactory();
+		while (!queue.isEmpty()) {
+			Board current = queue.poll();
+			if (Arrays.equals(current.tiles, goal.tiles)) {
+				return current.cost;
+			}
+			offspring.clear();
+			for (Operation operation : operations) {
+				operation.apply(current, offspring, factory);
+			}
+			for (State state : offspring) {
+				if (visited.add(state.getHash())) {
+					queue.add((Board) state);
+				}
+			}
+		}
+		throw new IllegalArgumentException("The board has not solution");
+	}
+
+	/**
+	 * Checks the chain of parents of a solution: every board is one move from its parent with one
+	 * more of cost, and the first one is the initial board.
+	 *
+	 * @return true if the solution is the goal and its path is valid
+	 */
+	public boolean isValidPath(State solution, Board initial) {
+		Board goal = goal();
+		Board board = (Board) solution;
+		if (!Arrays.equals(board.tiles, goal.tiles)) {
+			return false;
+		}
+		int steps = 0;
+		while (board.parent != null) {
+			Board parent = (Board) board.parent;
+			int dx = Math.abs(board.blank % width - parent.blank % width);
+			int dy = Math.abs(board.blank / width - parent.blank / width);
+			if (dx + dy != 1 || board.tiles[parent.blank] != parent.tiles[board.blank] ||
+			    board.cost != parent.cost + 1) {
+				return false;
+			}
+			for (int i = 0; i < board.tiles.length; i++) {
+				if (i != board.blank && i != parent.blank && board.tiles[i] != parent.tiles[i]) {
+					return false;
+				}
+			}
+			board = parent;
+			steps++;
+			if (steps > solution.cost) {
+				// the chain has a loop
+				return false;
+			}
+		}
+		return steps == solution.cost && board.cost == 0 && Arrays.equals(board.tiles,
+		                                                                    initial.tiles);
+	}
+
+	/**
+	 * @return the board with the tiles in order
+	 */
+	public Board goal() {
+		Board board = new Board(width, heuristics);
+		int size = width * width;
+		for (int i = 0; i < size - 1; i++) {
+			board.tiles[i] = (byte) (i + 1);
+		}
+		board.tiles[size - 1] = 0;
+		board.blank = size - 1;
+		return board;
+	}
+
+	public class Board extends State {
+
+		private byte[] tiles;
+
+		private int blank;
+
+		private Board(int width, int heuristics) {
+			tiles = new byte[width * width];
+			heuristic = new int[heuristics];
+		}
+
+		public Board copy() {
+			Board board = new Board(width, heuristic.length);
+			System.arraycopy(tiles, 0, board.tiles, 0, tiles.length);
+			board.blank = blank;
+			return board;
+		}
+
+		public int getCost() {
+			return cost;
+		}
+
+		@Override
+		protected String getHash() {
+			char[] chars = new char[tiles.length];
+			for (int i = 0; i < tiles.length; i++) {
+				chars[i] = (char) ('a' + tiles[i]);
+			}
+			return new String(chars);
+		}
+
+		@Override
+		protected long getFingerprint() {
+			if (tiles.length > 16) {
+				return super.getFingerprint();
+			}
+			// up to 16 tiles fit in 4 bits each
+			long fingerprint = 0;
+			for (byte tile : tiles) {
+				fingerprint = (fingerprint << 4) | tile;
+			}
+			return fingerprint;
+		}
+
+		@Override
+		public int compareTo(State o) {
+			int value = cost + heuristic[0];
+			int otherValue = o.cost + o.heuristic[0];
+			if (value != otherValue) {
+				return value < otherValue ? -1 : 1;
+			}
+			return heuristic[0] < o.heuristic[0] ? -1 : (heuristic[0] == o.heuristic[0] ? 0 : 1);
+		}
+
+		@Override
+		public String toString() {
+			StringBuilder sb = new StringBuilder();
+			for (byte tile : tiles) {
+				sb.append(tile).append(' ');
+			}
+			return sb.toString();
+		}
+	}
+
+	private class Move implements Operation {
+
+		private final int dx;
+
+		private final int dy;
+
+		private final String name;
+
+		private Move(int dx, int dy, String name) {
+			this.dx = dx;
+			this.dy = dy;
+			this.name = name;
+		}
+
+		@Override
+		public void apply(State state, Collection<State> offspring,
+		                  ResourcesFactory<State> factory) {
+			Board board = (Board) state;
+			int x = board.blank % width + dx;
+			int y = board.blank / width + dy;
+			if (x >= 0 && x < width && y >= 0 && y < width) {
+				int position = y * width + x;
+				Board child = (Board) factory.getResource();
+				System.arraycopy(board.tiles, 0, child.tiles, 0, board.tiles.length);
+				child.tiles[board.blank] = child.tiles[position];
+				child.tiles[position] = 0;
+				child.blank = position;
+				child.cost = board.cost + 1;
+				child.parent = board;
+				child.operation = this;
+				offspring.add(child);
+			}
+		}
+
+		@Override
+		public String getName() {
+			return name;
+		}
+	}
+
+	private class BoardSerializer implements StateSerializer {
+
+		@Override
+		public int getMaximumSize() {
+			return width * width;
+		}
+
+		@Override
+		public void write(State state, ByteBuffer buffer) {
+			buffer.put(((Board) state).tiles);
+		}
+
+		@Override
+		public State read(ByteBuffer buffer, ResourcesFactory<State> statesFactory) {
+			Board board = (Board) statesFactory.getResource();
+			buffer.get(board.tiles);
+			for (int i = 0; i < board.tiles.length; i++) {
+				if (board.tiles[i] == 0) {
+					board.blank = i;
+				}
+			}
+			return board;
+		}
+	}
+
+	private class ManhattanDistance implements BatchHeuristic {
+
+		private final int[] positions;
+
+		private ManhattanDistance(Board target) {
+			positions = new int[target.tiles.length];
+			for (int i = 0; i < target.tiles.length; i++) {
+				positions[target.tiles[i]] = i;
+			}
+		}
+
+		@Override
+		public int calculateHeuristic(State state) {
+			byte[] tiles = ((Board) state).tiles;
+			int distance = 0;
+			for (int i = 0; i < tiles.length; i++) {
+				int tile = tiles[i];
+				if (tile != 0) {
+					int goal = positions[tile];
+					distance += Math.abs(goal % width - i % width) +
+					            Math.abs(goal / width - i / width);
+				}
+			}
+			return distance;
+		}
+
+		@Override
+		public void calculateHeuristics(State[] states, int size, int[] heuristics) {
+			for (int i = 0; i < size; i++) {
+				heuristics[i] = calculateHeuristic(states[i]);
+			}
+		}
+
+		@Override
+		public String getName() {
+			return "manhattan";
+		}
+	}
+
+	private class TilesPattern implements Pattern {
+
+		private final int[] tiles;
+
+		private final int cells;
+
+		private final long size;
+
+		private TilesPattern(int[] tiles) {
+			this.tiles = tiles;
+			this.cells = width * width;
+			long size = 1;
+			for (int i = 0; i <= tiles.length; i++) {
+				size *= cells;
+			}
+			this.size = size;
+		}
+
+		@Override
+		public long size() {
+			return size;
+		}
+
+		@Override
+		public long rank(State state) {
+			Board board = (Board) state;
+			long rank = board.blank;
+			for (int tile : tiles) {
+				for (int i = 0; i < board.tiles.length; i++) {
+					if (board.tiles[i] == tile) {
+						rank = rank * cells + i;
+						break;
+					}
+				}
+			}
+			return rank;
+		}
+
+		@Override
+		public long[] getGoals() {
+			return new long[]{rank(goal())};
+		}
+
+		@Override
+		public int getMaximumPredecessors() {
+			return 4;
+		}
+
+		@Override
+		public int getPredecessors(long rank, long[] predecessors) {
+			// the moves are reversible, so the predecessors are the offspring
+			int[] positions = new int[tiles.length];
+			long value = rank;
+			for (int i = tiles.length - 1; i >= 0; i--) {
+				positions[i] = (int) (value % cells);
+				value /= cells;
+			}
+			int blank = (int) value;
+			int count = 0;
+			for (Operation operation : operations) {
+				Move move = (Move) operation;
+				int x = blank % width + move.dx;
+				int y = blank / width + move.dy;
+				if (x >= 0 && x < width && y >= 0 && y < width) {
+					int position = y * width + x;
+					long predecessor = position;
+					for (int tilePosition : positions) {
+						predecessor = predecessor * cells +
+						              (tilePosition == position ? blank : tilePosition);
+					}
+					predecessors[count++] = predecessor;
+				}
+			}
+			return count;
+		}
+
+		@Override
+		public String getName() {
+			return "tiles pattern";
+		}
+	}
+
+}
@@ -0,0 +1,206 @@
+package com.livae.util.search.astar;
+
+import com.livae.util.ResourcesFactory;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Collection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+public class StateArenaTest {
+
+	private static class ValueState extends CostState {
+
+		private int value;
+
+		ValueState() {
+			super(0, new int[2]);
+		}
+	}
+
+	private static class ValueSerializer implements StateSerializer {
+
+		@Override
+		public int getMaximumSize() {
+			return 4;
+		}
+
+		@Override
+		public void write(State state, ByteBuffer buffer) {
+			buffer.putInt(((ValueState) state).value);
+		}
+
+		@Override
+		public State read(ByteBuffer buffer, ResourcesFactory<State> statesFactory) {
+			ValueState state = (ValueState) statesFactory.getResource();
+			state.value = buffer.getInt();
+			return state;
+		}
+	}
+
+	private static class NoOperation implements Operation {
+
+		@Override
+		public void apply(State state, Collection<State> offspring,
+		                  ResourcesFactory<State> factory) {
+		}
+
+		@Override
+		public String getName() {
+			return "none";
+		}
+	}
+
+	private static final Operation[] OPERATIONS = {new NoOperation(), new NoOperation()};
+
+	private static final ResourcesFactory<State> FACTORY = new ResourcesFactory<State>() {
+		@Override
+		protected State createResource() {
+			return new ValueState();
+		}
+	};
+
+	private static ValueState createState(int i) {
+		ValueState state = new ValueState();
+		state.value = i * 7;
+		state.cost = i;
+		state.heuristic[0] = i % 13;
+		state.heuristic[1] = -i;
+		state.operation = OPERATIONS[i % 2];
+		return state;
+	}
+
+	@Test
+	public void testAddGet() throws Exception {
+		StateArena arena = new StateArena(OPERATIONS, new ValueSerializer(), 2);
+		assertEquals(28, arena.getRecordSize());
+		// enough states to fill several chunks
+		int states = 100000;
+		for (int i = 0; i < states; i++) {
+			assertEquals(i, arena.add(createState(i), i - 1));
+		}
+		assertEquals(states, arena.size());
+		for (int i = 0; i < states; i++) {
+			ValueState state = (ValueState) arena.get(i, FACTORY);
+			assertEquals(i * 7, state.value);
+			assertEquals(i, state.cost);
+			assertEquals(i % 13, state.heuristic[0]);
+			assertEquals(-i, state.heuristic[1]);
+			assertSame(OPERATIONS[i % 2], state.operation);
+			assertNull(state.parent);
+			assertEquals(i - 1, arena.getParent(i));
+			assertEquals(i, arena.getCost(i));
+			assertEquals(i % 13, arena.getHeuristic(i, 0));
+			FACTORY.releaseResource(state);
+		}
+	}
+
+	@Test
+	public void testPath() throws Exception {
+		StateArena arena = new StateArena(OPERATIONS, new ValueSerializer(), 2);
+		long index = StateArena.NO_PARENT;
+		for (int i = 0; i < 10; i++) {
+			index = arena.add(createState(i), index);
+		}
+		State state = arena.getPath(index, FACTORY);
+		for (int i = 9; i >= 0; i--) {
+			assertEquals(i * 7, ((ValueState) state).value);
+			state = state.parent;
+		}
+		assertNull(state);
+	}
+
+	@Test
+	public void testRemove() throws Exception {
+		StateArena arena = new StateArena(OPERATIONS, new ValueSerializer(), 2);
+		for (int i = 0; i < 10; i++) {
+			arena.add(createState(i), StateArena.NO_PARENT);
+		}
+		arena.remove(3);
+		arena.remove(5);
+		assertEquals(8, arena.size());
+		assertEquals(5, arena.add(createState(50), StateArena.NO_PARENT));
+		assertEquals(3, arena.add(createState(30), StateArena.NO_PARENT));
+		assertEquals(10, arena.add(createState(100), StateArena.NO_PARENT));
+		assertEquals(50 * 7, ((ValueState) arena.get(5, FACTORY)).value);
+		assertEquals(30 * 7, ((ValueState) arena.get(3, FACTORY)).value);
+		long memory = arena.getMemory();
+		arena.clear();
+		assertEquals(0, arena.size());
+		assertEquals(0, arena.add(createState(1), StateArena.NO_PARENT));
+		assertEquals(memory, arena.getMemory());
+	}
+
+	@Test
+	public void testRemovedIndex() throws Exception {
+		StateArena arena = new StateArena(OPERATIONS, new ValueSerializer(), 2);
+		long parent = arena.add(createState(1), StateArena.NO_PARENT);
+		long child = arena.add(createState(2), parent);
+		arena.remove(parent);
+		assertRemoved(arena, parent);
+		// the path of the child goes through the removed record
+		try {
+			arena.getPath(child, FACTORY);
+			fail("Path read through a removed index");
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+		try {
+			arena.add(createState(3), parent);
+			fail("Child of a removed index added");
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+		assertEquals(1, arena.size());
+		// the index can be used again once it is reused
+		assertEquals(parent, arena.add(createState(4), StateArena.NO_PARENT));
+		assertEquals(4, arena.getCost(parent));
+		assertEquals(4, arena.getPath(child, FACTORY).parent.cost);
+	}
+
+	private static void assertRemoved(StateArena arena, long index) {
+		try {
+			arena.remove(index);
+			fail("Removed index removed again");
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+		try {
+			arena.get(index, FACTORY);
+			fail("Removed index read");
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+		try {
+			arena.getParent(index);
+			fail("Parent of a removed index read");
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+		try {
+			arena.getCost(index);
+			fail("Cost of a removed index read");
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void testFactory() throws Exception {
+		StateArena arena = new StateArena(OPERATIONS, new ValueSerializer(), 2);
+		StateArenaFactory factory = new StateArenaFactory(FACTORY, arena);
+		ValueState state = createState(4);
+		long parent = factory.pack(state, StateArena.NO_PARENT);
+		long child = factory.pack(createState(5), parent);
+		// the packed state is reused by the factory
+		State unpacked = factory.unpackPath(child);
+		assertSame(state, unpacked.parent);
+		assertEquals(5 * 7, ((ValueState) unpacked).value);
+		assertEquals(4 * 7, ((ValueState) unpacked.parent).value);
+	}
+
+}
@@ -0,0 +1,38 @@
+package com.livae.util.shape.d3;
+
+import com.livae.util.math.Vector3f;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class AxisAlignedBoundingCuboidTest {
+
+	private static final float DELTA = 0.0001f;
+
+	@Test
+	public void testSetMinMaxPoint() throws Exception {
+		AxisAlignedBoundingCuboid cuboid = new AxisAlignedBoundingCuboid(1, 1, 1, 0, 0, 0);
+		cuboid.setMinMaxPoint(new Vector3f(-2, 1, 3), new Vector3f(4, 5, 11));
+		assertVector(-2, 1, 3, cuboid.getMinPoint());
+		assertVector(4, 5, 11, cuboid.getMaxPoint());
+		assertVector(6, 4, 8, cuboid.getDimensions());
+		assertVector(1, 3, 7, cuboid.getPosition());
+	}
+
+	@Test
+	public void testMove() throws Exception {
+		AxisAlignedBoundingCuboid cuboid = new AxisAlignedBoundingCuboid(2, 4, 6, 1, 1, 1);
+		cuboid.move(1, -2, 3);
+		assertVector(1, -3, 1, cuboid.getMinPoint());
+		assertVector(3, 1, 7, cuboid.getMaxPoint());
+		assertVector(2, 4, 6, cuboid.getDimensions());
+		assertVector(2, -1, 4, cuboid.getPosition());
+	}
+
+	private void assertVector(float x, float y, float z, Vector3f vector) {
+		assertEquals(x, vector.x, DELTA);
+		assertEquals(y, vector.y, DELTA);
+		assertEquals(z, vector.z, DELTA);
+	}
+
+}
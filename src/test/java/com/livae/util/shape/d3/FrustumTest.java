@@ -2,6 +2,7 @@ package com.livae.util.shape.d3;
 
 import org.junit.Test;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.fail;
 
 public class FrustumTest {
@@ -18,7 +19,22 @@ public class FrustumTest {
 
 	@Test
 	public void testContainsAxisAlignedBoundingCuboid() throws Exception {
-		fail();
+		// orthographic frustum from -100 to 100 in every axis
+		float scale = 2 / 200f;
+		Frustum frustum = new Frustum();
+		frustum.extractFrustum(new float[]{scale, 0, 0, 0, 0, scale, 0, 0, 0, 0, scale, 0, 0, 0,
+		                                   0, 1});
+		assertEquals(Frustum.CONTAINS.INSIDE,
+		             frustum.contains(new AxisAlignedBoundingCuboid(10, 10, 10, 50, -50, 0)));
+		assertEquals(Frustum.CONTAINS.OUTSIDE,
+		             frustum.contains(new AxisAlignedBoundingCuboid(10, 10, 10, 150, 0, 0)));
+		assertEquals(Frustum.CONTAINS.OUTSIDE,
+		             frustum.contains(new AxisAlignedBoundingCuboid(10, 10, 10, 0, 0, -150)));
+		assertEquals(Frustum.CONTAINS.INTERSECTION,
+		             frustum.contains(new AxisAlignedBoundingCuboid(10, 10, 10, 0, 100, 0)));
+		// bigger than the frustum in every direction
+		assertEquals(Frustum.CONTAINS.INTERSECTION,
+		             frustum.contains(new AxisAlignedBoundingCuboid(1000, 1000, 1000, 0, 0, 0)));
 	}
 
 	@Test
@@ -0,0 +1,93 @@
+package com.livae.util.tree;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class BtreeCursorTest {
+
+	@Test
+	public void testIteration() throws Exception {
+		for (int nodesPerPage = 3; nodesPerPage < 10; nodesPerPage++) {
+			Random random = new Random(nodesPerPage);
+			Btree<Integer> btree = new Btree<Integer>(nodesPerPage);
+			BtreeCursor<Integer> cursor = btree.getCursor();
+			assertFalse(cursor.first());
+			assertFalse(cursor.last());
+			assertFalse(cursor.seek(0));
+			List<Integer> sorted = new ArrayList<Integer>();
+			for (int i = 0; i < 1000; i++) {
+				// with duplicates
+				Integer value = random.nextInt(500);
+				btree.add(value);
+				sorted.add(value);
+			}
+			Collections.sort(sorted);
+			assertTrue(cursor.first());
+			for (int i = 0; i < sorted.size(); i++) {
+				assertEquals(sorted.get(i), cursor.get());
+				assertEquals(i < sorted.size() - 1, cursor.next());
+			}
+			assertFalse(cursor.isValid());
+			assertTrue(cursor.last());
+			for (int i = sorted.size() - 1; i >= 0; i--) {
+				assertEquals(sorted.get(i), cursor.get());
+				assertEquals(i > 0, cursor.previous());
+			}
+			assertFalse(cursor.isValid());
+			for (int value = -1; value <= 501; value++) {
+				int expected = 0;
+				while (expected < sorted.size() && sorted.get(expected) < value) {
+					expected++;
+				}
+				assertEquals(expected < sorted.size(), cursor.seek(value));
+				if (expected < sorted.size()) {
+					assertEquals(sorted.get(expected), cursor.get());
+					// the first one of the duplicates
+					if (cursor.previous()) {
+						assertTrue(cursor.get() < value);
+					}
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testVisitRange() throws Exception {
+		Btree<Integer> btree = new Btree<Integer>(4);
+		for (int i = 0; i < 1000; i++) {
+			btree.add(i / 2);
+		}
+		final List<Integer> visited = new ArrayList<Integer>();
+		BtreeStoppableVisitor<Integer> visitor = new BtreeStoppableVisitor<Integer>() {
+			@Override
+			public boolean visit(Integer object, int deep) {
+				visited.add(object);
+				return visited.size() < 5;
+			}
+		};
+		btree.visitRange(100, 102, visitor);
+		assertEquals(4, visited.size());
+		assertEquals(100, (int) visited.get(0));
+		assertEquals(101, (int) visited.get(3));
+		visited.clear();
+		btree.visitRange(300, 1000, visitor);
+		assertEquals(5, visited.size());
+		assertEquals(302, (int) visited.get(4));
+		visited.clear();
+		btree.visitRange(600, 1000, visitor);
+		assertTrue(visited.isEmpty());
+		btree.visitInOrderUntil(visitor);
+		assertEquals(5, visited.size());
+		assertEquals(0, (int) visited.get(0));
+		assertEquals(2, (int) visited.get(4));
+	}
+
+}
@@ -0,0 +1,74 @@
+package com.livae.util.tree;
+
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class BtreeMapTest {
+
+	@Test
+	public void testRandomOperations() throws Exception {
+		for (int nodesPerPage = 3; nodesPerPage < 13; nodesPerPage++) {
+			testRandomOperations(nodesPerPage, null);
+			testRandomOperations(nodesPerPage, Collections.<Integer>reverseOrder());
+		}
+	}
+
+	private void testRandomOperations(int nodesPerPage, Comparator<Integer> comparator) {
+		Random random = new Random(nodesPerPage);
+		BtreeMap<Integer, String> map = new BtreeMap<>(comparator, nodesPerPage);
+		TreeMap<Integer, String> expected = new TreeMap<>(comparator);
+		for (int i = 0; i < 5000; i++) {
+			Integer key = random.nextInt(300);
+			int operation = random.nextInt(10);
+			if (operation < 5) {
+				String value = Integer.toString(i);
+				assertEquals(expected.put(key, value), map.put(key, value));
+			} else if (operation < 8) {
+				assertEquals(expected.remove(key), map.remove(key));
+			} else {
+				assertEquals(expected.get(key), map.get(key));
+				assertEquals(expected.containsKey(key), map.containsKey(key));
+				assertEquals(expected.floorKey(key), map.floorKey(key));
+				assertEquals(expected.ceilingKey(key), map.ceilingKey(key));
+				Integer floor = expected.floorKey(key);
+				assertEquals(floor == null ? null : expected.get(floor), map.floorValue(key));
+				Integer ceiling = expected.ceilingKey(key);
+				assertEquals(ceiling == null ? null : expected.get(ceiling), map.ceilingValue(key));
+			}
+			assertEquals(expected.size(), map.getSize());
+			map.checkStructure();
+		}
+		BtreeMap<Integer, String> clone = map.clone();
+		clone.checkStructure();
+		for (Integer key : expected.keySet()) {
+			assertEquals(expected.get(key), clone.remove(key));
+			clone.checkStructure();
+		}
+		assertTrue(clone.isEmpty());
+		assertEquals(expected.size(), map.getSize());
+	}
+
+	@Test
+	public void testNullValues() throws Exception {
+		BtreeMap<String, String> map = new BtreeMap<>();
+		assertNull(map.put("a", null));
+		assertTrue(map.containsKey("a"));
+		assertNull(map.get("a"));
+		assertNull(map.floorKey("0"));
+		assertEquals("a", map.ceilingKey("0"));
+		assertNull(map.ceilingKey("b"));
+		assertEquals(1, map.getSize());
+		map.clear();
+		assertTrue(map.isEmpty());
+		assertTrue(!map.containsKey("a"));
+	}
+
+}
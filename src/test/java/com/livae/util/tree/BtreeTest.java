@@ -4,10 +4,18 @@ import com.livae.util.Tuple;
 import org.junit.Test;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 public class BtreeTest {
 
@@ -97,6 +105,185 @@ public class BtreeTest {
 		}
 	}
 
+	@Test
+	public void testRandomOperations() throws Exception {
+		for (int nodesPerPage = 3; nodesPerPage < 13; nodesPerPage++) {
+			Random random = new Random(nodesPerPage);
+			Btree<Integer> btree = new Btree<Integer>(nodesPerPage);
+			List<Integer> sorted = new ArrayList<Integer>();
+			for (int i = 0; i < 3000; i++) {
+				int operation = random.nextInt(10);
+				if (operation < 5 || sorted.isEmpty()) {
+					// a lot of duplicates
+					Integer value = random.nextInt(100);
+					btree.add(value);
+					int pos = Collections.binarySearch(sorted, value);
+					sorted.add(pos < 0 ? -pos - 1 : pos, value);
+				} else if (operation < 8) {
+					Integer value = sorted.remove(random.nextInt(sorted.size()));
+					btree.remove(value);
+				} else {
+					assertEquals(sorted.remove(0), btree.getFirst());
+				}
+				assertEquals(sorted.size(), btree.getSize());
+				btree.checkStructure();
+			}
+			btree.remove(1000);
+			assertEquals(sorted.size(), btree.getSize());
+			while (!sorted.isEmpty()) {
+				assertEquals(sorted.remove(0), btree.getFirst());
+			}
+			assertTrue(btree.isEmpty());
+			assertNull(btree.getFirst());
+		}
+	}
+
+	@Test
+	public void testFromSorted() throws Exception {
+		for (int nodesPerPage = 3; nodesPerPage < 13; nodesPerPage++) {
+			for (int size = 0; size < 500; size++) {
+				Integer[] sorted = new Integer[size];
+				for (int i = 0; i < size; i++) {
+					// some duplicates
+					sorted[i] = i / 3;
+				}
+				Btree<Integer> btree = Btree.fromSorted(sorted, nodesPerPage, null);
+				assertEquals(size, btree.getSize());
+				btree.checkStructure();
+				// the tree keeps working after the bulk load
+				Random random = new Random(size);
+				for (int i = 0; i < 20; i++) {
+					btree.add(random.nextInt(size + 1));
+					btree.checkStructure();
+				}
+				for (int i = 0; i < size / 2; i++) {
+					btree.remove(random.nextInt(size + 1));
+					btree.checkStructure();
+				}
+			}
+		}
+		ExecutorService executor = Executors.newFixedThreadPool(3);
+		try {
+			Integer[] sorted = new Integer[500000];
+			for (int i = 0; i < sorted.length; i++) {
+				sorted[i] = i;
+			}
+			Btree<Integer> btree = Btree.fromSorted(sorted, 6, executor);
+			btree.checkStructure();
+			for (Integer expected : sorted) {
+				assertEquals(expected, btree.getFirst());
+			}
+		} finally {
+			executor.shutdown();
+		}
+		try {
+			Btree.fromSorted(new Integer[]{1, 3, 2});
+			fail("Unsorted elements accepted");
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void testAddAll() throws Exception {
+		Random random = new Random(0);
+		for (int nodesPerPage = 3; nodesPerPage < 8; nodesPerPage++) {
+			Btree<Integer> btree = new Btree<Integer>(nodesPerPage);
+			List<Integer> sorted = new ArrayList<Integer>();
+			for (int step = 0; step < 40; step++) {
+				// a few elements are added one by one, many merged with the tree
+				Integer[] added = new Integer[random.nextInt(step % 2 == 0 ? 4 : 400)];
+				for (int i = 0; i < added.length; i++) {
+					added[i] = random.nextInt(1000);
+				}
+				Arrays.sort(added);
+				btree.addAll(added);
+				Collections.addAll(sorted, added);
+				Collections.sort(sorted);
+				assertEquals(sorted.size(), btree.getSize());
+				btree.checkStructure();
+			}
+			for (Integer expected : sorted) {
+				assertEquals(expected, btree.getFirst());
+			}
+			assertTrue(btree.isEmpty());
+		}
+	}
+
+	@Test
+	public void testRankSelect() throws Exception {
+		for (int nodesPerPage = 3; nodesPerPage < 8; nodesPerPage++) {
+			Random random = new Random(nodesPerPage);
+			Btree<Integer> btree = new Btree<Integer>(nodesPerPage);
+			List<Integer> sorted = new ArrayList<Integer>();
+			for (int i = 0; i < 3000; i++) {
+				// with duplicates
+				Integer value = random.nextInt(400);
+				int operation = random.nextInt(10);
+				if (operation < 6) {
+					btree.add(value);
+					sorted.add(value);
+					Collections.sort(sorted);
+				} else if (operation < 9) {
+					btree.remove(value);
+					sorted.remove(value);
+				} else if (!sorted.isEmpty()) {
+					assertEquals(sorted.remove(0), btree.getFirst());
+				}
+				btree.checkStructure();
+			}
+			btree.addAll(new Integer[]{100, 200, 300});
+			Collections.addAll(sorted, 100, 200, 300);
+			Collections.sort(sorted);
+			btree.checkStructure();
+			for (int i = 0; i < sorted.size(); i++) {
+				assertEquals(sorted.get(i), btree.select(i));
+			}
+			for (int value = -1; value <= 401; value++) {
+				int expected = 0;
+				while (expected < sorted.size() && sorted.get(expected) < value) {
+					expected++;
+				}
+				assertEquals(expected, btree.rank(value));
+			}
+			assertEquals(btree.rank(300) - btree.rank(100), btree.count(100, 300));
+			assertEquals(0, btree.count(300, 100));
+			try {
+				btree.select(sorted.size());
+				fail("Element selected out of the tree");
+			} catch (IllegalArgumentException e) {
+				// expected
+			}
+		}
+	}
+
+	@Test
+	public void testContains() throws Exception {
+		for (int nodesPerPage = 3; nodesPerPage < 6; nodesPerPage++) {
+			Btree<Integer> btree = new Btree<Integer>(nodesPerPage);
+			List<Integer> added = new ArrayList<Integer>();
+			for (int i = 0; i < 200; i++) {
+				// the elements are compared by identity, so every one is a different instance
+				//noinspection UnnecessaryBoxing
+				Integer value = new Integer(i % 50);
+				btree.add(value);
+				added.add(value);
+				BtreePage<Integer> root = btree.getRoot();
+				for (Integer element : added) {
+					assertTrue(root.contains(element));
+				}
+				//noinspection UnnecessaryBoxing
+				assertFalse(root.contains(new Integer(i % 50)));
+				assertFalse(root.contains(1000));
+			}
+			for (Integer element : added) {
+				btree.remove(element);
+				btree.checkStructure();
+			}
+			assertTrue(btree.isEmpty());
+		}
+	}
+
 	private Btree<Integer> createFullTree(int levels, int nodesPerPage) {
 		Btree<Integer> tree = new Btree<>(nodesPerPage);
 		Tuple<BtreePage<Integer>, Integer> root = createFullTree(tree, levels, nodesPerPage, 1);
@@ -0,0 +1,195 @@
+package com.livae.util.tree;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ConcurrentBtreeTest {
+
+	private static final int THREADS = 4;
+
+	@Test
+	public void testAddRemove() throws Exception {
+		for (int nodesPerPage = 3; nodesPerPage < 8; nodesPerPage++) {
+			Random random = new Random(nodesPerPage);
+			ConcurrentBtree<Integer> btree = new ConcurrentBtree<Integer>(nodesPerPage);
+			List<Integer> sorted = new ArrayList<Integer>();
+			assertNull(btree.peekFirst());
+			assertNull(btree.getFirst());
+			for (int i = 0; i < 3000; i++) {
+				// with duplicates
+				Integer value = random.nextInt(400);
+				int operation = random.nextInt(10);
+				if (operation < 6) {
+					btree.add(value);
+					sorted.add(value);
+					Collections.sort(sorted);
+				} else if (operation < 9) {
+					assertEquals(sorted.remove(value), btree.remove(value));
+				} else {
+					assertEquals(sorted.contains(value), btree.contains(value));
+					if (!sorted.isEmpty()) {
+						assertEquals(sorted.get(0), btree.peekFirst());
+						assertEquals(sorted.remove(0), btree.getFirst());
+					}
+				}
+				btree.checkStructure();
+			}
+			assertEquals(sorted, toList(btree));
+			while (!sorted.isEmpty()) {
+				assertEquals(sorted.remove(0), btree.getFirst());
+			}
+			assertTrue(btree.isEmpty());
+			assertNull(btree.getFirst());
+		}
+	}
+
+	@Test
+	public void testConcurrentAdd() throws Exception {
+		final ConcurrentBtree<Integer> btree = new ConcurrentBtree<Integer>(4);
+		final List<Integer> added = Collections.synchronizedList(new ArrayList<Integer>());
+		final AtomicInteger errors = new AtomicInteger();
+		runThreads(new Runnable() {
+			@Override
+			public void run() {
+				Random random = new Random(Thread.currentThread().getId());
+				for (int i = 0; i < 20000; i++) {
+					// with duplicates between the threads
+					Integer value = random.nextInt(50000);
+					btree.add(value);
+					added.add(value);
+					if (!btree.contains(value)) {
+						errors.incrementAndGet();
+					}
+				}
+			}
+		});
+		assertEquals(0, errors.get());
+		btree.checkStructure();
+		Collections.sort(added);
+		assertEquals(added.size(), btree.getSize());
+		assertEquals(added, toList(btree));
+	}
+
+	@Test
+	public void testConcurrentRemove() throws Exception {
+		final ConcurrentBtree<Integer> btree = new ConcurrentBtree<Integer>(5);
+		for (int i = 0; i < 40000; i++) {
+			btree.add(i % 20000);
+		}
+		final AtomicInteger next = new AtomicInteger();
+		final AtomicInteger removed = new AtomicInteger();
+		runThreads(new Runnable() {
+			@Override
+			public void run() {
+				int value;
+				while ((value = next.getAndIncrement()) < 20000) {
+					// the first elements can be taken by other threads before they are removed
+					btree.add(20000 + value);
+					if (btree.remove(value)) {
+						removed.incrementAndGet();
+					}
+					if (btree.getFirst() != null) {
+						removed.incrementAndGet();
+					}
+				}
+			}
+		});
+		btree.checkStructure();
+		assertEquals(60000 - removed.get(), btree.getSize());
+		assertEquals(btree.getSize(), toList(btree).size());
+		assertFalse(btree.contains(0));
+	}
+
+	@Test(timeout = 10000)
+	public void testDrain() throws Exception {
+		// the emptied leaves are unlinked, the next elements are not behind all of them
+		ConcurrentBtree<Integer> btree = new ConcurrentBtree<Integer>(3);
+		for (int i = 0; i < 200000; i++) {
+			btree.add(i);
+		}
+		for (int i = 0; i < 200000; i++) {
+			assertEquals(Integer.valueOf(i), btree.peekFirst());
+			assertEquals(Integer.valueOf(i), btree.getFirst());
+		}
+		btree.checkStructure();
+		assertTrue(btree.isEmpty());
+		assertNull(btree.peekFirst());
+		assertNull(btree.getFirst());
+		// a queue, the elements are added at the end and taken from the beginning
+		for (int i = 0; i < 200000; i++) {
+			btree.add(i);
+			btree.add(i + 1000);
+			assertEquals(Integer.valueOf(i), btree.getFirst());
+			assertTrue(btree.remove(i + 1000));
+		}
+		btree.checkStructure();
+		assertTrue(btree.isEmpty());
+	}
+
+	@Test(timeout = 20000)
+	public void testConcurrentDrain() throws Exception {
+		final ConcurrentBtree<Integer> btree = new ConcurrentBtree<Integer>(3);
+		for (int i = 0; i < 100000; i++) {
+			btree.add(i);
+		}
+		final AtomicInteger next = new AtomicInteger(100000);
+		final List<Integer> taken = Collections.synchronizedList(new ArrayList<Integer>());
+		runThreads(new Runnable() {
+			@Override
+			public void run() {
+				Random random = new Random(Thread.currentThread().getId());
+				for (int i = 0; i < 50000; i++) {
+					if (random.nextBoolean()) {
+						// lower elements too, in the leaves which are unlinked meanwhile
+						btree.add(random.nextInt(next.getAndIncrement()));
+					}
+					Integer first = btree.getFirst();
+					if (first != null) {
+						taken.add(first);
+					}
+				}
+			}
+		});
+		btree.checkStructure();
+		Integer first;
+		while ((first = btree.getFirst()) != null) {
+			taken.add(first);
+		}
+		assertEquals(next.get(), taken.size());
+		btree.checkStructure();
+	}
+
+	private void runThreads(Runnable runnable) throws InterruptedException {
+		Thread[] threads = new Thread[THREADS];
+		for (int i = 0; i < threads.length; i++) {
+			threads[i] = new Thread(runnable);
+			threads[i].start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+	}
+
+	private List<Integer> toList(ConcurrentBtree<Integer> btree) {
+		final List<Integer> list = new ArrayList<Integer>();
+		btree.visitInOrderUntil(new BtreeStoppableVisitor<Integer>() {
+			@Override
+			public boolean visit(Integer object, int deep) {
+				list.add(object);
+				return true;
+			}
+		});
+		return list;
+	}
+
+}
@@ -1,14 +1,52 @@
 package com.livae.util.tree;
 
+import com.livae.util.shape.d3.AxisAlignedBoundingCuboid;
+import com.livae.util.shape.d3.Frustum;
+import com.livae.util.shape.d3.Intersectable;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.fail;
 
 public class OctreeTest {
 
-	@Test
+	private static final float WORLD_SIZE = 1000f;
+
+	@Test(timeout = 10000)
 	public void testAddRemoveElements() throws Exception {
-		fail();
+		Octree<Box> octree = new Octree<Box>();
+		List<Box> boxes = new ArrayList<Box>();
+		// the root grows in every direction, first to the negative side
+		float[] positions = {0, -300, 300, -3000, 3000};
+		for (float x : positions) {
+			for (float y : positions) {
+				for (float z : positions) {
+					Box box = new Box(x, y, z);
+					octree.add(box);
+					boxes.add(box);
+				}
+			}
+		}
+		Frustum frustum = createFrustum(10 * WORLD_SIZE);
+		assertCulling(boxes, octree, frustum);
+		for (int i = 0; i < boxes.size(); i += 2) {
+			octree.remove(boxes.get(i));
+		}
+		List<Box> kept = new ArrayList<Box>();
+		for (int i = 1; i < boxes.size(); i += 2) {
+			kept.add(boxes.get(i));
+		}
+		assertCulling(kept, octree, frustum);
+		for (Box box : kept) {
+			octree.remove(box);
+		}
+		assertCulling(new ArrayList<Box>(), octree, frustum);
 	}
 
 	@Test
@@ -16,14 +54,90 @@ public class OctreeTest {
 		fail();
 	}
 
-	@Test
+	@Test(timeout = 10000)
 	public void testMovedObject() throws Exception {
-		fail();
+		Random random = new Random(0);
+		Octree<Box> octree = new Octree<Box>();
+		List<Box> boxes = createBoxes(random, 500);
+		for (Box box : boxes) {
+			octree.add(box);
+		}
+		Frustum frustum = createFrustum(WORLD_SIZE / 2);
+		for (int round = 0; round < 10; round++) {
+			for (Box box : boxes) {
+				float movement = round % 2 == 0 ? 0.1f : 50f;
+				box.getAxisAlignedBoundingCuboid().move((random.nextFloat() - 0.5f) * movement,
+				                                        (random.nextFloat() - 0.5f) * movement,
+				                                        (random.nextFloat() - 0.5f) * movement);
+				octree.movedObject(box);
+			}
+			assertCulling(boxes, octree, frustum);
+		}
+		// the tracked nodes are still right, so all the elements are removed
+		for (Box box : boxes) {
+			octree.remove(box);
+		}
+		assertCulling(new ArrayList<Box>(), octree, createFrustum(10 * WORLD_SIZE));
 	}
 
 	@Test
 	public void testFrustumCulling() throws Exception {
-		fail();
+		Octree<Box> octree = new Octree<Box>();
+		List<Box> boxes = createBoxes(new Random(1), 2000);
+		for (Box box : boxes) {
+			octree.add(box);
+		}
+		assertCulling(boxes, octree, createFrustum(WORLD_SIZE / 5));
+		assertCulling(boxes, octree, createFrustum(WORLD_SIZE / 2));
+		assertCulling(boxes, octree, createFrustum(2 * WORLD_SIZE));
+	}
+
+	private List<Box> createBoxes(Random random, int size) {
+		List<Box> boxes = new ArrayList<Box>();
+		for (int i = 0; i < size; i++) {
+			boxes.add(new Box(random.nextFloat() * WORLD_SIZE - WORLD_SIZE / 2,
+			                  random.nextFloat() * WORLD_SIZE - WORLD_SIZE / 2,
+			                  random.nextFloat() * WORLD_SIZE - WORLD_SIZE / 2));
+		}
+		return boxes;
+	}
+
+	/**
+	 * @return an orthographic frustum centered in the origin
+	 */
+	private Frustum createFrustum(float size) {
+		float scale = 2 / size;
+		Frustum frustum = new Frustum();
+		frustum.extractFrustum(new float[]{scale, 0, 0, 0, 0, scale, 0, 0, 0, 0, scale, 0, 0, 0,
+		                                   0, 1});
+		return frustum;
+	}
+
+	private void assertCulling(List<Box> boxes, Octree<Box> octree, Frustum frustum) {
+		Set<Box> expected = new HashSet<Box>();
+		for (Box box : boxes) {
+			if (frustum.contains(box.getAxisAlignedBoundingCuboid()) != Frustum.CONTAINS.OUTSIDE) {
+				expected.add(box);
+			}
+		}
+		List<Box> culled = new ArrayList<Box>();
+		octree.frustumCulling(frustum, culled);
+		assertEquals(culled.size(), new HashSet<Box>(culled).size());
+		assertEquals(expected, new HashSet<Box>(culled));
+	}
+
+	private static class Box implements Intersectable {
+
+		private AxisAlignedBoundingCuboid cuboid;
+
+		private Box(float x, float y, float z) {
+			cuboid = new AxisAlignedBoundingCuboid(1, 1, 1, x, y, z);
+		}
+
+		@Override
+		public AxisAlignedBoundingCuboid getAxisAlignedBoundingCuboid() {
+			return cuboid;
+		}
 	}
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,292 @@
+package com.livae.util.tree;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests of {@link LongBtree}, {@link IntBtree} and {@link DoubleBtree} through the same helper,
+ * the elements are small integers which all of them keep exactly.
+ */
+public class PrimitiveBtreeTest {
+
+	@Test
+	public void testRandomOperations() throws Exception {
+		for (Type type : Type.values()) {
+			for (int nodesPerPage = 3; nodesPerPage < 13; nodesPerPage++) {
+				testRandomOperations(type, nodesPerPage);
+			}
+		}
+	}
+
+	@Test
+	public void testFromSorted() throws Exception {
+		for (Type type : Type.values()) {
+			for (int nodesPerPage = 3; nodesPerPage < 8; nodesPerPage++) {
+				for (int size = 0; size < 200; size++) {
+					int[] sorted = new int[size];
+					for (int i = 0; i < size; i++) {
+						sorted[i] = i / 2;
+					}
+					PrimitiveBtree btree = type.fromSorted(sorted, nodesPerPage);
+					assertEquals(size, btree.getSize());
+					btree.checkStructure();
+					btree.addAll(sorted);
+					btree.checkStructure();
+					for (int i = 0; i < size * 2; i++) {
+						assertEquals(type.name(), i / 4, btree.getFirst());
+					}
+				}
+			}
+		}
+	}
+
+	private void testRandomOperations(Type type, int nodesPerPage) {
+		Random random = new Random(nodesPerPage);
+		PrimitiveBtree btree = type.create(nodesPerPage);
+		List<Integer> sorted = new ArrayList<Integer>();
+		for (int i = 0; i < 3000; i++) {
+			int operation = random.nextInt(10);
+			if (operation < 5 || sorted.isEmpty()) {
+				// a lot of duplicates
+				int value = random.nextInt(100);
+				btree.add(value);
+				int pos = Collections.binarySearch(sorted, value);
+				sorted.add(pos < 0 ? -pos - 1 : pos, value);
+			} else if (operation < 8) {
+				int value = sorted.remove(random.nextInt(sorted.size()));
+				btree.remove(value);
+			} else {
+				assertEquals(type.name(), (int) sorted.remove(0), btree.getFirst());
+			}
+			assertEquals(sorted.size(), btree.getSize());
+			btree.checkStructure();
+		}
+		btree.remove(1000);
+		assertEquals(sorted.size(), btree.getSize());
+		PrimitiveBtree clone = btree.copy();
+		clone.checkStructure();
+		while (!sorted.isEmpty()) {
+			assertEquals(type.name(), (int) sorted.get(0), clone.peekFirst());
+			assertEquals(type.name(), (int) sorted.remove(0), clone.getFirst());
+		}
+		assertTrue(clone.isEmpty());
+		try {
+			clone.getFirst();
+			fail("Got an element from an empty tree");
+		} catch (NoSuchElementException e) {
+			// expected
+		}
+	}
+
+	private enum Type {
+		LONG, INT, DOUBLE;
+
+		private PrimitiveBtree create(int nodesPerPage) {
+			switch (this) {
+				case LONG:
+					return new LongTree(new LongBtree(nodesPerPage));
+				case INT:
+					return new IntTree(new IntBtree(nodesPerPage));
+				default:
+					return new DoubleTree(new DoubleBtree(nodesPerPage));
+			}
+		}
+
+		private PrimitiveBtree fromSorted(int[] sorted, int nodesPerPage) {
+			switch (this) {
+				case LONG:
+					return new LongTree(LongBtree.fromSorted(toLong(sorted), nodesPerPage, null));
+				case INT:
+					return new IntTree(IntBtree.fromSorted(sorted.clone(), nodesPerPage, null));
+				default:
+					return new DoubleTree(DoubleBtree.fromSorted(toDouble(sorted), nodesPerPage,
+					                                             null));
+			}
+		}
+	}
+
+	private static long[] toLong(int[] values) {
+		long[] converted = new long[values.length];
+		for (int i = 0; i < values.length; i++) {
+			converted[i] = values[i];
+		}
+		return converted;
+	}
+
+	private static double[] toDouble(int[] values) {
+		double[] converted = new double[values.length];
+		for (int i = 0; i < values.length; i++) {
+			converted[i] = values[i];
+		}
+		return converted;
+	}
+
+	/**
+	 * Operations of the trees with the elements as ints.
+	 */
+	private interface PrimitiveBtree {
+
+		void add(int value);
+
+		void addAll(int[] sorted);
+
+		void remove(int value);
+
+		int getFirst();
+
+		int peekFirst();
+
+		long getSize();
+
+		boolean isEmpty();
+
+		void checkStructure();
+
+		PrimitiveBtree copy();
+	}
+
+	private static class LongTree implements PrimitiveBtree {
+
+		private final LongBtree btree;
+
+		private LongTree(LongBtree btree) {
+			this.btree = btree;
+		}
+
+		public void add(int value) {
+			btree.add(value);
+		}
+
+		public void addAll(int[] sorted) {
+			btree.addAll(toLong(sorted));
+		}
+
+		public void remove(int value) {
+			btree.remove(value);
+		}
+
+		public int getFirst() {
+			return (int) btree.getFirst();
+		}
+
+		public int peekFirst() {
+			return (int) btree.peekFirst();
+		}
+
+		public long getSize() {
+			return btree.getSize();
+		}
+
+		public boolean isEmpty() {
+			return btree.isEmpty();
+		}
+
+		public void checkStructure() {
+			btree.checkStructure();
+		}
+
+		public PrimitiveBtree copy() {
+			return new LongTree(btree.clone());
+		}
+	}
+
+	private static class IntTree implements PrimitiveBtree {
+
+		private final IntBtree btree;
+
+		private IntTree(IntBtree btree) {
+			this.btree = btree;
+		}
+
+		public void add(int value) {
+			btree.add(value);
+		}
+
+		public void addAll(int[] sorted) {
+			btree.addAll(sorted);
+		}
+
+		public void remove(int value) {
+			btree.remove(value);
+		}
+
+		public int getFirst() {
+			return btree.getFirst();
+		}
+
+		public int peekFirst() {
+			return btree.peekFirst();
+		}
+
+		public long getSize() {
+			return btree.getSize();
+		}
+
+		public boolean isEmpty() {
+			return btree.isEmpty();
+		}
+
+		public void checkStructure() {
+			btree.checkStructure();
+		}
+
+		public PrimitiveBtree copy() {
+			return new IntTree(btree.clone());
+		}
+	}
+
+	private static class DoubleTree implements PrimitiveBtree {
+
+		private final DoubleBtree btree;
+
+		private DoubleTree(DoubleBtree btree) {
+			this.btree = btree;
+		}
+
+		public void add(int value) {
+			btree.add(value);
+		}
+
+		public void addAll(int[] sorted) {
+			btree.addAll(toDouble(sorted));
+		}
+
+		public void remove(int value) {
+			btree.remove(value);
+		}
+
+		public int getFirst() {
+			return (int) btree.getFirst();
+		}
+
+		public int peekFirst() {
+			return (int) btree.peekFirst();
+		}
+
+		public long getSize() {
+			return btree.getSize();
+		}
+
+		public boolean isEmpty() {
+			return btree.isEmpty();
+		}
+
+		public void checkStructure() {
+			btree.checkStructure();
+		}
+
+		public PrimitiveBtree copy() {
+			return new DoubleTree(btree.clone());
+		}
+	}
+
+}